@@ -22,7 +22,9 @@ export cp=`${findCmd} ${basedir}/lib/ -name "*.jar" | awk -v basedir=${basedir}
 if [ -s "${trainingFile}" -a -s "$evaluationFile" -a -s "$config_template" ]; then
   # generate config
   export n=`cat $trainingFile | wc -l`
-  echo -e "ITERATIONS ${iter}\nNETWORK_SIZE ${n}\nTRAINING_DATABASE $trainingFile\nEVALUATION_DATABASE $evaluationFile" | ${dir}/generate_config.sh $config_template > ${out_dir}/config.txt
+  # the dimension is the largest feature index + 1 (used by the compact learner)
+  export dimension=`cat $trainingFile $evaluationFile | awk '{for (i=2; i<=NF; i++) {split($i, f, ":"); if (f[1]+0 > d) {d=f[1]+0;}}}END{print d+1}'`
+  echo -e "ITERATIONS ${iter}\nNETWORK_SIZE ${n}\nDIMENSION ${dimension}\nTRAINING_DATABASE $trainingFile\nEVALUATION_DATABASE $evaluationFile" | ${dir}/generate_config.sh $config_template > ${out_dir}/config.txt
   
   # run simulation
   nice -n 19 java -Xmx${mem} -cp ${cp} peersim.Simulator ${out_dir}/config.txt | tee ${out_dir}/raw_output.txt
@@ -0,0 +1,335 @@
+package gossipLearning;
+
+import gossipLearning.utils.SparseVector;
+
+import java.util.Vector;
+
+/**
+ * This class stores instances and the corresponding class labels in compressed sparse
+ * row (CSR) like format. The indices and the values of all instances are stored in two
+ * flat arrays, each instance is addressed by the position of its first value and by its
+ * size, and the class labels are stored in a double array. So an instance needs 12 bytes
+ * for each of its non 0 values plus 16 bytes. <br/>
+ * The getInstance method returns a read-only SparseVector view of the stored instance
+ * without copying its values. The view copies the values before its first modification,
+ * hence the stored instances can be changed only through setInstance. <br/>
+ * The stored values are never overwritten, the new and the replaced instances are
+ * appended to the end of the arrays and the space of the removed and replaced instances
+ * is freed by compaction into new arrays, so the views that were returned earlier
+ * remain valid.
+ */
+public class CSRInstanceHolder extends InstanceHolder {
+  private static final long serialVersionUID = -1848419203862853245L;
+
+  private static final int defaultCapacity = 16;
+  private static final double growFactor = 1.5;
+
+  private int size;
+  /** @hidden */
+  private int[] rowStarts;
+  /** @hidden */
+  private int[] rowSizes;
+  /** @hidden */
+  private double[] labels;
+  /** @hidden */
+  private int[] indices;
+  /** @hidden */
+  private double[] values;
+  /**
+   * The number of used positions of the indices and values arrays.
+   */
+  private int numberOfValues;
+  /**
+   * The number of values that belong to the stored instances.
+   */
+  private int numberOfStoredValues;
+
+  /**
+   * Constructs and initializes a new CSRInstanceHolder object.
+   */
+  public CSRInstanceHolder(int numberOfClasses, int numberOfFeatures) {
+    super(numberOfClasses, numberOfFeatures);
+    size = 0;
+    rowStarts = new int[defaultCapacity];
+    rowSizes = new int[defaultCapacity];
+    labels = new double[defaultCapacity];
+    indices = new int[defaultCapacity];
+    values = new double[defaultCapacity];
+    numberOfValues = 0;
+    numberOfStoredValues = 0;
+  }
+
+  /**
+   * Constructs a CSRInstanceHolder that contains the instances and labels of the specified
+   * holder with the specified number of classes and features. If the specified holder is
+   * a CSRInstanceHolder the arrays are not copied, so the specified holder should not be
+   * modified after calling this constructor.
+   *
+   * @param holder instances and labels to store
+   * @param numberOfClasses number of classes (0 - clustering, N - classification, Integer.MAX_VALUE - regression)
+   * @param numberOfFeatures number of features
+   */
+  public CSRInstanceHolder(InstanceHolder holder, int numberOfClasses, int numberOfFeatures) {
+    super(numberOfClasses, numberOfFeatures);
+    if (holder instanceof CSRInstanceHolder) {
+      CSRInstanceHolder a = (CSRInstanceHolder)holder;
+      size = a.size;
+      rowStarts = a.rowStarts;
+      rowSizes = a.rowSizes;
+      labels = a.labels;
+      indices = a.indices;
+      values = a.values;
+      numberOfValues = a.numberOfValues;
+      numberOfStoredValues = a.numberOfStoredValues;
+    } else {
+      int numberOfValues = 0;
+      for (int i = 0; i < holder.size(); i++) {
+        numberOfValues += holder.getInstance(i).size();
+      }
+      size = 0;
+      rowStarts = new int[Math.max(holder.size(), defaultCapacity)];
+      rowSizes = new int[rowStarts.length];
+      labels = new double[rowStarts.length];
+      indices = new int[Math.max(numberOfValues, defaultCapacity)];
+      values = new double[indices.length];
+      for (int i = 0; i < holder.size(); i++) {
+        add(holder.getInstance(i), holder.getLabel(i));
+      }
+    }
+  }
+
+  /**
+   * Constructs a CSRInstanceHolder from the specified arrays without copying them. The
+   * instances are stored one after the other in the indices and values arrays, the i-th
+   * instance has rowSizes[i] values and its label is labels[i].
+   *
+   * @param rowSizes number of values of the instances
+   * @param labels class labels
+   * @param indices indices of the values of the instances
+   * @param values values of the instances
+   * @param numberOfClasses number of classes (0 - clustering, N - classification, Integer.MAX_VALUE - regression)
+   * @param numberOfFeatures number of features
+   */
+  public CSRInstanceHolder(int[] rowSizes, double[] labels, int[] indices, double[] values, int numberOfClasses, int numberOfFeatures) {
+    super(numberOfClasses, numberOfFeatures);
+    size = rowSizes.length;
+    this.rowSizes = rowSizes;
+    this.labels = labels;
+    this.indices = indices;
+    this.values = values;
+    rowStarts = new int[size];
+    numberOfValues = 0;
+    for (int i = 0; i < size; i++) {
+      rowStarts[i] = numberOfValues;
+      numberOfValues += rowSizes[i];
+    }
+    numberOfStoredValues = numberOfValues;
+  }
+
+  /**
+   * Copy constructor.
+   */
+  private CSRInstanceHolder(CSRInstanceHolder a) {
+    super(a.getNumberOfClasses(), a.getNumberOfFeatures());
+    size = a.size;
+    rowStarts = a.rowStarts.clone();
+    rowSizes = a.rowSizes.clone();
+    labels = a.labels.clone();
+    indices = a.indices.clone();
+    values = a.values.clone();
+    numberOfValues = a.numberOfValues;
+    numberOfStoredValues = a.numberOfStoredValues;
+  }
+
+  public Object clone() {
+    return new CSRInstanceHolder(this);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns views of the stored instances as a Vector<SparseVector>.
+   * @return the Vector of the stored instances.
+   */
+  @Override
+  protected Vector<SparseVector> getInstances() {
+    Vector<SparseVector> instances = new Vector<SparseVector>(size);
+    for (int i = 0; i < size; i++) {
+      instances.add(getInstance(i));
+    }
+    return instances;
+  }
+
+  /**
+   * Returns a copy of the stored labels as a Vector<Double>.
+   * @return the Vector of labels correspond to the stored instances.
+   */
+  @Override
+  protected Vector<Double> getLabels() {
+    Vector<Double> labels = new Vector<Double>(size);
+    for (int i = 0; i < size; i++) {
+      labels.add(this.labels[i]);
+    }
+    return labels;
+  }
+
+  /**
+   * Returns a read-only view of the stored instance at the specified position.
+   * @param index index of the instance to return
+   * @return instance at the specified position
+   */
+  @Override
+  public SparseVector getInstance(int index) {
+    checkIndex(index);
+    return new SparseVector(indices, values, rowStarts[index], rowSizes[index]);
+  }
+
+  /**
+   * Replaces the instance in the container at the specified position with the specified
+   * instance. The non 0 values of the specified instance are copied.
+   * @param index index of the instance to replace
+   * @param instance instance to be stored at the specified position
+   */
+  @Override
+  public void setInstance(int index, SparseVector instance) {
+    checkIndex(index);
+    numberOfStoredValues -= rowSizes[index];
+    // the old values of the instance are not kept by a reallocation
+    rowSizes[index] = 0;
+    int instanceSize = append(instance);
+    rowStarts[index] = numberOfValues - instanceSize;
+    rowSizes[index] = instanceSize;
+    compactIfNecessary();
+  }
+
+  @Override
+  public double getLabel(int index) {
+    checkIndex(index);
+    return labels[index];
+  }
+
+  @Override
+  public void setLabel(int index, double label) {
+    checkIndex(index);
+    labels[index] = label;
+  }
+
+  /**
+   * Adds the specified instance and corresponding label to the container. The non 0
+   * values of the specified instance are copied.
+   * @param instance instances to be added
+   * @param label label to be added
+   * @return true
+   */
+  @Override
+  public boolean add(SparseVector instance, double label) {
+    if (size == rowStarts.length) {
+      int capacity = (int)(rowStarts.length * growFactor) + 1;
+      int[] newRowStarts = new int[capacity];
+      int[] newRowSizes = new int[capacity];
+      double[] newLabels = new double[capacity];
+      System.arraycopy(rowStarts, 0, newRowStarts, 0, size);
+      System.arraycopy(rowSizes, 0, newRowSizes, 0, size);
+      System.arraycopy(labels, 0, newLabels, 0, size);
+      rowStarts = newRowStarts;
+      rowSizes = newRowSizes;
+      labels = newLabels;
+    }
+    int instanceSize = append(instance);
+    rowStarts[size] = numberOfValues - instanceSize;
+    rowSizes[size] = instanceSize;
+    labels[size] = label;
+    size ++;
+    return true;
+  }
+
+  @Override
+  public void remove(int index) {
+    checkIndex(index);
+    numberOfStoredValues -= rowSizes[index];
+    System.arraycopy(rowStarts, index + 1, rowStarts, index, size - index - 1);
+    System.arraycopy(rowSizes, index + 1, rowSizes, index, size - index - 1);
+    System.arraycopy(labels, index + 1, labels, index, size - index - 1);
+    size --;
+    compactIfNecessary();
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    // new arrays are allocated, since the views can refer to the old ones
+    rowStarts = new int[defaultCapacity];
+    rowSizes = new int[defaultCapacity];
+    labels = new double[defaultCapacity];
+    indices = new int[defaultCapacity];
+    values = new double[defaultCapacity];
+    numberOfValues = 0;
+    numberOfStoredValues = 0;
+  }
+
+  /**
+   * Throws exception if the specified index is out of the range of the stored instances.
+   * @param index index to check
+   */
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+  }
+
+  /**
+   * Appends the non 0 values of the specified instance to the end of the arrays.
+   * @param instance instance to append
+   * @return the number of the appended values
+   */
+  private int append(SparseVector instance) {
+    int instanceSize = instance.size();
+    if (numberOfValues + instanceSize > indices.length) {
+      reallocate(Math.max((int)(indices.length * growFactor), numberOfValues + instanceSize));
+    }
+    int start = numberOfValues;
+    for (int i = 0; i < instanceSize; i++) {
+      double value = instance.valueAt(i);
+      if (value != 0.0) {
+        indices[numberOfValues] = instance.indexAt(i);
+        values[numberOfValues] = value;
+        numberOfValues ++;
+      }
+    }
+    numberOfStoredValues += numberOfValues - start;
+    return numberOfValues - start;
+  }
+
+  /**
+   * Frees the space of the removed and replaced instances if it takes more than the half
+   * of the arrays.
+   */
+  private void compactIfNecessary() {
+    if (numberOfValues > defaultCapacity && numberOfStoredValues < numberOfValues >>> 1) {
+      reallocate(Math.max((int)(numberOfStoredValues * growFactor), defaultCapacity));
+    }
+  }
+
+  /**
+   * Copies the values of the stored instances into new arrays with the specified capacity.
+   * @param capacity capacity of the new arrays
+   */
+  private void reallocate(int capacity) {
+    int[] newIndices = new int[capacity];
+    double[] newValues = new double[capacity];
+    int position = 0;
+    for (int i = 0; i < size; i++) {
+      System.arraycopy(indices, rowStarts[i], newIndices, position, rowSizes[i]);
+      System.arraycopy(values, rowStarts[i], newValues, position, rowSizes[i]);
+      rowStarts[i] = position;
+      position += rowSizes[i];
+    }
+    indices = newIndices;
+    values = newValues;
+    numberOfValues = position;
+  }
+
+}
@@ -0,0 +1,306 @@
+package gossipLearning;
+
+import gossipLearning.utils.SparseVector;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class stores the parsed form of a data set file in a binary cache file next to it
+ * (with .cache extension), so the data set file does not have to be parsed again at the
+ * next start of the simulation. The cache contains the instances in CSR format, the labels,
+ * the number of classes and features and optionally the means and the standard deviations
+ * of the features. <br/>
+ * The cache is valid only if the size and the modification time of the data set file and
+ * the name of the reader class are the same as at the time of writing. <br/>
+ * The cache file is loaded by memory mapping it in at most 1GB large regions.
+ */
+public class DataBaseCache {
+  private static final long magic = 0x474C464341434845L;
+  private static final int version = 2;
+  private static final int maxMappedSize = 1 << 30;
+
+  private final File source;
+  private final File cacheFile;
+  private final String readerClassName;
+
+  private InstanceHolder instances;
+  private SparseVector means;
+  private SparseVector devs;
+
+  /**
+   * Constructs a cache for the specified data set file that was parsed by the specified
+   * reader class.
+   * @param source the data set file
+   * @param readerClassName the canonical name of the reader class
+   */
+  public DataBaseCache(File source, String readerClassName) {
+    this.source = source;
+    this.cacheFile = new File(source.getPath() + ".cache");
+    this.readerClassName = readerClassName;
+  }
+
+  /**
+   * Returns the cache file.
+   * @return the cache file
+   */
+  public File getCacheFile() {
+    return cacheFile;
+  }
+
+  /**
+   * Returns the instances that were loaded or stored.
+   * @return the cached instances
+   */
+  public InstanceHolder getInstances() {
+    return instances;
+  }
+
+  /**
+   * Returns the means of the features that were loaded or stored (can be null).
+   * @return the means of the features
+   */
+  public SparseVector getMeans() {
+    return means;
+  }
+
+  /**
+   * Returns the standard deviations of the features that were loaded or stored (can be null).
+   * @return the standard deviations of the features
+   */
+  public SparseVector getDevs() {
+    return devs;
+  }
+
+  /**
+   * Loads the cache file if it exists and it is valid for the data set file.
+   * @return true if the cache was loaded, false otherwise
+   * @throws IOException if file reading error occurs.
+   */
+  public boolean load() throws IOException {
+    if (!cacheFile.exists()) {
+      return false;
+    }
+    FileInputStream in = new FileInputStream(cacheFile);
+    try {
+      MappedInput input = new MappedInput(in.getChannel());
+      if (input.readLong() != magic || input.readInt() != version
+          || input.readLong() != source.length() || input.readLong() != source.lastModified()
+          || !readerClassName.equals(input.readString())) {
+        return false;
+      }
+      int numberOfClasses = input.readInt();
+      int numberOfFeatures = input.readInt();
+      int size = input.readInt();
+      int numberOfValues = input.readInt();
+      boolean hasStatistics = input.readInt() != 0;
+      int[] rowSizes = new int[size];
+      double[] labels = new double[size];
+      int[] indices = new int[numberOfValues];
+      double[] values = new double[numberOfValues];
+      input.readInts(rowSizes);
+      input.readDoubles(labels);
+      input.readInts(indices);
+      input.readDoubles(values);
+      instances = new CSRInstanceHolder(rowSizes, labels, indices, values, numberOfClasses, numberOfFeatures);
+      means = hasStatistics ? readVector(input) : null;
+      devs = hasStatistics ? readVector(input) : null;
+      return true;
+    } catch (BufferUnderflowException e) {
+      // truncated cache file
+      return false;
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Writes the specified instances and statistics into the cache file. The file is written
+   * into a temporary file first, that is renamed after the writing is finished.
+   * @param instances instances to store
+   * @param means the means of the features (can be null)
+   * @param devs the standard deviations of the features (can be null)
+   * @throws IOException if file writing error occurs.
+   */
+  public void store(InstanceHolder instances, SparseVector means, SparseVector devs) throws IOException {
+    this.instances = instances;
+    this.means = means;
+    this.devs = devs;
+    int numberOfValues = 0;
+    for (int i = 0; i < instances.size(); i++) {
+      numberOfValues += numberOfNonZeros(instances.getInstance(i));
+    }
+    File tmpFile = new File(cacheFile.getPath() + ".tmp");
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 1 << 16));
+    try {
+      out.writeLong(magic);
+      out.writeInt(version);
+      out.writeLong(source.length());
+      out.writeLong(source.lastModified());
+      out.writeUTF(readerClassName);
+      out.writeInt(instances.getNumberOfClasses());
+      out.writeInt(instances.getNumberOfFeatures());
+      out.writeInt(instances.size());
+      out.writeInt(numberOfValues);
+      out.writeInt(means != null && devs != null ? 1 : 0);
+      for (int i = 0; i < instances.size(); i++) {
+        out.writeInt(numberOfNonZeros(instances.getInstance(i)));
+      }
+      for (int i = 0; i < instances.size(); i++) {
+        out.writeDouble(instances.getLabel(i));
+      }
+      for (int i = 0; i < instances.size(); i++) {
+        SparseVector instance = instances.getInstance(i);
+        for (int j = 0; j < instance.size(); j++) {
+          if (instance.valueAt(j) != 0.0) {
+            out.writeInt(instance.indexAt(j));
+          }
+        }
+      }
+      for (int i = 0; i < instances.size(); i++) {
+        SparseVector instance = instances.getInstance(i);
+        for (int j = 0; j < instance.size(); j++) {
+          if (instance.valueAt(j) != 0.0) {
+            out.writeDouble(instance.valueAt(j));
+          }
+        }
+      }
+      if (means != null && devs != null) {
+        writeVector(out, means);
+        writeVector(out, devs);
+      }
+    } finally {
+      out.close();
+    }
+    if (cacheFile.exists() && !cacheFile.delete() || !tmpFile.renameTo(cacheFile)) {
+      tmpFile.delete();
+      throw new IOException("The cache file \"" + cacheFile + "\" cannot be written!");
+    }
+  }
+
+  private static int numberOfNonZeros(SparseVector vector) {
+    int result = 0;
+    for (int i = 0; i < vector.size(); i++) {
+      if (vector.valueAt(i) != 0.0) {
+        result ++;
+      }
+    }
+    return result;
+  }
+
+  private static void writeVector(DataOutputStream out, SparseVector vector) throws IOException {
+    out.writeInt(numberOfNonZeros(vector));
+    for (int i = 0; i < vector.size(); i++) {
+      if (vector.valueAt(i) != 0.0) {
+        out.writeInt(vector.indexAt(i));
+      }
+    }
+    for (int i = 0; i < vector.size(); i++) {
+      if (vector.valueAt(i) != 0.0) {
+        out.writeDouble(vector.valueAt(i));
+      }
+    }
+  }
+
+  private static SparseVector readVector(MappedInput input) {
+    int size = input.readInt();
+    int[] indices = new int[size];
+    double[] values = new double[size];
+    input.readInts(indices);
+    input.readDoubles(values);
+    // the view copies the arrays before modification
+    return new SparseVector(indices, values, 0, size);
+  }
+
+  /**
+   * Sequential reader of a file that maps the next at most 1GB large region of the file
+   * when the current region is exhausted.
+   */
+  private static class MappedInput {
+    private final FileChannel channel;
+    private final long length;
+    private long regionStart;
+    private MappedByteBuffer buffer;
+
+    public MappedInput(FileChannel channel) throws IOException {
+      this.channel = channel;
+      length = channel.size();
+      regionStart = 0;
+      buffer = map(0);
+    }
+
+    private MappedByteBuffer map(long position) throws IOException {
+      return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(maxMappedSize, length - position));
+    }
+
+    /**
+     * Maps the next region if the current one has less than the specified number of bytes.
+     */
+    private void ensure(int bytes) {
+      if (buffer.remaining() < bytes) {
+        long position = regionStart + buffer.position();
+        if (length - position < bytes) {
+          throw new BufferUnderflowException();
+        }
+        try {
+          buffer = map(position);
+        } catch (IOException e) {
+          throw new RuntimeException("The cache file cannot be mapped!", e);
+        }
+        regionStart = position;
+      }
+    }
+
+    public int readInt() {
+      ensure(4);
+      return buffer.getInt();
+    }
+
+    public long readLong() {
+      ensure(8);
+      return buffer.getLong();
+    }
+
+    public String readString() {
+      ensure(2);
+      byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+      ensure(bytes.length);
+      buffer.get(bytes);
+      try {
+        return new String(bytes, "UTF-8");
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    public void readInts(int[] array) {
+      int offset = 0;
+      while (offset < array.length) {
+        ensure(4);
+        int count = Math.min(array.length - offset, buffer.remaining() >>> 2);
+        buffer.asIntBuffer().get(array, offset, count);
+        buffer.position(buffer.position() + (count << 2));
+        offset += count;
+      }
+    }
+
+    public void readDoubles(double[] array) {
+      int offset = 0;
+      while (offset < array.length) {
+        ensure(8);
+        int count = Math.min(array.length - offset, buffer.remaining() >>> 3);
+        buffer.asDoubleBuffer().get(array, offset, count);
+        buffer.position(buffer.position() + (count << 3));
+        offset += count;
+      }
+    }
+  }
+
+}
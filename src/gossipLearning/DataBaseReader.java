@@ -1,22 +1,23 @@
 package gossipLearning;
 
-import gossipLearning.interfaces.VectorEntry;
+import gossipLearning.utils.FeatureStatistics;
 import gossipLearning.utils.SparseVector;
 import gossipLearning.utils.Utils;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
-import java.util.Set;
-import java.util.TreeSet;
 import java.util.Vector;
 
 /**
  * This class reads and stores the training and the evaluation sets for training machine learning algorithms 
  * and is represented as a singleton. The required files are the training and the evaluation file names with paths. <br/>
- * The files should have Joachims' SVMLight format.
+ * The files should have Joachims' SVMLight format. <br/>
+ * Optionally the parsed sets are stored in binary cache files next to the data set files 
+ * (see DataBaseCache), which are loaded instead of parsing at the next run. <br/>
+ * In streaming mode the training set is not loaded into the memory, it is represented by a 
+ * StreamingInstanceHolder that parses the instances from the file on demand. In this mode 
+ * the training set cannot be standardized or polynomized and it is not cached.
  * 
  * @author István Hegedűs
  *
@@ -36,118 +37,195 @@ public class DataBaseReader {
   /** @hidden */
   private SparseVector devs;
   private boolean isStandardized;
+  /** @hidden */
+  private final String prefix;
+  private final boolean isStreaming;
+  private final int instancesPerBlock;
+  private final int cachedBlocks;
   
+  /**
+   * Reads the training and the evaluation sets from the specified files without cache 
+   * files and streaming.
+   * @param tFile the training file
+   * @param eFile the evaluation file
+   * @throws IOException if file reading error occurs.
+   */
   protected DataBaseReader(final File tFile, final File eFile) throws IOException{
+    this(tFile, eFile, null, false, false, defaultInstancesPerBlock, defaultCachedBlocks);
+  }
+  
+  /**
+   * Reads the training and the evaluation sets from the specified files.
+   * @param tFile the training file
+   * @param eFile the evaluation file
+   * @param prefix the prefix of the parameters of the reader (can be null)
+   * @param useCache use binary cache files or not
+   * @param useStreaming read the training set in streaming mode or not
+   * @param instancesPerBlock the number of instances of a block in streaming mode
+   * @param cachedBlocks the number of blocks kept in the memory in streaming mode
+   * @throws IOException if file reading error occurs.
+   */
+  protected DataBaseReader(final File tFile, final File eFile, String prefix, boolean useCache, boolean useStreaming, int instancesPerBlock, int cachedBlocks) throws IOException{
+    // the prefix is set first, since the parameters can be used by the parsing
+    this.prefix = prefix;
     means = new SparseVector();
     devs = new SparseVector();
     isStandardized = false;
+    isStreaming = useStreaming;
+    this.instancesPerBlock = instancesPerBlock;
+    this.cachedBlocks = cachedBlocks;
     
-    // reading training file
-    trainingSet = parseFile(tFile);
-    
-    // compute means and standard deviations on training set for standardization
-    for (int i = 0; i < trainingSet.size(); i++) {
-      means.add(trainingSet.getInstance(i));
-      for (VectorEntry e : trainingSet.getInstance(i)) {
-        devs.put(e.index, devs.get(e.index) + (e.value * e.value));
-      }
+    // the cache of the same file can be written by the evaluation role without statistics, 
+    // so it is accepted by the training role only if it contains the statistics
+    DataBaseCache trainingCache = useCache && !isStreaming ? new DataBaseCache(tFile, getCacheKey()) : null;
+    if (isStreaming) {
+      // scanning training file
+      trainingSet = parseFileStreaming(tFile);
+    } else if (trainingCache != null && trainingCache.load() && trainingCache.getMeans() != null && trainingCache.getDevs() != null) {
+      trainingSet = trainingCache.getInstances();
+      means = trainingCache.getMeans();
+      devs = trainingCache.getDevs();
+    } else {
+      // reading training file and computing the statistics of the features
+      FeatureStatistics statistics = new FeatureStatistics();
+      trainingSet = parseFile(tFile, statistics);
+      setStatistics(statistics);
+      storeCache(trainingCache, trainingSet, means, devs);
     }
-    means.mul(1.0 / (double)trainingSet.size());
-    devs.mul(1.0 / (double)trainingSet.size());
-    for (VectorEntry e : means) {
-      devs.put(e.index, devs.get(e.index) - (e.value * e.value));
-    }
-    devs.sqrt();
     
-    // reading evaluation file
-    evalSet = parseFile(eFile);
+    DataBaseCache evalCache = useCache ? new DataBaseCache(eFile, getCacheKey()) : null;
+    if (evalCache != null && evalCache.load()) {
+      evalSet = evalCache.getInstances();
+    } else {
+      // reading evaluation file
+      evalSet = parseFile(eFile);
+      storeCache(evalCache, evalSet, null, null);
+    }
     
     // set the correct number of features and classes for both sets
     numberOfFeatures = Math.max(trainingSet.getNumberOfFeatures(), evalSet.getNumberOfFeatures());
     numberOfClasses = Math.max(trainingSet.getNumberOfClasses(), evalSet.getNumberOfClasses());
-    trainingSet = new InstanceHolder(trainingSet.getInstances(), trainingSet.getLabels(), numberOfClasses, numberOfFeatures);
-    evalSet = new InstanceHolder(evalSet.getInstances(), evalSet.getLabels(), numberOfClasses, numberOfFeatures);
+    if (isStreaming) {
+      trainingSet = new StreamingInstanceHolder((StreamingInstanceHolder)trainingSet, numberOfClasses, numberOfFeatures);
+    } else {
+      trainingSet = new CSRInstanceHolder(trainingSet, numberOfClasses, numberOfFeatures);
+    }
+    evalSet = new CSRInstanceHolder(evalSet, numberOfClasses, numberOfFeatures);
+  
+  }
+  
+  /**
+   * Sets the means and standard deviations for standardization from the specified 
+   * statistics of the training set. If the statistics were not gathered by the parsing, 
+   * they are computed from the training set.
+   * @param statistics statistics of the training set
+   */
+  private void setStatistics(FeatureStatistics statistics) {
+    if (statistics.getNumberOfInstances() != trainingSet.size()) {
+      statistics = new FeatureStatistics();
+      for (int i = 0; i < trainingSet.size(); i++) {
+        statistics.add(trainingSet.getInstance(i));
+      }
+    }
+    means = statistics.getMeans();
+    devs = statistics.getDevs();
+  }
+  
+  /**
+   * Returns the identifier of the parsing method that is stored in the cache files. The 
+   * cache files are valid only for the reader with the same identifier. By default it is 
+   * the canonical name of the class, the readers having parameters should extend it.
+   * @return the identifier of the parsing method
+   */
+  protected String getCacheKey() {
+    return getClass().getCanonicalName();
+  }
+  
+  /**
+   * Returns the prefix of the parameters of the reader in the Peersim configuration file 
+   * (e.g. the prefix of the InstanceLoader), or null if the reader has no parameters.
+   * @return the prefix of the parameters
+   */
+  protected String getPrefix() {
+    return prefix;
+  }
   
+  /**
+   * Returns true if the reader reads the sets in the same way by the parameters of the 
+   * specified prefix, so the singleton can be returned for that prefix. By default the 
+   * readers do not have parameters, the readers having parameters should extend it like 
+   * the getCacheKey method.
+   * @param prefix the prefix of the parameters (can be null)
+   * @return the parameters are the same or not
+   */
+  protected boolean hasSameParameters(String prefix) {
+    return true;
+  }
+  
+  /**
+   * Writes the specified set into the specified cache. Since the cache is only an 
+   * optimization, the failure of writing is reported but it is not fatal.
+   * @param cache cache to write (can be null)
+   * @param set instances to store
+   * @param means the means of the features (can be null)
+   * @param devs the standard deviations of the features (can be null)
+   */
+  private void storeCache(DataBaseCache cache, InstanceHolder set, SparseVector means, SparseVector devs) {
+    if (cache == null) {
+      return;
+    }
+    try {
+      cache.store(set, means, devs);
+    } catch (IOException e) {
+      System.err.println("The cache file " + cache.getCacheFile() + " cannot be written: " + e.getMessage());
+    }
   }
   
   /**
    * This method parses the given file into collections of instances and corresponding class labels.
+   * The file is parsed in parallel chunks by an SVMLightParser.
    * @param file the file that has to be parsed
    * @throws IOException if file reading error occurs.
    */
   protected InstanceHolder parseFile(final File file) throws IOException{
+    return parseFile(file, null);
+  }
+  
+  /**
+   * This method parses the given file into collections of instances and corresponding class labels 
+   * and adds the parsed instances to the given statistics of the features.
+   * @param file the file that has to be parsed
+   * @param statistics the statistics to update (can be null)
+   * @throws IOException if file reading error occurs.
+   */
+  protected InstanceHolder parseFile(final File file, FeatureStatistics statistics) throws IOException{
     // throw exception if the file does not exist or null
     if (file == null || !file.exists()){
       throw new RuntimeException("The file \"" + file.toString() + "\" is null or does not exist!");
     }
-    //InstanceHolder holder = new InstanceHolder();
-    Vector<SparseVector> instances = new Vector<SparseVector>();
-    Vector<Double> labels = new Vector<Double>();
-    BufferedReader br = new BufferedReader(new FileReader(file));
-    int numberOfClasses = -1;
-    int numberOfFeatures = -1;
-    Set<Double> classes = new TreeSet<Double>();
-    String line;
-    String[] split;
-    int c = 0;
-    double label;
-    int key;
-    double value;
-    SparseVector instance;
-    while ((line = br.readLine()) != null){
-      c++;
-      // checking whether it is a regression problem or not
-      if (c == 1 && line.matches("#\\s([Rr]egression|REGRESSION)")) {
-        numberOfClasses = Integer.MAX_VALUE;
-        continue;
-      }
-      // eliminating empty and comment lines
-      if (line.length() == 0 || line.startsWith("#")){
-        continue;
-      }
-      // eliminating comments and white spaces from the endings of the line
-      line = line.replaceAll("#.*", "").trim();
-      // splitting line at white spaces and at colons
-      split = line.split(":|\\s");
-      // throwing exception if the line is invalid (= has even number of tokens, since 
-      // a valid line has a class label and pairs of indices and corresponding values)
-      if (split.length % 2 != 1){
-        throw new RuntimeException("The file \"" + file.toString() + "\" has invalid structure at line " + c);
-      }
-      label = Double.parseDouble(split[0]);
-      /*if (numberOfClasses != Integer.MAX_VALUE && (label < 0.0 || label != (int)label)) {
-        // not a regression problem => the label has to be an integer which is greater or equal than 0 
-        throw new RuntimeException("The class label has to be integer and greater than or equal to 0, line " + c);
-      }*/
-      instance = new SparseVector(split.length >>> 1);
-      for (int i = 1; i < split.length; i += 2){
-        key = Integer.parseInt(split[i]) - 1; // index from 0
-        if (key < 0){
-          throw new RuntimeException("The index of the features must be non-negative integer, line " + c);
-        }
-        if (key > numberOfFeatures) {
-          numberOfFeatures = key;
-        }
-        value = Double.parseDouble(split[i + 1]);
-        instance.put(key, value);
-      }
-      // storing parsed instance
-      instances.add(instance);
-      labels.add(label);
-      
-      // calculating the number of classes if it is not a regression
-      if (numberOfClasses != Integer.MAX_VALUE) {
-        classes.add(label);
-      }
-    }
-    br.close();
-    
-    // sets the correct value of number of classes
-    if (numberOfClasses != Integer.MAX_VALUE) {
-      numberOfClasses = classes.size();
+    return new SVMLightParser().parse(file, statistics);
+  }
+  
+  /**
+   * This method scans the given file and returns a holder that loads its instances on demand 
+   * from the file.
+   * @param file the file that has to be scanned
+   * @throws IOException if file reading error occurs.
+   */
+  protected StreamingInstanceHolder parseFileStreaming(final File file) throws IOException{
+    // throw exception if the file does not exist or null
+    if (file == null || !file.exists()){
+      throw new RuntimeException("The file \"" + file.toString() + "\" is null or does not exist!");
     }
-    
-    return new InstanceHolder(instances, labels, (numberOfClasses == 1) ? 0 : numberOfClasses, numberOfFeatures + 1); // 1-> indicating clustering
+    return new SVMLightParser().parseStreaming(file, instancesPerBlock, cachedBlocks);
+  }
+  
+  /**
+   * Returns true if the training set is read in streaming mode.
+   * @return the training set is streamed or not
+   */
+  public boolean isStreaming() {
+    return isStreaming;
   }
   
   /**
@@ -167,19 +245,20 @@ public class DataBaseReader {
   }
   
   /**
-   * Standardizes the training and test data sets based on the training data.
+   * Standardizes the training and test data sets based on the training data. The sets are 
+   * replaced by views (see StandardizedInstanceHolder) that standardize the instances when 
+   * they are accessed, so the sets that were returned before are not modified.
    */
   public void standardize() {
     if (isStandardized) {
       return;
     }
-    isStandardized = true;
-    for (int i = 0; i < trainingSet.size(); i++) {
-      trainingSet.getInstance(i).add(means, -1.0).div(devs);
-    }
-    for (int i = 0; i < evalSet.size(); i++) {
-      evalSet.getInstance(i).add(means, -1.0).div(devs);
+    if (isStreaming) {
+      throw new RuntimeException("The training set cannot be standardized in streaming mode!");
     }
+    isStandardized = true;
+    trainingSet = new StandardizedInstanceHolder(trainingSet, means, devs);
+    evalSet = new StandardizedInstanceHolder(evalSet, means, devs);
   }
   
   /**
@@ -192,6 +271,9 @@ public class DataBaseReader {
   }
   
   public void polynomize(int n, boolean generateAll) {
+    if (isStreaming) {
+      throw new RuntimeException("The training set cannot be polynomized in streaming mode!");
+    }
     Vector<Vector<Integer>> mapping = Utils.polyGen(numberOfFeatures, n, generateAll);
     trainingSet = convert(trainingSet, mapping);
     evalSet = convert(evalSet, mapping);    
@@ -199,7 +281,7 @@ public class DataBaseReader {
   
   private InstanceHolder convert(InstanceHolder origSet, Vector<Vector<Integer>> mapping) {
     // create the new instance set
-    InstanceHolder newSet = new InstanceHolder(origSet.getNumberOfClasses(), mapping.size());
+    InstanceHolder newSet = new CSRInstanceHolder(origSet.getNumberOfClasses(), mapping.size());
     
     for (int i = 0; i < origSet.size(); i++) {
       // get original instance and create mapped one
@@ -251,6 +333,8 @@ public class DataBaseReader {
   private static DataBaseReader instance = null;
   private static File tFile = null;
   private static File eFile = null;
+  private static final int defaultInstancesPerBlock = 256;
+  private static final int defaultCachedBlocks = 256;
   
   /**
    * Creates and returns a DataBaseReader object that contains the training and the evaluation sets. 
@@ -262,14 +346,91 @@ public class DataBaseReader {
    * @return An instance of this class
    * @throws IOException if file reading error occurs.
    */
-  @SuppressWarnings("unchecked")
   public static DataBaseReader createDataBaseReader(String className, final File tFile, final File eFile) throws Exception {
-    if (instance == null || !instance.getClass().getCanonicalName().equals(className) || !tFile.equals(DataBaseReader.tFile) || !eFile.equals(DataBaseReader.eFile)) {
+    return createDataBaseReader(className, tFile, eFile, false);
+  }
+  
+  /**
+   * Creates and returns a DataBaseReader object that contains the training and the evaluation sets. 
+   * Based on the parameter files that should have Jochaims's SVMLight format. If the cache is 
+   * used, the sets are loaded from the valid cache files or the cache files are written after 
+   * parsing.
+   * 
+   * @param className the canonical class name of the reader class
+   * @param tFile the training file
+   * @param eFile the evaluation file
+   * @param useCache use binary cache files or not
+   * @return An instance of this class
+   * @throws IOException if file reading error occurs.
+   */
+  public static DataBaseReader createDataBaseReader(String className, final File tFile, final File eFile, boolean useCache) throws Exception {
+    return createDataBaseReader(className, tFile, eFile, useCache, false);
+  }
+  
+  /**
+   * Creates and returns a DataBaseReader object that contains the training and the evaluation sets. 
+   * Based on the parameter files that should have Jochaims's SVMLight format. If the cache is 
+   * used, the sets are loaded from the valid cache files or the cache files are written after 
+   * parsing. In streaming mode the training set is loaded on demand from the file.
+   * 
+   * @param className the canonical class name of the reader class
+   * @param tFile the training file
+   * @param eFile the evaluation file
+   * @param useCache use binary cache files or not
+   * @param useStreaming read the training set in streaming mode or not
+   * @return An instance of this class
+   * @throws IOException if file reading error occurs.
+   */
+  public static DataBaseReader createDataBaseReader(String className, final File tFile, final File eFile, boolean useCache, boolean useStreaming) throws Exception {
+    return createDataBaseReader(className, null, tFile, eFile, useCache, useStreaming, defaultInstancesPerBlock, defaultCachedBlocks);
+  }
+  
+  /**
+   * Creates and returns a DataBaseReader object that contains the training and the evaluation sets. 
+   * Based on the parameter files that should have Jochaims's SVMLight format. If the cache is 
+   * used, the sets are loaded from the valid cache files or the cache files are written after 
+   * parsing. In streaming mode the training set is loaded on demand from the file in blocks 
+   * of the specified size, and the specified number of blocks are kept in the memory. 
+   * The parameters of the reader are read by the specified prefix (e.g. the number of 
+   * bits of the HashingDataBaseReader), and the singleton is created again if they are 
+   * changed. <br/>
+   * The readers that do not declare the constructor having the prefix, the cache and the 
+   * streaming parameters are created by their (File, File) constructor, and they support 
+   * neither the cache nor the streaming mode.
+   * 
+   * @param className the canonical class name of the reader class
+   * @param prefix the prefix of the parameters of the reader (can be null)
+   * @param tFile the training file
+   * @param eFile the evaluation file
+   * @param useCache use binary cache files or not
+   * @param useStreaming read the training set in streaming mode or not
+   * @param instancesPerBlock the number of instances of a block in streaming mode
+   * @param cachedBlocks the number of blocks kept in the memory in streaming mode
+   * @return An instance of this class
+   * @throws IOException if file reading error occurs.
+   */
+  @SuppressWarnings("unchecked")
+  public static DataBaseReader createDataBaseReader(String className, String prefix, final File tFile, final File eFile, boolean useCache, boolean useStreaming, int instancesPerBlock, int cachedBlocks) throws Exception {
+    if (instance == null || !instance.getClass().getCanonicalName().equals(className) || !tFile.equals(DataBaseReader.tFile) || !eFile.equals(DataBaseReader.eFile) || instance.isStreaming != useStreaming 
+        || (useStreaming && (instance.instancesPerBlock != instancesPerBlock || instance.cachedBlocks != cachedBlocks)) || !instance.hasSameParameters(prefix)) {
+      Class<? extends DataBaseReader> dataBaseReaderClass = (Class<? extends DataBaseReader>) Class.forName(className);
+      Constructor<? extends DataBaseReader> dbrConst;
+      try {
+        dbrConst = dataBaseReaderClass.getDeclaredConstructor(File.class, File.class, String.class, boolean.class, boolean.class, int.class, int.class);
+      } catch (NoSuchMethodException e) {
+        dbrConst = null;
+      }
+      DataBaseReader reader;
+      if (dbrConst != null) {
+        reader = dbrConst.newInstance(tFile, eFile, prefix, useCache, useStreaming, instancesPerBlock, cachedBlocks);
+      } else if (useCache || useStreaming) {
+        throw new RuntimeException("The reader " + className + " supports neither the cache nor the streaming mode!");
+      } else {
+        reader = dataBaseReaderClass.getDeclaredConstructor(File.class, File.class).newInstance(tFile, eFile);
+      }
       DataBaseReader.tFile = tFile;
       DataBaseReader.eFile = eFile;
-      Class<? extends DataBaseReader> dataBaseReaderClass = (Class<? extends DataBaseReader>) Class.forName(className);
-      Constructor<? extends DataBaseReader> dbrConst = dataBaseReaderClass.getDeclaredConstructor(File.class, File.class);
-      DataBaseReader.instance = dbrConst.newInstance(tFile, eFile);
+      DataBaseReader.instance = reader;
     }
     return instance;
   }
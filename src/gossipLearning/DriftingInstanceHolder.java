@@ -0,0 +1,174 @@
+package gossipLearning;
+
+import gossipLearning.interfaces.LabelTransform;
+import gossipLearning.utils.SparseVector;
+
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * This class is a read-only view of an InstanceHolder whose labels are defined by a
+ * LabelTransform applied on read. A drift of the concept is modelled by changing the state
+ * of the transform and calling the drift method, that only increments the version of the
+ * labelling, so a drift takes O(1) time independently of the number of instances. <br/>
+ * The transformed labels are cached together with the version they were computed in, so
+ * a label is computed at most once per version, and every reader (e.g. the observers and
+ * the nodes) sees the same labelling between two drifts. <br/>
+ * The instances are read through to the source, the instances and the labels cannot be
+ * modified through the view. The source can be extended, but its existing instances and
+ * labels should not be modified while it is viewed, since the cache is not invalidated.
+ */
+public class DriftingInstanceHolder extends InstanceHolder {
+  private static final long serialVersionUID = -2293418946557186264L;
+
+  private final InstanceHolder source;
+  private final LabelTransform transform;
+  private long version;
+  /** @hidden */
+  private double[] labels;
+  /** @hidden */
+  private long[] versions;
+
+  /**
+   * Constructs a view of the specified source with the labels of the specified transform.
+   * @param source the holder that stores the instances
+   * @param transform defines the labels of the instances
+   */
+  public DriftingInstanceHolder(InstanceHolder source, LabelTransform transform) {
+    super(source.getNumberOfClasses(), source.getNumberOfFeatures());
+    this.source = source;
+    this.transform = transform;
+    version = 0;
+    labels = new double[source.size()];
+    versions = new long[source.size()];
+  }
+
+  /**
+   * Copy constructor.
+   */
+  private DriftingInstanceHolder(DriftingInstanceHolder a) {
+    super(a.getNumberOfClasses(), a.getNumberOfFeatures());
+    source = a.source;
+    transform = a.transform;
+    version = a.version;
+    labels = a.labels.clone();
+    versions = a.versions.clone();
+  }
+
+  /**
+   * Makes a copy of the view that refers to the same source and transform.
+   */
+  public Object clone() {
+    return new DriftingInstanceHolder(this);
+  }
+
+  /**
+   * Returns the holder that stores the instances of the view.
+   * @return the source of the view
+   */
+  public InstanceHolder getSource() {
+    return source;
+  }
+
+  /**
+   * Returns the transform that defines the labels.
+   * @return the label transform
+   */
+  public LabelTransform getTransform() {
+    return transform;
+  }
+
+  /**
+   * Returns the version of the labelling, that is the number of drifts.
+   * @return the version of the labelling
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Invalidates the cached labels, it has to be called after the state of the transform
+   * has been changed. The labels are recomputed when they are read.
+   */
+  public void drift() {
+    version ++;
+  }
+
+  @Override
+  public int size() {
+    return source.size();
+  }
+
+  @Override
+  protected Vector<SparseVector> getInstances() {
+    Vector<SparseVector> instances = new Vector<SparseVector>(size());
+    for (int i = 0; i < size(); i++) {
+      instances.add(getInstance(i));
+    }
+    return instances;
+  }
+
+  @Override
+  protected Vector<Double> getLabels() {
+    Vector<Double> labels = new Vector<Double>(size());
+    for (int i = 0; i < size(); i++) {
+      labels.add(getLabel(i));
+    }
+    return labels;
+  }
+
+  @Override
+  public SparseVector getInstance(int index) {
+    return source.getInstance(index);
+  }
+
+  @Override
+  public void setInstance(int index, SparseVector instance) {
+    throw new RuntimeException("The instances of " + getClass().getCanonicalName() + " cannot be modified!");
+  }
+
+  /**
+   * Returns the label of the instance at the specified position in the current version of
+   * the labelling. The label is computed by the transform if it is not cached yet.
+   * @param index index of the instance
+   * @return label of the instance
+   */
+  @Override
+  public double getLabel(int index) {
+    if (index < 0 || index >= source.size()) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    if (index >= labels.length) {
+      // the source has grown
+      labels = Arrays.copyOf(labels, source.size());
+      versions = Arrays.copyOf(versions, source.size());
+    }
+    // the stored versions are shifted by one, since 0 means not cached
+    if (versions[index] != version + 1) {
+      labels[index] = transform.transform(source, index);
+      versions[index] = version + 1;
+    }
+    return labels[index];
+  }
+
+  @Override
+  public void setLabel(int index, double label) {
+    throw new RuntimeException("The labels of " + getClass().getCanonicalName() + " are defined by the transform, they cannot be modified!");
+  }
+
+  @Override
+  public boolean add(SparseVector instance, double label) {
+    throw new RuntimeException("Instances cannot be added to " + getClass().getCanonicalName() + "!");
+  }
+
+  @Override
+  public void remove(int index) {
+    throw new RuntimeException("Instances cannot be removed from " + getClass().getCanonicalName() + "!");
+  }
+
+  @Override
+  public void clear() {
+    throw new RuntimeException("Instances cannot be removed from " + getClass().getCanonicalName() + "!");
+  }
+
+}
@@ -0,0 +1,153 @@
+package gossipLearning;
+
+import gossipLearning.utils.FeatureStatistics;
+import gossipLearning.utils.SparseVector;
+
+import java.io.File;
+import java.io.IOException;
+
+import peersim.config.Configuration;
+
+/**
+ * This reader maps the features of the training and evaluation sets into a feature space
+ * of fixed size 2^k by signed feature hashing (the hashing trick). The index of a
+ * feature is hashed to a bucket in [0, 2^k) and to a sign in {-1, 1} by two independent
+ * MurmurHash3 hash functions, and the signed values of the features that fall into the
+ * same bucket are summed. Since the signs make the collisions cancel out in expectation,
+ * the inner-products are preserved in expectation. <br/>
+ * It is useful for data sets having unbounded number of features (e.g. text), since the
+ * size of the models and the statistics of the features is bounded by 2^k. The same
+ * mapping is applied to the training and to the evaluation sets. <br/>
+ * The reader can be used by specifying it as the reader class of the InstanceLoader. The
+ * number of bits (k) is read from the hashingBits parameter of the InstanceLoader (the
+ * default value is 20). It does not support the streaming mode.
+ */
+public class HashingDataBaseReader extends DataBaseReader {
+  private static final String PAR_BITS = "hashingBits";
+  private static final int defaultNumberOfBits = 20;
+  private static final int bucketSeed = 0x9747b28c;
+  private static final int signSeed = 0x5bd1e995;
+
+  protected HashingDataBaseReader(final File tFile, final File eFile, String prefix, boolean useCache, boolean useStreaming, int instancesPerBlock, int cachedBlocks) throws IOException {
+    super(tFile, eFile, prefix, useCache, useStreaming, instancesPerBlock, cachedBlocks);
+  }
+
+  /**
+   * Returns the number of bits of the hashed feature space of the specified prefix, i.e.
+   * the number of features will be 2^numberOfBits.
+   * @param prefix the prefix of the parameters (if it is null the default value is used)
+   * @return the number of bits (from 1 to 30)
+   */
+  public static int getNumberOfBits(String prefix) {
+    int numberOfBits = prefix == null ? defaultNumberOfBits : Configuration.getInt(prefix + "." + PAR_BITS, defaultNumberOfBits);
+    if (numberOfBits < 1 || numberOfBits > 30) {
+      throw new RuntimeException("The number of bits of the feature hashing has to be in [1, 30] instead of " + numberOfBits + "!");
+    }
+    return numberOfBits;
+  }
+
+  /**
+   * Returns the number of bits of the hashed feature space of the reader.
+   * @return the number of bits
+   */
+  public int getNumberOfBits() {
+    // the sets are parsed by the constructor of the superclass, so it is not stored in a field
+    return getNumberOfBits(getPrefix());
+  }
+
+  /**
+   * Returns the bucket of the specified feature.
+   * @param index the index of the feature
+   * @param numberOfBits the number of bits of the hashed feature space
+   * @return the index of the hashed feature
+   */
+  public static int bucket(int index, int numberOfBits) {
+    return murmur3(index, bucketSeed) & ((1 << numberOfBits) - 1);
+  }
+
+  /**
+   * Returns the sign of the specified feature.
+   * @param index the index of the feature
+   * @return -1.0 or 1.0
+   */
+  public static double sign(int index) {
+    return murmur3(index, signSeed) < 0 ? -1.0 : 1.0;
+  }
+
+  /**
+   * Returns the hashed form of the specified instance.
+   * @param instance instance to hash
+   * @param numberOfBits the number of bits of the hashed feature space
+   * @return the hashed instance
+   */
+  public static SparseVector hash(SparseVector instance, int numberOfBits) {
+    SparseVector result = new SparseVector(instance.size());
+    for (int i = 0; i < instance.size(); i++) {
+      int index = instance.indexAt(i);
+      int bucket = bucket(index, numberOfBits);
+      result.put(bucket, result.get(bucket) + sign(index) * instance.valueAt(i));
+    }
+    return result;
+  }
+
+  /**
+   * MurmurHash3 (x86, 32 bits) of a 4 bytes long key.
+   */
+  private static int murmur3(int key, int seed) {
+    int k = key * 0xcc9e2d51;
+    k = Integer.rotateLeft(k, 15);
+    k *= 0x1b873593;
+    int h = seed ^ k;
+    h = Integer.rotateLeft(h, 13);
+    h = h * 5 + 0xe6546b64;
+    h ^= 4;
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  /**
+   * Parses the specified file and hashes its instances one by one as they are parsed, so
+   * the unhashed instances are not stored. The statistics are computed on the hashed
+   * instances.
+   */
+  @Override
+  protected InstanceHolder parseFile(final File file, final FeatureStatistics statistics) throws IOException {
+    // throw exception if the file does not exist or null
+    if (file == null || !file.exists()){
+      throw new RuntimeException("The file \"" + file + "\" is null or does not exist!");
+    }
+    final int numberOfBits = getNumberOfBits();
+    final CSRInstanceHolder result = new CSRInstanceHolder(0, 1 << numberOfBits);
+    int numberOfClasses = new SVMLightParser().parseEach(file, new SVMLightParser.InstanceConsumer() {
+      @Override
+      public void consume(SparseVector instance, double label) {
+        SparseVector hashed = hash(instance, numberOfBits);
+        result.add(hashed, label);
+        if (statistics != null) {
+          statistics.add(hashed);
+        }
+      }
+    });
+    return new CSRInstanceHolder(result, numberOfClasses, result.getNumberOfFeatures());
+  }
+
+  @Override
+  protected StreamingInstanceHolder parseFileStreaming(final File file) throws IOException {
+    throw new RuntimeException("The streaming mode is not supported by " + getClass().getCanonicalName() + "!");
+  }
+
+  @Override
+  protected String getCacheKey() {
+    return super.getCacheKey() + "(bits=" + getNumberOfBits() + ")";
+  }
+
+  @Override
+  protected boolean hasSameParameters(String prefix) {
+    return getNumberOfBits(prefix) == getNumberOfBits();
+  }
+
+}
@@ -1,6 +1,5 @@
 package gossipLearning;
 
-import gossipLearning.interfaces.VectorEntry;
 import gossipLearning.utils.SparseVector;
 
 import java.io.BufferedWriter;
@@ -106,6 +105,17 @@ public class InstanceHolder implements Serializable{
     return size;
   }
   
+  /**
+   * Returns the number of the predictions that are expected to be computed by a model 
+   * on these instances, that can be used by the batch predictions for deciding whether 
+   * the preparation of the model is worth (see SparseVector.toDenseArray). By default 
+   * it is the number of stored instances.
+   * @return The expected number of the predictions.
+   */
+  public int getNumberOfPredictions(){
+    return size();
+  }
+  
   /**
    * Returns the stored instances as a Vector<Map<Integer, Double>>. 
    * If there are no stored instances, returns an empty container.
@@ -202,13 +212,14 @@ public class InstanceHolder implements Serializable{
    */
   public void writeToFile(File outFile) throws IOException{
     PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(outFile)));
-    for (int i = 0; i < instances.size(); i++){
-      pw.print(labels.get(i));
-      for (VectorEntry e : instances.get(i)){
+    for (int i = 0; i < size(); i++){
+      pw.print(getLabel(i));
+      SparseVector instance = getInstance(i);
+      for (int j = 0; j < instance.size(); j++){
         pw.print(' ');
-        pw.print(e.index + 1);
+        pw.print(instance.indexAt(j) + 1);
         pw.print(':');
-        pw.print(e.value);
+        pw.print(instance.valueAt(j));
       }
       pw.println();
     }
@@ -221,13 +232,14 @@ public class InstanceHolder implements Serializable{
    */
   public String toString(){
     StringBuffer sb = new StringBuffer();
-    for (int i = 0; i < instances.size(); i++){
-      sb.append(labels.get(i));
-      for (VectorEntry e : instances.get(i)){
+    for (int i = 0; i < size(); i++){
+      sb.append(getLabel(i));
+      SparseVector instance = getInstance(i);
+      for (int j = 0; j < instance.size(); j++){
         sb.append(' ');
-        sb.append(e.index + 1);
+        sb.append(instance.indexAt(j) + 1);
         sb.append(':');
-        sb.append(String.format("%.6g", e.value));
+        sb.append(String.format("%.6g", instance.valueAt(j)));
       }
       sb.append('\n');
     }
@@ -0,0 +1,234 @@
+package gossipLearning;
+
+import gossipLearning.utils.SparseVector;
+
+import java.util.Arrays;
+import java.util.Vector;
+
+/**
+ * This class is a read-only view of some instances of a shared InstanceHolder (the
+ * source). The view stores only the positions of its instances in the source in an int
+ * array, so assigning instances to a node takes O(number of instances) time and memory
+ * without copying or wrapping the instances. The array is reused when the view is cleared
+ * and refilled by the addIndex method. <br/>
+ * The labels can be copied at the time of adding the positions, in this case the view
+ * keeps the labels that were valid at that time (like an InstanceHolder filled by the
+ * instances and labels of the source), and setLabel modifies only the copies. Otherwise
+ * the labels are read from and written to the source. <br/>
+ * The instances of the view cannot be modified and the add method is not supported.
+ */
+public class InstanceHolderSlice extends InstanceHolder {
+  private static final long serialVersionUID = -6521719442052446131L;
+
+  private final InstanceHolder source;
+  private final boolean isCopyingLabels;
+  private int size;
+  private int numberOfPredictions;
+  /** @hidden */
+  private int[] indices;
+  /** @hidden */
+  private double[] labels;
+
+  /**
+   * Constructs an empty view of the specified source.
+   * @param source the holder that stores the instances
+   * @param capacity the initial capacity of the view
+   * @param isCopyingLabels the labels are copied when the positions are added or not
+   */
+  public InstanceHolderSlice(InstanceHolder source, int capacity, boolean isCopyingLabels) {
+    super(source.getNumberOfClasses(), source.getNumberOfFeatures());
+    this.source = source;
+    this.isCopyingLabels = isCopyingLabels;
+    size = 0;
+    numberOfPredictions = -1;
+    indices = new int[Math.max(capacity, 1)];
+    labels = isCopyingLabels ? new double[indices.length] : null;
+  }
+
+  /**
+   * Constructs a view of the specified number of consecutive instances of the source
+   * starting from the specified position. The positions are taken modulo the size of the
+   * source, so the view can wrap around the end of the source.
+   * @param source the holder that stores the instances
+   * @param from the position of the first instance in the source
+   * @param size the number of instances
+   * @param isCopyingLabels the labels are copied or not
+   */
+  public InstanceHolderSlice(InstanceHolder source, int from, int size, boolean isCopyingLabels) {
+    this(source, size, isCopyingLabels);
+    for (int i = 0; i < size; i++) {
+      addIndex((int)(((long)from + i) % source.size()));
+    }
+  }
+
+  /**
+   * Copy constructor.
+   */
+  private InstanceHolderSlice(InstanceHolderSlice a) {
+    super(a.getNumberOfClasses(), a.getNumberOfFeatures());
+    source = a.source;
+    isCopyingLabels = a.isCopyingLabels;
+    size = a.size;
+    numberOfPredictions = a.numberOfPredictions;
+    indices = a.indices.clone();
+    labels = a.labels == null ? null : a.labels.clone();
+  }
+
+  /**
+   * Makes a copy of the view that refers to the same source.
+   */
+  public Object clone() {
+    return new InstanceHolderSlice(this);
+  }
+
+  /**
+   * Returns the holder that stores the instances of the view.
+   * @return the source of the view
+   */
+  public InstanceHolder getSource() {
+    return source;
+  }
+
+  /**
+   * Returns true if the labels are copied into the view.
+   * @return the labels are copied or not
+   */
+  public boolean isCopyingLabels() {
+    return isCopyingLabels;
+  }
+
+  /**
+   * Returns the position in the source of the instance at the specified position.
+   * @param index position of the instance in the view
+   * @return position of the instance in the source
+   */
+  public int getSourceIndex(int index) {
+    checkIndex(index);
+    return indices[index];
+  }
+
+  /**
+   * Adds the instance of the source at the specified position to the view. If the labels
+   * are copied, the current label of the instance is stored.
+   * @param sourceIndex the position of the instance in the source
+   */
+  public void addIndex(int sourceIndex) {
+    if (sourceIndex < 0 || sourceIndex >= source.size()) {
+      throw new ArrayIndexOutOfBoundsException(sourceIndex);
+    }
+    if (size == indices.length) {
+      indices = Arrays.copyOf(indices, size << 1);
+      if (labels != null) {
+        labels = Arrays.copyOf(labels, size << 1);
+      }
+    }
+    indices[size] = sourceIndex;
+    if (labels != null) {
+      labels[size] = source.getLabel(sourceIndex);
+    }
+    size ++;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  protected Vector<SparseVector> getInstances() {
+    Vector<SparseVector> instances = new Vector<SparseVector>(size);
+    for (int i = 0; i < size; i++) {
+      instances.add(getInstance(i));
+    }
+    return instances;
+  }
+
+  @Override
+  protected Vector<Double> getLabels() {
+    Vector<Double> labels = new Vector<Double>(size);
+    for (int i = 0; i < size; i++) {
+      labels.add(getLabel(i));
+    }
+    return labels;
+  }
+
+  @Override
+  public SparseVector getInstance(int index) {
+    return source.getInstance(getSourceIndex(index));
+  }
+
+  @Override
+  public void setInstance(int index, SparseVector instance) {
+    throw new RuntimeException("The instances of " + getClass().getCanonicalName() + " cannot be modified!");
+  }
+
+  @Override
+  public double getLabel(int index) {
+    int sourceIndex = getSourceIndex(index);
+    return labels != null ? labels[index] : source.getLabel(sourceIndex);
+  }
+
+  @Override
+  public void setLabel(int index, double label) {
+    if (labels != null) {
+      checkIndex(index);
+      labels[index] = label;
+    } else {
+      source.setLabel(getSourceIndex(index), label);
+    }
+  }
+
+  /**
+   * Not supported, since the view can contain only the instances of the source (see
+   * addIndex).
+   */
+  @Override
+  public boolean add(SparseVector instance, double label) {
+    throw new RuntimeException("Instances cannot be added to " + getClass().getCanonicalName() + ", use addIndex!");
+  }
+
+  @Override
+  public void remove(int index) {
+    checkIndex(index);
+    System.arraycopy(indices, index + 1, indices, index, size - index - 1);
+    if (labels != null) {
+      System.arraycopy(labels, index + 1, labels, index, size - index - 1);
+    }
+    size --;
+  }
+
+  /**
+   * Returns the number of the predictions set by setNumberOfPredictions, or the size of 
+   * the view if it was not set.
+   */
+  @Override
+  public int getNumberOfPredictions() {
+    return numberOfPredictions < 0 ? size : numberOfPredictions;
+  }
+
+  /**
+   * Sets the number of the predictions that are expected to be computed by a model on 
+   * this view and on the other views of the same sample (e.g. on the batches of a sample 
+   * of the evaluation set).
+   * @param numberOfPredictions the expected number of the predictions (-1 means the size 
+   * of the view)
+   */
+  public void setNumberOfPredictions(int numberOfPredictions) {
+    this.numberOfPredictions = numberOfPredictions;
+  }
+
+  /**
+   * Removes all of the instances from the view, the arrays are kept for reuse.
+   */
+  @Override
+  public void clear() {
+    size = 0;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+  }
+
+}
@@ -0,0 +1,832 @@
+package gossipLearning;
+
+import gossipLearning.utils.FeatureStatistics;
+import gossipLearning.utils.SparseVector;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class parses files in Joachims' SVMLight format into CSRInstanceHolder objects. <br/>
+ * The file is read by large NIO buffers that are split into chunks at line boundaries and
+ * the chunks are tokenized at byte level (without regular expressions and String objects)
+ * in parallel on a fork-join pool. Each chunk is parsed into a CSR fragment and the
+ * fragments are concatenated in the order of the chunks. <br/>
+ * The rules of parsing are the same as the rules of the line based parser (parseByLines):
+ * <ul>
+ * <li>the first line can be a regression header (e.g. "# regression"),</li>
+ * <li>the empty lines and the lines starting with # are skipped,</li>
+ * <li>the part of the lines after a # character is a comment,</li>
+ * <li>a line is a label followed by index:value pairs, where the indices start from 1,</li>
+ * <li>the index of the features must be positive and the line has to have odd number of
+ * tokens, otherwise an exception is thrown with the number of the line.</li>
+ * </ul>
+ * The numbers are parsed by Double.parseDouble and Integer.parseInt compatible way,
+ * the simple decimal numbers are converted directly from the bytes.
+ */
+public class SVMLightParser {
+
+  private static final int defaultChunkSize = 1 << 22;
+  private static final double[] powersOf10 = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  private static final byte[] regressionHeader = {'r', 'e', 'g', 'r', 'e', 's', 's', 'i', 'o', 'n'};
+  private static final byte[] regressionHeaderUpper = {'R', 'E', 'G', 'R', 'E', 'S', 'S', 'I', 'O', 'N'};
+
+  private final int chunkSize;
+  private final int parallelism;
+
+  /**
+   * Constructs a parser that uses 4MB large chunks and as many threads as many processors
+   * are available.
+   */
+  public SVMLightParser() {
+    this(defaultChunkSize, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs a parser with the specified chunk size and number of threads.
+   * @param chunkSize the size of the chunks in bytes
+   * @param parallelism the number of parsing threads
+   */
+  public SVMLightParser(int chunkSize, int parallelism) {
+    if (chunkSize <= 0 || parallelism <= 0) {
+      throw new RuntimeException("The chunk size and the parallelism have to be positive: " + chunkSize + ", " + parallelism);
+    }
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Parses the specified file into a CSRInstanceHolder.
+   * @param file the file that has to be parsed
+   * @return the parsed instances
+   * @throws IOException if file reading error occurs.
+   */
+  public InstanceHolder parse(final File file) throws IOException {
+    return parse(file, null);
+  }
+
+  /**
+   * Parses the specified file into a CSRInstanceHolder and adds the parsed instances to
+   * the specified feature statistics. The statistics are gathered by the parser threads
+   * and merged in the order of the chunks.
+   * @param file the file that has to be parsed
+   * @param statistics the statistics to update (can be null)
+   * @return the parsed instances
+   * @throws IOException if file reading error occurs.
+   */
+  public InstanceHolder parse(final File file, FeatureStatistics statistics) throws IOException {
+    final List<Fragment> fragments = new ArrayList<Fragment>();
+    Summary summary = read(file, false, statistics, new FragmentConsumer() {
+      @Override
+      public void consume(Fragment fragment, int firstRow) {
+        fragments.add(fragment);
+      }
+    });
+
+    // concatenating the fragments in order
+    int[] rowSizes = new int[summary.numberOfInstances];
+    double[] labels = new double[summary.numberOfInstances];
+    int[] indices = new int[summary.numberOfValues];
+    double[] values = new double[summary.numberOfValues];
+    int rowPosition = 0;
+    int valuePosition = 0;
+    for (Fragment fragment : fragments) {
+      System.arraycopy(fragment.rowSizes, 0, rowSizes, rowPosition, fragment.size);
+      System.arraycopy(fragment.labels, 0, labels, rowPosition, fragment.size);
+      System.arraycopy(fragment.indices, 0, indices, valuePosition, fragment.numberOfValues);
+      System.arraycopy(fragment.values, 0, values, valuePosition, fragment.numberOfValues);
+      rowPosition += fragment.size;
+      valuePosition += fragment.numberOfValues;
+    }
+    return new CSRInstanceHolder(rowSizes, labels, indices, values, summary.getNumberOfClasses(), summary.numberOfFeatures + 1);
+  }
+
+  /**
+   * Parses the specified file and passes its instances to the specified consumer in the
+   * order of the file without storing them, so only the fragments of the chunks that are
+   * being parsed are kept in the memory. The instances are read-only views of the fragments
+   * that are valid only during the call of the consumer.
+   * @param file the file that has to be parsed
+   * @param consumer the consumer of the instances
+   * @return the number of classes of the file
+   * @throws IOException if file reading error occurs.
+   */
+  public int parseEach(final File file, final InstanceConsumer consumer) throws IOException {
+    Summary summary = read(file, false, null, new FragmentConsumer() {
+      @Override
+      public void consume(Fragment fragment, int firstRow) {
+        int position = 0;
+        for (int i = 0; i < fragment.size; i++) {
+          consumer.consume(new SparseVector(fragment.indices, fragment.values, position, fragment.rowSizes[i]), fragment.labels[i]);
+          position += fragment.rowSizes[i];
+        }
+      }
+    });
+    return summary.getNumberOfClasses();
+  }
+
+  /**
+   * Scans the specified file without storing the instances and returns a read-only
+   * StreamingInstanceHolder that loads the instances from the file on demand in blocks of
+   * the specified number of instances. The scan checks the validity of the file, counts
+   * the classes and the features and stores the file position of the first instance of
+   * each block.
+   * @param file the file that has to be scanned
+   * @param instancesPerBlock the number of instances of a block
+   * @param cachedBlocks the maximal number of the loaded blocks kept in memory
+   * @return the streaming instance holder of the file
+   * @throws IOException if file reading error occurs.
+   */
+  public StreamingInstanceHolder parseStreaming(final File file, final int instancesPerBlock, int cachedBlocks) throws IOException {
+    if (instancesPerBlock <= 0 || cachedBlocks <= 0) {
+      throw new RuntimeException("The size of the blocks and the number of the cached blocks have to be positive: " + instancesPerBlock + ", " + cachedBlocks);
+    }
+    final long length = file.length();
+    final long lastModified = file.lastModified();
+    final List<Long> blockStarts = new ArrayList<Long>();
+    Summary summary = read(file, true, null, new FragmentConsumer() {
+      @Override
+      public void consume(Fragment fragment, int firstRow) {
+        for (int i = 0; i < fragment.size; i++) {
+          if ((firstRow + i) % instancesPerBlock == 0) {
+            blockStarts.add(fragment.start + fragment.rowPositions[i]);
+          }
+        }
+      }
+    });
+    long[] blockOffsets = new long[blockStarts.size() + 1];
+    for (int i = 0; i < blockStarts.size(); i++) {
+      blockOffsets[i] = blockStarts.get(i);
+    }
+    blockOffsets[blockStarts.size()] = length;
+    return new StreamingInstanceHolder(file, length, lastModified, blockOffsets, instancesPerBlock, summary.numberOfInstances, cachedBlocks, summary.getNumberOfClasses(), summary.numberOfFeatures + 1);
+  }
+
+  /**
+   * Parses the specified region of the file that has to start at the beginning of a line
+   * and has to end at the end of a line. The region is parsed on the calling thread.
+   * @param file the file that has to be parsed
+   * @param start the position of the first byte of the region
+   * @param end the position after the last byte of the region
+   * @return the parsed instances of the region (without the number of classes and features)
+   * @throws IOException if file reading error occurs.
+   */
+  static CSRInstanceHolder parseRegion(final File file, long start, long end) throws IOException {
+    byte[] bytes = new byte[(int)(end - start)];
+    FileInputStream in = new FileInputStream(file);
+    try {
+      FileChannel channel = in.getChannel();
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, start + buffer.position()) < 0) {
+          throw new IOException("Unexpected end of the file \"" + file + "\" at position " + (start + buffer.position()));
+        }
+      }
+    } finally {
+      in.close();
+    }
+    Fragment fragment = new ChunkParser(bytes, start, false, false, false).compute();
+    if (fragment.errorLine > 0) {
+      throw new RuntimeException(String.format(fragment.errorMessage, file, fragment.errorLine) + " of the region starting at position " + start);
+    }
+    return new CSRInstanceHolder(Arrays.copyOf(fragment.rowSizes, fragment.size), Arrays.copyOf(fragment.labels, fragment.size), fragment.indices, fragment.values, 0, 0);
+  }
+
+  /**
+   * Reads the file in chunks, parses the chunks in parallel and passes the parsed fragments
+   * to the specified consumer in the order of the chunks. At most two chunks per thread are
+   * read ahead, so the memory usage of the reading is bounded. Throws exception at the
+   * first invalid line of the file.
+   * @param file the file that has to be parsed
+   * @param isScan the values of the instances are not stored, only their positions
+   * @param statistics the feature statistics to update (can be null)
+   * @param consumer the consumer of the fragments
+   * @return the summary of the fragments
+   * @throws IOException if file reading error occurs.
+   */
+  private Summary read(final File file, boolean isScan, FeatureStatistics statistics, FragmentConsumer consumer) throws IOException {
+    Summary summary = new Summary(file, statistics, consumer);
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    LinkedList<ForkJoinTask<Fragment>> tasks = new LinkedList<ForkJoinTask<Fragment>>();
+    FileInputStream in = new FileInputStream(file);
+    try {
+      FileChannel channel = in.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+      long chunkStart = 0;
+      boolean isEOF = false;
+      while (!isEOF) {
+        // filling the buffer
+        while (buffer.hasRemaining()) {
+          if (channel.read(buffer) < 0) {
+            isEOF = true;
+            break;
+          }
+        }
+        byte[] bytes = buffer.array();
+        int length = buffer.position();
+        // the chunk ends after the last line feed of the buffer
+        int end = length;
+        if (!isEOF) {
+          while (end > 0 && bytes[end - 1] != '\n') {
+            end --;
+          }
+          if (end == 0) {
+            // there is no line feed in the buffer, it has to be enlarged
+            ByteBuffer newBuffer = ByteBuffer.allocate(buffer.capacity() << 1);
+            buffer.flip();
+            newBuffer.put(buffer);
+            buffer = newBuffer;
+            continue;
+          }
+        }
+        tasks.add(pool.submit(new ChunkParser(Arrays.copyOf(bytes, end), chunkStart, chunkStart == 0, isScan, statistics != null)));
+        chunkStart += end;
+        while (tasks.size() > parallelism << 1) {
+          summary.add(join(file, tasks.removeFirst()));
+        }
+        // keeping the beginning of the next line
+        buffer.position(end);
+        buffer.limit(length);
+        buffer.compact();
+        if (buffer.capacity() > chunkSize && buffer.position() < chunkSize) {
+          ByteBuffer newBuffer = ByteBuffer.allocate(chunkSize);
+          buffer.flip();
+          newBuffer.put(buffer);
+          buffer = newBuffer;
+        }
+      }
+      while (!tasks.isEmpty()) {
+        summary.add(join(file, tasks.removeFirst()));
+      }
+    } finally {
+      in.close();
+      pool.shutdownNow();
+    }
+    return summary;
+  }
+
+  private static Fragment join(File file, ForkJoinTask<Fragment> task) {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      throw new RuntimeException("The parsing of the file \"" + file + "\" was interrupted!", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Exception has occurred while parsing the file \"" + file + "\"!", e.getCause());
+    }
+  }
+
+  /**
+   * Receives the parsed instances of a file in order.
+   */
+  public static interface InstanceConsumer {
+    /**
+     * @param instance the next instance
+     * @param label the label of the instance
+     */
+    public void consume(SparseVector instance, double label);
+  }
+
+  /**
+   * Receives the parsed fragments of a file in order.
+   */
+  private static interface FragmentConsumer {
+    /**
+     * @param fragment the next fragment
+     * @param firstRow the index of the first instance of the fragment in the file
+     */
+    public void consume(Fragment fragment, int firstRow);
+  }
+
+  /**
+   * Aggregates the properties of the fragments of a file and checks their validity.
+   */
+  private static class Summary {
+    private final File file;
+    private final FeatureStatistics statistics;
+    private final FragmentConsumer consumer;
+    private int lines;
+    private int numberOfInstances;
+    private int numberOfValues;
+    private int numberOfFeatures = -1;
+    private boolean isRegression;
+    private final Set<Double> classes = new HashSet<Double>();
+
+    public Summary(File file, FeatureStatistics statistics, FragmentConsumer consumer) {
+      this.file = file;
+      this.statistics = statistics;
+      this.consumer = consumer;
+    }
+
+    public void add(Fragment fragment) {
+      if (fragment.errorLine > 0) {
+        throw new RuntimeException(String.format(fragment.errorMessage, file, lines + fragment.errorLine));
+      }
+      if ((long)numberOfInstances + fragment.size > Integer.MAX_VALUE || (long)numberOfValues + fragment.numberOfValues > Integer.MAX_VALUE) {
+        throw new RuntimeException("The file \"" + file + "\" has too many instances or values!");
+      }
+      consumer.consume(fragment, numberOfInstances);
+      lines += fragment.lines;
+      numberOfInstances += fragment.size;
+      numberOfValues += fragment.numberOfValues;
+      numberOfFeatures = Math.max(numberOfFeatures, fragment.maxIndex);
+      isRegression |= fragment.isRegression;
+      classes.addAll(fragment.classes);
+      if (statistics != null) {
+        statistics.merge(fragment.statistics);
+      }
+    }
+
+    public int getNumberOfClasses() {
+      int numberOfClasses = isRegression ? Integer.MAX_VALUE : classes.size();
+      return (numberOfClasses == 1) ? 0 : numberOfClasses; // 1-> indicating clustering
+    }
+  }
+
+  /**
+   * The parsed form of a chunk in CSR format. In scan mode only the labels and the
+   * positions of the instances are stored. Optionally the feature statistics of the chunk
+   * are also computed.
+   */
+  private static class Fragment {
+    private final long start;
+    private int lines;
+    private int size;
+    private int[] rowSizes = new int[64];
+    private double[] labels = new double[64];
+    private int[] rowPositions;
+    private int numberOfValues;
+    private int[] indices = new int[1024];
+    private double[] values = new double[1024];
+    private int maxIndex = -1;
+    private boolean isRegression;
+    private final Set<Double> classes = new HashSet<Double>();
+    private FeatureStatistics statistics;
+    private int errorLine;
+    private String errorMessage;
+
+    public Fragment(long start, boolean isScan, boolean withStatistics) {
+      this.start = start;
+      if (withStatistics) {
+        statistics = new FeatureStatistics();
+      }
+      if (isScan) {
+        rowPositions = new int[64];
+        indices = new int[0];
+        values = new double[0];
+      }
+    }
+  }
+
+  /**
+   * Exception for reporting an invalid line inside of a chunk. The message is a format
+   * string, its first argument is the file, the second one is the number of the line.
+   */
+  private static class InvalidLineException extends Exception {
+    private static final long serialVersionUID = 8155217286214389124L;
+    public InvalidLineException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Parses a chunk of the file that starts at the beginning of a line and ends after a line
+   * feed (or at the end of the file).
+   */
+  private static class ChunkParser extends RecursiveTask<Fragment> {
+    private static final long serialVersionUID = 2204580316017573615L;
+
+    private final byte[] bytes;
+    private final boolean isFirst;
+    private final boolean isScan;
+    private final Fragment fragment;
+    // the position of the current line
+    private int lineStart;
+    // buffers of the tokens of the current line
+    private int[] lineIndices = new int[64];
+    private double[] lineValues = new double[64];
+
+    public ChunkParser(byte[] bytes, long start, boolean isFirst, boolean isScan, boolean withStatistics) {
+      this.bytes = bytes;
+      this.isFirst = isFirst;
+      this.isScan = isScan;
+      fragment = new Fragment(start, isScan, withStatistics);
+    }
+
+    @Override
+    protected Fragment compute() {
+      int position = 0;
+      while (position < bytes.length) {
+        // finding the end of the line
+        int end = position;
+        while (end < bytes.length && bytes[end] != '\n' && bytes[end] != '\r') {
+          end ++;
+        }
+        fragment.lines ++;
+        lineStart = position;
+        try {
+          parseLine(position, end, isFirst && fragment.lines == 1);
+        } catch (InvalidLineException e) {
+          fragment.errorLine = fragment.lines;
+          fragment.errorMessage = e.getMessage();
+          return fragment;
+        }
+        // skipping the line terminator (\n, \r or \r\n)
+        if (end < bytes.length && bytes[end] == '\r') {
+          end ++;
+        }
+        if (end < bytes.length && bytes[end] == '\n') {
+          end ++;
+        }
+        position = end;
+      }
+      return fragment;
+    }
+
+    private void parseLine(int start, int end, boolean isFirstLine) throws InvalidLineException {
+      // checking whether it is a regression problem or not
+      if (isFirstLine && isRegressionHeader(start, end)) {
+        fragment.isRegression = true;
+        return;
+      }
+      // eliminating empty and comment lines
+      if (start == end || bytes[start] == '#') {
+        return;
+      }
+      // eliminating comments and white spaces from the endings of the line
+      for (int i = start; i < end; i++) {
+        if (bytes[i] == '#') {
+          end = i;
+          break;
+        }
+      }
+      while (start < end && (bytes[start] & 0xFF) <= ' ') {
+        start ++;
+      }
+      while (end > start && (bytes[end - 1] & 0xFF) <= ' ') {
+        end --;
+      }
+      // counting the tokens that are separated by a colon or by a white space
+      int numberOfTokens = 1;
+      for (int i = start; i < end; i++) {
+        if (isSeparator(bytes[i])) {
+          numberOfTokens ++;
+        }
+      }
+      // the trailing empty tokens are dropped by the line based parser
+      for (int i = end - 1; i >= start && isSeparator(bytes[i]); i--) {
+        numberOfTokens --;
+      }
+      if (numberOfTokens % 2 != 1) {
+        throw new InvalidLineException("The file \"%1$s\" has invalid structure at line %2$d");
+      }
+      int numberOfPairs = numberOfTokens >>> 1;
+      if (numberOfPairs > lineIndices.length) {
+        lineIndices = new int[Math.max(numberOfPairs, lineIndices.length << 1)];
+        lineValues = new double[lineIndices.length];
+      }
+
+      // parsing the label and the index:value pairs
+      int tokenEnd = nextSeparator(start, end);
+      double label = parseDouble(bytes, start, tokenEnd);
+      boolean isSorted = true;
+      for (int i = 0; i < numberOfPairs; i++) {
+        int tokenStart = tokenEnd + 1;
+        tokenEnd = nextSeparator(tokenStart, end);
+        int index = parseInt(bytes, tokenStart, tokenEnd) - 1; // index from 0
+        if (index < 0) {
+          throw new InvalidLineException("The index of the features must be non-negative integer, line %2$d");
+        }
+        if (index > fragment.maxIndex) {
+          fragment.maxIndex = index;
+        }
+        tokenStart = tokenEnd + 1;
+        tokenEnd = nextSeparator(tokenStart, end);
+        lineIndices[i] = index;
+        lineValues[i] = parseDouble(bytes, tokenStart, tokenEnd);
+        if (i > 0 && lineIndices[i - 1] >= index) {
+          isSorted = false;
+        }
+      }
+      if (!isSorted && !isScan) {
+        numberOfPairs = sortPairs(numberOfPairs);
+      }
+      storeInstance(label, numberOfPairs);
+    }
+
+    /**
+     * Sorts the index:value pairs of the line by index. If an index occurs more than once,
+     * the last value is kept, since it overrides the previous ones. Returns the number of
+     * the remaining pairs.
+     */
+    private int sortPairs(int numberOfPairs) {
+      SparseVector instance = new SparseVector(numberOfPairs);
+      for (int i = 0; i < numberOfPairs; i++) {
+        instance.put(lineIndices[i], lineValues[i]);
+      }
+      for (int i = 0; i < instance.size(); i++) {
+        lineIndices[i] = instance.indexAt(i);
+        lineValues[i] = instance.valueAt(i);
+      }
+      return instance.size();
+    }
+
+    private void storeInstance(double label, int numberOfPairs) {
+      Fragment f = fragment;
+      if (f.size == f.rowSizes.length) {
+        f.rowSizes = Arrays.copyOf(f.rowSizes, f.size << 1);
+        f.labels = Arrays.copyOf(f.labels, f.size << 1);
+        if (isScan) {
+          f.rowPositions = Arrays.copyOf(f.rowPositions, f.size << 1);
+        }
+      }
+      if (isScan) {
+        // only the position and the label of the instance are stored
+        f.rowPositions[f.size] = lineStart;
+        f.labels[f.size] = label;
+        f.size ++;
+        f.classes.add(label);
+        return;
+      }
+      if (f.numberOfValues + numberOfPairs > f.indices.length) {
+        int capacity = Math.max(f.indices.length << 1, f.numberOfValues + numberOfPairs);
+        f.indices = Arrays.copyOf(f.indices, capacity);
+        f.values = Arrays.copyOf(f.values, capacity);
+      }
+      int rowSize = 0;
+      for (int i = 0; i < numberOfPairs; i++) {
+        // 0 values are not stored
+        if (lineValues[i] != 0.0) {
+          f.indices[f.numberOfValues + rowSize] = lineIndices[i];
+          f.values[f.numberOfValues + rowSize] = lineValues[i];
+          rowSize ++;
+        }
+      }
+      if (f.statistics != null) {
+        f.statistics.add(f.indices, f.values, f.numberOfValues, f.numberOfValues + rowSize);
+      }
+      f.numberOfValues += rowSize;
+      f.rowSizes[f.size] = rowSize;
+      f.labels[f.size] = label;
+      f.size ++;
+      f.classes.add(label);
+    }
+
+    private boolean isRegressionHeader(int start, int end) {
+      // # followed by a white space and regression, Regression or REGRESSION
+      if (end - start != 2 + regressionHeader.length || bytes[start] != '#' || !isWhiteSpace(bytes[start + 1])) {
+        return false;
+      }
+      boolean isLower = true;
+      boolean isUpper = true;
+      for (int i = 0; i < regressionHeader.length; i++) {
+        byte b = bytes[start + 2 + i];
+        boolean isFirstLetter = i == 0 && b == 'R';
+        isLower &= b == regressionHeader[i] || isFirstLetter;
+        isUpper &= b == regressionHeaderUpper[i];
+      }
+      return isLower || isUpper;
+    }
+
+    private int nextSeparator(int position, int end) {
+      while (position < end && !isSeparator(bytes[position])) {
+        position ++;
+      }
+      return position;
+    }
+
+    private static boolean isWhiteSpace(byte b) {
+      return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    private static boolean isSeparator(byte b) {
+      return b == ':' || isWhiteSpace(b);
+    }
+
+    /**
+     * Parses an integer like Integer.parseInt.
+     */
+    private static int parseInt(byte[] bytes, int start, int end) throws InvalidLineException {
+      int i = start;
+      boolean isNegative = false;
+      if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+        isNegative = bytes[i] == '-';
+        i ++;
+      }
+      if (i == end || end - i > 9) {
+        return parseIntSlow(bytes, start, end);
+      }
+      int result = 0;
+      for (; i < end; i++) {
+        int digit = bytes[i] - '0';
+        if (digit < 0 || digit > 9) {
+          return parseIntSlow(bytes, start, end);
+        }
+        result = result * 10 + digit;
+      }
+      return isNegative ? -result : result;
+    }
+
+    private static int parseIntSlow(byte[] bytes, int start, int end) throws InvalidLineException {
+      try {
+        return Integer.parseInt(new String(bytes, start, end - start, "ISO-8859-1"));
+      } catch (NumberFormatException e) {
+        throw new InvalidLineException("The file \"%1$s\" has invalid feature index at line %2$d (" + e.getMessage() + ")");
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    /**
+     * Parses a double like Double.parseDouble. The simple decimal numbers having at most 18
+     * significant digits and having at most 22 as the absolute value of the decimal exponent
+     * are computed exactly by a single multiplication or division, the others are parsed by
+     * Double.parseDouble.
+     */
+    private static double parseDouble(byte[] bytes, int start, int end) throws InvalidLineException {
+      int i = start;
+      boolean isNegative = false;
+      if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+        isNegative = bytes[i] == '-';
+        i ++;
+      }
+      long mantissa = 0;
+      int numberOfDigits = 0;
+      int significantDigits = 0;
+      int exponent = 0;
+      for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+        mantissa = mantissa * 10 + (bytes[i] - '0');
+        numberOfDigits ++;
+        if (mantissa != 0) {
+          significantDigits ++;
+        }
+      }
+      if (i < end && bytes[i] == '.') {
+        for (i++; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+          mantissa = mantissa * 10 + (bytes[i] - '0');
+          numberOfDigits ++;
+          if (mantissa != 0) {
+            significantDigits ++;
+          }
+          exponent --;
+        }
+      }
+      if (numberOfDigits == 0 || significantDigits > 18) {
+        return parseDoubleSlow(bytes, start, end);
+      }
+      if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+        i ++;
+        boolean isNegativeExponent = false;
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+          isNegativeExponent = bytes[i] == '-';
+          i ++;
+        }
+        if (i == end || end - i > 4) {
+          return parseDoubleSlow(bytes, start, end);
+        }
+        int e = 0;
+        for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+          e = e * 10 + (bytes[i] - '0');
+        }
+        exponent += isNegativeExponent ? -e : e;
+      }
+      if (i != end || mantissa > (1L << 53) || exponent < -22 || exponent > 22) {
+        return parseDoubleSlow(bytes, start, end);
+      }
+      double result = exponent < 0 ? mantissa / powersOf10[-exponent] : mantissa * powersOf10[exponent];
+      return isNegative ? -result : result;
+    }
+
+    private static double parseDoubleSlow(byte[] bytes, int start, int end) throws InvalidLineException {
+      try {
+        return Double.parseDouble(new String(bytes, start, end - start, "ISO-8859-1"));
+      } catch (NumberFormatException e) {
+        throw new InvalidLineException("The file \"%1$s\" has invalid number at line %2$d (" + e.getMessage() + ")");
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  /**
+   * Parses the specified file line by line by using regular expressions. It is the
+   * reference implementation of the parsing rules.
+   * @param file the file that has to be parsed
+   * @return the parsed instances
+   * @throws IOException if file reading error occurs.
+   */
+  public static InstanceHolder parseByLines(final File file) throws IOException {
+    InstanceHolder holder = new CSRInstanceHolder(0, 0);
+    BufferedReader br = new BufferedReader(new FileReader(file));
+    int numberOfClasses = -1;
+    int numberOfFeatures = -1;
+    Set<Double> classes = new TreeSet<Double>();
+    String line;
+    String[] split;
+    int c = 0;
+    double label;
+    int key;
+    double value;
+    SparseVector instance;
+    while ((line = br.readLine()) != null){
+      c++;
+      // checking whether it is a regression problem or not
+      if (c == 1 && line.matches("#\\s([Rr]egression|REGRESSION)")) {
+        numberOfClasses = Integer.MAX_VALUE;
+        continue;
+      }
+      // eliminating empty and comment lines
+      if (line.length() == 0 || line.startsWith("#")){
+        continue;
+      }
+      // eliminating comments and white spaces from the endings of the line
+      line = line.replaceAll("#.*", "").trim();
+      // splitting line at white spaces and at colons
+      split = line.split(":|\\s");
+      // throwing exception if the line is invalid (= has even number of tokens, since
+      // a valid line has a class label and pairs of indices and corresponding values)
+      if (split.length % 2 != 1){
+        br.close();
+        throw new RuntimeException("The file \"" + file.toString() + "\" has invalid structure at line " + c);
+      }
+      label = Double.parseDouble(split[0]);
+      instance = new SparseVector(split.length >>> 1);
+      for (int i = 1; i < split.length; i += 2){
+        key = Integer.parseInt(split[i]) - 1; // index from 0
+        if (key < 0){
+          br.close();
+          throw new RuntimeException("The index of the features must be non-negative integer, line " + c);
+        }
+        if (key > numberOfFeatures) {
+          numberOfFeatures = key;
+        }
+        value = Double.parseDouble(split[i + 1]);
+        instance.put(key, value);
+      }
+      // storing parsed instance
+      holder.add(instance, label);
+
+      // calculating the number of classes if it is not a regression
+      if (numberOfClasses != Integer.MAX_VALUE) {
+        classes.add(label);
+      }
+    }
+    br.close();
+
+    // sets the correct value of number of classes
+    if (numberOfClasses != Integer.MAX_VALUE) {
+      numberOfClasses = classes.size();
+    }
+
+    return new CSRInstanceHolder(holder, (numberOfClasses == 1) ? 0 : numberOfClasses, numberOfFeatures + 1); // 1-> indicating clustering
+  }
+
+  /**
+   * Measures the throughput of the line based and the chunked parsers on the specified file.
+   * <br/>
+   * Usage: java -cp ... gossipLearning.SVMLightParser file [repetitions [chunkSize [threads]]]
+   * @param args command line arguments
+   * @throws Exception if file reading error occurs.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("Usage: java -cp ... gossipLearning.SVMLightParser file [repetitions [chunkSize [threads]]]");
+      return;
+    }
+    File file = new File(args[0]);
+    int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    SVMLightParser parser = args.length > 3 ? new SVMLightParser(Integer.parseInt(args[2]), Integer.parseInt(args[3])) :
+      args.length > 2 ? new SVMLightParser(Integer.parseInt(args[2]), Runtime.getRuntime().availableProcessors()) : new SVMLightParser();
+    double megaBytes = file.length() / (1024.0 * 1024.0);
+    System.out.println("#parser\trepetition\tms\tMB/s\tinstances");
+    for (int r = 0; r < repetitions; r++) {
+      long time = System.nanoTime();
+      InstanceHolder holder = parseByLines(file);
+      time = System.nanoTime() - time;
+      System.out.println("byLines\t" + r + "\t" + (time / 1000000) + "\t" + String.format("%.2f", megaBytes / (time / 1E9)) + "\t" + holder.size());
+      time = System.nanoTime();
+      holder = parser.parse(file);
+      time = System.nanoTime() - time;
+      System.out.println("chunked\t" + r + "\t" + (time / 1000000) + "\t" + String.format("%.2f", megaBytes / (time / 1E9)) + "\t" + holder.size());
+    }
+  }
+
+}
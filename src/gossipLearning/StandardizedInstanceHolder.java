@@ -0,0 +1,141 @@
+package gossipLearning;
+
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+import java.util.Vector;
+
+/**
+ * This class is a view of an InstanceHolder that standardizes the instances of the
+ * underlying holder lazily. The first access of an instance subtracts the means of the
+ * features from the stored instance and divides it point-wise by the non 0 standard
+ * deviations, and the result is memoized, so the getInstance method returns a read-only
+ * view of the memoized instance (see SparseVector) without computing it again. The
+ * underlying holder is not modified, and its instances should not be modified after
+ * the view is created. <br/>
+ * The labels are read and written through to the underlying holder, the instances cannot
+ * be modified through the view.
+ */
+public class StandardizedInstanceHolder extends InstanceHolder {
+  private static final long serialVersionUID = 4914346452262466731L;
+
+  private final InstanceHolder source;
+  /** @hidden */
+  private final SparseVector means;
+  /** @hidden */
+  private final SparseVector devs;
+  /** @hidden */
+  private final Row[] rows;
+
+  /**
+   * The indices and the values of a standardized instance that are shared by its views.
+   * The fields are final, so a row can be published to the other threads without
+   * synchronization.
+   */
+  private static class Row implements Serializable {
+    private static final long serialVersionUID = -6310954215823546618L;
+    private final int[] indices;
+    private final double[] values;
+    private Row(SparseVector instance) {
+      indices = new int[instance.size()];
+      values = new double[instance.size()];
+      for (int i = 0; i < indices.length; i++) {
+        indices[i] = instance.indexAt(i);
+        values[i] = instance.valueAt(i);
+      }
+    }
+  }
+
+  /**
+   * Constructs a standardized view of the specified holder.
+   * @param source the holder to standardize
+   * @param means the means of the features
+   * @param devs the standard deviations of the features
+   */
+  public StandardizedInstanceHolder(InstanceHolder source, SparseVector means, SparseVector devs) {
+    super(source.getNumberOfClasses(), source.getNumberOfFeatures());
+    this.source = source;
+    this.means = means;
+    this.devs = devs;
+    rows = new Row[source.size()];
+  }
+
+  public Object clone() {
+    return new StandardizedInstanceHolder((InstanceHolder)source.clone(), means, devs);
+  }
+
+  @Override
+  public int size() {
+    return source.size();
+  }
+
+  /**
+   * Returns the standardized forms of the instances as a Vector<SparseVector>.
+   * @return the Vector of the standardized instances.
+   */
+  @Override
+  protected Vector<SparseVector> getInstances() {
+    Vector<SparseVector> instances = new Vector<SparseVector>(size());
+    for (int i = 0; i < size(); i++) {
+      instances.add(getInstance(i));
+    }
+    return instances;
+  }
+
+  @Override
+  protected Vector<Double> getLabels() {
+    Vector<Double> labels = new Vector<Double>(size());
+    for (int i = 0; i < size(); i++) {
+      labels.add(getLabel(i));
+    }
+    return labels;
+  }
+
+  /**
+   * Returns a read-only view of the standardized form of the instance at the specified
+   * position. The instance is standardized at its first access only.
+   * @param index index of the instance to return
+   * @return standardized instance at the specified position
+   */
+  @Override
+  public SparseVector getInstance(int index) {
+    Row row = rows[index];
+    if (row == null) {
+      // the concurrent readers may standardize the same instance, but the results are equal
+      row = new Row(new SparseVector(source.getInstance(index)).add(means, -1.0).div(devs));
+      rows[index] = row;
+    }
+    return new SparseVector(row.indices, row.values, 0, row.indices.length);
+  }
+
+  @Override
+  public void setInstance(int index, SparseVector instance) {
+    throw new RuntimeException("The instances of " + getClass().getCanonicalName() + " cannot be modified!");
+  }
+
+  @Override
+  public double getLabel(int index) {
+    return source.getLabel(index);
+  }
+
+  @Override
+  public void setLabel(int index, double label) {
+    source.setLabel(index, label);
+  }
+
+  @Override
+  public boolean add(SparseVector instance, double label) {
+    throw new RuntimeException("Instances cannot be added to " + getClass().getCanonicalName() + "!");
+  }
+
+  @Override
+  public void remove(int index) {
+    throw new RuntimeException("Instances cannot be removed from " + getClass().getCanonicalName() + "!");
+  }
+
+  @Override
+  public void clear() {
+    throw new RuntimeException("Instances cannot be removed from " + getClass().getCanonicalName() + "!");
+  }
+
+}
@@ -0,0 +1,198 @@
+package gossipLearning;
+
+import gossipLearning.utils.SparseVector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * This class provides read-only access to the instances of a data set file without
+ * storing them in the memory. The file is divided into blocks of consecutive instances,
+ * the positions of the blocks are determined by a scan of the file
+ * (see SVMLightParser.parseStreaming). The blocks are parsed on demand and the recently
+ * used blocks are kept in an LRU cache, so the memory usage depends only on the size and
+ * the number of the cached blocks. <br/>
+ * The instances of a node can be accessed through an InstanceHolderSlice of this holder,
+ * so the training instances of the nodes are also loaded from the file only when they are
+ * used. Sequential access is cheap, since a loaded block serves all of its instances,
+ * while each random access may parse a full block, hence the blocks should be small if
+ * the instances are accessed randomly. <br/>
+ * The instances are returned as read-only views of the loaded blocks.
+ */
+public class StreamingInstanceHolder extends InstanceHolder {
+  private static final long serialVersionUID = 3279409751734436852L;
+
+  private final File file;
+  private final long fileLength;
+  private final long lastModified;
+  /** @hidden */
+  private final long[] blockOffsets;
+  private final int instancesPerBlock;
+  private final int size;
+  private final int cachedBlocks;
+  /** @hidden */
+  private transient Map<Integer, CSRInstanceHolder> cache;
+
+  /**
+   * Constructs a StreamingInstanceHolder for the specified file. It is called by
+   * SVMLightParser.parseStreaming after the scan of the file.
+   * @param file the data set file
+   * @param fileLength the length of the file at the time of the scan
+   * @param lastModified the modification time of the file at the time of the scan
+   * @param blockOffsets the position of the first instance of the blocks and the length of the file
+   * @param instancesPerBlock the number of instances of a block
+   * @param size the number of instances
+   * @param cachedBlocks the maximal number of the loaded blocks kept in memory
+   * @param numberOfClasses number of classes (0 - clustering, N - classification, Integer.MAX_VALUE - regression)
+   * @param numberOfFeatures number of features
+   */
+  StreamingInstanceHolder(File file, long fileLength, long lastModified, long[] blockOffsets, int instancesPerBlock, int size, int cachedBlocks, int numberOfClasses, int numberOfFeatures) {
+    super(numberOfClasses, numberOfFeatures);
+    this.file = file;
+    this.fileLength = fileLength;
+    this.lastModified = lastModified;
+    this.blockOffsets = blockOffsets;
+    this.instancesPerBlock = instancesPerBlock;
+    this.size = size;
+    this.cachedBlocks = cachedBlocks;
+  }
+
+  /**
+   * Constructs a StreamingInstanceHolder that reads the same file as the specified holder
+   * with the specified number of classes and features. The loaded blocks are not shared.
+   * @param holder holder to copy
+   * @param numberOfClasses number of classes (0 - clustering, N - classification, Integer.MAX_VALUE - regression)
+   * @param numberOfFeatures number of features
+   */
+  public StreamingInstanceHolder(StreamingInstanceHolder holder, int numberOfClasses, int numberOfFeatures) {
+    this(holder.file, holder.fileLength, holder.lastModified, holder.blockOffsets, holder.instancesPerBlock, holder.size, holder.cachedBlocks, numberOfClasses, numberOfFeatures);
+  }
+
+  public Object clone() {
+    return new StreamingInstanceHolder(this, getNumberOfClasses(), getNumberOfFeatures());
+  }
+
+  /**
+   * Returns the data set file.
+   * @return the data set file
+   */
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns views of all of the instances as a Vector<SparseVector>. Since it loads every
+   * block of the file, it should be avoided.
+   * @return the Vector of the instances.
+   */
+  @Override
+  protected Vector<SparseVector> getInstances() {
+    Vector<SparseVector> instances = new Vector<SparseVector>(size);
+    for (int i = 0; i < size; i++) {
+      instances.add(getInstance(i));
+    }
+    return instances;
+  }
+
+  /**
+   * Returns the labels of all of the instances as a Vector<Double>. Since it loads every
+   * block of the file, it should be avoided.
+   * @return the Vector of labels correspond to the instances.
+   */
+  @Override
+  protected Vector<Double> getLabels() {
+    Vector<Double> labels = new Vector<Double>(size);
+    for (int i = 0; i < size; i++) {
+      labels.add(getLabel(i));
+    }
+    return labels;
+  }
+
+  /**
+   * Returns a read-only view of the instance at the specified position. The block of the
+   * instance is loaded from the file if it is not in the cache.
+   * @param index index of the instance to return
+   * @return instance at the specified position
+   */
+  @Override
+  public SparseVector getInstance(int index) {
+    checkIndex(index);
+    return getBlock(index / instancesPerBlock).getInstance(index % instancesPerBlock);
+  }
+
+  @Override
+  public double getLabel(int index) {
+    checkIndex(index);
+    return getBlock(index / instancesPerBlock).getLabel(index % instancesPerBlock);
+  }
+
+  @Override
+  public void setInstance(int index, SparseVector instance) {
+    throw new RuntimeException("The instances of " + getClass().getCanonicalName() + " cannot be modified!");
+  }
+
+  @Override
+  public void setLabel(int index, double label) {
+    throw new RuntimeException("The labels of " + getClass().getCanonicalName() + " cannot be modified!");
+  }
+
+  @Override
+  public boolean add(SparseVector instance, double label) {
+    throw new RuntimeException("Instances cannot be added to " + getClass().getCanonicalName() + "!");
+  }
+
+  @Override
+  public void remove(int index) {
+    throw new RuntimeException("Instances cannot be removed from " + getClass().getCanonicalName() + "!");
+  }
+
+  @Override
+  public void clear() {
+    throw new RuntimeException("Instances cannot be removed from " + getClass().getCanonicalName() + "!");
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+  }
+
+  /**
+   * Returns the specified block from the cache or loads it from the file.
+   * @param block index of the block
+   * @return the instances of the block
+   */
+  private synchronized CSRInstanceHolder getBlock(int block) {
+    if (cache == null) {
+      cache = new LinkedHashMap<Integer, CSRInstanceHolder>(16, 0.75f, true) {
+        private static final long serialVersionUID = -1425227402931744432L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, CSRInstanceHolder> eldest) {
+          return size() > cachedBlocks;
+        }
+      };
+    }
+    CSRInstanceHolder result = cache.get(block);
+    if (result == null) {
+      if (file.length() != fileLength || file.lastModified() != lastModified) {
+        throw new RuntimeException("The file \"" + file + "\" was modified after it was scanned!");
+      }
+      try {
+        result = SVMLightParser.parseRegion(file, blockOffsets[block], blockOffsets[block + 1]);
+      } catch (IOException e) {
+        throw new RuntimeException("The block " + block + " of the file \"" + file + "\" cannot be read!", e);
+      }
+      cache.put(block, result);
+    }
+    return result;
+  }
+
+}
@@ -1,9 +1,13 @@
 package gossipLearning.controls;
 
+import gossipLearning.DriftingInstanceHolder;
 import gossipLearning.InstanceHolder;
+import gossipLearning.InstanceHolderSlice;
 import gossipLearning.controls.observers.PredictionObserver;
+import gossipLearning.interfaces.LabelTransform;
 import gossipLearning.interfaces.LearningProtocol;
 import gossipLearning.utils.DenseVector;
+import gossipLearning.utils.RandomStreams;
 import gossipLearning.utils.SparseVector;
 
 import java.util.Vector;
@@ -12,6 +16,7 @@ import peersim.config.Configuration;
 import peersim.core.CommonState;
 import peersim.core.Control;
 import peersim.core.Network;
+import peersim.util.ExtendedRandom;
 
 /**
  * This class models the problem of drifting concepts using the moving hyperplane 
@@ -20,7 +25,11 @@ import peersim.core.Network;
  * Defines samples in the d dimensional unit hypercube and two hypesrplanes 
  * , go through the origin, that are orthogonal to each other. The concept moves 
  * between these hyperplanes periodically and specifies the labelling of the samples. 
- * The move of the hyperplane can be sudden of incremental.
+ * The move of the hyperplane can be sudden of incremental. <br/>
+ * The labels are computed lazily by DriftingInstanceHolder views, so moving the 
+ * hyperplane takes O(d) time, and the label of an instance is computed only if it is 
+ * read after the move. The noise of a label is determined by a seed drawn at the move 
+ * and the position of the instance.
  * @author István Hegedűs
  * @hidden
  */
@@ -52,12 +61,16 @@ public class BaseLineControl implements Control {
   private final boolean isSudden;
   private final boolean isNoise;
   
-  private InstanceHolder training;
-  private InstanceHolder evaluation;
+  private DriftingInstanceHolder training;
+  private DriftingInstanceHolder evaluation;
+  private HyperplaneLabels trainingLabels;
+  private HyperplaneLabels evaluationLabels;
   
   private double[] from;
   private double[] to;
   private DenseVector w;
+  /** @hidden */
+  private final ExtendedRandom random;
   
   /**
    * Constructor that initializes the parameters from the configuration file based on 
@@ -67,6 +80,7 @@ public class BaseLineControl implements Control {
   public BaseLineControl(String prefix){
     pid = Configuration.getPid(prefix + "." + PAR_PID);
     observers = new Vector<PredictionObserver>();
+    random = RandomStreams.create(prefix);
     
     numOfEvals = Configuration.getLong(prefix + "." + PAR_NUMOFEVALS);
     driftsPerEval = Configuration.getDouble(prefix + "." + PAR_DRIFTSPEREVAL);
@@ -98,7 +112,7 @@ public class BaseLineControl implements Control {
     to[0] = 0.0;
     to[1] = 1.0;
     for (int d = 2; d < dimension; d++){
-      if (CommonState.r.nextBoolean()){
+      if (random.nextBoolean()){
         from[d] = 1.0;
         to[d] = 0.0;
       }else{
@@ -108,8 +122,8 @@ public class BaseLineControl implements Control {
       w.put(d, from[d]);
     }
     // generate random instances in N[-1.0,1.0]^d
-    training = new InstanceHolder(2, dimension);
-    evaluation = new InstanceHolder(2, dimension);
+    InstanceHolder training = new InstanceHolder(2, dimension);
+    InstanceHolder evaluation = new InstanceHolder(2, dimension);
     SparseVector instance;
     double label;
     double dotProd;
@@ -117,23 +131,83 @@ public class BaseLineControl implements Control {
       instance = new SparseVector(dimension);
       for (int d = 0; d < dimension; d++){
         if (d == 0) {
-          instance.put(d, CommonState.r.nextDouble());
+          instance.put(d, random.nextDouble());
         } else {
-          instance.put(d, (CommonState.r.nextDouble() * 2.0) - 1.0);
+          instance.put(d, (random.nextDouble() * 2.0) - 1.0);
         }
         //instance.put(d, (CommonState.r.nextDouble() * 2.0) - 1.0);
       }
       dotProd = w.mul(instance);
       label = dotProd < 0.0 ? 0.0 : 1.0;
-      if (isNoise && Math.abs(dotProd / w.norm())*10.0 < CommonState.r.nextDouble()){
+      if (isNoise && Math.abs(dotProd / w.norm())*10.0 < random.nextDouble()){
         label = 1.0 - label;
       }
-      if (CommonState.r.nextDouble() < 0.2) {
+      if (random.nextDouble() < 0.2) {
         evaluation.add(instance, label);
       } else {
         training.add(instance, label);
       }
     }
+    // the generated labels are used until the first move of the hyperplane
+    trainingLabels = new HyperplaneLabels(w, isNoise);
+    evaluationLabels = new HyperplaneLabels(w, isNoise);
+    this.training = new DriftingInstanceHolder(training, trainingLabels);
+    this.evaluation = new DriftingInstanceHolder(evaluation, evaluationLabels);
+  }
+  
+  /**
+   * Label transform that computes the labels by the hyperplane w. After the hyperplane 
+   * has been moved, the noisy labels are flipped with the probability that depends on 
+   * the distance of the instance from the hyperplane, the flipping is determined by the 
+   * seed of the move and the position of the instance.
+   */
+  private static class HyperplaneLabels implements LabelTransform {
+    private static final long serialVersionUID = 4124573803934660919L;
+    private final DenseVector w;
+    private final boolean isNoise;
+    private boolean isMoved;
+    private double norm;
+    private long seed;
+    
+    public HyperplaneLabels(DenseVector w, boolean isNoise) {
+      this.w = w;
+      this.isNoise = isNoise;
+      isMoved = false;
+    }
+    
+    /**
+     * It has to be called after w has been changed.
+     * @param seed seed of the noise
+     */
+    public void move(long seed) {
+      isMoved = true;
+      norm = w.norm();
+      this.seed = seed;
+    }
+    
+    public double transform(InstanceHolder source, int index) {
+      if (!isMoved) {
+        return source.getLabel(index);
+      }
+      double dotProd = w.mul(source.getInstance(index));
+      double label = dotProd < 0.0 ? 0.0 : 1.0;
+      if (isNoise && Math.abs(dotProd / norm)*10.0 < uniform(seed, index)){
+        label = 1.0 - label;
+      }
+      return label;
+    }
+    
+    /**
+     * Returns a uniformly distributed number in [0,1) that is determined by the specified 
+     * seed and index (using the finalizer of SplitMix64).
+     */
+    private static double uniform(long seed, int index) {
+      long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      z = z ^ (z >>> 31);
+      return (z >>> 11) * 0x1.0p-53;
+    }
   }
   
   private double prevAlpha = 0.0;
@@ -146,30 +220,11 @@ public class BaseLineControl implements Control {
     for (int d = 0; d < dimension; d++){
       w.put(d, (1.0 - alpha)*from[d] + alpha*to[d]);
     }
-    double value;
-    double label;
-    double dotProd;
-    // actualize the class labels
-    for (int i = 0; i < training.size(); i++){
-      dotProd = w.mul(training.getInstance(i));
-      value = dotProd < 0.0 ? 0.0 : 1.0;
-      label = value;
-      if (isNoise && Math.abs(dotProd / w.norm())*10.0 < CommonState.r.nextDouble()){
-        label = 1.0 - label;
-        //System.out.println("#NOISE");
-      }
-      training.setLabel(i, label);
-    }
-    for (int i = 0; i < evaluation.size(); i++){
-      dotProd = w.mul(evaluation.getInstance(i));
-      value = dotProd < 0.0 ? 0.0 : 1.0;
-      label = value;
-      if (isNoise && Math.abs(dotProd / w.norm())*10.0 < CommonState.r.nextDouble()){
-        label = 1.0 - label;
-        //System.out.println("#NOISE");
-      }
-      evaluation.setLabel(i, label);
-    }
+    // the class labels are actualized when they are read
+    trainingLabels.move(isNoise ? random.nextLong() : 0);
+    evaluationLabels.move(isNoise ? random.nextLong() : 0);
+    training.drift();
+    evaluation.drift();
     for (PredictionObserver observer : observers) {
       observer.setEvalSet(evaluation);
     }
@@ -178,6 +233,8 @@ public class BaseLineControl implements Control {
   
   /**
    * Adds the specified number of new training instances to the nodes in the network.
+   * The nodes refer to the sampled instances of the training set by InstanceHolderSlice 
+   * views that keep the labels of the time of the sampling.
    * @param n number of samples to be added
    */
   protected void changeInstances(double n){
@@ -187,20 +244,21 @@ public class BaseLineControl implements Control {
     int inc = 0;
     for (int nId = 0; nId < Network.size(); nId++){
       instanceHolder = ((LearningProtocol)(Network.get(nId)).getProtocol(pid)).getInstanceHolder();
-      if (instanceHolder == null) {
-        instanceHolder = new InstanceHolder(2, dimension);
+      if (!(instanceHolder instanceof InstanceHolderSlice) || ((InstanceHolderSlice)instanceHolder).getSource() != training) {
+        instanceHolder = new InstanceHolderSlice(training, numSamples + 1, true);
         ((LearningProtocol)(Network.get(nId)).getProtocol(pid)).setInstenceHolder(instanceHolder);
       }
-      if (CommonState.r.nextDouble() < n - numSamples) {
+      InstanceHolderSlice slice = (InstanceHolderSlice)instanceHolder;
+      if (random.nextDouble() < n - numSamples) {
         inc = 1;
       } else {
         inc = 0;
       }
       if (numSamples + inc > 0) {
-        instanceHolder.clear();
+        slice.clear();
         for (int i = 0; i < numSamples + inc; i++) {
-          sampleIndex = CommonState.r.nextInt(training.size());
-          instanceHolder.add(training.getInstance(sampleIndex), training.getLabel(sampleIndex));
+          sampleIndex = random.nextInt(training.size());
+          slice.addIndex(sampleIndex);
         }
       }
     }
@@ -2,18 +2,20 @@ package gossipLearning.controls;
 
 import gossipLearning.interfaces.Churnable;
 import gossipLearning.utils.LogNormalRandom;
+import gossipLearning.utils.RandomStreams;
 
 import java.util.Map;
+import java.util.Random;
 import java.util.TreeMap;
 import java.util.Vector;
 
 import peersim.config.Configuration;
-import peersim.core.CommonState;
 import peersim.core.Control;
 import peersim.core.Fallible;
 import peersim.core.Network;
 import peersim.core.Node;
 import peersim.core.Protocol;
+import peersim.util.ExtendedRandom;
 
 /**
  * This control is responsible for modeling churn behavior which is provided in the following way:
@@ -35,12 +37,15 @@ public class ChurnControl implements Control {
   private static final String PAR_SIZE = "size";
   private final int size;
   public static final int INIT_SESSION_LENGTH = 0;
+  /** @hidden */
+  private final ExtendedRandom random;
   
   public static final LogNormalRandom rand  = new LogNormalRandom(Configuration.getLong("random.mu", 0), Configuration.getLong("random.sigma", 1), Configuration.getLong("random.seed", System.currentTimeMillis()));
   
   public ChurnControl(String prefix) {
     pid = Configuration.getPid(prefix + "." + PAR_PID);
     size = Configuration.getInt(prefix + "." + PAR_SIZE);
+    random = RandomStreams.create(prefix);
   }
 
 
@@ -59,7 +64,7 @@ public class ChurnControl implements Control {
       }
     }
 
-    adjustNumberOfOnlineSessions(size);
+    adjustNumberOfOnlineSessions(size, random);
 
     return false;
   }
@@ -76,7 +81,7 @@ public class ChurnControl implements Control {
   private static Map<Long, Integer> id2idx = new TreeMap<Long, Integer>();
   private static Vector<Node> downNodes = new Vector<Node>();
   private static Map<Long,Long> offlineToOnline = new TreeMap<Long,Long>();
-  public static void adjustNumberOfOnlineSessions(int size) {
+  public static void adjustNumberOfOnlineSessions(int size, Random random) {
     id2idx.clear();
     downNodes.clear();
     int onlineNodes = 0;
@@ -91,7 +96,7 @@ public class ChurnControl implements Control {
     }
     offlineToOnline.clear();
     while (onlineNodes + offlineToOnline.size() < size && onlineNodes + downNodes.size() >= size) {
-      long id = downNodes.get(CommonState.r.nextInt(downNodes.size())).getID();
+      long id = downNodes.get(random.nextInt(downNodes.size())).getID();
       if (!offlineToOnline.containsKey(id)) {
         long len = getOnlineSessionLength();
         offlineToOnline.put(id, len);
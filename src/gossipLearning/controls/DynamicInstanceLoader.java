@@ -1,20 +1,28 @@
 package gossipLearning.controls;
 
 import gossipLearning.DataBaseReader;
+import gossipLearning.DriftingInstanceHolder;
 import gossipLearning.InstanceHolder;
+import gossipLearning.InstanceHolderSlice;
 import gossipLearning.controls.initializers.InstanceLoader;
 import gossipLearning.controls.observers.PredictionObserver;
+import gossipLearning.interfaces.LabelTransform;
 import gossipLearning.interfaces.LearningProtocol;
+import gossipLearning.utils.RandomStreams;
 import peersim.config.Configuration;
 import peersim.core.CommonState;
 import peersim.core.Network;
+import peersim.util.ExtendedRandom;
 
 
 /**
  * This class handles the drift through dynamically changes the labels on the training 
  * and evaluation sets. The drifts on the data set is described by the number of evaluations, 
  * the number of drifts per evaluation, the number of incoming samples per evaluation and 
- * the ratio of the asynchrony.
+ * the ratio of the asynchrony. <br/>
+ * The labels are not rewritten at the drifts, the training and evaluation sets are viewed 
+ * through DriftingInstanceHolders that rotate the original labels by the number of drifts 
+ * so far, so a drift takes O(1) time.
  * 
  * @author István Hegedűs
  *
@@ -34,8 +42,15 @@ public class DynamicInstanceLoader extends InstanceLoader {
   private final double driftLength;
   private final double driftLength1;
   
+  private ClassRotation rotation;
+  private DriftingInstanceHolder training;
+  private DriftingInstanceHolder evaluation;
+  /** @hidden */
+  private final ExtendedRandom random;
+  
   public DynamicInstanceLoader(String prefix) {
     super(prefix);
+    random = RandomStreams.create(prefix);
     
     numOfEvals = Configuration.getLong(prefix + "." + PAR_NUMOFEVALS);
     driftsPerEval = Configuration.getDouble(prefix + "." + PAR_DRIFTSPEREVAL);
@@ -48,8 +63,11 @@ public class DynamicInstanceLoader extends InstanceLoader {
     driftLength = (double)(CommonState.getEndTime() - 1) / (double)numOfEvals / driftsPerEval;
     driftLength1 = asyncRate * driftLength;
     
+    if (useStreaming) {
+      throw new RuntimeException("This class cannot change the labels of a streamed training set! " + getClass().getCanonicalName());
+    }
     try {
-      reader = DataBaseReader.createDataBaseReader(readerClassName, tFile, eFile);
+      reader = DataBaseReader.createDataBaseReader(readerClassName, prefix, tFile, eFile, useCache, false, instancesPerBlock, cachedBlocks);
     } catch (Exception e) {
       throw new RuntimeException("Exception in " + getClass().getCanonicalName(), e);
     }
@@ -58,9 +76,35 @@ public class DynamicInstanceLoader extends InstanceLoader {
       throw new RuntimeException("This class cannot handle regression tasks! " + getClass().getCanonicalName());
     }
   }
+  
+  /**
+   * Label transform that shifts the class labels by the number of drifts modulo the 
+   * number of classes.
+   */
+  private static class ClassRotation implements LabelTransform {
+    private static final long serialVersionUID = 7713802215427655162L;
+    private final int numberOfClasses;
+    private int shift;
+    
+    public ClassRotation(int numberOfClasses) {
+      this.numberOfClasses = numberOfClasses;
+      shift = 0;
+    }
+    
+    public void rotate() {
+      shift = (shift + 1) % numberOfClasses;
+    }
+    
+    public double transform(InstanceHolder source, int index) {
+      double label = source.getLabel(index);
+      return shift == 0 ? label : ((int)label + shift) % numberOfClasses;
+    }
+  }
 
   /**
-   * Sets a new instance for nodes as the training set.
+   * Sets a new instance for nodes as the training set. The nodes refer to the sampled 
+   * instances of the drifting training set by InstanceHolderSlice views that keep the 
+   * labels of the time of the sampling.
    */
   private void changeInstances(double n){
     InstanceHolder instanceHolder;
@@ -69,20 +113,21 @@ public class DynamicInstanceLoader extends InstanceLoader {
     int inc = 0;
     for (int nId = 0; nId < Network.size(); nId++){
       instanceHolder = ((LearningProtocol)(Network.get(nId)).getProtocol(pid)).getInstanceHolder();
-      if (instanceHolder == null) {
-        instanceHolder = new InstanceHolder(2, reader.getTrainingSet().getNumberOfFeatures());
+      if (!(instanceHolder instanceof InstanceHolderSlice) || ((InstanceHolderSlice)instanceHolder).getSource() != training || !((InstanceHolderSlice)instanceHolder).isCopyingLabels()) {
+        instanceHolder = new InstanceHolderSlice(training, numSamples + 1, true);
         ((LearningProtocol)(Network.get(nId)).getProtocol(pid)).setInstenceHolder(instanceHolder);
       }
-      if (CommonState.r.nextDouble() < n - numSamples) {
+      InstanceHolderSlice slice = (InstanceHolderSlice)instanceHolder;
+      if (random.nextDouble() < n - numSamples) {
         inc = 1;
       } else {
         inc = 0;
       }
       if (numSamples + inc > 0) {
-        instanceHolder.clear();
+        slice.clear();
         for (int i = 0; i < numSamples + inc; i++) {
-          sampleIndex = CommonState.r.nextInt(reader.getTrainingSet().size());
-          instanceHolder.add(reader.getTrainingSet().getInstance(sampleIndex), reader.getTrainingSet().getLabel(sampleIndex));
+          sampleIndex = random.nextInt(training.size());
+          slice.addIndex(sampleIndex);
         }
       }
     }
@@ -98,23 +143,14 @@ public class DynamicInstanceLoader extends InstanceLoader {
   }
   
   /**
-   * Changes the labels on the training and evaluation sets.
+   * Changes the labels on the training and evaluation sets by rotating the classes.
    */
   private void changeLabels(){
-    double label;
-    int nc;
-    for (int i = 0; i < reader.getTrainingSet().size(); i++){
-      label = reader.getTrainingSet().getLabel(i);
-      nc = reader.getTrainingSet().getNumberOfClasses();
-      reader.getTrainingSet().setLabel(i, ((int)label + 1.0)%nc);
-    }
-    for (int i = 0; i < reader.getEvalSet().size(); i++){
-      label = reader.getEvalSet().getLabel(i);
-      nc = reader.getTrainingSet().getNumberOfClasses();
-      reader.getEvalSet().setLabel(i, ((int)label + 1.0)%nc);
-    }
+    rotation.rotate();
+    training.drift();
+    evaluation.drift();
     for (PredictionObserver observer : observers) {
-      observer.setEvalSet(reader.getEvalSet());
+      observer.setEvalSet(evaluation);
     }
     //System.out.println("DRIFT ");
   }
@@ -125,6 +161,13 @@ public class DynamicInstanceLoader extends InstanceLoader {
     long i = CommonState.getTime();
     if (i == 0){
       super.execute();
+      // the labels of the sets read by the InstanceLoader are drifted through views
+      rotation = new ClassRotation(reader.getTrainingSet().getNumberOfClasses());
+      training = new DriftingInstanceHolder(reader.getTrainingSet(), rotation);
+      evaluation = new DriftingInstanceHolder(reader.getEvalSet(), rotation);
+      for (PredictionObserver observer : observers) {
+        observer.setEvalSet(evaluation);
+      }
       // at the first time set an instance for nodes and evaluate them
       changeInstances(1.0);
       eval();
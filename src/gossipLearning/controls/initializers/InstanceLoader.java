@@ -1,7 +1,7 @@
 package gossipLearning.controls.initializers;
 
 import gossipLearning.DataBaseReader;
-import gossipLearning.InstanceHolder;
+import gossipLearning.InstanceHolderSlice;
 import gossipLearning.controls.observers.PredictionObserver;
 import gossipLearning.interfaces.LearningProtocol;
 
@@ -20,7 +20,16 @@ import peersim.core.Protocol;
  * Moreover, this control loads the training instances onto the nodes, and specifies the
  * evaluation set for the error observer. <br/>
  * The number of training instances per node can be parameterized, the default
- * value is 1.
+ * value is 1. The nodes refer to their instances in the shared training set by 
+ * InstanceHolderSlice views, so the instances are not copied. <br/>
+ * If the cache parameter is set to true, the parsed data sets are stored in binary 
+ * cache files next to the data set files and loaded from them at the next run. <br/>
+ * If the streaming parameter is set to true, the training set is not loaded into the 
+ * memory, the instances of the nodes are loaded from the training file on demand 
+ * (see StreamingInstanceHolder) in blocks of instancesPerBlock instances, and at most 
+ * cachedBlocks blocks are kept in the memory (the default value of both is 256). <br/>
+ * The parameters of the reader class are read by the prefix of this control (e.g. the 
+ * hashingBits parameter of the HashingDataBaseReader).
  * @author Róbert Ormándi
  *
  * @navassoc - - - LearningProtocol
@@ -31,8 +40,13 @@ public class InstanceLoader implements Control {
   private static final String PAR_EFILE = "evaluationFile";
   private static final String PAR_SIZE = "samplesPerNode";
   private static final String PAR_READERCLASS = "readerClass";
+  private static final String PAR_CACHE = "cache";
+  private static final String PAR_STREAMING = "streaming";
+  private static final String PAR_INSTANCESPERBLOCK = "instancesPerBlock";
+  private static final String PAR_CACHEDBLOCKS = "cachedBlocks";
   
   protected final int pid;
+  protected final String prefix;
   /** @hidden */
   protected final File tFile;
   /** @hidden */
@@ -43,20 +57,29 @@ public class InstanceLoader implements Control {
   /** @hidden */
   protected final File eFile;
   protected final int samplesPerNode;
+  protected final boolean useCache;
+  protected final boolean useStreaming;
+  protected final int instancesPerBlock;
+  protected final int cachedBlocks;
     
   public InstanceLoader(String prefix) {
+    this.prefix = prefix;
     pid = Configuration.getPid(prefix + "." + PAR_PROT);
     tFile = new File(Configuration.getString(prefix + "." + PAR_TFILE));
     eFile = new File(Configuration.getString(prefix + "." + PAR_EFILE));
     samplesPerNode = Configuration.getInt(prefix + "." + PAR_SIZE, 1);
     readerClassName = Configuration.getString(prefix + "." + PAR_READERCLASS, "gossipLearning.DataBaseReader");
+    useCache = Configuration.getBoolean(prefix + "." + PAR_CACHE, false);
+    useStreaming = Configuration.getBoolean(prefix + "." + PAR_STREAMING, false);
+    instancesPerBlock = Configuration.getInt(prefix + "." + PAR_INSTANCESPERBLOCK, 256);
+    cachedBlocks = Configuration.getInt(prefix + "." + PAR_CACHEDBLOCKS, 256);
     observers = new Vector<PredictionObserver>();
   }
   
   public boolean execute(){
     try {
       // read instances
-      reader = DataBaseReader.createDataBaseReader(readerClassName, tFile, eFile);
+      reader = DataBaseReader.createDataBaseReader(readerClassName, prefix, tFile, eFile, useCache, useStreaming, instancesPerBlock, cachedBlocks);
       
       // InstanceLoader initializes the evaluation set of prediction observer
       for (PredictionObserver observer : observers) {
@@ -70,10 +93,9 @@ public class InstanceLoader implements Control {
         Protocol protocol = node.getProtocol(pid);
         if (protocol instanceof LearningProtocol) {
           LearningProtocol learningProtocol = (LearningProtocol) protocol;
-          InstanceHolder instances = new InstanceHolder(reader.getTrainingSet().getNumberOfClasses(), reader.getTrainingSet().getNumberOfFeatures());
-          for (int j = 0; j < samplesPerNode; j++){
-            instances.add(reader.getTrainingSet().getInstance((i * samplesPerNode + j) % numOfSamples), reader.getTrainingSet().getLabel((i * samplesPerNode + j) % numOfSamples));
-          }
+          // the labels are copied like the labels of a node's own data, except in streaming 
+          // mode, where the labels of the training set cannot change
+          InstanceHolderSlice instances = new InstanceHolderSlice(reader.getTrainingSet(), (i * samplesPerNode) % numOfSamples, samplesPerNode, !reader.isStreaming());
           
           // set the instances for current node
           learningProtocol.setInstenceHolder(instances);
@@ -1,15 +1,24 @@
 package gossipLearning.controls.observers;
 
+import gossipLearning.DriftingInstanceHolder;
 import gossipLearning.InstanceHolder;
+import gossipLearning.InstanceHolderSlice;
 import gossipLearning.controls.observers.errorComputation.AbstractErrorComputator;
 import gossipLearning.controls.observers.errorComputation.ErrorFunction;
 import gossipLearning.interfaces.LearningProtocol;
+import gossipLearning.interfaces.Model;
 import gossipLearning.interfaces.ModelHolder;
+import gossipLearning.interfaces.VersionedModel;
 
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Random;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import peersim.config.Configuration;
 import peersim.core.CommonState;
@@ -20,7 +29,24 @@ import peersim.reports.GraphObserver;
 /**
  * This class computes the prediction error of the nodes in the network
  * based on the specified type of error computator and error function. The
- * computer prediction error will be written on the output channel.
+ * computer prediction error will be written on the output channel. <br/>
+ * The nodes can be evaluated in parallel by setting the parallelism parameter to the 
+ * number of threads (1 by default). The error vectors of the nodes are computed 
+ * concurrently on a fork-join pool, but they are aggregated in the order of the nodes, 
+ * so the output is the same as in the sequential case. The models are only read during 
+ * the evaluation, but their predict methods must not modify the evaluation instances. <br/>
+ * The error vectors of the model holders are cached (unless the cache parameter is 
+ * false), and the error vector of a model holder is computed again only if its models 
+ * were changed since the previous evaluation (see VersionedModel) or the evaluation set 
+ * was changed (by setEvalSet or by a drift of a DriftingInstanceHolder). The model 
+ * holders containing models without version stamps are evaluated every time, and the 
+ * error vectors of the model holders that were not evaluated by the last execution 
+ * (e.g. the replaced holders) are evicted from the cache. <br/>
+ * If the confidenceWidth parameter is set, the nodes are evaluated on a stratified 
+ * random sample of the evaluation set instead of the whole set (see computeSampledErrors). 
+ * The sample is grown progressively by sampleBatch instances until the confidence 
+ * interval of the average error (AvgE&plusmn;CI, with z-score confidenceZ) is narrower 
+ * than confidenceWidth, and the half-width of the interval is printed after DevE. 
  * @author István Hegedűs
  * @has 1 "" 1 InstanceHolder
  * 
@@ -60,6 +86,52 @@ public class PredictionObserver extends GraphObserver {
   private static final String PAR_SUFFIX = "suffix";
   /** @hidden */
   protected String printSuffix = "";
+  private static final String PAR_PARALLELISM = "parallelism";
+  /**
+   * The number of threads evaluating the nodes.
+   */
+  protected final int parallelism;
+  /** @hidden */
+  private final ForkJoinPool pool;
+  private static final String PAR_CACHE = "cache";
+  /**
+   * The error vectors of the unchanged model holders are reused or not.
+   */
+  protected final boolean isCaching;
+  /** @hidden */
+  private IdentityHashMap<ModelHolder, CachedError> cache = new IdentityHashMap<ModelHolder, CachedError>();
+  /** @hidden */
+  private InstanceHolder cachedEval;
+  private long cachedEvalVersion;
+  private static final String PAR_WIDTH = "confidenceWidth";
+  /**
+   * The target width of the confidence interval of the average error (0 - the whole 
+   * evaluation set is used).
+   */
+  protected final double confidenceWidth;
+  private static final String PAR_Z = "confidenceZ";
+  /**
+   * The z-score of the confidence interval (1.96 - 95% by default).
+   */
+  protected final double confidenceZ;
+  private static final String PAR_BATCH = "sampleBatch";
+  /**
+   * The number of evaluation instances added to the sample in a step.
+   */
+  protected final int sampleBatch;
+  /**
+   * The minimal number of batches for estimating the confidence interval.
+   */
+  private static final int MIN_BATCHES = 3;
+  /**
+   * The number of evaluation instances used at the last evaluation.
+   */
+  protected int numOfEvalSamples;
+  /** @hidden */
+  private Random sampleRandom;
+  /** @hidden */
+  private StratifiedSampler sampler;
+  private long samplerEvalVersion;
     
   @SuppressWarnings("unchecked")
   public PredictionObserver(String prefix) throws Exception {
@@ -67,6 +139,21 @@ public class PredictionObserver extends GraphObserver {
     pid = Configuration.getPid(prefix + "." + PAR_PROT);
     format = Configuration.getString(prefix + "." + PAR_FORMAT, "");
     printSuffix = Configuration.getString(prefix + "." + PAR_SUFFIX, "");
+    parallelism = Configuration.getInt(prefix + "." + PAR_PARALLELISM, 1);
+    if (parallelism < 1) {
+      throw new RuntimeException("The parallelism has to be positive: " + parallelism);
+    }
+    pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    isCaching = Configuration.getBoolean(prefix + "." + PAR_CACHE, true);
+    confidenceWidth = Configuration.getDouble(prefix + "." + PAR_WIDTH, 0.0);
+    confidenceZ = Configuration.getDouble(prefix + "." + PAR_Z, 1.96);
+    sampleBatch = Configuration.getInt(prefix + "." + PAR_BATCH, 100);
+    if (confidenceWidth < 0.0 || confidenceZ <= 0.0 || sampleBatch < 1) {
+      throw new RuntimeException("Invalid sampling parameters: width=" + confidenceWidth + ", z=" + confidenceZ + ", batch=" + sampleBatch);
+    }
+    if (confidenceWidth > 0.0) {
+      sampleRandom = new Random(Configuration.getLong("random.seed", System.currentTimeMillis()));
+    }
     
     // create error computator
     String errorComputatorClassName = Configuration.getString(prefix + "." + PAR_EC);
@@ -89,84 +176,413 @@ public class PredictionObserver extends GraphObserver {
   }
   
   public boolean execute() {
-    try {
-      errorComputator = errorComputatorConstructor.newInstance(eval, errorFunction);
-    } catch (Exception e) {
-      throw new RuntimeException(e);
-    }
+    errorComputator = createErrorComputator(eval);
     updateGraph();
     if (format.equals("gpt") && CommonState.getTime() == 0) {
-      System.out.println("#iter\tavgavgE\tdevavgE\tmaxAvgE\tminAvgE" + ((printSuffix.length() > 0) ? "\t# " + printSuffix + " ": "\t# ") + errorComputator.getClass().getCanonicalName() + "[NumOfVotes]" + "\t[HolderIndex]");
+      System.out.println("#iter\tavgavgE\tdevavgE" + (confidenceWidth > 0.0 ? "\tciAvgE" : "") + "\tmaxAvgE\tminAvgE" + ((printSuffix.length() > 0) ? "\t# " + printSuffix + " ": "\t# ") + errorComputator.getClass().getCanonicalName() + "[NumOfVotes]" + "\t[HolderIndex]");
     }
     
-    Vector<Vector<Double>> errorCounter = new Vector<Vector<Double>>();
-    Vector<Vector<Double>> avgError = new Vector<Vector<Double>>();
-    Vector<Vector<Double>> devError = new Vector<Vector<Double>>();
-    Vector<Vector<Double>> minAvgError = new Vector<Vector<Double>>();
-    Vector<Vector<Double>> maxAvgError = new Vector<Vector<Double>>();
-    
     Set<Integer> idxSet = generateIndices();
-    
+    LearningProtocol[] protocols = new LearningProtocol[idxSet.size()];
+    int numOfProtocols = 0;
     for (int i : idxSet) {
       Protocol p = ((Node) g.getNode(i)).getProtocol(pid);
       if (p instanceof LearningProtocol) {
-        // evaluating the model(s) of the ith node
-        int numOfHolders = ((LearningProtocol)p).size();
-        for (int holderIndex = 0; holderIndex < numOfHolders; holderIndex++){
-          // initializing the statistics container
-          if (errorCounter.size() <= holderIndex){
-            errorCounter.add(new Vector<Double>());
-            avgError.add(new Vector<Double>());
-            devError.add(new Vector<Double>());
-            maxAvgError.add(new Vector<Double>());
-            minAvgError.add(new Vector<Double>());
-          }
-          ModelHolder modelHolder = ((LearningProtocol)p).getModelHolder(holderIndex);
-          double[] errorVecOfNodeI = errorComputator.computeError(modelHolder);
-          for (int j = 0; j < errorVecOfNodeI.length; j ++) {
-            // aggregate the results of nodes in term of jth error
-            if (errorCounter.get(holderIndex).size() <= j){
-              errorCounter.get(holderIndex).add(1.0);
-              avgError.get(holderIndex).add(errorVecOfNodeI[j]);
-              devError.get(holderIndex).add(errorVecOfNodeI[j] * errorVecOfNodeI[j]);
-              maxAvgError.get(holderIndex).add(errorVecOfNodeI[j]);
-              minAvgError.get(holderIndex).add(errorVecOfNodeI[j]);
-            } else {
-              errorCounter.get(holderIndex).set(j, errorCounter.get(holderIndex).get(j) + 1.0);
-              avgError.get(holderIndex).set(j, avgError.get(holderIndex).get(j) + errorVecOfNodeI[j]);
-              devError.get(holderIndex).set(j, devError.get(holderIndex).get(j) + (errorVecOfNodeI[j] * errorVecOfNodeI[j]));
-              if (maxAvgError.get(holderIndex).get(j) < errorVecOfNodeI[j]){
-                maxAvgError.get(holderIndex).set(j, errorVecOfNodeI[j]);
-              }
-              if (minAvgError.get(holderIndex).get(j) > errorVecOfNodeI[j]){
-                minAvgError.get(holderIndex).set(j, errorVecOfNodeI[j]);
-              }
-            }
-          }
-        }
+        protocols[numOfProtocols ++] = (LearningProtocol)p;
       }
     }
-    for (int i = 0; i < errorCounter.size(); i ++) {
-      for (int j = 0; j < errorCounter.get(i).size(); j++){
-        // errorCounter.get(i).get(j) is never less or equal to 0
-        avgError.get(i).set(j, avgError.get(i).get(j) / errorCounter.get(i).get(j));
-        double sqrt = devError.get(i).get(j) / errorCounter.get(i).get(j) - avgError.get(i).get(j) * avgError.get(i).get(j);
-        sqrt = sqrt < 0.0 ? 0.0 : Math.sqrt(sqrt);
-        devError.get(i).set(j, sqrt);
+    
+    // evaluating the model(s) of the nodes
+    double[][][] errors = new double[numOfProtocols][][];
+    double[][] halfWidths = null;
+    numOfEvalSamples = eval == null ? 0 : eval.size();
+    if (confidenceWidth > 0.0 && numOfEvalSamples > 0) {
+      halfWidths = computeSampledErrors(protocols, numOfProtocols, errors);
+    } else {
+      evaluate(protocols, numOfProtocols, errors);
+    }
+    
+    // aggregating the results of the nodes in order
+    ErrorStatistics[] statistics = aggregate(errors, numOfProtocols);
+    
+    for (int i = 0; i < statistics.length; i ++) {
+      ErrorStatistics s = statistics[i];
+      for (int j = 0; j < s.size; j++){
+        // s.counter[j] is never less or equal to 0
+        double avgError = s.sum[j] / s.counter[j];
+        double devError = s.squareSum[j] / s.counter[j] - avgError * avgError;
+        devError = devError < 0.0 ? 0.0 : Math.sqrt(devError);
+        // the whole evaluation set was used if the half-width is not computed
+        double halfWidth = halfWidths == null ? 0.0 : halfWidths[i][j];
         
         // print info
         if (CommonState.getTime() > 0) {
           if (format.equals("gpt")) {
             //System.out.println(CommonState.getTime() + "\t" + Configuration.getLong("simulation.logtime"));
-            System.out.println((CommonState.getTime()/Configuration.getLong("simulation.logtime")) + "\t" + avgError.get(i).get(j) + "\t" + devError.get(i).get(j) + "\t" + maxAvgError.get(i).get(j) + "\t" + minAvgError.get(i).get(j) + ((printSuffix.length() > 0) ? "\t# " + printSuffix + " ": "\t# ") +  getClass().getCanonicalName() +  " - " + errorComputator.getClass().getCanonicalName() + "[" + j + "]\t[" + i + "]");
+            System.out.println((CommonState.getTime()/Configuration.getLong("simulation.logtime")) + "\t" + avgError + "\t" + devError + (confidenceWidth > 0.0 ? "\t" + halfWidth : "") + "\t" + s.max[j] + "\t" + s.min[j] + ((printSuffix.length() > 0) ? "\t# " + printSuffix + " ": "\t# ") +  getClass().getCanonicalName() +  " - " + errorComputator.getClass().getCanonicalName() + "[" + j + "]\t[" + i + "]");
           } else {
-            System.out.println(getClass().getCanonicalName() + " - " + errorComputator.getClass().getCanonicalName() + "[" + j + "]\t[" + i + "]" + ":\tAvgE=" + avgError.get(i).get(j) + "\tDevE=" + devError.get(i).get(j) + "\tMaxE=" + maxAvgError.get(i).get(j) + "\tMinE=" + minAvgError.get(i).get(j) + ((printSuffix.length() > 0) ? "\t# " + printSuffix : "") );
+            System.out.println(getClass().getCanonicalName() + " - " + errorComputator.getClass().getCanonicalName() + "[" + j + "]\t[" + i + "]" + ":\tAvgE=" + avgError + "\tDevE=" + devError + (confidenceWidth > 0.0 ? "\tCI=" + halfWidth + "\tEvalSamples=" + numOfEvalSamples : "") + "\tMaxE=" + s.max[j] + "\tMinE=" + s.min[j] + ((printSuffix.length() > 0) ? "\t# " + printSuffix : "") );
           }
         }
       }
     }
     return false;
   }
+  
+  /**
+   * Computes the error vectors of the model holders on the whole evaluation set. The 
+   * error vectors of the unchanged model holders are taken from the cache.
+   * @param protocols the learning protocols of the evaluated nodes
+   * @param numOfProtocols the number of the evaluated protocols
+   * @param errors the array of the results, errors[k][h] is the error vector of the hth 
+   * model holder of the kth protocol
+   */
+  private void evaluate(LearningProtocol[] protocols, int numOfProtocols, double[][][] errors) {
+    if (isCaching) {
+      // the error vectors of the unchanged model holders are taken from the cache
+      long evalVersion = getEvalVersion();
+      if (eval != cachedEval || evalVersion != cachedEvalVersion) {
+        cache.clear();
+        cachedEval = eval;
+        cachedEvalVersion = evalVersion;
+      }
+      for (int k = 0; k < numOfProtocols; k++) {
+        errors[k] = new double[protocols[k].size()][];
+        for (int holderIndex = 0; holderIndex < errors[k].length; holderIndex++) {
+          ModelHolder modelHolder = protocols[k].getModelHolder(holderIndex);
+          CachedError cached = cache.get(modelHolder);
+          if (cached != null && Arrays.equals(cached.versions, getVersions(modelHolder))) {
+            errors[k][holderIndex] = cached.errors;
+          }
+        }
+      }
+    }
+    evaluate(eval, errorComputator, protocols, numOfProtocols, errors);
+    if (isCaching) {
+      // the newly computed error vectors are stored, and only the evaluated model holders 
+      // are kept in the cache
+      IdentityHashMap<ModelHolder, CachedError> evaluated = new IdentityHashMap<ModelHolder, CachedError>(cache.size());
+      for (int k = 0; k < numOfProtocols; k++) {
+        for (int holderIndex = 0; holderIndex < errors[k].length; holderIndex++) {
+          ModelHolder modelHolder = protocols[k].getModelHolder(holderIndex);
+          CachedError cached = cache.get(modelHolder);
+          if (cached == null || cached.errors != errors[k][holderIndex]) {
+            long[] versions = getVersions(modelHolder);
+            cached = versions == null ? null : new CachedError(versions, errors[k][holderIndex]);
+          }
+          if (cached != null) {
+            evaluated.put(modelHolder, cached);
+          }
+        }
+      }
+      cache = evaluated;
+    }
+  }
+  
+  /**
+   * Computes the missing error vectors of the model holders on the specified evaluation 
+   * set sequentially or on the fork-join pool.
+   * @param evalSet the evaluation set
+   * @param computator the error computator of the evaluation set used sequentially
+   * @param protocols the learning protocols of the evaluated nodes
+   * @param numOfProtocols the number of the evaluated protocols
+   * @param errors the array of the results
+   */
+  private void evaluate(InstanceHolder evalSet, AbstractErrorComputator computator, LearningProtocol[] protocols, int numOfProtocols, double[][][] errors) {
+    if (pool == null || numOfProtocols < 2) {
+      computeErrors(computator, protocols, 0, numOfProtocols, errors);
+    } else {
+      if (evalSet != null) {
+        // the lazily computed labels (e.g. of a DriftingInstanceHolder) are computed here 
+        // instead of concurrently by the threads
+        for (int j = 0; j < evalSet.size(); j++) {
+          evalSet.getLabel(j);
+        }
+      }
+      pool.invoke(new EvaluationTask(evalSet, protocols, 0, numOfProtocols, Math.max(1, numOfProtocols / (parallelism << 3)), errors));
+    }
+  }
+  
+  /**
+   * Computes the error vectors of the model holders on a progressively growing stratified 
+   * random sample of the evaluation set. In each step sampleBatch instances are drawn 
+   * without replacement from the strata (the classes in the case of classification) 
+   * proportionally to their sizes, and the models are evaluated on this batch. The error 
+   * vector of a model holder is the mean of its errors on the batches weighted by the 
+   * sizes of the batches (it is the error on the whole sample if the error function 
+   * is not post-processed). <br/>
+   * The batches are random groups of the sample, so the variance of the average error is 
+   * estimated from the average errors of the batches (with finite population correction). 
+   * The sampling stops when the half-width of every confidence interval is at most the 
+   * half of confidenceWidth (after at least MIN_BATCHES batches), or when the whole 
+   * evaluation set is used.
+   * @param protocols the learning protocols of the evaluated nodes
+   * @param numOfProtocols the number of the evaluated protocols
+   * @param errors the array of the results
+   * @return the half-widths of the confidence intervals of the average errors, 
+   * [holder index][vote index]
+   */
+  private double[][] computeSampledErrors(LearningProtocol[] protocols, int numOfProtocols, double[][][] errors) {
+    updateSampler();
+    int size = eval.size();
+    InstanceHolderSlice batch = new InstanceHolderSlice(eval, sampleBatch, false);
+    // the models are prepared for batch prediction as in the case of the whole evaluation set
+    batch.setNumberOfPredictions(size);
+    ArrayList<double[][]> batchAverages = new ArrayList<double[][]>();
+    ArrayList<Integer> batchSizes = new ArrayList<Integer>();
+    double[][] halfWidths = null;
+    sampler.restart();
+    numOfEvalSamples = 0;
+    while (numOfEvalSamples < size) {
+      sampler.nextBatch(batch, sampleBatch, sampleRandom);
+      if (batch.size() == 0) {
+        continue;
+      }
+      numOfEvalSamples += batch.size();
+      
+      // evaluating the models on the batch
+      double[][][] batchErrors = new double[numOfProtocols][][];
+      evaluate(batch, createErrorComputator(batch), protocols, numOfProtocols, batchErrors);
+      for (int k = 0; k < numOfProtocols; k++) {
+        if (errors[k] == null) {
+          errors[k] = new double[batchErrors[k].length][];
+        }
+        for (int holderIndex = 0; holderIndex < errors[k].length; holderIndex++) {
+          double[] batchError = batchErrors[k][holderIndex];
+          if (errors[k][holderIndex] == null) {
+            errors[k][holderIndex] = new double[batchError.length];
+          }
+          for (int j = 0; j < batchError.length; j++) {
+            errors[k][holderIndex][j] += batch.size() * batchError[j];
+          }
+        }
+      }
+      ErrorStatistics[] statistics = aggregate(batchErrors, numOfProtocols);
+      double[][] averages = new double[statistics.length][];
+      for (int i = 0; i < statistics.length; i++) {
+        averages[i] = new double[statistics[i].size];
+        for (int j = 0; j < averages[i].length; j++) {
+          averages[i][j] = statistics[i].sum[j] / statistics[i].counter[j];
+        }
+      }
+      batchAverages.add(averages);
+      batchSizes.add(batch.size());
+      
+      // checking the widths of the confidence intervals
+      if (batchAverages.size() >= MIN_BATCHES || numOfEvalSamples == size) {
+        halfWidths = StratifiedSampler.computeHalfWidths(batchAverages, batchSizes, size, confidenceZ);
+        boolean isNarrow = true;
+        for (int i = 0; i < halfWidths.length && isNarrow; i++) {
+          for (int j = 0; j < halfWidths[i].length && isNarrow; j++) {
+            isNarrow = halfWidths[i][j] <= confidenceWidth * 0.5;
+          }
+        }
+        if (isNarrow) {
+          break;
+        }
+      }
+    }
+    for (int k = 0; k < numOfProtocols; k++) {
+      for (int holderIndex = 0; holderIndex < errors[k].length; holderIndex++) {
+        for (int j = 0; j < errors[k][holderIndex].length; j++) {
+          errors[k][holderIndex][j] /= numOfEvalSamples;
+        }
+      }
+    }
+    return halfWidths;
+  }
+  
+  /**
+   * Creates the sampler of the evaluation set, it is created again only if the evaluation 
+   * set was changed.
+   */
+  private void updateSampler() {
+    long evalVersion = getEvalVersion();
+    if (sampler != null && eval == sampler.getEvalSet() && evalVersion == samplerEvalVersion) {
+      return;
+    }
+    sampler = new StratifiedSampler(eval);
+    samplerEvalVersion = evalVersion;
+  }
+  
+  /**
+   * Returns the version of the evaluation set (the version of a DriftingInstanceHolder, 
+   * otherwise 0).
+   * @return the version of the evaluation set
+   */
+  private long getEvalVersion() {
+    return eval instanceof DriftingInstanceHolder ? ((DriftingInstanceHolder)eval).getVersion() : 0;
+  }
+  
+  /**
+   * Creates a new error computator for the specified evaluation set.
+   * @param evalSet the evaluation set
+   * @return the error computator
+   */
+  private AbstractErrorComputator createErrorComputator(InstanceHolder evalSet) {
+    try {
+      return errorComputatorConstructor.newInstance(evalSet, errorFunction);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  /**
+   * Aggregates the error vectors of the nodes in order by the indices of the model holders.
+   * @param errors the error vectors, errors[k][h] is the error vector of the hth model 
+   * holder of the kth protocol
+   * @param numOfProtocols the number of the evaluated protocols
+   * @return the statistics of the model holders
+   */
+  private static ErrorStatistics[] aggregate(double[][][] errors, int numOfProtocols) {
+    ErrorStatistics[] statistics = new ErrorStatistics[0];
+    for (int k = 0; k < numOfProtocols; k++) {
+      if (statistics.length < errors[k].length) {
+        int length = statistics.length;
+        statistics = Arrays.copyOf(statistics, errors[k].length);
+        for (int holderIndex = length; holderIndex < statistics.length; holderIndex++) {
+          statistics[holderIndex] = new ErrorStatistics();
+        }
+      }
+      for (int holderIndex = 0; holderIndex < errors[k].length; holderIndex++) {
+        statistics[holderIndex].add(errors[k][holderIndex]);
+      }
+    }
+    return statistics;
+  }
+  
+  /**
+   * Returns the version stamps of the models of the specified model holder or null if 
+   * a model has no version stamp.
+   * @param modelHolder the model holder
+   * @return the version stamps of the models or null
+   */
+  private static long[] getVersions(ModelHolder modelHolder) {
+    long[] versions = new long[modelHolder.size()];
+    for (int i = 0; i < versions.length; i++) {
+      Model model = modelHolder.getModel(i);
+      if (!(model instanceof VersionedModel)) {
+        return null;
+      }
+      versions[i] = ((VersionedModel)model).getVersion();
+    }
+    return versions;
+  }
+  
+  /**
+   * Computes the error vectors of the model holders of the specified range of protocols 
+   * by the specified error computator. The already known error vectors (e.g. taken from 
+   * the cache) are not computed again.
+   * @param errorComputator the error computator
+   * @param protocols the learning protocols of the evaluated nodes
+   * @param from the position of the first protocol
+   * @param to the position after the last protocol
+   * @param errors the array of the results, errors[k][h] is the error vector of the hth 
+   * model holder of the kth protocol
+   */
+  private static void computeErrors(AbstractErrorComputator errorComputator, LearningProtocol[] protocols, int from, int to, double[][][] errors) {
+    for (int k = from; k < to; k++) {
+      if (errors[k] == null) {
+        errors[k] = new double[protocols[k].size()][];
+      }
+      for (int holderIndex = 0; holderIndex < errors[k].length; holderIndex++){
+        if (errors[k][holderIndex] == null) {
+          ModelHolder modelHolder = protocols[k].getModelHolder(holderIndex);
+          errors[k][holderIndex] = errorComputator.computeError(modelHolder);
+        }
+      }
+    }
+  }
+  
+  /**
+   * Evaluates a range of the protocols by splitting it until its size reaches the 
+   * threshold. Each range is evaluated by a new error computator, since the error 
+   * computators have buffers.
+   */
+  private class EvaluationTask extends RecursiveAction {
+    private static final long serialVersionUID = -4190652817352098223L;
+    private final InstanceHolder evalSet;
+    private final LearningProtocol[] protocols;
+    private final int from;
+    private final int to;
+    private final int threshold;
+    private final double[][][] errors;
+    
+    public EvaluationTask(InstanceHolder evalSet, LearningProtocol[] protocols, int from, int to, int threshold, double[][][] errors) {
+      this.evalSet = evalSet;
+      this.protocols = protocols;
+      this.from = from;
+      this.to = to;
+      this.threshold = threshold;
+      this.errors = errors;
+    }
+    
+    @Override
+    protected void compute() {
+      if (to - from <= threshold) {
+        computeErrors(createErrorComputator(evalSet), protocols, from, to, errors);
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new EvaluationTask(evalSet, protocols, from, middle, threshold, errors), new EvaluationTask(evalSet, protocols, middle, to, threshold, errors));
+      }
+    }
+  }
+  
+  /**
+   * The error vector of a model holder and the version stamps of its models at the time 
+   * of its computation.
+   */
+  private static class CachedError {
+    private final long[] versions;
+    private final double[] errors;
+    
+    public CachedError(long[] versions, double[] errors) {
+      this.versions = versions;
+      this.errors = errors;
+    }
+  }
+  
+  /**
+   * Aggregates the error vectors of a model holder of the nodes (the counter, the sum, the 
+   * sum of squares, the maximum and the minimum for each index of the vectors).
+   */
+  private static class ErrorStatistics {
+    private int size = 0;
+    private double[] counter = new double[0];
+    private double[] sum = new double[0];
+    private double[] squareSum = new double[0];
+    private double[] max = new double[0];
+    private double[] min = new double[0];
+    
+    public void add(double[] errorVec) {
+      if (size < errorVec.length) {
+        if (counter.length < errorVec.length) {
+          int capacity = Math.max(errorVec.length, counter.length << 1);
+          counter = Arrays.copyOf(counter, capacity);
+          sum = Arrays.copyOf(sum, capacity);
+          squareSum = Arrays.copyOf(squareSum, capacity);
+          max = Arrays.copyOf(max, capacity);
+          min = Arrays.copyOf(min, capacity);
+        }
+        for (int j = size; j < errorVec.length; j++) {
+          max[j] = errorVec[j];
+          min[j] = errorVec[j];
+        }
+        size = errorVec.length;
+      }
+      for (int j = 0; j < errorVec.length; j ++) {
+        counter[j] += 1.0;
+        sum[j] += errorVec[j];
+        squareSum[j] += errorVec[j] * errorVec[j];
+        if (max[j] < errorVec[j]){
+          max[j] = errorVec[j];
+        }
+        if (min[j] > errorVec[j]){
+          min[j] = errorVec[j];
+        }
+      }
+    }
+  }
 
   /**
    * Returns the instances and corresponding class labels of the evaluation set.
@@ -0,0 +1,182 @@
+package gossipLearning.controls.observers;
+
+import gossipLearning.InstanceHolder;
+import gossipLearning.InstanceHolderSlice;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class draws a progressively growing stratified random sample of an evaluation set
+ * in batches. The strata are the classes in the case of classification (the labels that
+ * are not valid class indices and the instances of regression or clustering tasks form
+ * one stratum), and the instances are drawn without replacement from the strata
+ * proportionally to their sizes. <br/>
+ * The strata are shuffled in place by the draws, so a new sample (see restart) continues
+ * the shuffling instead of grouping the instances again.
+ */
+public class StratifiedSampler {
+  /** @hidden */
+  private final InstanceHolder eval;
+  /** @hidden */
+  private final int[][] strata;
+  private final int[] taken;
+  private int target;
+  private int sampleSize;
+
+  /**
+   * Groups the instances of the specified evaluation set into strata by their labels.
+   * @param eval the evaluation set
+   */
+  public StratifiedSampler(InstanceHolder eval) {
+    this.eval = eval;
+    int numOfClasses = eval.getNumberOfClasses();
+    int numOfStrata = numOfClasses > 0 && numOfClasses < Integer.MAX_VALUE ? numOfClasses + 1 : 1;
+    int[] stratumIndices = new int[eval.size()];
+    int[] counts = new int[numOfStrata];
+    for (int i = 0; i < stratumIndices.length; i++) {
+      int stratumIndex = numOfStrata - 1;
+      if (numOfStrata > 1) {
+        double label = eval.getLabel(i);
+        if (label >= 0.0 && label < numOfClasses && label == (int)label) {
+          stratumIndex = (int)label;
+        }
+      }
+      stratumIndices[i] = stratumIndex;
+      counts[stratumIndex] ++;
+    }
+    strata = new int[numOfStrata][];
+    for (int h = 0; h < numOfStrata; h++) {
+      strata[h] = new int[counts[h]];
+      counts[h] = 0;
+    }
+    for (int i = 0; i < stratumIndices.length; i++) {
+      strata[stratumIndices[i]][counts[stratumIndices[i]] ++] = i;
+    }
+    taken = new int[numOfStrata];
+  }
+
+  /**
+   * Returns the evaluation set of the sample.
+   * @return the evaluation set
+   */
+  public InstanceHolder getEvalSet() {
+    return eval;
+  }
+
+  /**
+   * Returns the number of the strata.
+   * @return the number of the strata
+   */
+  public int getNumberOfStrata() {
+    return strata.length;
+  }
+
+  /**
+   * Returns the number of the instances of the specified stratum.
+   * @param stratum the index of the stratum
+   * @return the size of the stratum
+   */
+  public int getStratumSize(int stratum) {
+    return strata[stratum].length;
+  }
+
+  /**
+   * Returns the number of the instances drawn from the specified stratum since the last
+   * restart.
+   * @param stratum the index of the stratum
+   * @return the number of the drawn instances of the stratum
+   */
+  public int getTaken(int stratum) {
+    return taken[stratum];
+  }
+
+  /**
+   * Returns the number of the instances drawn since the last restart.
+   * @return the size of the sample
+   */
+  public int getSampleSize() {
+    return sampleSize;
+  }
+
+  /**
+   * Starts a new sample.
+   */
+  public void restart() {
+    Arrays.fill(taken, 0);
+    target = 0;
+    sampleSize = 0;
+  }
+
+  /**
+   * Draws the next batch of the sample into the specified view of the evaluation set
+   * (it is cleared first). The size of the sample is increased by the specified number
+   * of instances (at most to the size of the evaluation set), and the sample size of each
+   * stratum is proportional to its size (rounded down), so the batch can be smaller than
+   * the specified size and it can be empty.
+   * @param batch the view of the evaluation set that receives the batch
+   * @param batchSize the number of instances added to the sample
+   * @param random the source of the randomness
+   */
+  public void nextBatch(InstanceHolderSlice batch, int batchSize, Random random) {
+    int size = eval.size();
+    target = (int)Math.min(size, (long)target + batchSize);
+    batch.clear();
+    for (int h = 0; h < strata.length; h++) {
+      int[] stratum = strata[h];
+      int stratumTarget = (int)((long)target * stratum.length / size);
+      for (; taken[h] < stratumTarget; taken[h] ++) {
+        int i = taken[h];
+        int j = i + random.nextInt(stratum.length - i);
+        int index = stratum[j];
+        stratum[j] = stratum[i];
+        stratum[i] = index;
+        batch.addIndex(index);
+      }
+    }
+    sampleSize += batch.size();
+  }
+
+  /**
+   * Computes the half-widths of the confidence intervals of the average errors from the
+   * average errors of the batches by the method of batch means. The batches are random
+   * groups of the sample, so the variance of the average error is estimated by the
+   * weighted variance of the batch averages, and it is reduced by the finite population
+   * correction (1 - sample size / population size).
+   * @param batchAverages the average errors of the batches, [holder index][vote index]
+   * @param batchSizes the sizes of the batches
+   * @param size the size of the evaluation set
+   * @param z the z-score of the confidence intervals
+   * @return the half-widths of the confidence intervals, [holder index][vote index]
+   */
+  public static double[][] computeHalfWidths(List<double[][]> batchAverages, List<Integer> batchSizes, int size, double z) {
+    int numOfBatches = batchAverages.size();
+    double numOfSamples = 0.0;
+    for (int g = 0; g < numOfBatches; g++) {
+      numOfSamples += batchSizes.get(g);
+    }
+    double[][] halfWidths = new double[batchAverages.get(0).length][];
+    for (int i = 0; i < halfWidths.length; i++) {
+      halfWidths[i] = new double[batchAverages.get(0)[i].length];
+      for (int j = 0; j < halfWidths[i].length; j++) {
+        double mean = 0.0;
+        for (int g = 0; g < numOfBatches; g++) {
+          mean += batchSizes.get(g) * batchAverages.get(g)[i][j];
+        }
+        mean /= numOfSamples;
+        double variance = 0.0;
+        for (int g = 0; g < numOfBatches; g++) {
+          double weight = batchSizes.get(g) / numOfSamples;
+          double diff = batchAverages.get(g)[i][j] - mean;
+          variance += weight * weight * diff * diff;
+        }
+        variance = numOfBatches < 2 ? 0.0 : variance * numOfBatches / (numOfBatches - 1);
+        variance *= 1.0 - numOfSamples / size;
+        halfWidths[i][j] = z * Math.sqrt(variance);
+      }
+    }
+    return halfWidths;
+  }
+
+}
@@ -1,7 +1,9 @@
 package gossipLearning.controls.observers.errorComputation;
 
 import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.Model;
 import gossipLearning.interfaces.ModelHolder;
+import gossipLearning.utils.Utils;
 
 /**
  * This abstract class describes the skeleton of error computators that
@@ -20,6 +22,11 @@ public abstract class AbstractErrorComputator {
    * @hidden
    */
   protected final ErrorFunction errorFunction;
+  /**
+   * Buffer of the predictions of the evaluation set
+   * @hidden
+   */
+  private double[] predictions;
   
   /**
    * Constructor for error computator that stores the specified parameters.
@@ -38,5 +45,19 @@ public abstract class AbstractErrorComputator {
    * @return the array where the index represents the number of votes
    */
   public abstract double[] computeError(ModelHolder modelHolder);
+  
+  /**
+   * Predicts the labels of the evaluation set by the specified model in one batch (see 
+   * Utils.predict). The returned array is reused by the next call, so it has to be 
+   * processed before predicting by another model.
+   * @param model model to be evaluated
+   * @return the predictions, the prediction of the ith instance is at position i
+   */
+  protected double[] predict(Model model) {
+    if (predictions == null || predictions.length < eval.size()) {
+      predictions = new double[eval.size()];
+    }
+    return Utils.predict(model, eval, predictions);
+  }
 
 }
@@ -26,8 +26,9 @@ public class ErrorComputator extends AbstractErrorComputator {
    */
   public double[] computeError(ModelHolder modelHolder) {
     double meanErrorOfNodeI = 0.0;
+    double[] predictions = predict(modelHolder.getModel(modelHolder.size() -1));
     for (int j = 0; j < eval.size(); j ++) {
-      double predictedValue = modelHolder.getModel(modelHolder.size() -1).predict(eval.getInstance(j));
+      double predictedValue = predictions[j];
       double expectedValue = eval.getLabel(j);
       meanErrorOfNodeI += errorFunction.computeError(expectedValue, predictedValue);
     }
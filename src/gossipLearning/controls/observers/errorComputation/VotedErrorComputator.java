@@ -3,7 +3,6 @@ package gossipLearning.controls.observers.errorComputation;
 import gossipLearning.InstanceHolder;
 import gossipLearning.interfaces.Model;
 import gossipLearning.interfaces.ModelHolder;
-import gossipLearning.utils.SparseVector;
 
 /**
  * This class computes the voted error using the specified error function.
@@ -33,10 +32,10 @@ public class VotedErrorComputator extends AbstractErrorComputator {
       if (modelIdx >= 0) {
         double error = 0.0;
         Model model = modelHolder.getModel(modelIdx);
+        double[] predictions = predict(model);
         
         for (int testIdx = 0; testIdx < eval.size(); testIdx ++) {
-          SparseVector testInstance = eval.getInstance(testIdx);
-          double p = model.predict(testInstance);
+          double p = predictions[testIdx];
           if (errorIdx > 0) {
             meanOfPredictions[testIdx] += (p - meanOfPredictions[testIdx]) / (errorIdx + 1);
           } else {
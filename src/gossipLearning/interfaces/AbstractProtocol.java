@@ -5,14 +5,17 @@ import gossipLearning.controls.ChurnControl;
 import gossipLearning.messages.ActiveThreadMessage;
 import gossipLearning.messages.ModelMessage;
 import gossipLearning.messages.OnlineSessionFollowerActiveThreadMessage;
+import gossipLearning.simulation.CycleTransport;
+import gossipLearning.utils.RandomStreams;
+import peersim.cdsim.CDProtocol;
 import peersim.config.Configuration;
 import peersim.config.FastConfig;
-import peersim.core.CommonState;
 import peersim.core.Linkable;
 import peersim.core.Node;
 import peersim.edsim.EDProtocol;
 import peersim.edsim.EDSimulator;
 import peersim.transport.Transport;
+import peersim.util.ExtendedRandom;
 
 /**
  * This abstract base class (ABC) is situated between the Peersim protocol interface
@@ -24,13 +27,20 @@ import peersim.transport.Transport;
  * Make sure you initialize well the delayMean and delayVar fields which defines the
  * length of active thread delay. These fields are used here but not initialized!<br/>
  * This implementation also adds some useful methods like getTransport, getOverlay and
- * getCurrentProtocol.
+ * getCurrentProtocol.<br/>
+ * The protocol can be driven by cycles as well (see
+ * {@link gossipLearning.simulation.SynchronousCycle}), in this case the active thread
+ * is performed once in each cycle instead of the active thread alarms (the protocol is
+ * driven by cycles if its transport is a {@link gossipLearning.simulation.CycleTransport}).<br/>
+ * The random numbers of the protocol are drawn from the random streams of the node (see
+ * {@link gossipLearning.utils.RandomStreams}) instead of CommonState.r, and the streams of
+ * the node are the current streams during the processing of an event.
  *
  * @author Róbert Ormándi
  *
  */
 @SuppressWarnings("rawtypes")
-public abstract class AbstractProtocol implements EDProtocol, Churnable, LearningProtocol {
+public abstract class AbstractProtocol implements EDProtocol, CDProtocol, Churnable, LearningProtocol {
   //active thread delay mean and variance
   /** @hidden */
   protected static final String PAR_DELAYMEAN = "delayMean";
@@ -54,6 +64,8 @@ public abstract class AbstractProtocol implements EDProtocol, Churnable, Learnin
   protected int currentProtocolID = -1;
   /** @hidden */
   protected String prefix;
+  /** @hidden */
+  private RandomStreams randomStreams;
   
   /**
    * This method performers the deep copying of the protocol.
@@ -77,7 +89,7 @@ public abstract class AbstractProtocol implements EDProtocol, Churnable, Learnin
   protected void sendToRandomNeighbor(ModelMessage message) {
     message.setSource(currentNode);
     Linkable overlay = getOverlay();
-    Node randomNode = overlay.getNeighbor(CommonState.r.nextInt(overlay.degree()));
+    Node randomNode = overlay.getNeighbor(getRandom(RandomStreams.NEIGHBOR).nextInt(overlay.degree()));
     getTransport().send(currentNode, randomNode, message, currentProtocolID);
   }
   
@@ -99,6 +111,28 @@ public abstract class AbstractProtocol implements EDProtocol, Churnable, Learnin
     return (Linkable) currentNode.getProtocol(FastConfig.getLinkable(currentProtocolID));
   }
   
+  /**
+   * It returns the random stream of the current node for the specified purpose.
+   * 
+   * @param purpose The purpose of the stream (e.g. RandomStreams.NEIGHBOR).
+   * @return The random stream.
+   */
+  protected ExtendedRandom getRandom(int purpose) {
+    return getRandomStreams().get(purpose);
+  }
+  
+  /**
+   * It returns the random streams of the current node, that are created at the first call.
+   * 
+   * @return The random streams of the node.
+   */
+  protected RandomStreams getRandomStreams() {
+    if (randomStreams == null) {
+      randomStreams = new RandomStreams(currentNode.getID(), currentProtocolID);
+    }
+    return randomStreams;
+  }
+  
   /**
    * This is a helper method which returns the current protocol instance.
    * Here we assume that the subclass implements the interface {@link gossipLearning.interface.LearningProtocol}
@@ -136,7 +170,20 @@ public abstract class AbstractProtocol implements EDProtocol, Churnable, Learnin
     // the current node and protocol fields are updated
     this.currentNode = currentNode;
     this.currentProtocolID = currentProtocolID;
-    
+    RandomStreams previous = RandomStreams.setCurrent(getRandomStreams());
+    try {
+      processMessage(messageObj);
+    } finally {
+      RandomStreams.setCurrent(previous);
+    }
+  }
+  
+  /**
+   * Processes the message of the current node (see processEvent).
+   * 
+   * @param messageObj The message as an Object.
+   */
+  private void processMessage(Object messageObj) {
     if ( messageObj instanceof ActiveThreadMessage || 
           (messageObj instanceof OnlineSessionFollowerActiveThreadMessage && 
           ((OnlineSessionFollowerActiveThreadMessage)messageObj).sessionID == sessionID) ) {
@@ -146,7 +193,7 @@ public abstract class AbstractProtocol implements EDProtocol, Churnable, Learnin
       
       // After the processing we set a new alarm with a delay
       if (!Double.isInfinite(delayMean)) {
-        int delay = (int)(delayMean + CommonState.r.nextGaussian()*delayVar);
+        int delay = (int)(delayMean + getRandom(RandomStreams.DELAY).nextGaussian()*delayVar);
         delay = (delay > 0) ? delay : 1;
         EDSimulator.add(delay, new OnlineSessionFollowerActiveThreadMessage(sessionID), currentNode, currentProtocolID);
       }
@@ -156,6 +203,25 @@ public abstract class AbstractProtocol implements EDProtocol, Churnable, Learnin
     }
   }
   
+  /**
+   * It performs the active thread in the cycle-driven mode. The delay of the active
+   * thread is not used here, the length of the cycles is defined by the simulation.
+   * 
+   * @param currentNode Reference to the current node.
+   * @param currentProtocolID ID of the current protocol.
+   */
+  @Override
+  public void nextCycle(Node currentNode, int currentProtocolID) {
+    this.currentNode = currentNode;
+    this.currentProtocolID = currentProtocolID;
+    RandomStreams previous = RandomStreams.setCurrent(getRandomStreams());
+    try {
+      activeThread();
+    } finally {
+      RandomStreams.setCurrent(previous);
+    }
+  }
+  
   public int getPID() {
     if (currentProtocolID < 0) {
       throw new RuntimeException("Too early request for PID!");
@@ -208,12 +274,15 @@ public abstract class AbstractProtocol implements EDProtocol, Churnable, Learnin
 
   /**
    * Session initialization simply awakes the protocol by adding an active thread event to itself
-   * with delay 0.
+   * with delay 0. In the cycle-driven mode the alarm is not added, since the active thread
+   * of the online nodes is performed by the cycles.
    */
   @Override
   public void initSession(Node node, int protocol) {
     sessionID ++;
-    EDSimulator.add(0, new OnlineSessionFollowerActiveThreadMessage(sessionID), node, protocol);
+    if (!(node.getProtocol(FastConfig.getTransport(protocol)) instanceof CycleTransport)) {
+      EDSimulator.add(0, new OnlineSessionFollowerActiveThreadMessage(sessionID), node, protocol);
+    }
   }
 
 }
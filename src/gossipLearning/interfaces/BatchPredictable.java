@@ -0,0 +1,23 @@
+package gossipLearning.interfaces;
+
+import gossipLearning.InstanceHolder;
+
+/**
+ * This interface describes the models that can predict the labels of a batch of 
+ * instances in one call. The predictions have to be the same as the results of the 
+ * predict method called for the instances one by one, the batch prediction can only 
+ * save the work (e.g. the memory allocations) that is repeated for every instance. <br/>
+ * The predictions of a model that does not implement this interface can be computed 
+ * through Utils.predict, that uses the instances one by one.
+ */
+public interface BatchPredictable {
+  
+  /**
+   * Predicts the labels of all of the instances of the specified holder. The prediction 
+   * of the instance at position i is stored at position i of the specified array.
+   * @param instances holder of the evaluation instances
+   * @param predictions array of the results, its length has to be at least the number 
+   * of instances
+   */
+  public void predict(final InstanceHolder instances, double[] predictions);
+}
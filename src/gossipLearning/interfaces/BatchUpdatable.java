@@ -0,0 +1,24 @@
+package gossipLearning.interfaces;
+
+import gossipLearning.InstanceHolder;
+
+/**
+ * This interface describes the models that can be updated by a batch of instances in 
+ * one call. The result of the batch update has to be the same as the result of updating 
+ * the model by the instances one by one in the order of their positions, the batch 
+ * update can only save the work (e.g. the memory allocations) that is repeated for 
+ * every instance. <br/>
+ * A model that does not implement this interface can be updated by a batch through 
+ * Utils.updateModel, that uses the instances one by one.
+ */
+public interface BatchUpdatable {
+  
+  /**
+   * Updates the model by the instances of the specified holder at the positions from 
+   * (inclusive) to (exclusive).
+   * @param instances holder of the training instances
+   * @param from position of the first instance of the batch
+   * @param to position after the last instance of the batch
+   */
+  public void update(final InstanceHolder instances, int from, int to);
+}
@@ -0,0 +1,37 @@
+package gossipLearning.interfaces;
+
+/**
+ * This interface describes the models whose parameters can be stored in a row of fixed 
+ * length of a flat array, if the dimension of the instances is bounded. It makes 
+ * possible to store the models of many nodes in a few primitive arrays (see 
+ * CompactLearningProtocol), where a model object is used as a flyweight: the row of a 
+ * node is loaded into the object, the object is updated and then stored into a row. <br/>
+ * The version stamp of a VersionedModel is stored in the row as well, so a loaded model 
+ * has the version of the stored one.
+ */
+public interface CompactModel {
+  
+  /**
+   * Returns the length of the row that stores the parameters of the model.
+   * @param dimension the number of the features (the indices of the features are less 
+   * than the dimension)
+   * @return the length of the row
+   */
+  public int getRowLength(int dimension);
+  
+  /**
+   * Sets the parameters of the model to the parameters stored in the specified row.
+   * @param rows the array of the rows
+   * @param offset the position of the row in the array
+   * @param dimension the number of the features
+   */
+  public void load(double[] rows, int offset, int dimension);
+  
+  /**
+   * Stores the parameters of the model in the specified row.
+   * @param rows the array of the rows
+   * @param offset the position of the row in the array
+   * @param dimension the number of the features
+   */
+  public void store(double[] rows, int offset, int dimension);
+}
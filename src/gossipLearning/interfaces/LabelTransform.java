@@ -0,0 +1,22 @@
+package gossipLearning.interfaces;
+
+import gossipLearning.InstanceHolder;
+
+import java.io.Serializable;
+
+/**
+ * This interface describes a labelling of the instances of an InstanceHolder that is
+ * computed from the stored instances and labels. It is used by the DriftingInstanceHolder
+ * for modelling the drift of the concept, the transform can change its state between
+ * drifts, but it has to return the same label for the same instance until the next drift.
+ */
+public interface LabelTransform extends Serializable {
+  
+  /**
+   * Returns the current label of the instance at the specified position of the source.
+   * @param source the holder that stores the instances and the original labels
+   * @param index position of the instance in the source
+   * @return the transformed label
+   */
+  public double transform(InstanceHolder source, int index);
+}
@@ -10,9 +10,25 @@ package gossipLearning.interfaces;
 public interface Mergeable<T extends Model> {
   
   /**
-   * Returns the merged or the combined model of the actual and the specified models.
+   * Returns the merged or the combined model of the actual and the specified models. 
+   * Neither the actual nor the specified model can be modified, since they can be shared 
+   * (see ModelMessage.getSharedModel), the result has to be a new model.
    * @param model the model that will be merged with the actual model
    * @return combined or merged model
    */
   public T merge(final T model);
+  
+  /**
+   * Stores the merged or the combined model of the actual and the specified models in the 
+   * target model, reusing the memory of the target. The target can be the actual model 
+   * (in-place merge) or the specified model. Only the target is modified. <br/>
+   * The merging of the implementations is symmetric, so if the target is the specified 
+   * model, the implementations swap the roles of the models by calling 
+   * model.mergeInto(model, this), and a model merged with itself is itself (i.e. the 
+   * target is returned without modification).
+   * @param target the model that stores the result
+   * @param model the model that will be merged with the actual model
+   * @return the target
+   */
+  public T mergeInto(T target, final T model);
 }
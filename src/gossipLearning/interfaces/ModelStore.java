@@ -0,0 +1,60 @@
+package gossipLearning.interfaces;
+
+/**
+ * This interface describes a container that stores the parameters of models in rows of
+ * fixed length (see CompactModel), where the rows are identified by their indices (e.g.
+ * the rows of the nodes of a CompactState). The rows are read and written by copying
+ * them from and to arrays, so the rows can be stored outside of the heap as well (see
+ * OffHeapModelStore). <br/>
+ * The rows can be read concurrently, but they can be written by one thread at a time.
+ */
+public interface ModelStore {
+
+  /**
+   * Initializes the container.
+   * @param prefix the ID of the parameters contained by the Peersim configuration file
+   * @param rowLength the length of the rows
+   */
+  public void init(String prefix, int rowLength);
+
+  /**
+   * Returns the length of the rows.
+   * @return the length of the rows
+   */
+  public int getRowLength();
+
+  /**
+   * Returns the number of the rows that can be stored without allocating memory.
+   * @return the capacity of the container
+   */
+  public int capacity();
+
+  /**
+   * Allocates memory for the specified number of rows if the capacity is less than it.
+   * The new rows contain zeros.
+   * @param rows the number of the rows
+   */
+  public void ensureCapacity(int rows);
+
+  /**
+   * Copies the specified row into the specified array.
+   * @param row the index of the row
+   * @param values the array of the result
+   * @param offset the position of the row in the array
+   */
+  public void get(int row, double[] values, int offset);
+
+  /**
+   * Copies the values of the specified array into the specified row.
+   * @param row the index of the row
+   * @param values the array of the values
+   * @param offset the position of the row in the array
+   */
+  public void set(int row, double[] values, int offset);
+
+  /**
+   * Releases the memory and the other resources of the container (e.g. at the end of the
+   * simulation). The rows cannot be used after it.
+   */
+  public void close();
+}
@@ -29,9 +29,18 @@ public abstract class ProbabilityModel implements Model {
    */
   @Override
   public double predict(SparseVector instance) {
+    return getMostLikelyClass(distributionForInstance(instance));
+  }
+  
+  /**
+   * Returns the index of the first maximal value of the specified distribution among the 
+   * first getNumberOfClasses() values, or -1 if there is no such value (e.g. NaN).
+   * @param distribution distribution of the class labels
+   * @return the most likely class
+   */
+  protected int getMostLikelyClass(double[] distribution) {
     int maxLabelIndex = -1;
     double maxValue = Double.NEGATIVE_INFINITY;
-    double[] distribution = distributionForInstance(instance);
     for (int i = 0; i < getNumberOfClasses(); i++){
       if (distribution[i] > maxValue){
         maxValue = distribution[i];
@@ -0,0 +1,18 @@
+package gossipLearning.interfaces;
+
+/**
+ * This interface describes the models that have a version stamp identifying their state. 
+ * Every modification of the model (e.g. update, merge into the model, initialization) 
+ * sets the stamp to a new value that was not used before (see Utils.nextVersion), hence 
+ * the predictions of a model do not change while its stamp is the same. <br/>
+ * It makes possible to reuse the results of an evaluation (e.g. by PredictionObserver) 
+ * until the model is modified.
+ */
+public interface VersionedModel {
+  
+  /**
+   * Returns the version stamp of the current state of the model.
+   * @return the version stamp
+   */
+  public long getVersion();
+}
@@ -2,16 +2,24 @@ package gossipLearning.messages;
 
 import gossipLearning.interfaces.Model;
 import gossipLearning.interfaces.ModelHolder;
+
+import java.util.Arrays;
+
 import peersim.core.Node;
 
 /**
  * This class represents a message which contains the models in the gossip learning framework.
  * Basically this is the information which is sent through the network.
- * It always stores the contained data as a deep copy of the original one. This is crucial
- * since if it would be stored as a reference, we could not be able to model the effect
- * of time!<br/>
- * This is a ModelHolder as well which means that it wraps the underlying ModelHolder which
- * is received and copied at the constructor.
+ * It stores a snapshot of the models of the original holder, that has to be independent 
+ * of the later changes of the sender. This is crucial since if the models could be 
+ * changed in the meantime, we could not be able to model the effect of time!<br/>
+ * The snapshot is copy-on-write: the message refers to the models of the sender (the 
+ * protocols do not modify a model after it has been stored), and a model is copied only 
+ * when a receiver requests a modifiable model by the getModel method. The models that are 
+ * only read (e.g. merged) by the receiver, and the models of the dropped messages are 
+ * never copied. The getSharedModel method returns the model without copying, the returned 
+ * model must not be modified.<br/>
+ * This is a ModelHolder as well which means that it provides the models of the snapshot.
  * 
  * @author Róbert Ormándi
  *
@@ -21,17 +29,39 @@ public class ModelMessage implements ModelHolder, Message {
   /** @hidden */
   private Node src;
   /** @hidden */
-  private final ModelHolder models;
+  private Model[] models;
+  /** @hidden */
+  private boolean[] isCopied;
+  private int size;
 
   /**
-   * Constructor which creates a deep copy of the models.
+   * Constructor which creates a snapshot of the models without copying them.
    *
    * @param src It points to the sender node of this message.
    * @param models The data part of the message.
    */
   public ModelMessage(Node src, ModelHolder models) {
     this.src = src;
-    this.models = (ModelHolder)models.clone();
+    size = models.size();
+    this.models = new Model[Math.max(size, 1)];
+    isCopied = new boolean[this.models.length];
+    for (int i = 0; i < size; i++) {
+      this.models[i] = models instanceof ModelMessage ? ((ModelMessage)models).getSharedModel(i) : models.getModel(i);
+    }
+  }
+
+  /**
+   * Copy constructor, the models that have already been copied by the original message 
+   * are copied again, the others are shared.
+   */
+  private ModelMessage(ModelMessage a) {
+    src = a.src;
+    size = a.size;
+    models = new Model[a.models.length];
+    isCopied = new boolean[models.length];
+    for (int i = 0; i < size; i++) {
+      models[i] = a.isCopied[i] ? (Model)a.models[i].clone() : a.models[i];
+    }
   }
 
   /**
@@ -56,46 +86,68 @@ public class ModelMessage implements ModelHolder, Message {
   }
 
   /**
-   * It creates a clone of the original message. The models will be deep copied!
+   * It creates a clone of the original message. The clone shares the snapshot of the 
+   * models with the original message, only the models copied by the getModel method of 
+   * the original message are copied again.
    * 
-   * @return A copy of the original message containing replicated models.
+   * @return A copy of the original message.
    */
   @Override
   public Object clone() {
-    return new ModelMessage(src, models);
+    return new ModelMessage(this);
   }
 
   /**
-   * It reinitializes the stored ModelHolder by calling its original initialization method.
+   * It removes all of the models, since the message does not have any parameters.
    */
   @Override
   public void init(String prefix) {
-    models.init(prefix);
+    clear();
   }
 
   /**
-   * It returns the size of the underlying ModelHolder.
+   * It returns the number of the models of the message.
    * 
-   * @return The size of the underlying ModelHolder.
+   * @return The number of the models.
    */
   @Override
   public int size() {
-    return models.size();
+    return size;
   }
 
   /**
-   * It returns the <i>index</i>th model of the wrapped ModelHolder.
+   * It returns the <i>index</i>th model of the message, that can be modified by the 
+   * caller. The model of the snapshot is copied at the first call for an index, and the 
+   * copy is returned by the later calls.
    *
    * @param index The index of the requested model.
    * @return The model which can be found in the <i>index</i>th position of the current holder.
    */
   @Override
   public Model getModel(int index) {
-    return models.getModel(index);
+    checkIndex(index);
+    if (!isCopied[index]) {
+      models[index] = (Model)models[index].clone();
+      isCopied[index] = true;
+    }
+    return models[index];
+  }
+
+  /**
+   * It returns the <i>index</i>th model of the message without copying it. The returned 
+   * model can be shared with the sender, so it must not be modified (e.g. it can be 
+   * merged or stored as a last seen model).
+   *
+   * @param index The index of the requested model.
+   * @return The model which can be found in the <i>index</i>th position of the current holder.
+   */
+  public Model getSharedModel(int index) {
+    checkIndex(index);
+    return models[index];
   }
 
   /**
-   * It sets the <i>index</i>th model of the underlying ModelHolder to that
+   * It sets the <i>index</i>th model of the message to that
    * is presented in the model parameter.
    *
    * @param index The position of the model.
@@ -103,36 +155,58 @@ public class ModelMessage implements ModelHolder, Message {
    */
   @Override
   public void setModel(int index, Model model) {
-    models.setModel(index, model);
+    checkIndex(index);
+    models[index] = model;
+    isCopied[index] = true;
   }
 
   /**
-   * It adds a new model to the underlying ModelHolder.
+   * It adds a new model to the message.
    *
    * @param model Model which will be added to the holder.
    * @return true If the model successfully added to the ModelHolder.
    */
   @Override
   public boolean add(Model model) {
-    return models.add(model);
+    if (size == models.length) {
+      models = Arrays.copyOf(models, size << 1);
+      isCopied = Arrays.copyOf(isCopied, size << 1);
+    }
+    models[size] = model;
+    isCopied[size] = true;
+    size ++;
+    return true;
   }
 
   /**
    * It simply removes the <i>index</i>th model from the current holder.
    *
    * @param index The index of the model which should be removed.
-   * @return The removed model.
+   * @return The removed model, that can be modified.
    */
   @Override
   public Model remove(int index) {
-    return models.remove(index);
+    Model model = getModel(index);
+    System.arraycopy(models, index + 1, models, index, size - index - 1);
+    System.arraycopy(isCopied, index + 1, isCopied, index, size - index - 1);
+    size --;
+    models[size] = null;
+    return model;
   }
 
   /**
-   * It calls the clear() method of the underlying ModelHolder.
+   * It removes all of the models from the message.
    */
   @Override
   public void clear() {
-    models.clear();
+    Arrays.fill(models, null);
+    Arrays.fill(isCopied, false);
+    size = 0;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
   }
 }
@@ -0,0 +1,287 @@
+package gossipLearning.modelHolders;
+
+import gossipLearning.interfaces.Model;
+import gossipLearning.interfaces.ModelHolder;
+
+import java.util.Arrays;
+
+import peersim.config.Configuration;
+
+/**
+ * The capacity of the container can be specified. This implementation stores the models 
+ * in a circular array, so adding a model to a full container evicts the oldest model 
+ * (at index 0) in O(1) time, and removing a model shifts only the shorter part of the 
+ * array (i.e. removing the first or the last model takes O(1) time). The array grows 
+ * until it reaches the capacity. <br/>
+ * It is configured in the same way as BoundedModelHolder (capacity), and the methods are 
+ * not synchronized. <br/>
+ * The clone shares the array and the models with the original holder, and both of them 
+ * copy the array at their first modification. The shared models are copied on write per 
+ * slot: both holders clone a shared model when it is accessed first (by getModel or 
+ * remove), so the models can be modified in place like the deep copies of a 
+ * BoundedModelHolder, while the models that are not accessed are never copied.
+ */
+public class CircularModelHolder implements ModelHolder {
+  private static final long serialVersionUID = -4312688734201265447L;
+  private static final String PAR_CAPACITY = "capacity";
+  
+  /**
+   * The maximal capacity is Integer.MAX_VALUE by default.
+   */
+  public static final int MAX_CAPACITY = Integer.MAX_VALUE;
+  private static final int INITIAL_LENGTH = 16;
+  
+  /** @hidden */
+  private Model[] models;
+  /** @hidden */
+  private int head;
+  private int size;
+  private int capacity;
+  /**
+   * The array is shared with an other holder, hence all of the models are shared.
+   */
+  private boolean isShared;
+  /**
+   * The models at the true positions are shared with an other holder (can be null).
+   * @hidden
+   */
+  private boolean[] isSharedModel;
+  
+  /**
+   * Creates an object from this class with capacity MAX_CAPACITY.
+   */
+  public CircularModelHolder() {
+    this(MAX_CAPACITY);
+  }
+  
+  /**
+   * Creates an object from this class with the specified capacity.
+   * @param capacity - capacity of the container
+   */
+  public CircularModelHolder(int capacity) {
+    if (capacity < 1) {
+      throw new RuntimeException("The capacity should be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    models = new Model[Math.min(capacity, INITIAL_LENGTH)];
+    head = 0;
+    size = 0;
+  }
+  
+  /**
+   * Copy constructor, the array of the models is shared with the original holder until 
+   * one of them is modified.
+   */
+  private CircularModelHolder(CircularModelHolder a) {
+    capacity = a.capacity;
+    models = a.models;
+    head = a.head;
+    size = a.size;
+    isShared = true;
+    a.isShared = true;
+    a.isSharedModel = null;
+  }
+  
+  /**
+   * Returns a copy of the holder that shares the models with this holder until they are 
+   * accessed.
+   * @return the copy of the holder
+   */
+  public Object clone(){
+    return new CircularModelHolder(this);
+  }
+  
+  @Override
+  public void init(String prefix) {
+    capacity = Configuration.getInt(prefix + "." + PAR_CAPACITY, 1);
+    if (capacity < 1) {
+      throw new RuntimeException("The capacity should be positive: " + capacity);
+    }
+    models = new Model[Math.min(capacity, INITIAL_LENGTH)];
+    head = 0;
+    size = 0;
+    isShared = false;
+    isSharedModel = null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the model at the specified index, that is cloned first if it is shared with an 
+   * other holder.
+   */
+  @Override
+  public Model getModel(int index) {
+    int pos = position(index);
+    if (isShared(pos)) {
+      unshare();
+      models[pos] = (Model)models[pos].clone();
+      isSharedModel[pos] = false;
+    }
+    return models[pos];
+  }
+
+  @Override
+  public void setModel(int index, Model model) {
+    int pos = position(index);
+    unshare();
+    models[pos] = model;
+    setOwned(pos);
+  }
+
+  /**
+   * If the container if full, the first element will be removed.
+   */
+  @Override
+  public boolean add(Model model) {
+    if (size == capacity) {
+      // overwrites the oldest model
+      unshare();
+      models[head] = model;
+      setOwned(head);
+      head = next(head);
+      return true;
+    }
+    if (size == models.length) {
+      grow();
+    } else {
+      unshare();
+    }
+    models[physical(size)] = model;
+    setOwned(physical(size));
+    size ++;
+    return true;
+  }
+
+  /**
+   * Removes and returns the model at the specified index, that is cloned if it is shared 
+   * with an other holder.
+   */
+  @Override
+  public Model remove(int index) {
+    Model model = getModel(index);
+    unshare();
+    if (index < size - index - 1) {
+      // shifts the models before the removed one forward
+      for (int i = index; i > 0; i--) {
+        move(physical(i - 1), physical(i));
+      }
+      models[head] = null;
+      head = next(head);
+    } else {
+      // shifts the models after the removed one backward
+      for (int i = index; i < size - 1; i++) {
+        move(physical(i + 1), physical(i));
+      }
+      models[physical(size - 1)] = null;
+    }
+    size --;
+    return model;
+  }
+
+  @Override
+  public void clear() {
+    if (isShared) {
+      models = new Model[Math.min(capacity, INITIAL_LENGTH)];
+      isShared = false;
+    } else {
+      Arrays.fill(models, null);
+    }
+    isSharedModel = null;
+    head = 0;
+    size = 0;
+  }
+  
+  /**
+   * Copies the array of the models if it is shared with an other holder, and marks the 
+   * models as shared.
+   */
+  private void unshare() {
+    if (isShared) {
+      models = models.clone();
+      isSharedModel = new boolean[models.length];
+      Arrays.fill(isSharedModel, true);
+      isShared = false;
+    }
+  }
+  
+  /**
+   * Returns true if the model at the specified position is shared with an other holder.
+   */
+  private boolean isShared(int pos) {
+    return isShared || (isSharedModel != null && isSharedModel[pos]);
+  }
+  
+  /**
+   * Marks the model at the specified position as not shared (the array is not shared).
+   */
+  private void setOwned(int pos) {
+    if (isSharedModel != null) {
+      isSharedModel[pos] = false;
+    }
+  }
+  
+  /**
+   * Moves the model and its mark from a position to an other (the array is not shared).
+   */
+  private void move(int from, int to) {
+    models[to] = models[from];
+    if (isSharedModel != null) {
+      isSharedModel[to] = isSharedModel[from];
+    }
+  }
+  
+  /**
+   * Returns the position in the array of the model at the specified index.
+   */
+  private int position(int index) {
+    if (index < 0 || index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return physical(index);
+  }
+  
+  private int physical(int index) {
+    int pos = head + index;
+    return pos < models.length ? pos : pos - models.length;
+  }
+  
+  private int next(int pos) {
+    return pos + 1 < models.length ? pos + 1 : 0;
+  }
+  
+  /**
+   * Doubles the length of the array (at most to the capacity) and moves the models to 
+   * the beginning of the new array.
+   */
+  private void grow() {
+    Model[] grown = new Model[(int)Math.min((long)models.length << 1, capacity)];
+    boolean[] grownIsSharedModel = isShared || isSharedModel != null ? new boolean[grown.length] : null;
+    for (int i = 0; i < size; i++) {
+      grown[i] = models[physical(i)];
+      if (grownIsSharedModel != null) {
+        grownIsSharedModel[i] = isShared(physical(i));
+      }
+    }
+    models = grown;
+    isSharedModel = grownIsSharedModel;
+    head = 0;
+    isShared = false;
+  }
+  
+  public String toString() {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      // the shared models are not cloned by printing
+      sb.append(models[position(i)]);
+    }
+    return sb.append(']').toString();
+  }
+
+}
@@ -0,0 +1,96 @@
+package gossipLearning.modelHolders;
+
+import gossipLearning.interfaces.Model;
+import gossipLearning.interfaces.ModelHolder;
+import gossipLearning.protocols.CompactState;
+
+/**
+ * This container is a view of a row of a CompactState (see CompactLearningProtocol),
+ * that contains exactly one model. The getModel method returns a copy of the stored
+ * model, that has the version stamp of the stored model, and the model can be replaced
+ * by the setModel or the add method. The model cannot be removed. <br/>
+ * The clone of the container is a BoundedModelHolder of capacity 1 that contains a copy
+ * of the model, since the rows are allocated by the protocol.
+ */
+public class CompactModelHolder implements ModelHolder {
+  private static final long serialVersionUID = -3176094508318296512L;
+
+  /** @hidden */
+  private final transient CompactState state;
+  private final int row;
+
+  /**
+   * Creates a view of the specified row.
+   * @param state the state that stores the models
+   * @param row the row of the model (-1 - the initial model)
+   */
+  public CompactModelHolder(CompactState state, int row) {
+    this.state = state;
+    this.row = row;
+  }
+
+  public Object clone() {
+    BoundedModelHolder result = new BoundedModelHolder(1);
+    result.add(getModel(0));
+    return result;
+  }
+
+  /**
+   * Returns the state that stores the model.
+   * @return the state
+   */
+  public CompactState getState() {
+    return state;
+  }
+
+  /**
+   * Returns the row of the model in the state.
+   * @return the row of the model
+   */
+  public int getRow() {
+    return row;
+  }
+
+  @Override
+  public void init(String prefix) {
+  }
+
+  @Override
+  public int size() {
+    return 1;
+  }
+
+  @Override
+  public Model getModel(int index) {
+    checkIndex(index);
+    return state.getModel(row);
+  }
+
+  @Override
+  public void setModel(int index, Model model) {
+    checkIndex(index);
+    state.setModel(row, model);
+  }
+
+  @Override
+  public boolean add(Model model) {
+    state.setModel(row, model);
+    return true;
+  }
+
+  @Override
+  public Model remove(int index) {
+    throw new RuntimeException("The model of " + getClass().getCanonicalName() + " cannot be removed!");
+  }
+
+  @Override
+  public void clear() {
+    throw new RuntimeException("The model of " + getClass().getCanonicalName() + " cannot be removed!");
+  }
+
+  private void checkIndex(int index) {
+    if (index != 0) {
+      throw new RuntimeException(getClass().getCanonicalName() + " can handle only one model with index 0.");
+    }
+  }
+}
@@ -3,7 +3,10 @@
  */
 package gossipLearning.models;
 
+import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.BatchPredictable;
 import gossipLearning.interfaces.Model;
+import gossipLearning.utils.HybridVector;
 import gossipLearning.utils.SparseVector;
 import peersim.config.Configuration;
 
@@ -13,8 +16,13 @@ import peersim.config.Configuration;
  * @note This implementation is provided for educational purposes. Another version of the Adaline
  * perceptron can be found in the weakLearners package.
  */
-public class AdalinePerceptron implements Model {
+public class AdalinePerceptron implements Model, BatchPredictable {
   protected static final String PAR_LAMBDA = "AdalinePerceptron.lambda";
+  /**
+   * The hyperplane is stored in a HybridVector with this density threshold if it is 
+   * positive, otherwise in a SparseVector (default).
+   */
+  protected static final String PAR_DENSITY = "AdalinePerceptron.densityThreshold";
 	/** @hidden */
 	protected SparseVector w;
 	protected double age;
@@ -45,6 +53,7 @@ public class AdalinePerceptron implements Model {
 	@Override
 	public void init(String prefix) {
 		// w = 0 in sparse representation.
+		w = HybridVector.createVector(Configuration.getDouble(prefix + "." + PAR_DENSITY, 0.0));
 		age = 0.0;
     lambda = Configuration.getDouble(prefix + "." + PAR_LAMBDA, 0.1);
 	}
@@ -78,6 +87,18 @@ public class AdalinePerceptron implements Model {
 		double s = w.mul(instance);
 	  return s >= 0 ? 1.0 : 0.0; 
 	}
+	
+	/**
+	 * Predicts the instances one by one, but the inner-products look up the hyperplane in 
+	 * a dense array if it is not too long for the batch.
+	 */
+	@Override
+	public void predict(InstanceHolder instances, double[] predictions) {
+		double[] dense = w.toDenseArray(instances.getNumberOfPredictions());
+		for (int i = 0; i < instances.size(); i++) {
+			predictions[i] = w.mul(instances.getInstance(i), dense) >= 0 ? 1.0 : 0.0;
+		}
+	}
 
 	@Override
   public int getNumberOfClasses() {
@@ -1,8 +1,15 @@
 package gossipLearning.models;
 
+import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.BatchPredictable;
+import gossipLearning.interfaces.BatchUpdatable;
+import gossipLearning.interfaces.CompactModel;
 import gossipLearning.interfaces.ProbabilityModel;
 import gossipLearning.interfaces.SimilarityComputable;
+import gossipLearning.interfaces.VersionedModel;
+import gossipLearning.utils.HybridVector;
 import gossipLearning.utils.SparseVector;
+import gossipLearning.utils.Utils;
 import peersim.config.Configuration;
 
 /**
@@ -12,7 +19,7 @@ import peersim.config.Configuration;
  * @author István Hegedűs
  *
  */
-public class LogisticRegression extends ProbabilityModel implements SimilarityComputable<LogisticRegression> {
+public class LogisticRegression extends ProbabilityModel implements SimilarityComputable<LogisticRegression>, BatchUpdatable, BatchPredictable, VersionedModel, CompactModel {
   private static final long serialVersionUID = -6445114719685631031L;
   
   /**
@@ -20,12 +27,19 @@ public class LogisticRegression extends ProbabilityModel implements SimilarityCo
    */
   protected static final String PAR_LAMBDA = "LogisticRegression.lambda";
   protected double lambda = 0.0001;
+  /**
+   * The hyperplane is stored in a HybridVector with this density threshold if it is 
+   * positive, otherwise in a SparseVector (default).
+   */
+  protected static final String PAR_DENSITY = "LogisticRegression.densityThreshold";
   
   /** @hidden */
   protected SparseVector w;
   protected double bias;
   protected double age;
   protected int numberOfClasses = 2;
+  /** The version stamp of the model (see VersionedModel). */
+  protected long version = Utils.nextVersion();
   
   /**
    * Initializes the hyperplane as 0 vector.
@@ -55,19 +69,42 @@ public class LogisticRegression extends ProbabilityModel implements SimilarityCo
    * Clones the object.
    */
   public Object clone(){
-    return new LogisticRegression(w, age, lambda, numberOfClasses, bias);
+    LogisticRegression result = new LogisticRegression(w, age, lambda, numberOfClasses, bias);
+    result.version = version;
+    return result;
   }
 
   @Override
   public void init(String prefix) {
-    w = new SparseVector();
+    w = HybridVector.createVector(Configuration.getDouble(prefix + "." + PAR_DENSITY, 0.0));
     age = 0.0;
     lambda = Configuration.getDouble(prefix + "." + PAR_LAMBDA, 0.0001);
+    version = Utils.nextVersion();
   }
 
   @Override
   public void update(SparseVector instance, double label) {
-    double prob = getPositiveProbability(instance);
+    update(instance, label, getPositiveProbability(instance));
+  }
+  
+  /**
+   * Updates the model by the instances one by one, but the instances are normalized in 
+   * the same buffer instead of cloning them for each instance.
+   */
+  @Override
+  public void update(InstanceHolder instances, int from, int to) {
+    SparseVector buffer = new SparseVector();
+    for (int i = from; i < to; i++) {
+      SparseVector instance = instances.getInstance(i);
+      update(instance, instances.getLabel(i), getNormalizedPositiveProbability(buffer.set(instance).normalize(), null));
+    }
+  }
+  
+  /**
+   * Updates the model by the specified instance using the specified positive probability 
+   * of the instance.
+   */
+  private void update(SparseVector instance, double label, double prob) {
     double err = label - prob;
     age ++;
     double nu = 1.0 / (lambda * age);
@@ -75,7 +112,7 @@ public class LogisticRegression extends ProbabilityModel implements SimilarityCo
     w.mul(1.0 - nu * lambda);
     w.add(instance, - nu * err);
     bias -= nu * err;
-    
+    version = Utils.nextVersion();
   }
   
   /**
@@ -86,7 +123,15 @@ public class LogisticRegression extends ProbabilityModel implements SimilarityCo
    */
   private double getPositiveProbability(SparseVector instance){
     SparseVector ins = (SparseVector)instance.clone();
-    double predict = w.mul(ins.normalize()) + bias;
+    return getNormalizedPositiveProbability(ins.normalize(), null);
+  }
+  
+  /**
+   * Computes the positive label probability of the specified normalized instance using 
+   * the specified array of the hyperplane (see SparseVector.toDenseArray) if it is not null.
+   */
+  private double getNormalizedPositiveProbability(SparseVector normalizedInstance, double[] dense){
+    double predict = w.mul(normalizedInstance, dense) + bias;
     predict = Math.exp(predict) + 1.0;
     return 1.0 / predict;
   }
@@ -97,6 +142,23 @@ public class LogisticRegression extends ProbabilityModel implements SimilarityCo
     distribution[0] = 1.0 - distribution[1];
     return distribution;
   }
+  
+  /**
+   * Predicts the instances one by one, but the instances are normalized in the same 
+   * buffer, the distributions are computed into the same array and the inner-products 
+   * look up the hyperplane in a dense array if it is not too long for the batch.
+   */
+  @Override
+  public void predict(InstanceHolder instances, double[] predictions) {
+    SparseVector buffer = new SparseVector();
+    double[] distribution = new double[numberOfClasses];
+    double[] dense = w.toDenseArray(instances.getNumberOfPredictions());
+    for (int i = 0; i < instances.size(); i++) {
+      distribution[1] = getNormalizedPositiveProbability(buffer.set(instances.getInstance(i)).normalize(), dense);
+      distribution[0] = 1.0 - distribution[1];
+      predictions[i] = getMostLikelyClass(distribution);
+    }
+  }
 
   @Override
   public double computeSimilarity(LogisticRegression model) {
@@ -114,6 +176,36 @@ public class LogisticRegression extends ProbabilityModel implements SimilarityCo
       throw new RuntimeException("Not supported number of classes in " + getClass().getCanonicalName() + " which is " + numberOfClasses + "!");
     }
     this.numberOfClasses = numberOfClasses;
+    version = Utils.nextVersion();
+  }
+  
+  @Override
+  public long getVersion() {
+    return version;
+  }
+  
+  /**
+   * The row contains the version, the age, the bias and the hyperplane.
+   */
+  @Override
+  public int getRowLength(int dimension) {
+    return dimension + 3;
+  }
+  
+  @Override
+  public void load(double[] rows, int offset, int dimension) {
+    version = (long)rows[offset];
+    age = rows[offset + 1];
+    bias = rows[offset + 2];
+    Utils.loadVector(w, rows, offset + 3, dimension);
+  }
+  
+  @Override
+  public void store(double[] rows, int offset, int dimension) {
+    rows[offset] = version;
+    rows[offset + 1] = age;
+    rows[offset + 2] = bias;
+    Utils.storeVector(w, rows, offset + 3, dimension);
   }
   
   
@@ -3,6 +3,7 @@ package gossipLearning.models;
 import peersim.config.Configuration;
 import gossipLearning.interfaces.Mergeable;
 import gossipLearning.utils.SparseVector;
+import gossipLearning.utils.Utils;
 
 public class MergeableLogisticRegression extends LogisticRegression implements Mergeable<MergeableLogisticRegression>{
   private static final long serialVersionUID = -4465428750554412761L;
@@ -25,22 +26,36 @@ public class MergeableLogisticRegression extends LogisticRegression implements M
   }
   
   public Object clone(){
-    return new MergeableLogisticRegression(w, age, lambda, numberOfClasses, bias);
+    MergeableLogisticRegression result = new MergeableLogisticRegression(w, age, lambda, numberOfClasses, bias);
+    result.version = version;
+    return result;
   }
   
   public void init(String prefix) {
     super.init(prefix);
     lambda = Configuration.getDouble(prefix + "." + PAR_LAMBDA, 0.0001);
+    version = Utils.nextVersion();
   }
   
   @Override
   public MergeableLogisticRegression merge(final MergeableLogisticRegression model) {
-    SparseVector mergedw = new SparseVector(w);
+    MergeableLogisticRegression result = new MergeableLogisticRegression(w, age, lambda, numberOfClasses, bias);
+    return result.mergeInto(result, model);
+  }
+  
+  @Override
+  public MergeableLogisticRegression mergeInto(MergeableLogisticRegression target, final MergeableLogisticRegression model) {
+    if (target == model) {
+      return target == this ? target : model.mergeInto(model, this);
+    }
     double age = Math.max(this.age, model.age);
     double bias = (this.bias + model.bias) / 2.0;
-    mergedw.mul(0.5);
-    mergedw.add(model.w, 0.5);
-    
-    return new MergeableLogisticRegression(mergedw, age, lambda, numberOfClasses, bias);
+    target.w.set(w).mul(0.5).add(model.w, 0.5);
+    target.age = age;
+    target.bias = bias;
+    target.lambda = lambda;
+    target.numberOfClasses = numberOfClasses;
+    target.version = Utils.nextVersion();
+    return target;
   }
 }
@@ -3,6 +3,7 @@ package gossipLearning.models;
 import peersim.config.Configuration;
 import gossipLearning.interfaces.Mergeable;
 import gossipLearning.utils.SparseVector;
+import gossipLearning.utils.Utils;
 
 /**
  * A mergeable version of the Pegasos algorithm.
@@ -30,12 +31,15 @@ public class MergeablePegasos extends P2Pegasos implements Mergeable<MergeablePe
   }
   
   public Object clone(){
-    return new MergeablePegasos(w, age, lambda, numberOfClasses);
+    MergeablePegasos result = new MergeablePegasos(w, age, lambda, numberOfClasses);
+    result.version = version;
+    return result;
   }
   
   public void init(String prefix) {
     super.init(prefix);
     lambda = Configuration.getDouble(prefix + "." + PAR_LAMBDA, 0.0001);
+    version = Utils.nextVersion();
   }
   
   /**
@@ -43,13 +47,22 @@ public class MergeablePegasos extends P2Pegasos implements Mergeable<MergeablePe
    */
   @Override
   public MergeablePegasos merge(final MergeablePegasos model) {
-    SparseVector mergedw = new SparseVector(w);
+    MergeablePegasos result = new MergeablePegasos(w, age, lambda, numberOfClasses);
+    return result.mergeInto(result, model);
+  }
+  
+  @Override
+  public MergeablePegasos mergeInto(MergeablePegasos target, final MergeablePegasos model) {
+    if (target == model) {
+      return target == this ? target : model.mergeInto(model, this);
+    }
     double age = Math.max(this.age, model.age);
-    
-    mergedw.mul(0.5);
-    mergedw.add(model.w, 0.5);
-    
-    return new MergeablePegasos(mergedw, age, lambda, numberOfClasses);
+    target.w.set(w).mul(0.5).add(model.w, 0.5);
+    target.age = age;
+    target.lambda = lambda;
+    target.numberOfClasses = numberOfClasses;
+    target.version = Utils.nextVersion();
+    return target;
   }
 
 }
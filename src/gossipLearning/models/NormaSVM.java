@@ -2,6 +2,7 @@ package gossipLearning.models;
 
 import gossipLearning.DataBaseReader;
 import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.BatchPredictable;
 import gossipLearning.interfaces.Model;
 import gossipLearning.interfaces.kernels.Kernel;
 import gossipLearning.interfaces.kernels.RBFKernel;
@@ -18,7 +19,7 @@ import java.util.Random;
 
 import peersim.config.Configuration;
 
-public class NormaSVM implements Model {
+public class NormaSVM implements Model, BatchPredictable {
   private static final long serialVersionUID = 18888123L;
   
   /**
@@ -169,6 +170,31 @@ public class NormaSVM implements Model {
     return v;
   }
   
+  /**
+   * Predicts the instances one by one, but the model parts are copied into arrays once 
+   * for the batch instead of iterating through the queue for each instance.
+   */
+  @Override
+  public void predict(InstanceHolder instances, double[] predictions) {
+    int size = q.size();
+    SparseVector[] xs = new SparseVector[size];
+    double[] alphas = new double[size];
+    int j = 0;
+    for (ElementaryModel p : q) {
+      xs[j] = p.x();
+      alphas[j] = p.alpha();
+      j ++;
+    }
+    for (int i = 0; i < instances.size(); i++) {
+      SparseVector x = instances.getInstance(i);
+      double v = 0;
+      for (j = 0; j < size; j++) {
+        v += alphas[j] * kernel.kernel(xs[j], x);
+      }
+      predictions[i] = v + b;
+    }
+  }
+  
   @Override
   public int getNumberOfClasses() {
     return numberOfClasses;
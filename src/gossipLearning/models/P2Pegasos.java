@@ -1,12 +1,18 @@
 package gossipLearning.models;
 
+import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.BatchPredictable;
+import gossipLearning.interfaces.CompactModel;
 import gossipLearning.interfaces.Model;
 import gossipLearning.interfaces.ProbabilityModel;
 import gossipLearning.interfaces.SimilarityComputable;
+import gossipLearning.interfaces.VersionedModel;
+import gossipLearning.utils.HybridVector;
 import gossipLearning.utils.SparseVector;
+import gossipLearning.utils.Utils;
 import peersim.config.Configuration;
 
-public class P2Pegasos extends ProbabilityModel implements Model, SimilarityComputable<P2Pegasos> {
+public class P2Pegasos extends ProbabilityModel implements Model, SimilarityComputable<P2Pegasos>, BatchPredictable, VersionedModel, CompactModel {
   private static final long serialVersionUID = 5232458167435240109L;
   
   /**
@@ -14,11 +20,18 @@ public class P2Pegasos extends ProbabilityModel implements Model, SimilarityComp
    */
   protected static final String PAR_LAMBDA = "P2Pegasos.lambda";
   protected double lambda = 0.0001;
+  /**
+   * The hyperplane is stored in a HybridVector with this density threshold if it is 
+   * positive, otherwise in a SparseVector (default).
+   */
+  protected static final String PAR_DENSITY = "P2Pegasos.densityThreshold";
   
   /** @hidden */
   protected SparseVector w;
   protected double age;
   protected int numberOfClasses = 2;
+  /** The version stamp of the model (see VersionedModel). */
+  protected long version = Utils.nextVersion();
   
   /**
    * Creates a default model with age=0 and the separating hyperplane is the 0 vector.
@@ -43,7 +56,9 @@ public class P2Pegasos extends ProbabilityModel implements Model, SimilarityComp
   }
   
   public Object clone(){
-    return new P2Pegasos(w, age, lambda, numberOfClasses);
+    P2Pegasos result = new P2Pegasos(w, age, lambda, numberOfClasses);
+    result.version = version;
+    return result;
   }
 
   /**
@@ -51,9 +66,10 @@ public class P2Pegasos extends ProbabilityModel implements Model, SimilarityComp
    */
   @Override
   public void init(String prefix) {
-    w = new SparseVector();
+    w = HybridVector.createVector(Configuration.getDouble(prefix + "." + PAR_DENSITY, 0.0));
     age = 0.0;
     lambda = Configuration.getDouble(prefix + "." + PAR_LAMBDA, 0.0001);
+    version = Utils.nextVersion();
   }
 
   /**
@@ -70,7 +86,7 @@ public class P2Pegasos extends ProbabilityModel implements Model, SimilarityComp
     if (isSV) {
       w.add(instance, nu * label);
     }
-    
+    version = Utils.nextVersion();
   }
 
   /**
@@ -85,6 +101,21 @@ public class P2Pegasos extends ProbabilityModel implements Model, SimilarityComp
     double innerProd = w.mul(instance);
     return new double[]{0.0, innerProd};
   }
+  
+  /**
+   * Predicts the instances one by one, but the distributions are computed into the 
+   * same array and the inner-products look up the hyperplane in a dense array if it is 
+   * not too long for the batch.
+   */
+  @Override
+  public void predict(InstanceHolder instances, double[] predictions) {
+    double[] distribution = new double[2];
+    double[] dense = w.toDenseArray(instances.getNumberOfPredictions());
+    for (int i = 0; i < instances.size(); i++) {
+      distribution[1] = w.mul(instances.getInstance(i), dense);
+      predictions[i] = getMostLikelyClass(distribution);
+    }
+  }
   /*@Override
   public double predict(final SparseVector instance) {
     double innerProd = w.mul(instance);
@@ -119,5 +150,33 @@ public class P2Pegasos extends ProbabilityModel implements Model, SimilarityComp
       throw new RuntimeException("Not supported number of classes in " + getClass().getCanonicalName() + " which is " + numberOfClasses + "!");
     }
     this.numberOfClasses = numberOfClasses;
+    version = Utils.nextVersion();
+  }
+  
+  @Override
+  public long getVersion() {
+    return version;
+  }
+  
+  /**
+   * The row contains the version, the age and the hyperplane.
+   */
+  @Override
+  public int getRowLength(int dimension) {
+    return dimension + 2;
+  }
+  
+  @Override
+  public void load(double[] rows, int offset, int dimension) {
+    version = (long)rows[offset];
+    age = rows[offset + 1];
+    Utils.loadVector(w, rows, offset + 2, dimension);
+  }
+  
+  @Override
+  public void store(double[] rows, int offset, int dimension) {
+    rows[offset] = version;
+    rows[offset + 1] = age;
+    Utils.storeVector(w, rows, offset + 2, dimension);
   }
 }
@@ -1,7 +1,8 @@
 package gossipLearning.models;
 
+import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.BatchPredictable;
 import gossipLearning.interfaces.Model;
-import gossipLearning.interfaces.VectorEntry;
 import gossipLearning.utils.SparseVector;
 import peersim.config.Configuration;
 
@@ -44,7 +45,7 @@ import peersim.config.Configuration;
  * @author Sándor Bordé
  *
  */
-public class P2Winnow implements Model  {
+public class P2Winnow implements Model, BatchPredictable {
 
 	/**
 	 * 
@@ -152,12 +153,13 @@ public class P2Winnow implements Model  {
 		double y = (label==0.0)?-1.0:1.0;		//convert the correct label to {-1.0,1.0}
 		double y_pred = (predict(instance)==0.0)?-1.0:1.0;		//convert our prediction to {-1.0,1.0} too
 		if ( y != y_pred ) {					//in case of misclassification
-			for ( VectorEntry ve : instance ) {	//check if the ith weight was initialized 
-				if ( initialized.get(ve.index) == 0.0 ) {	//if not, we initialize it
-					initialized.put(ve.index, 1.0);
-					w.put(ve.index, 1.0);
+			for ( int i = 0; i < instance.size(); i++ ) {	//check if the ith weight was initialized 
+				int index = instance.indexAt(i);
+				if ( initialized.get(index) == 0.0 ) {	//if not, we initialize it
+					initialized.put(index, 1.0);
+					w.put(index, 1.0);
 				}
-				w.put(ve.index, w.get(ve.index)*Math.pow((1+eta), y));	//we do the promotion/demotion depending on the correct label
+				w.put(index, w.get(index)*Math.pow((1+eta), y));	//we do the promotion/demotion depending on the correct label
 			}
 		}
 	}
@@ -172,6 +174,18 @@ public class P2Winnow implements Model  {
 		double innerProduct = w.mul(instance);	//calculates the inner product of the weights and the instance
 		return (innerProduct > theta)?1.0:0.0;		//predict 1.0 if the product greater than the threshold
 	}
+	
+	/**
+	 * Predicts the instances one by one, but the inner-products look up the weights in 
+	 * a dense array if it is not too long for the batch.
+	 */
+	@Override
+	public void predict(InstanceHolder instances, double[] predictions) {
+		double[] dense = w.toDenseArray(instances.getNumberOfPredictions());
+		for (int i = 0; i < instances.size(); i++) {
+			predictions[i] = (w.mul(instances.getInstance(i), dense) > theta)?1.0:0.0;
+		}
+	}
 
 	/**
 	 * Returns the number of classes.
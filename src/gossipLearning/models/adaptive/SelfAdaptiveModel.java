@@ -1,9 +1,12 @@
 package gossipLearning.models.adaptive;
 
+import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.BatchPredictable;
 import gossipLearning.interfaces.ErrorEstimatorModel;
 import gossipLearning.interfaces.Model;
 import gossipLearning.utils.LogNormalRandom;
 import gossipLearning.utils.SparseVector;
+import gossipLearning.utils.Utils;
 import peersim.config.Configuration;
 
 /**
@@ -13,7 +16,7 @@ import peersim.config.Configuration;
  * @author István Hegedűs
  *
  */
-public class SelfAdaptiveModel implements ErrorEstimatorModel {
+public class SelfAdaptiveModel implements ErrorEstimatorModel, BatchPredictable {
   private static final long serialVersionUID = 3943356691729519672L;
   private static final String PAR_MODELNAME = "model";
   private static final double mu = 8.0;
@@ -143,6 +146,11 @@ public class SelfAdaptiveModel implements ErrorEstimatorModel {
   public double predict(SparseVector instance) {
     return model.predict(instance);
   }
+  
+  @Override
+  public void predict(InstanceHolder instances, double[] predictions) {
+    Utils.predict(model, instances, predictions);
+  }
 
   @Override
   public int getNumberOfClasses() {
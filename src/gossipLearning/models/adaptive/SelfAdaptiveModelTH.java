@@ -1,11 +1,13 @@
 package gossipLearning.models.adaptive;
 
+import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.BatchPredictable;
 import gossipLearning.interfaces.Model;
 import gossipLearning.utils.BoundedQueue;
+import gossipLearning.utils.RandomStreams;
 import gossipLearning.utils.SparseVector;
 import gossipLearning.utils.Utils;
 import peersim.config.Configuration;
-import peersim.core.CommonState;
 
 /**
  * A type of model, that can handle the drifting concepts using a drift detection 
@@ -13,7 +15,7 @@ import peersim.core.CommonState;
  * @author István Hegedűs
  *
  */
-public class SelfAdaptiveModelTH implements Model {
+public class SelfAdaptiveModelTH implements Model, BatchPredictable {
   private static final long serialVersionUID = 3943356691729519672L;
   
   private static final String PAR_MODELNAME = "model";
@@ -151,13 +153,18 @@ public class SelfAdaptiveModelTH implements Model {
     double c = 20;
     double d = 0.5;
     double val = 1.0/(1.0 + Math.exp(-c*(ab[0] - d)));
-    return CommonState.r.nextDouble() < val;
+    return RandomStreams.current(RandomStreams.MODEL).nextDouble() < val;
   }
 
   @Override
   public double predict(SparseVector instance) {
     return model.predict(instance);
   }
+  
+  @Override
+  public void predict(InstanceHolder instances, double[] predictions) {
+    Utils.predict(model, instances, predictions);
+  }
 
   @Override
   public int getNumberOfClasses() {
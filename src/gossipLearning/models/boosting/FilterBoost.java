@@ -1,5 +1,7 @@
 package gossipLearning.models.boosting;
 
+import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.BatchPredictable;
 import gossipLearning.interfaces.ModelHolder;
 import gossipLearning.interfaces.ProbabilityModel;
 import gossipLearning.interfaces.WeakLearner;
@@ -25,7 +27,7 @@ import peersim.config.Configuration;
  * @author István Hegedűs
  *
  */
-public class FilterBoost extends ProbabilityModel {
+public class FilterBoost extends ProbabilityModel implements BatchPredictable {
   private static final long serialVersionUID = 1654351368769565L;
   
   private static final String PAR_T = "T";
@@ -329,6 +331,33 @@ public class FilterBoost extends ProbabilityModel {
     //return cacheDistributionForInstance(instance);
   }
   
+  /**
+   * Predicts the instances one by one based on the same rule as 
+   * computeDistributionForInstance, but the weak learners and their weights are taken 
+   * from the strong learner once for the batch.
+   */
+  @Override
+  public void predict(InstanceHolder instances, double[] predictions) {
+    WeakLearner[] learners = new WeakLearner[strongLearner.size()];
+    double[] alphas = new double[learners.length];
+    for (int i = 0; i < learners.length; i++) {
+      learners[i] = (WeakLearner)strongLearner.getModel(i);
+      alphas[i] = learners[i].getAlpha();
+    }
+    double[] distribution = new double[numberOfClasses];
+    for (int k = 0; k < instances.size(); k++) {
+      SparseVector instance = instances.getInstance(k);
+      Arrays.fill(distribution, 0.0);
+      for (int i = 0; i < learners.length; i++) {
+        double[] tmpDist = learners[i].distributionForInstance(instance);
+        for (int j = 0; j < distribution.length; j++){
+          distribution[j] += alphas[i] * (tmpDist[j] < 0.0 ? -1.0 : 1.0);
+        }
+      }
+      predictions[k] = getMostLikelyClass(distribution);
+    }
+  }
+  
   /**
    * Stores the specified model in a container.
    * @param model to store
@@ -1,6 +1,5 @@
 package gossipLearning.models.boosting.weakLearners;
 
-import gossipLearning.interfaces.VectorEntry;
 import gossipLearning.interfaces.WeakLearner;
 import gossipLearning.utils.SparseVector;
 import gossipLearning.utils.Utils;
@@ -119,23 +118,24 @@ public class SigmoidStumpLearner extends WeakLearner {
     // compute nu
     //double nu = 1.0 / (double) (age * lambda); // regularized
     
-    for (VectorEntry e : instance){
+    for (int i = 0; i < instance.size(); i++){
+      int index = instance.indexAt(i);
       // getting sparse values
-      Double cValueD = cs.get(e.index);
+      Double cValueD = cs.get(index);
       double cj = (cValueD != null) ? cValueD.doubleValue() : 0.1;
-      Double dValueD = ds.get(e.index);
+      Double dValueD = ds.get(index);
       double dj = (dValueD != null) ? dValueD.doubleValue() : 0.0;
-      double[] vsArray = vs.get(e.index);
+      double[] vsArray = vs.get(index);
       if (vsArray == null){
         vsArray = initVJ();
-        vs.put(e.index, vsArray);
+        vs.put(index, vsArray);
       }
-      double xj = e.value;
+      double xj = instance.valueAt(i);
     
       // compute edge for jth index
-      Double edgejD = edges.get(e.index);
+      Double edgejD = edges.get(index);
       double edgej = (edgejD == null) ? 0.0 : edgejD.doubleValue();
-      bestIndex = e.index;
+      bestIndex = index;
       double[] predictions = distributionForInstance(instance);
       
       // update jth edge
@@ -145,7 +145,7 @@ public class SigmoidStumpLearner extends WeakLearner {
         double pl = (predictions[l] >= 0.0) ? 1.0 : -1.0;
         edgeDelta += (pl == yl) ? weigths[l] : -weigths[l];
       }
-      edges.put(e.index, edgej + edgeDelta);
+      edges.put(index, edgej + edgeDelta);
     
       // computing sigmoid value and partial derivation of sigmoid
       double sigmoid = sigmoid(xj, cj, dj);
@@ -169,11 +169,11 @@ public class SigmoidStumpLearner extends WeakLearner {
       // update c and d
       //cj = (1.0 - 1.0 / age) * cj - nu * gradcj; // regularized
       cj -= (1.0 / age) * gradcj;
-      cs.put(e.index, cj);
+      cs.put(index, cj);
       //dj = (1.0 - 1.0 / age) * dj - nu * graddj; // regularized
       dj -= (1.0 / age) * graddj;
-      ds.put(e.index, dj);
-      vs.put(e.index, Utils.normalize(vsArray));
+      ds.put(index, dj);
+      vs.put(index, Utils.normalize(vsArray));
     }
     
     // finding best index based on edges
@@ -1,15 +1,14 @@
 package gossipLearning.models.multiClassLearners;
 
 import gossipLearning.interfaces.ProbabilityModel;
-import gossipLearning.interfaces.VectorEntry;
 import gossipLearning.utils.Matrix;
+import gossipLearning.utils.RandomStreams;
 import gossipLearning.utils.SparseVector;
 
 import java.util.Arrays;
 import java.util.TreeMap;
 
 import peersim.config.Configuration;
-import peersim.core.CommonState;
 
 /**
  * This is the gossip learning based implementation of the Backpropagation algorithm which
@@ -136,11 +135,12 @@ public class ANN extends ProbabilityModel {
   
   /**
    * Produces a random theta value. This is created to handle uniformly the initialization.
+   * The value is drawn from the stream of the current node.
    * 
    * @return random theta value
    */
   private double randomTheta() {
-    return (CommonState.r.nextDouble() - 0.5) / 10.0;
+    return (RandomStreams.current(RandomStreams.MODEL).nextDouble() - 0.5) / 10.0;
   }
   
   /**
@@ -173,11 +173,12 @@ public class ANN extends ProbabilityModel {
     // insert a new column into the first theta matrix for each previously unseen dimension
     
     // FIXME: After debug replace it with sparse version
-    for (VectorEntry e : x) {
+    for (int k = 0; k < x.size(); k ++) {
     //for (int inputDim = 0; inputDim < 400; inputDim ++) {
-      if (!sparseDimMap.containsKey(e.index)) {
+      int index = x.indexAt(k);
+      if (!sparseDimMap.containsKey(index)) {
         int matrixDim = thetas[0].getNumberOfColumns();
-        sparseDimMap.put(e.index, matrixDim);
+        sparseDimMap.put(index, matrixDim);
         Matrix newTheta = new Matrix(thetas[0].getNumberOfRows(), thetas[0].getNumberOfColumns() + 1);
         
         // copy existing data
@@ -225,11 +226,11 @@ public class ANN extends ProbabilityModel {
     // create a[0] i.e. the instance as an output vector
     Matrix[] a = new Matrix[thetas.length + 1];
     a[0] = new Matrix(thetas[0].getNumberOfColumns(), 1);
-    for (VectorEntry e : x) {
-      Integer matrixDimInt = sparseDimMap.get(e.index);
+    for (int k = 0; k < x.size(); k ++) {
+      Integer matrixDimInt = sparseDimMap.get(x.indexAt(k));
       if (matrixDimInt != null) {
         int matrixDim = matrixDimInt.intValue();
-        a[0].setValue(matrixDim, 0, x.get(e.index));
+        a[0].setValue(matrixDim, 0, x.valueAt(k));
       }
     }
     
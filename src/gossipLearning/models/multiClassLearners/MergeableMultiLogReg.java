@@ -3,6 +3,7 @@ package gossipLearning.models.multiClassLearners;
 import peersim.config.Configuration;
 import gossipLearning.interfaces.Mergeable;
 import gossipLearning.utils.SparseVector;
+import gossipLearning.utils.Utils;
 
 /**
  * This class represents a multi-class logistic regression classifier 
@@ -28,6 +29,7 @@ public class MergeableMultiLogReg extends MultiLogReg implements Mergeable<Merge
    */
   public MergeableMultiLogReg(MergeableMultiLogReg a) {
     lambda = a.lambda;
+    densityThreshold = a.densityThreshold;
     age = a.age;
     numberOfClasses = a.numberOfClasses;
     if (a.w == null) {
@@ -40,6 +42,7 @@ public class MergeableMultiLogReg extends MultiLogReg implements Mergeable<Merge
       }
       bias = a.bias.clone();
     }
+    version = a.version;
   }
   
   public Object clone() {
@@ -49,18 +52,40 @@ public class MergeableMultiLogReg extends MultiLogReg implements Mergeable<Merge
   public void init(String prefix) {
     super.init(prefix);
     lambda = Configuration.getDouble(prefix + "." + PAR_LAMBDA, 0.0001);
+    version = Utils.nextVersion();
   }
   
   @Override
   public MergeableMultiLogReg merge(MergeableMultiLogReg model) {
     MergeableMultiLogReg result = new MergeableMultiLogReg(this);
+    return result.mergeInto(result, model);
+  }
+  
+  @Override
+  public MergeableMultiLogReg mergeInto(MergeableMultiLogReg target, MergeableMultiLogReg model) {
+    if (target == model) {
+      return target == this ? target : model.mergeInto(model, this);
+    }
+    if (target.w == null || target.w.length != numberOfClasses) {
+      target.w = new SparseVector[numberOfClasses];
+      target.bias = new double[numberOfClasses];
+    }
     for (int i = 0; i < numberOfClasses; i++) {
-      result.w[i].mul(0.5);
-      result.w[i].add(model.w[i], 0.5);
-      result.bias[i] = (bias[i] + model.bias[i]) / 2.0;
+      if (target.w[i] == null) {
+        target.w[i] = (SparseVector)w[i].clone();
+      } else {
+        target.w[i].set(w[i]);
+      }
+      target.w[i].mul(0.5);
+      target.w[i].add(model.w[i], 0.5);
+      target.bias[i] = (bias[i] + model.bias[i]) / 2.0;
     }
-    result.age = Math.max(age, model.age);
-    return result;
+    target.age = Math.max(age, model.age);
+    target.lambda = lambda;
+    target.densityThreshold = densityThreshold;
+    target.numberOfClasses = numberOfClasses;
+    target.version = Utils.nextVersion();
+    return target;
   }
 
 }
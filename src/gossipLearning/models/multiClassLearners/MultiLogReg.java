@@ -1,7 +1,14 @@
 package gossipLearning.models.multiClassLearners;
 
+import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.BatchPredictable;
+import gossipLearning.interfaces.BatchUpdatable;
+import gossipLearning.interfaces.CompactModel;
 import gossipLearning.interfaces.ProbabilityModel;
+import gossipLearning.interfaces.VersionedModel;
+import gossipLearning.utils.HybridVector;
 import gossipLearning.utils.SparseVector;
+import gossipLearning.utils.Utils;
 import peersim.config.Configuration;
 
 /**
@@ -13,11 +20,13 @@ import peersim.config.Configuration;
  * Required configuration parameters:<br/>
  * <ul>
  * <li>MLR.lambda - learning rate</li>
+ * <li>MultiLogReg.densityThreshold - density threshold of the HybridVector hyperplanes 
+ * (optional, SparseVector hyperplanes are used by default)</li>
  * </ul>
  * @author István Hegedűs
  *
  */
-public class MultiLogReg extends ProbabilityModel {
+public class MultiLogReg extends ProbabilityModel implements BatchUpdatable, BatchPredictable, VersionedModel, CompactModel {
   private static final long serialVersionUID = -3918448404565337980L;
   
   /**
@@ -28,6 +37,15 @@ public class MultiLogReg extends ProbabilityModel {
    * Learning parameter.
    */
   protected double lambda = 0.0001;
+  /**
+   * The hyperplanes are stored in HybridVectors with this density threshold if it is 
+   * positive, otherwise in SparseVectors (default).
+   */
+  protected static final String PAR_DENSITY = "MultiLogReg.densityThreshold";
+  /**
+   * Density threshold of the hyperplanes.
+   */
+  protected double densityThreshold = 0.0;
   
   /**
    * The hyperplanes of the model.
@@ -46,6 +64,10 @@ public class MultiLogReg extends ProbabilityModel {
    * The number of classes of the current classification problem.
    */
   protected int numberOfClasses = 2;
+  /**
+   * The version stamp of the model (see VersionedModel).
+   */
+  protected long version = Utils.nextVersion();
 
   /**
    * Constructs a default multi-class logistic regression. <br/>
@@ -64,6 +86,7 @@ public class MultiLogReg extends ProbabilityModel {
    */
   public MultiLogReg(MultiLogReg a) {
     lambda = a.lambda;
+    densityThreshold = a.densityThreshold;
     age = a.age;
     numberOfClasses = a.numberOfClasses;
     if (a.w == null) {
@@ -76,6 +99,7 @@ public class MultiLogReg extends ProbabilityModel {
       }
       bias = a.bias.clone();
     }
+    version = a.version;
   }
   
   /**
@@ -88,14 +112,25 @@ public class MultiLogReg extends ProbabilityModel {
   
   @Override
   public double[] distributionForInstance(SparseVector instance) {
-    double[] v = new double[numberOfClasses];
+    return distributionForInstance(instance, null, new double[numberOfClasses], new double[numberOfClasses]);
+  }
+  
+  /**
+   * Computes the distribution of the class labels for the specified instance into the 
+   * specified array using the specified buffer.
+   * @param instance instance for computing distribution
+   * @param dense the arrays of the hyperplanes (see SparseVector.toDenseArray) or null
+   * @param v buffer of the class scores
+   * @param distribution the array of the result
+   * @return the distribution
+   */
+  private double[] distributionForInstance(SparseVector instance, double[][] dense, double[] v, double[] distribution) {
     double sum = 0.0;
     for (int i = 0; i < numberOfClasses -1; i++) {
-      v[i] = bias[i] + w[i].mul(instance);
+      v[i] = bias[i] + w[i].mul(instance, dense == null ? null : dense[i]);
     }
     v[numberOfClasses - 1] = 0.0;
     
-    double[] distribution = new double[numberOfClasses];
     for (int i = 0; i < numberOfClasses; i++) {
       sum = 0.0;
       for (int j = 0; j < numberOfClasses -1; j++) {
@@ -105,17 +140,57 @@ public class MultiLogReg extends ProbabilityModel {
     }
     return distribution;
   }
+  
+  /**
+   * Predicts the instances one by one, but the buffers of the distribution are 
+   * allocated once for the batch and the inner-products look up the hyperplanes in 
+   * dense arrays if they are not too long for the batch.
+   */
+  @Override
+  public void predict(InstanceHolder instances, double[] predictions) {
+    double[] v = new double[numberOfClasses];
+    double[] distribution = new double[numberOfClasses];
+    double[][] dense = new double[numberOfClasses - 1][];
+    for (int i = 0; i < numberOfClasses - 1; i++) {
+      dense[i] = w[i].toDenseArray(instances.getNumberOfPredictions());
+    }
+    for (int i = 0; i < instances.size(); i++) {
+      predictions[i] = getMostLikelyClass(distributionForInstance(instances.getInstance(i), dense, v, distribution));
+    }
+  }
 
   @Override
   public void init(String prefix) {
     lambda = Configuration.getDouble(prefix + "." + PAR_LAMBDA, 0.0001);
+    densityThreshold = Configuration.getDouble(prefix + "." + PAR_DENSITY, 0.0);
+    version = Utils.nextVersion();
   }
 
   @Override
   public void update(SparseVector instance, double label) {
+    update(instance, label, new double[numberOfClasses], new double[numberOfClasses]);
+  }
+  
+  /**
+   * Updates the model by the instances one by one, but the buffers of the distribution 
+   * are allocated once for the batch.
+   */
+  @Override
+  public void update(InstanceHolder instances, int from, int to) {
+    double[] v = new double[numberOfClasses];
+    double[] distribution = new double[numberOfClasses];
+    for (int i = from; i < to; i++) {
+      update(instances.getInstance(i), instances.getLabel(i), v, distribution);
+    }
+  }
+  
+  /**
+   * Updates the model by the specified instance using the specified buffers.
+   */
+  private void update(SparseVector instance, double label, double[] v, double[] distribution) {
     age ++;
     double nu = 1.0 / (lambda * age);
-    double[] distribution = distributionForInstance(instance);
+    distributionForInstance(instance, null, v, distribution);
     
     // update for each classes
     for (int j = 0; j < numberOfClasses; j++) {
@@ -126,6 +201,7 @@ public class MultiLogReg extends ProbabilityModel {
       w[j].add(instance, nu * err);
       bias[j] += nu * err;
     }
+    version = Utils.nextVersion();
   }
 
   @Override
@@ -142,7 +218,52 @@ public class MultiLogReg extends ProbabilityModel {
     w = new SparseVector[numberOfClasses];
     bias = new double[numberOfClasses];
     for (int i = 0; i < numberOfClasses; i++) {
-      w[i] = new SparseVector();
+      w[i] = HybridVector.createVector(densityThreshold);
+    }
+    version = Utils.nextVersion();
+  }
+  
+  @Override
+  public long getVersion() {
+    return version;
+  }
+  
+  /**
+   * The row contains the version, the age, the biases and the hyperplanes of the 
+   * classes, so the number of classes has to be set before.
+   */
+  @Override
+  public int getRowLength(int dimension) {
+    return 2 + numberOfClasses * (dimension + 1);
+  }
+  
+  @Override
+  public void load(double[] rows, int offset, int dimension) {
+    if (w == null) {
+      throw new RuntimeException("The number of classes of " + getClass().getCanonicalName() + " has to be set before loading!");
+    }
+    version = (long)rows[offset];
+    age = rows[offset + 1];
+    offset += 2;
+    for (int i = 0; i < numberOfClasses; i++) {
+      bias[i] = rows[offset];
+      Utils.loadVector(w[i], rows, offset + 1, dimension);
+      offset += dimension + 1;
+    }
+  }
+  
+  @Override
+  public void store(double[] rows, int offset, int dimension) {
+    if (w == null) {
+      throw new RuntimeException("The number of classes of " + getClass().getCanonicalName() + " has to be set before storing!");
+    }
+    rows[offset] = version;
+    rows[offset + 1] = age;
+    offset += 2;
+    for (int i = 0; i < numberOfClasses; i++) {
+      rows[offset] = bias[i];
+      Utils.storeVector(w[i], rows, offset + 1, dimension);
+      offset += dimension + 1;
     }
   }
 
@@ -4,6 +4,7 @@ import gossipLearning.interfaces.Mergeable;
 import gossipLearning.interfaces.Model;
 import gossipLearning.interfaces.ModelHolder;
 import gossipLearning.interfaces.ProbabilityModel;
+import gossipLearning.interfaces.VersionedModel;
 import gossipLearning.modelHolders.BoundedModelHolder;
 import gossipLearning.utils.SparseVector;
 import gossipLearning.utils.Utils;
@@ -23,7 +24,7 @@ import peersim.config.Configuration;
  * @author István Hegedűs
  *
  */
-public class OneVsAllMetaClassifier extends ProbabilityModel implements Mergeable<OneVsAllMetaClassifier> {
+public class OneVsAllMetaClassifier extends ProbabilityModel implements Mergeable<OneVsAllMetaClassifier>, VersionedModel {
   private static final long serialVersionUID = 1650527797690827114L;
   private static final String PAR_BNAME = "OVsA.modelName";
   
@@ -33,6 +34,8 @@ public class OneVsAllMetaClassifier extends ProbabilityModel implements Mergeabl
   private String baseLearnerName;
   /** @hidden */
   private String prefix;
+  /** The version stamp of the model (see VersionedModel). */
+  private long version = Utils.nextVersion();
 
   /**
    * Default constructor (do nothing).
@@ -53,6 +56,7 @@ public class OneVsAllMetaClassifier extends ProbabilityModel implements Mergeabl
     } else {
       classifiers = null;
     }
+    version = a.version;
   }
   
   @Override
@@ -64,6 +68,7 @@ public class OneVsAllMetaClassifier extends ProbabilityModel implements Mergeabl
   public void init(String prefix) {
     this.prefix = prefix;
     baseLearnerName = Configuration.getString(prefix + "." + PAR_BNAME);
+    version = Utils.nextVersion();
   }
 
   @Override
@@ -71,6 +76,7 @@ public class OneVsAllMetaClassifier extends ProbabilityModel implements Mergeabl
     for (int i = 0; i < numberOfClasses; i++) {
       classifiers.getModel(i).update(instance, (label == i) ? 1.0 : 0.0);
     }
+    version = Utils.nextVersion();
   }
 
   @Override
@@ -105,19 +111,56 @@ public class OneVsAllMetaClassifier extends ProbabilityModel implements Mergeabl
         throw new RuntimeException("Exception in class " + getClass().getCanonicalName(), e);
       }
     }
+    version = Utils.nextVersion();
+  }
+  
+  @Override
+  public long getVersion() {
+    return version;
   }
 
-  @SuppressWarnings({ "unchecked", "rawtypes" })
   @Override
   public OneVsAllMetaClassifier merge(OneVsAllMetaClassifier model) {
+    OneVsAllMetaClassifier result = (OneVsAllMetaClassifier)clone();
+    return result.mergeInto(result, model);
+  }
+
+  /**
+   * Merges the base learners into the base learners of the target. If a base learner is 
+   * not mergeable, it and the following base learners are not merged, the target gets 
+   * the base learners of the actual model at these positions.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  @Override
+  public OneVsAllMetaClassifier mergeInto(OneVsAllMetaClassifier target, OneVsAllMetaClassifier model) {
+    if (target == model) {
+      return target == this ? target : model.mergeInto(model, this);
+    }
+    target.version = Utils.nextVersion();
+    if (target != this) {
+      target.baseLearnerName = baseLearnerName;
+      target.prefix = prefix;
+      target.numberOfClasses = numberOfClasses;
+      if (target.classifiers == null || target.classifiers.size() != classifiers.size()) {
+        target.classifiers = (ModelHolder)classifiers.clone();
+      }
+    }
     for (int i = 0; i < classifiers.size(); i++) {
-      if (!(classifiers.getModel(i) instanceof Mergeable)) {
-        return this;
+      Model classifier = classifiers.getModel(i);
+      if (!(classifier instanceof Mergeable)) {
+        for (int j = i; target != this && j < classifiers.size(); j++) {
+          target.classifiers.setModel(j, (Model)classifiers.getModel(j).clone());
+        }
+        return target;
+      }
+      Model targetClassifier = target.classifiers.getModel(i);
+      if (targetClassifier.getClass() != classifier.getClass()) {
+        targetClassifier = (Model)classifier.clone();
+        target.classifiers.setModel(i, targetClassifier);
       }
-      Model result = ((Mergeable)classifiers.getModel(i)).merge(model.classifiers.getModel(i));
-      classifiers.setModel(i, result);
+      ((Mergeable)classifier).mergeInto(targetClassifier, model.classifiers.getModel(i));
     }
-    return this;
+    return target;
   }
 
 }
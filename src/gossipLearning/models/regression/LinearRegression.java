@@ -1,9 +1,15 @@
 package gossipLearning.models.regression;
 
+import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.BatchPredictable;
+import gossipLearning.interfaces.CompactModel;
 import gossipLearning.interfaces.Mergeable;
 import gossipLearning.interfaces.Model;
 import gossipLearning.interfaces.SimilarityComputable;
+import gossipLearning.interfaces.VersionedModel;
+import gossipLearning.utils.HybridVector;
 import gossipLearning.utils.SparseVector;
+import gossipLearning.utils.Utils;
 import peersim.config.Configuration;
 
 /**
@@ -11,7 +17,7 @@ import peersim.config.Configuration;
  * @author István Hegedűs
  *
  */
-public class LinearRegression implements Model, Mergeable<LinearRegression>, SimilarityComputable<LinearRegression> {
+public class LinearRegression implements Model, Mergeable<LinearRegression>, SimilarityComputable<LinearRegression>, BatchPredictable, VersionedModel, CompactModel {
   private static final long serialVersionUID = -1468280308189482885L;
   
   /**
@@ -19,6 +25,11 @@ public class LinearRegression implements Model, Mergeable<LinearRegression>, Sim
    */
   protected static final String PAR_LAMBDA = "LinearRegression.lambda";
   protected double lambda = 0.0001;
+  /**
+   * The hyperplane is stored in a HybridVector with this density threshold if it is 
+   * positive, otherwise in a SparseVector (default).
+   */
+  protected static final String PAR_DENSITY = "LinearRegression.densityThreshold";
   
   /** @hidden */
   private SparseVector w;
@@ -26,6 +37,8 @@ public class LinearRegression implements Model, Mergeable<LinearRegression>, Sim
   private double age;
   
   private int numberOfClasses;
+  /** The version stamp of the model (see VersionedModel). */
+  private long version = Utils.nextVersion();
   
   /**
    * Creates a default model with age=0 and the regression hyperplane is the 0 vector.
@@ -45,7 +58,9 @@ public class LinearRegression implements Model, Mergeable<LinearRegression>, Sim
   }
   
   public Object clone(){
-    return new LinearRegression(w, age, lambda, numberOfClasses, bias);
+    LinearRegression result = new LinearRegression(w, age, lambda, numberOfClasses, bias);
+    result.version = version;
+    return result;
   }
 
   /**
@@ -53,9 +68,10 @@ public class LinearRegression implements Model, Mergeable<LinearRegression>, Sim
    */
   @Override
   public void init(String prefix) {
-    w = new SparseVector();
+    w = HybridVector.createVector(Configuration.getDouble(prefix + "." + PAR_DENSITY, 0.0));
     age = 0.0;
     lambda = Configuration.getDouble(prefix + "." + PAR_LAMBDA);
+    version = Utils.nextVersion();
   }
 
   @Override
@@ -70,6 +86,7 @@ public class LinearRegression implements Model, Mergeable<LinearRegression>, Sim
     w.mul(1.0 - nu * lambda);
     w.add(instance, nu * err);
     bias += nu * err;
+    version = Utils.nextVersion();
   }
 
   /**
@@ -79,6 +96,18 @@ public class LinearRegression implements Model, Mergeable<LinearRegression>, Sim
   public double predict(SparseVector instance) {
     return w.mul(instance) + bias;
   }
+  
+  /**
+   * Predicts the instances one by one, but the inner-products look up the hyperplane in 
+   * a dense array if it is not too long for the batch.
+   */
+  @Override
+  public void predict(InstanceHolder instances, double[] predictions) {
+    double[] dense = w.toDenseArray(instances.getNumberOfPredictions());
+    for (int i = 0; i < instances.size(); i++) {
+      predictions[i] = w.mul(instances.getInstance(i), dense) + bias;
+    }
+  }
 
   @Override
   public double computeSimilarity(LinearRegression model) {
@@ -87,12 +116,24 @@ public class LinearRegression implements Model, Mergeable<LinearRegression>, Sim
 
   @Override
   public LinearRegression merge(LinearRegression model) {
-    SparseVector mergedw = new SparseVector(w);
+    LinearRegression result = new LinearRegression(w, age, lambda, numberOfClasses, bias);
+    return result.mergeInto(result, model);
+  }
+  
+  @Override
+  public LinearRegression mergeInto(LinearRegression target, LinearRegression model) {
+    if (target == model) {
+      return target == this ? target : model.mergeInto(model, this);
+    }
     double age = Math.round((this.age + model.age) / 2.0);
     double bias = (this.bias + model.bias) / 2.0;
-    mergedw.mul(0.5);
-    mergedw.add(model.w, 0.5);
-    return new LinearRegression(mergedw, age, lambda, numberOfClasses, bias);
+    target.w.set(w).mul(0.5).add(model.w, 0.5);
+    target.age = age;
+    target.bias = bias;
+    target.lambda = lambda;
+    target.numberOfClasses = numberOfClasses;
+    target.version = Utils.nextVersion();
+    return target;
   }
 
   @Override
@@ -103,6 +144,36 @@ public class LinearRegression implements Model, Mergeable<LinearRegression>, Sim
   @Override
   public void setNumberOfClasses(int numberOfClasses) {
     this.numberOfClasses = numberOfClasses;
+    version = Utils.nextVersion();
+  }
+  
+  @Override
+  public long getVersion() {
+    return version;
+  }
+  
+  /**
+   * The row contains the version, the age, the bias and the hyperplane.
+   */
+  @Override
+  public int getRowLength(int dimension) {
+    return dimension + 3;
+  }
+  
+  @Override
+  public void load(double[] rows, int offset, int dimension) {
+    version = (long)rows[offset];
+    age = rows[offset + 1];
+    bias = rows[offset + 2];
+    Utils.loadVector(w, rows, offset + 3, dimension);
+  }
+  
+  @Override
+  public void store(double[] rows, int offset, int dimension) {
+    rows[offset] = version;
+    rows[offset + 1] = age;
+    rows[offset + 2] = bias;
+    Utils.storeVector(w, rows, offset + 3, dimension);
   }
   
   public double getLambda() {
@@ -2,8 +2,8 @@ package gossipLearning.overlays;
 
 import gossipLearning.controls.ChurnControl;
 import gossipLearning.interfaces.Churnable;
+import gossipLearning.utils.RandomStreams;
 import peersim.config.Configuration;
-import peersim.core.CommonState;
 import peersim.core.Fallible;
 import peersim.core.Network;
 import peersim.core.Node;
@@ -23,6 +23,8 @@ public class ChurnableNewscast extends EdNewscast implements Churnable {
   private long sessionLength = ChurnControl.INIT_SESSION_LENGTH;
   /** @hidden */
   private final String prefix;
+  /** @hidden */
+  private RandomStreams randomStreams;
   
   public ChurnableNewscast(String prefix) {
     super(prefix);
@@ -43,9 +45,12 @@ public class ChurnableNewscast extends EdNewscast implements Churnable {
   }
 
   public void initSession(Node node, int protocol) {
+    if (randomStreams == null) {
+      randomStreams = new RandomStreams(node.getID(), protocol);
+    }
     deleteNeighbors();
     while (degree() < cacheSize) {
-      int onlineNeighbor = CommonState.r.nextInt(Network.size());
+      int onlineNeighbor = randomStreams.get(RandomStreams.OVERLAY).nextInt(Network.size());
       if ( Network.get(onlineNeighbor).getFailState() != Fallible.DOWN
           && Network.get(onlineNeighbor).getFailState() != Fallible.DEAD
           && Network.get(onlineNeighbor).getID() != node.getID()) {
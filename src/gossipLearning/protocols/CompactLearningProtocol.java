@@ -0,0 +1,191 @@
+package gossipLearning.protocols;
+
+import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.LearningProtocol;
+import gossipLearning.interfaces.Model;
+import gossipLearning.interfaces.ModelHolder;
+import gossipLearning.messages.ModelMessage;
+import gossipLearning.modelHolders.CompactModelHolder;
+import peersim.config.Configuration;
+import peersim.core.Protocol;
+
+/**
+ * This is a memory efficient alternative of the SimpleLearningProtocol with a holder of
+ * capacity 1 for very large networks (e.g. 10^7 nodes). The state of the nodes (the
+ * models, the training instances and the overlay) is stored in flat primitive arrays
+ * of a CompactState that is shared by the nodes, and the protocol object of a node stores
+ * only the row of the node. The protocol is driven by the CompactCycle control in
+ * bulk-synchronous cycles, so the transport, the overlay protocol and the
+ * StartMessageInitializer are not required. <br/>
+ * The protocol has one model holder (a CompactModelHolder view of the row of the node),
+ * so the observers (e.g. the PredictionObserver family) can read the models as usual,
+ * however the getModel method of the holder returns a copy of the stored model, that
+ * has the version stamp of the stored model. <br/>
+ * The training instances have to be set as InstanceHolderSlice views of the same source
+ * (see InstanceLoader), and getInstanceHolder returns a copy of the view, so the controls
+ * that modify the instances of the nodes (e.g. DynamicInstanceLoader) are not supported.
+ * The model has to be a CompactModel, and its number of classes is set by the
+ * numberOfClasses parameter (SetNumberOfClassesForModels has no effect, since the length
+ * of the rows depends on the number of classes). <br/>
+ * The models are stored in a HeapModelStore by default, while the OffHeapModelStore keeps
+ * them out of the heap, that reduces the pauses of the garbage collector in case of large
+ * models (e.g. MultiLogReg of many classes and features). <br/>
+ * The protocol receives the following parameters:
+ * <ul>
+ *   <li><b>modelName</b> - the class of the model, it has to implement CompactModel</li>
+ *   <li><b>dimension</b> - the number of the features of the models</li>
+ *   <li><b>samples</b> - the maximal number of the training instances of a node (default value: 1)</li>
+ *   <li><b>degree</b> - the number of the neighbors of a node in the random overlay, 0 means
+ *   that the peers are sampled uniformly from the online nodes (default value: 0)</li>
+ *   <li><b>numberOfClasses</b> - the number of classes of the models (default value: the
+ *   default of the model)</li>
+ *   <li><b>modelStoreName</b> - the class of the ModelStore of the models (default value:
+ *   gossipLearning.utils.HeapModelStore)</li>
+ * </ul>
+ */
+public class CompactLearningProtocol implements LearningProtocol, Protocol {
+  private static final String PAR_MODELNAME = "modelName";
+  private static final String PAR_DIMENSION = "dimension";
+  private static final String PAR_SAMPLES = "samples";
+  private static final String PAR_DEGREE = "degree";
+  private static final String PAR_CLASSES = "numberOfClasses";
+  private static final String PAR_MODELSTORENAME = "modelStoreName";
+
+  /** @hidden */
+  private final CompactModelHolder holder;
+
+  /**
+   * Constructor which parses the contents of a standard Peersim configuration file, and
+   * creates the shared state of the nodes.
+   *
+   * @param prefix
+   */
+  public CompactLearningProtocol(String prefix) {
+    String modelName = Configuration.getString(prefix + "." + PAR_MODELNAME);
+    int dimension = Configuration.getInt(prefix + "." + PAR_DIMENSION);
+    int samples = Configuration.getInt(prefix + "." + PAR_SAMPLES, 1);
+    int degree = Configuration.getInt(prefix + "." + PAR_DEGREE, 0);
+    int numberOfClasses = Configuration.getInt(prefix + "." + PAR_CLASSES, 0);
+    String modelStoreName = Configuration.getString(prefix + "." + PAR_MODELSTORENAME, "gossipLearning.utils.HeapModelStore");
+    Model model;
+    try {
+      model = (Model)Class.forName(modelName).newInstance();
+    } catch (Exception e) {
+      throw new RuntimeException("Exception occured in initialization of " + getClass().getCanonicalName() + ": " + e);
+    }
+    model.init(prefix);
+    if (numberOfClasses > 0) {
+      model.setNumberOfClasses(numberOfClasses);
+    }
+    holder = new CompactModelHolder(new CompactState(model, dimension, samples, degree, modelStoreName, prefix), -1);
+  }
+
+  /**
+   * Constructs the protocol of the specified row.
+   */
+  private CompactLearningProtocol(CompactState state, int row) {
+    holder = new CompactModelHolder(state, row);
+  }
+
+  /**
+   * Allocates a new row in the shared state that contains the model of this node (or the
+   * initial model in case of the prototype).
+   *
+   * @return Clone of the protocol instance.
+   */
+  @Override
+  public Object clone() {
+    return new CompactLearningProtocol(holder.getState(), holder.getState().allocate(holder.getRow()));
+  }
+
+  /**
+   * Returns the shared state of the nodes.
+   * @return the state
+   */
+  public CompactState getState() {
+    return holder.getState();
+  }
+
+  /**
+   * Returns the row of the node in the shared state (-1 in case of the prototype).
+   * @return the row of the node
+   */
+  public int getRow() {
+    return holder.getRow();
+  }
+
+  /**
+   * Not supported, the models are sent by the CompactCycle control.
+   */
+  @Override
+  public void activeThread() {
+    throw new RuntimeException(getClass().getCanonicalName() + " is driven by gossipLearning.simulation.CompactCycle!");
+  }
+
+  /**
+   * Updates the received models by the training instances of the node, and stores the
+   * last one.
+   */
+  @Override
+  public void passiveThread(ModelMessage message) {
+    for (int i = 0; message != null && i < message.size(); i++) {
+      holder.getState().receive(holder.getRow(), message.getModel(i));
+    }
+  }
+
+  @Override
+  public InstanceHolder getInstanceHolder() {
+    return holder.getState().getInstances(holder.getRow());
+  }
+
+  @Override
+  public void setInstenceHolder(InstanceHolder instances) {
+    holder.getState().setInstances(holder.getRow(), instances);
+  }
+
+  @Override
+  public int size() {
+    return 1;
+  }
+
+  @Override
+  public ModelHolder getModelHolder(int index) {
+    checkIndex(index);
+    return holder;
+  }
+
+  /**
+   * Stores the last model of the specified holder.
+   */
+  @Override
+  public void setModelHolder(int index, ModelHolder modelHolder) {
+    checkIndex(index);
+    if (modelHolder != holder && modelHolder.size() > 0) {
+      holder.add(modelHolder.getModel(modelHolder.size() - 1));
+    }
+  }
+
+  /**
+   * Stores the last model of the specified holder.
+   */
+  @Override
+  public boolean add(ModelHolder modelHolder) {
+    setModelHolder(0, modelHolder);
+    return true;
+  }
+
+  /**
+   * Not supported, the node always has a model.
+   */
+  @Override
+  public ModelHolder remove(int index) {
+    throw new RuntimeException("The model holder of " + getClass().getCanonicalName() + " cannot be removed!");
+  }
+
+  private void checkIndex(int index) {
+    if (index != 0) {
+      throw new RuntimeException(getClass().getCanonicalName() + " can handle only one modelHolder with index 0.");
+    }
+  }
+
+}
@@ -0,0 +1,450 @@
+package gossipLearning.protocols;
+
+import gossipLearning.InstanceHolder;
+import gossipLearning.InstanceHolderSlice;
+import gossipLearning.interfaces.CompactModel;
+import gossipLearning.interfaces.Model;
+import gossipLearning.interfaces.ModelStore;
+import gossipLearning.utils.HeapModelStore;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import peersim.core.Network;
+import peersim.core.Node;
+import peersim.core.Protocol;
+
+/**
+ * This class stores the state of the nodes of a CompactLearningProtocol in flat primitive
+ * arrays that are indexed by the rows of the nodes:
+ * <ul>
+ *   <li>the models are stored in rows of fixed length (see CompactModel) in a ModelStore,
+ *   that is a HeapModelStore by default, or an OffHeapModelStore for the models that
+ *   would make the heap too large,</li>
+ *   <li>the training instances of a node are stored as positions in a shared
+ *   InstanceHolder (the source) with their labels, at most samples instances per node,</li>
+ *   <li>the overlay is an optional random k-out graph stored in an int array (degree
+ *   neighbors per node), otherwise the peers are selected uniformly at random from the
+ *   online nodes (ideal peer sampling service).</li>
+ * </ul>
+ * The state is shared by the protocol instances of the nodes, and the models are updated
+ * by a single model object (flyweight) in bulk-synchronous cycles (see the cycle method).
+ * The received models are written into the rows in place, so the models are stored
+ * once. The state is used by the main thread only.
+ */
+public class CompactState {
+  /**
+   * The dimension of the models, the indices of the features are less than it.
+   */
+  protected final int dimension;
+  /**
+   * The maximal number of the training instances of a node.
+   */
+  protected final int samples;
+  /**
+   * The number of the neighbors of a node (0 - uniform peer sampling).
+   */
+  protected final int degree;
+  /**
+   * The length of the rows of the models.
+   */
+  protected final int rowLength;
+
+  /** @hidden */
+  private final Model template;
+  /** @hidden */
+  private final CompactModel model;
+  /** @hidden */
+  private final double[] initialRow;
+  /** @hidden */
+  private final ModelStore rows;
+  /** @hidden */
+  private final double[] buffer;
+  /** @hidden */
+  private final double[] saved;
+  private int numberOfRows = 0;
+
+  /** @hidden */
+  private InstanceHolder source;
+  /** @hidden */
+  private int[] sampleIndices = new int[0];
+  /** @hidden */
+  private double[] labels = new double[0];
+
+  /** @hidden */
+  private int[] neighbors = new int[0];
+  private int numberOfWiredRows = 0;
+
+  /** @hidden */
+  private boolean[] online = new boolean[0];
+  /** @hidden */
+  private int[] onlineRows = new int[0];
+  /** @hidden */
+  private int[] inbox = new int[0];
+  /** @hidden */
+  private int[] readers = new int[0];
+  /** @hidden */
+  private int[] ready = new int[0];
+
+  /**
+   * Constructs an empty state for the specified model that stores the models in a
+   * HeapModelStore.
+   * @param template the initial model of the nodes, it has to be a CompactModel
+   * @param dimension the dimension of the models
+   * @param samples the maximal number of the training instances of a node
+   * @param degree the number of the neighbors of a node (0 - uniform peer sampling)
+   */
+  public CompactState(Model template, int dimension, int samples, int degree) {
+    this(template, dimension, samples, degree, HeapModelStore.class.getCanonicalName(), null);
+  }
+
+  /**
+   * Constructs an empty state for the specified model that stores the models in the
+   * specified type of ModelStore.
+   * @param template the initial model of the nodes, it has to be a CompactModel
+   * @param dimension the dimension of the models
+   * @param samples the maximal number of the training instances of a node
+   * @param degree the number of the neighbors of a node (0 - uniform peer sampling)
+   * @param modelStoreName the class of the store of the models
+   * @param prefix the ID of the parameters of the store
+   */
+  public CompactState(Model template, int dimension, int samples, int degree, String modelStoreName, String prefix) {
+    if (!(template instanceof CompactModel)) {
+      throw new RuntimeException("The model " + template.getClass().getCanonicalName() + " has to implement the CompactModel interface!");
+    }
+    if (dimension < 1 || samples < 1 || degree < 0) {
+      throw new RuntimeException("Invalid parameters of " + getClass().getCanonicalName() + ": dimension=" + dimension + ", samples=" + samples + ", degree=" + degree);
+    }
+    this.template = template;
+    this.dimension = dimension;
+    this.samples = samples;
+    this.degree = degree;
+    model = (CompactModel)template.clone();
+    rowLength = model.getRowLength(dimension);
+    initialRow = new double[rowLength];
+    model.store(initialRow, 0, dimension);
+    buffer = new double[rowLength];
+    saved = new double[rowLength];
+    try {
+      rows = (ModelStore)Class.forName(modelStoreName).newInstance();
+    } catch (Exception e) {
+      throw new RuntimeException("Exception occured in initialization of " + getClass().getCanonicalName() + ": " + e);
+    }
+    rows.init(prefix, rowLength);
+  }
+
+  /**
+   * Returns the number of the allocated rows.
+   * @return the number of the rows
+   */
+  public int size() {
+    return numberOfRows;
+  }
+
+  /**
+   * Releases the rows of the models (see ModelStore.close), the state cannot be used
+   * after it.
+   */
+  public void close() {
+    rows.close();
+  }
+
+  /**
+   * Allocates a new row that contains the specified model, or the initial model if the
+   * specified row is negative.
+   * @param row the row to copy or -1
+   * @return the new row
+   */
+  public int allocate(int row) {
+    int index = numberOfRows;
+    rows.ensureCapacity(index + 1);
+    if (index == online.length) {
+      int capacity = Math.max(16, index << 1);
+      online = Arrays.copyOf(online, capacity);
+      sampleIndices = Arrays.copyOf(sampleIndices, capacity * samples);
+      labels = Arrays.copyOf(labels, capacity * samples);
+    }
+    if (row < 0) {
+      rows.set(index, initialRow, 0);
+    } else {
+      rows.get(row, buffer, 0);
+      rows.set(index, buffer, 0);
+    }
+    Arrays.fill(sampleIndices, index * samples, (index + 1) * samples, -1);
+    numberOfRows ++;
+    return index;
+  }
+
+  /**
+   * Returns a copy of the model stored in the specified row (or the initial model if the
+   * row is negative). The copy has the version stamp of the stored model. The models can
+   * be read concurrently.
+   * @param row the row of the model
+   * @return the model
+   */
+  public Model getModel(int row) {
+    Model result = (Model)template.clone();
+    if (row < 0) {
+      ((CompactModel)result).load(initialRow, 0, dimension);
+    } else {
+      double[] values = new double[rowLength];
+      rows.get(row, values, 0);
+      ((CompactModel)result).load(values, 0, dimension);
+    }
+    return result;
+  }
+
+  /**
+   * Stores the specified model in the specified row.
+   * @param row the row of the model
+   * @param model the model to store, it has to be a CompactModel
+   */
+  public void setModel(int row, Model model) {
+    if (!(model instanceof CompactModel)) {
+      throw new RuntimeException("The model " + model.getClass().getCanonicalName() + " has to implement the CompactModel interface!");
+    }
+    checkRow(row);
+    ((CompactModel)model).store(buffer, 0, dimension);
+    rows.set(row, buffer, 0);
+  }
+
+  /**
+   * Updates the specified model by the training instances of the specified row and stores
+   * it in the row.
+   * @param row the row of the receiver
+   * @param model the received model
+   */
+  public void receive(int row, Model model) {
+    update(row, model);
+    setModel(row, model);
+  }
+
+  /**
+   * Stores the instances of the specified view as the training instances of the specified
+   * row. The views of the nodes have to refer to the same source.
+   * @param row the row of the node
+   * @param instances the instances of the node
+   */
+  public void setInstances(int row, InstanceHolder instances) {
+    checkRow(row);
+    if (!(instances instanceof InstanceHolderSlice)) {
+      throw new RuntimeException("The instances of " + getClass().getCanonicalName() + " have to be stored in an InstanceHolderSlice!");
+    }
+    InstanceHolderSlice slice = (InstanceHolderSlice)instances;
+    if (source == null) {
+      if (slice.getSource().getNumberOfFeatures() > dimension) {
+        throw new RuntimeException("The number of features " + slice.getSource().getNumberOfFeatures() + " exceeds the dimension " + dimension + "!");
+      }
+      source = slice.getSource();
+    } else if (slice.getSource() != source) {
+      throw new RuntimeException("The instances of the nodes have to refer to the same source!");
+    }
+    if (slice.size() > samples) {
+      throw new RuntimeException("The number of instances " + slice.size() + " exceeds the number of samples " + samples + "!");
+    }
+    int offset = row * samples;
+    for (int i = 0; i < samples; i++) {
+      sampleIndices[offset + i] = i < slice.size() ? slice.getSourceIndex(i) : -1;
+      labels[offset + i] = i < slice.size() ? slice.getLabel(i) : 0.0;
+    }
+  }
+
+  /**
+   * Returns a view of the training instances of the specified row, or null if the
+   * instances were not set. The labels of the view are copies.
+   * @param row the row of the node
+   * @return the instances of the node
+   */
+  public InstanceHolder getInstances(int row) {
+    if (source == null || row < 0) {
+      return null;
+    }
+    InstanceHolderSlice result = new InstanceHolderSlice(source, samples, true);
+    int offset = row * samples;
+    for (int i = 0; i < samples && sampleIndices[offset + i] >= 0; i++) {
+      result.addIndex(sampleIndices[offset + i]);
+      result.setLabel(i, labels[offset + i]);
+    }
+    return result;
+  }
+
+  /**
+   * Performs a bulk-synchronous cycle, that is equivalent to a cycle of the
+   * SimpleLearningProtocol with a holder of capacity 1 in the cycle-driven mode (see
+   * SynchronousCycle): each online node sends its model to a peer in a random order, and
+   * the receivers update the model that arrived last by their training instances and
+   * replace their models by it. The received models are the models of the senders at the
+   * beginning of the cycle, and the messages sent to the offline nodes are lost. <br/>
+   * The rows are updated in place: a row is overwritten after the receivers of its model
+   * were updated, and in the cycles of the senders (e.g. two nodes that sent their models
+   * to each other) the model of the first receiver is saved before it is overwritten.
+   * @param pid the ID of the protocol
+   * @param random the random generator of the cycle
+   * @return the number of the updated models
+   */
+  public int cycle(int pid, Random random) {
+    int numOfOnline = collectOnlineRows(pid);
+    wire(random);
+    if (inbox.length < numberOfRows) {
+      inbox = new int[online.length];
+    }
+    Arrays.fill(inbox, 0, numberOfRows, -1);
+    // send phase in a random order
+    for (int i = numOfOnline - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int tmp = onlineRows[i];
+      onlineRows[i] = onlineRows[j];
+      onlineRows[j] = tmp;
+    }
+    for (int i = 0; i < numOfOnline; i++) {
+      int sender = onlineRows[i];
+      int receiver = selectPeer(sender, numOfOnline, random);
+      if (receiver >= 0 && online[receiver]) {
+        inbox[receiver] = sender;
+      }
+    }
+    // receive phase, the number of the unprocessed readers of the rows
+    if (readers.length < inbox.length) {
+      readers = new int[inbox.length];
+      ready = new int[inbox.length];
+    }
+    Arrays.fill(readers, 0, numberOfRows, 0);
+    for (int receiver = 0; receiver < numberOfRows; receiver++) {
+      if (inbox[receiver] >= 0) {
+        readers[inbox[receiver]] ++;
+      }
+    }
+    int numOfReady = 0;
+    for (int receiver = 0; receiver < numberOfRows; receiver++) {
+      if (inbox[receiver] >= 0 && readers[receiver] == 0) {
+        ready[numOfReady ++] = receiver;
+      }
+    }
+    int numOfUpdates = 0;
+    while (numOfReady > 0) {
+      int receiver = ready[-- numOfReady];
+      int sender = inbox[receiver];
+      rows.get(sender, buffer, 0);
+      receiveRow(receiver, buffer);
+      inbox[receiver] = -1;
+      numOfUpdates ++;
+      if (-- readers[sender] == 0 && inbox[sender] >= 0) {
+        ready[numOfReady ++] = sender;
+      }
+    }
+    // the remaining receivers form cycles, each of them reads the row of the next one
+    for (int first = 0; first < numberOfRows; first++) {
+      if (inbox[first] < 0) {
+        continue;
+      }
+      rows.get(first, saved, 0);
+      int receiver = first;
+      while (receiver != -1) {
+        int sender = inbox[receiver];
+        inbox[receiver] = -1;
+        if (sender == first) {
+          System.arraycopy(saved, 0, buffer, 0, rowLength);
+          receiveRow(receiver, buffer);
+          receiver = -1;
+        } else {
+          rows.get(sender, buffer, 0);
+          receiveRow(receiver, buffer);
+          receiver = sender;
+        }
+        numOfUpdates ++;
+      }
+    }
+    return numOfUpdates;
+  }
+
+  /**
+   * Loads the received model from the specified row values, updates it by the training
+   * instances of the specified row, and stores it in the row.
+   */
+  private void receiveRow(int row, double[] values) {
+    model.load(values, 0, dimension);
+    update(row, (Model)model);
+    model.store(values, 0, dimension);
+    rows.set(row, values, 0);
+  }
+
+  /**
+   * Updates the specified model by the training instances of the specified row.
+   */
+  private void update(int row, Model model) {
+    int offset = row * samples;
+    for (int i = 0; i < samples && sampleIndices[offset + i] >= 0; i++) {
+      model.update(source.getInstance(sampleIndices[offset + i]), labels[offset + i]);
+    }
+  }
+
+  /**
+   * Collects the rows of the online nodes of the network, and returns their number.
+   */
+  private int collectOnlineRows(int pid) {
+    Arrays.fill(online, false);
+    if (onlineRows.length < Network.size()) {
+      onlineRows = new int[Network.size()];
+    }
+    int numOfOnline = 0;
+    for (int i = 0; i < Network.size(); i++) {
+      Node node = Network.get(i);
+      Protocol protocol = node.getProtocol(pid);
+      if (!(protocol instanceof CompactLearningProtocol) || ((CompactLearningProtocol)protocol).getState() != this) {
+        throw new RuntimeException("The protocol " + pid + " of the node " + node.getID() + " is not a CompactLearningProtocol of this state!");
+      }
+      int row = ((CompactLearningProtocol)protocol).getRow();
+      if (node.isUp()) {
+        online[row] = true;
+        onlineRows[numOfOnline ++] = row;
+      }
+    }
+    return numOfOnline;
+  }
+
+  /**
+   * Selects the neighbors of the rows that were allocated since the previous cycle.
+   */
+  private void wire(Random random) {
+    if (degree == 0 || numberOfWiredRows == numberOfRows) {
+      return;
+    }
+    if (neighbors.length < numberOfRows * degree) {
+      neighbors = Arrays.copyOf(neighbors, online.length * degree);
+    }
+    for (int row = numberOfWiredRows; row < numberOfRows; row++) {
+      for (int i = 0; i < degree; i++) {
+        int neighbor = row;
+        while (neighbor == row && numberOfRows > 1) {
+          neighbor = random.nextInt(numberOfRows);
+        }
+        neighbors[row * degree + i] = neighbor;
+      }
+    }
+    numberOfWiredRows = numberOfRows;
+  }
+
+  /**
+   * Returns the peer of the specified sender, or -1 if there is no peer.
+   */
+  private int selectPeer(int sender, int numOfOnline, Random random) {
+    if (degree > 0) {
+      return numberOfRows > 1 ? neighbors[sender * degree + random.nextInt(degree)] : -1;
+    }
+    if (numOfOnline < 2) {
+      return -1;
+    }
+    int peer = sender;
+    while (peer == sender) {
+      peer = onlineRows[random.nextInt(numOfOnline)];
+    }
+    return peer;
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= numberOfRows) {
+      throw new RuntimeException("Invalid row " + row + " of " + getClass().getCanonicalName() + "!");
+    }
+  }
+
+}
@@ -6,7 +6,7 @@ import gossipLearning.interfaces.Model;
 import gossipLearning.interfaces.ModelHolder;
 import gossipLearning.messages.ModelMessage;
 import gossipLearning.modelHolders.BoundedModelHolder;
-import gossipLearning.utils.SparseVector;
+import gossipLearning.utils.Utils;
 import peersim.config.Configuration;
 
 /**
@@ -118,26 +118,25 @@ public class MultipleLearningProtocol extends AbstractProtocol {
   }
   
   /**
-   * Updates the models of the specified model holder and merges them if it is possible.
-   * @param modelHolder container of models to update
+   * Updates the models of the specified message and merges them if it is possible.
+   * @param message container of models to update
    */
   @SuppressWarnings({ "rawtypes", "unchecked" })
-  protected void updateModels(ModelHolder modelHolder){
-    for (int i = 0; i < modelHolder.size(); i++){
-      // get the ith model from the modelHolder
-      Model model = modelHolder.getModel(i);
-      // if it is a mergeable model, them merge them
+  protected void updateModels(ModelMessage message){
+    for (int i = 0; i < message.size(); i++){
+      // get the ith model from the message and its copy that will be updated and stored
+      Model shared = message.getSharedModel(i);
+      Model model = message.getModel(i);
+      // if it is a mergeable model, then merge it in place with the last seen model (the 
+      // shared model is not modified, so it can be stored as the last seen model)
       if (model instanceof Mergeable){
         Model lastSeen = lastSeenMergeableModels.getModel(i);
-        lastSeenMergeableModels.setModel(i, (Model) model.clone());
-        model = ((Mergeable) model).merge(lastSeen);
+        lastSeenMergeableModels.setModel(i, shared);
+        ((Mergeable) model).mergeInto(model, lastSeen);
       }
       // updating the model with the local training samples
-      for (int sampleID = 0; instances != null && sampleID < instances.size(); sampleID ++) {
-        // we use each samples for updating the currently processed model
-        SparseVector x = instances.getInstance(sampleID);
-        double y = instances.getLabel(sampleID);
-        model.update(x, y);
+      if (instances != null) {
+        Utils.updateModel(model, instances, 0, instances.size());
       }
       // stores the updated model
       //modelHolders[i].add((Model) model.clone());
@@ -2,9 +2,9 @@ package gossipLearning.protocols;
 
 import gossipLearning.interfaces.Mergeable;
 import gossipLearning.interfaces.Model;
-import gossipLearning.interfaces.ModelHolder;
+import gossipLearning.messages.ModelMessage;
+import gossipLearning.utils.RandomStreams;
 import gossipLearning.utils.SparseVector;
-import peersim.core.CommonState;
 
 /**
  * This protocol uses multiple model holders, the number of model holder will be 
@@ -46,23 +46,25 @@ public class MultipleOneLearningProtocol extends MultipleLearningProtocol {
   }
   
   /**
-   * Updates the models of the specified model holder and merges them if it is possible.
-   * @param modelHolder container of models to update
+   * Updates the models of the specified message and merges them if it is possible.
+   * @param message container of models to update
    */
   @SuppressWarnings({ "rawtypes", "unchecked" })
-  protected void updateModels(ModelHolder modelHolder){
-    for (int i = 0; i < modelHolder.size(); i++){
-      // get the ith model from the modelHolder
-      Model model = modelHolder.getModel(i);
-      // if it is a mergeable model, them merge them
+  protected void updateModels(ModelMessage message){
+    for (int i = 0; i < message.size(); i++){
+      // get the ith model from the message and its copy that will be updated and stored
+      Model shared = message.getSharedModel(i);
+      Model model = message.getModel(i);
+      // if it is a mergeable model, then merge it in place with the last seen model (the 
+      // shared model is not modified, so it can be stored as the last seen model)
       if (model instanceof Mergeable){
         Model lastSeen = lastSeenMergeableModels.getModel(i);
-        lastSeenMergeableModels.setModel(i, (Model) model.clone());
-        model = ((Mergeable) model).merge(lastSeen);
+        lastSeenMergeableModels.setModel(i, shared);
+        ((Mergeable) model).mergeInto(model, lastSeen);
       }
       // updating the model with only one randomly selected local training sample
       if (instances != null && instances.size() > 0) {
-        int sampleID = CommonState.r.nextInt(instances.size());
+        int sampleID = getRandom(RandomStreams.SAMPLE).nextInt(instances.size());
         SparseVector x = instances.getInstance(sampleID);
         double y = instances.getLabel(sampleID);
         model.update(x, y);
@@ -72,4 +74,4 @@ public class MultipleOneLearningProtocol extends MultipleLearningProtocol {
     }
   }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -5,7 +5,7 @@ import gossipLearning.interfaces.Model;
 import gossipLearning.interfaces.ModelHolder;
 import gossipLearning.messages.ModelMessage;
 import gossipLearning.modelHolders.BoundedModelHolder;
-import gossipLearning.utils.SparseVector;
+import gossipLearning.utils.Utils;
 import peersim.config.Configuration;
 
 /**
@@ -123,13 +123,11 @@ public class SimpleLearningProtocol extends AbstractProtocol {
   @Override
   public void passiveThread(ModelMessage message) {
     for (int incommingModelID = 0; message != null && incommingModelID < message.size(); incommingModelID ++) {
-      // process each model that can be found in the message (they are clones, so not necessary to copy them again)
+      // process each model that can be found in the message (getModel returns a copy of the model of the message)
       Model model = message.getModel(incommingModelID);
-      for (int sampleID = 0; instances != null && sampleID < instances.size(); sampleID ++) {
-        // we use each samples for updating the currently processed model
-        SparseVector x = instances.getInstance(sampleID);
-        double y = instances.getLabel(sampleID);
-        model.update(x, y);
+      // we use each samples for updating the currently processed model
+      if (instances != null) {
+        Utils.updateModel(model, instances, 0, instances.size());
       }
       // model is updated properly by all of the stored samples => store it
       models.add(model);
@@ -0,0 +1,62 @@
+package gossipLearning.simulation;
+
+import gossipLearning.protocols.CompactLearningProtocol;
+import gossipLearning.protocols.CompactState;
+import gossipLearning.utils.RandomStreams;
+import peersim.config.Configuration;
+import peersim.core.CommonState;
+import peersim.core.Control;
+import peersim.core.Network;
+import peersim.core.Protocol;
+import peersim.util.ExtendedRandom;
+
+/**
+ * This control performs a bulk-synchronous cycle of a CompactLearningProtocol on the
+ * shared state of the nodes (see CompactState.cycle). Like the SynchronousCycle, it is
+ * executed by the EDSimulator, its step is the length of the cycles, and the observers
+ * should be executed before the cycle (see the order.control parameter). <br/>
+ * If the control is executed at the end of the simulation too (see the FINAL parameter
+ * of the controls), it closes the state instead of performing a cycle, that releases the
+ * rows of the models (e.g. the mapped file of an OffHeapModelStore). <br/>
+ * Parameters: protocol (the CompactLearningProtocol).
+ */
+public class CompactCycle implements Control {
+  private static final String PAR_PROT = "protocol";
+
+  /**
+   * The ID of the protocol.
+   */
+  protected final int pid;
+
+  /** @hidden */
+  private final ExtendedRandom random;
+
+  /**
+   * Constructs the control.
+   * @param prefix the prefix of the parameters
+   */
+  public CompactCycle(String prefix) {
+    pid = Configuration.getPid(prefix + "." + PAR_PROT);
+    random = RandomStreams.create(prefix);
+  }
+
+  /**
+   * Performs the cycle, or closes the state at the end of the simulation.
+   * @return false, the simulation is not stopped
+   */
+  @Override
+  public boolean execute() {
+    Protocol protocol = Network.prototype.getProtocol(pid);
+    if (!(protocol instanceof CompactLearningProtocol)) {
+      throw new RuntimeException("The protocol " + pid + " has to be a CompactLearningProtocol!");
+    }
+    CompactState state = ((CompactLearningProtocol)protocol).getState();
+    if (CommonState.getPhase() == CommonState.POST_SIMULATION) {
+      state.close();
+    } else {
+      state.cycle(pid, random);
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,125 @@
+package gossipLearning.simulation;
+
+import java.util.Arrays;
+
+import peersim.core.CommonState;
+import peersim.core.Node;
+import peersim.edsim.EDProtocol;
+import peersim.transport.Transport;
+
+/**
+ * This class is the transport layer of the cycle-driven simulations (see SynchronousCycle).
+ * The messages sent in a cycle are collected in flat arrays, and they are delivered
+ * together at the end of the cycle by the deliver method, i.e. the latency of each
+ * message is one cycle. A message is delivered by the processEvent method of the
+ * EDProtocol of the destination, if the destination is online. <br/>
+ * The messages are stored in a buffer that is shared by the nodes (this class does not
+ * have any state, the instance is shared by the nodes as well). The buffer is cleared
+ * when a new simulation is initialized by the constructor.
+ */
+public class CycleTransport implements Transport {
+  /** @hidden */
+  private static Node[] destinations = new Node[16];
+  /** @hidden */
+  private static Object[] messages = new Object[16];
+  /** @hidden */
+  private static int[] pids = new int[16];
+  private static int size = 0;
+  /** @hidden */
+  private static Node[] spareDestinations = new Node[16];
+  /** @hidden */
+  private static Object[] spareMessages = new Object[16];
+  /** @hidden */
+  private static int[] sparePids = new int[16];
+
+  /**
+   * Constructs the transport and clears the buffer.
+   * @param prefix the prefix of the parameters (it does not have parameters)
+   */
+  public CycleTransport(String prefix) {
+    clear();
+  }
+
+  /**
+   * Returns the same instance, since the transport does not have state.
+   */
+  @Override
+  public Object clone() {
+    return this;
+  }
+
+  /**
+   * Stores the message in the buffer until the end of the cycle.
+   */
+  @Override
+  public void send(Node src, Node dest, Object msg, int pid) {
+    if (size == messages.length) {
+      destinations = Arrays.copyOf(destinations, size << 1);
+      messages = Arrays.copyOf(messages, size << 1);
+      pids = Arrays.copyOf(pids, size << 1);
+    }
+    destinations[size] = dest;
+    messages[size] = msg;
+    pids[size] = pid;
+    size ++;
+  }
+
+  /**
+   * Returns 1, since the messages are delivered at the end of the cycle.
+   */
+  @Override
+  public long getLatency(Node src, Node dest) {
+    return 1;
+  }
+
+  /**
+   * Returns the number of the messages waiting for the delivery.
+   * @return the number of the messages in the buffer
+   */
+  public static int size() {
+    return size;
+  }
+
+  /**
+   * Delivers the messages of the buffer in the order of sending. The messages that are
+   * sent during the delivery are kept in the buffer until the next delivery.
+   * @return the number of the delivered messages (including the ones whose destination
+   * is offline)
+   */
+  @SuppressWarnings("unchecked")
+  public static int deliver() {
+    Node[] currentDestinations = destinations;
+    Object[] currentMessages = messages;
+    int[] currentPids = pids;
+    int currentSize = size;
+    // the messages sent during the delivery are stored in the spare buffer
+    destinations = spareDestinations;
+    messages = spareMessages;
+    pids = sparePids;
+    size = 0;
+    for (int i = 0; i < currentSize; i++) {
+      Node node = currentDestinations[i];
+      if (node.isUp()) {
+        CommonState.setNode(node);
+        CommonState.setPid(currentPids[i]);
+        ((EDProtocol<Object>)node.getProtocol(currentPids[i])).processEvent(node, currentPids[i], currentMessages[i]);
+      }
+    }
+    Arrays.fill(currentDestinations, 0, currentSize, null);
+    Arrays.fill(currentMessages, 0, currentSize, null);
+    spareDestinations = currentDestinations;
+    spareMessages = currentMessages;
+    sparePids = currentPids;
+    return currentSize;
+  }
+
+  /**
+   * Removes the messages from the buffer.
+   */
+  public static void clear() {
+    Arrays.fill(destinations, 0, size, null);
+    Arrays.fill(messages, 0, size, null);
+    size = 0;
+  }
+
+}
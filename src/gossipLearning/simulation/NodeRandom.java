@@ -0,0 +1,132 @@
+package gossipLearning.simulation;
+
+import peersim.util.ExtendedRandom;
+
+/**
+ * This class is a random number generator that can replace CommonState.r, and that
+ * delegates every call to the random stream of the current thread. The stream of a
+ * thread is set by the setStream method (e.g. to the stream of the node whose event is
+ * processed by the thread), otherwise the base generator is used. <br/>
+ * Since each node draws its numbers from its own stream, the numbers drawn by a node do
+ * not depend on the order in which the events of the different nodes are processed,
+ * so the events can be processed concurrently with reproducible results
+ * (see ParallelEventQueue).
+ */
+public class NodeRandom extends ExtendedRandom {
+  private static final long serialVersionUID = -4409571658620718524L;
+
+  /** @hidden */
+  private final ExtendedRandom base;
+  /** @hidden */
+  private final transient ThreadLocal<ExtendedRandom> stream = new ThreadLocal<ExtendedRandom>();
+
+  /**
+   * Constructs a generator that uses the specified generator if the stream of the
+   * thread is not set.
+   * @param base the base generator
+   */
+  public NodeRandom(ExtendedRandom base) {
+    super(base.getLastSeed());
+    this.base = base;
+  }
+
+  /**
+   * Returns the base generator.
+   * @return the base generator
+   */
+  public ExtendedRandom getBase() {
+    return base;
+  }
+
+  /**
+   * Sets the stream of the current thread.
+   * @param random the stream of the thread or null for using the base generator
+   */
+  public void setStream(ExtendedRandom random) {
+    if (random == null) {
+      stream.remove();
+    } else {
+      stream.set(random);
+    }
+  }
+
+  /**
+   * Returns the generator of the current thread.
+   * @return the stream of the thread or the base generator
+   */
+  public ExtendedRandom getStream() {
+    ExtendedRandom random = stream.get();
+    return random == null ? base : random;
+  }
+
+  @Override
+  public void setSeed(long seed) {
+    // the constructor of Random calls it before the initialization of the fields
+    if (base == null) {
+      super.setSeed(seed);
+    } else {
+      getStream().setSeed(seed);
+    }
+  }
+
+  @Override
+  public long getLastSeed() {
+    return base == null ? super.getLastSeed() : getStream().getLastSeed();
+  }
+
+  @Override
+  protected int next(int bits) {
+    throw new RuntimeException("The numbers of " + getClass().getCanonicalName() + " are generated by the streams!");
+  }
+
+  @Override
+  public void nextBytes(byte[] bytes) {
+    getStream().nextBytes(bytes);
+  }
+
+  @Override
+  public int nextInt() {
+    return getStream().nextInt();
+  }
+
+  @Override
+  public int nextInt(int n) {
+    return getStream().nextInt(n);
+  }
+
+  @Override
+  public long nextLong() {
+    return getStream().nextLong();
+  }
+
+  @Override
+  public long nextLong(long n) {
+    return getStream().nextLong(n);
+  }
+
+  @Override
+  public boolean nextBoolean() {
+    return getStream().nextBoolean();
+  }
+
+  @Override
+  public float nextFloat() {
+    return getStream().nextFloat();
+  }
+
+  @Override
+  public double nextDouble() {
+    return getStream().nextDouble();
+  }
+
+  @Override
+  public double nextGaussian() {
+    return getStream().nextGaussian();
+  }
+
+  @Override
+  public int nextPoisson(double mean) {
+    return getStream().nextPoisson(mean);
+  }
+
+}
@@ -0,0 +1,397 @@
+package gossipLearning.simulation;
+
+import gossipLearning.interfaces.LearningProtocol;
+import gossipLearning.utils.RandomStreams;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import peersim.config.Configuration;
+import peersim.core.CommonState;
+import peersim.core.Network;
+import peersim.core.Node;
+import peersim.core.Protocol;
+import peersim.edsim.EDProtocol;
+import peersim.edsim.NextCycleEvent;
+import peersim.edsim.PriorityQ;
+import peersim.transport.Transport;
+import peersim.transport.UniformRandomTransport;
+import peersim.util.ExtendedRandom;
+
+/**
+ * This class is an event queue of the EDSimulator of PeerSim that processes the events of
+ * the nodes concurrently (conservative parallel discrete event simulation). It can be set
+ * by the simulation.eventqueue parameter, and the events are scheduled by EDSimulator.add
+ * as usual. <br/>
+ * The events of the nodes are processed in time windows. The length of a window is the
+ * lookahead parameter that has to be at most the minimal delay of the transport (e.g.
+ * the MINDELAY of UniformRandomTransport), so the messages sent in a window arrive after
+ * the window and the nodes are independent of each other within a window. The nodes
+ * that have events in the window are distributed among threads, and each node processes
+ * its events in time order (including the events that the node schedules for itself in
+ * the window). The messages of the other nodes are delivered at the end of the window.
+ * The controls (e.g. the observers) are executed between the windows by the EDSimulator
+ * in the main thread. <br/>
+ * The results do not depend on the number of threads:
+ * <ul>
+ *   <li>The learning protocols draw from the random streams of the nodes (see
+ *   RandomStreams). For the other components CommonState.r is replaced by a NodeRandom,
+ *   and each node has its own stream of the purpose RandomStreams.COMMON. The controls
+ *   and the initializers use the original generator.</li>
+ *   <li>The events of a node that have the same time are ordered by the ID of the node
+ *   that scheduled them and the order of scheduling (instead of randomly).</li>
+ * </ul>
+ * During a window CommonState.getTime returns the start of the window, while the delays of
+ * the scheduled events are measured from the time of the processed event. The events of
+ * the protocols that are not LearningProtocols (e.g. the overlays, that can have shared
+ * static buffers) and the NextCycleEvents are processed exclusively, in which case
+ * CommonState.getNode and getPid are also set. The learning protocols must not modify
+ * the state of the other nodes or shared objects (e.g. static fields) during the
+ * processing of an event. The transports are such shared objects unless they are
+ * UniformRandomTransports (e.g. MessageCounterTransport is shared by the nodes and
+ * counts the messages in a map), so if the nodes have any other transport, the events
+ * of the learning protocols are processed exclusively too. <br/>
+ * Parameters: threads (the number of threads, the number of processors by default) and
+ * lookahead.
+ */
+public class ParallelEventQueue implements PriorityQ {
+  private static final String PAR_THREADS = "threads";
+  private static final String PAR_LOOKAHEAD = "lookahead";
+
+  /**
+   * The number of threads processing the events.
+   */
+  protected final int threads;
+  /**
+   * The length of the time windows.
+   */
+  protected final long lookahead;
+
+  /** @hidden */
+  private final ForkJoinPool pool;
+  /** @hidden */
+  private final NodeRandom random;
+  /** @hidden */
+  private final IdentityHashMap<Node, NodeEvents> nodeEvents = new IdentityHashMap<Node, NodeEvents>();
+  /** @hidden */
+  private final ArrayList<NodeEvents> nodes = new ArrayList<NodeEvents>();
+  /** @hidden */
+  private final PriorityQueue<QueuedEvent> controls = new PriorityQueue<QueuedEvent>();
+  /** @hidden */
+  private final ThreadLocal<NodeEvents> current = new ThreadLocal<NodeEvents>();
+  /** @hidden */
+  private final Object lock = new Object();
+  /** @hidden */
+  private boolean[] isParallel;
+  private long mainSeq = 0;
+  private long windowStart = 0;
+  private long windowEnd = 0;
+
+  /**
+   * Constructs the queue and replaces CommonState.r by a NodeRandom.
+   * @param prefix the prefix of the parameters
+   */
+  public ParallelEventQueue(String prefix) {
+    threads = Configuration.getInt(prefix + "." + PAR_THREADS, Runtime.getRuntime().availableProcessors());
+    lookahead = Configuration.getLong(prefix + "." + PAR_LOOKAHEAD);
+    if (threads < 1 || lookahead < 1) {
+      throw new RuntimeException("The number of threads and the lookahead have to be positive: threads=" + threads + ", lookahead=" + lookahead);
+    }
+    pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    ExtendedRandom base = CommonState.r instanceof NodeRandom ? ((NodeRandom)CommonState.r).getBase() : CommonState.r;
+    random = new NodeRandom(base);
+    CommonState.r = random;
+  }
+
+  @Override
+  public int size() {
+    int size = controls.size();
+    for (int i = 0; i < nodes.size(); i++) {
+      size += nodes.get(i).queue.size();
+    }
+    return size;
+  }
+
+  @Override
+  public void add(long time, Object event, Node node, byte pid) {
+    add(time, event, node, pid, 0);
+  }
+
+  /**
+   * Adds the event. The time of the event scheduled during a window by EDSimulator.add
+   * is computed from the time of the processed event (since CommonState.getTime returns
+   * the start of the window). The events of the controls are ordered by the priority.
+   */
+  @Override
+  public void add(long time, Object event, Node node, byte pid, long priority) {
+    NodeEvents source = current.get();
+    if (node == null) {
+      if (source != null) {
+        throw new RuntimeException("Control events cannot be added during the processing of a node!");
+      }
+      controls.add(new QueuedEvent(time, priority, mainSeq ++, event, pid));
+    } else if (source == null) {
+      getNodeEvents(node).add(new QueuedEvent(time, -1, mainSeq ++, event, pid));
+    } else {
+      time = source.time + time - windowStart;
+      if (time >= CommonState.getEndTime()) {
+        return;
+      }
+      QueuedEvent queuedEvent = new QueuedEvent(time, source.node.getID(), source.seq ++, event, pid);
+      if (node == source.node) {
+        source.add(queuedEvent);
+      } else {
+        if (time < windowEnd) {
+          throw new RuntimeException("The delay of the event " + event + " from node " + source.node.getID() + " to node " + node.getID() + " is less than the lookahead " + lookahead + "!");
+        }
+        queuedEvent.node = node;
+        source.outbox.add(queuedEvent);
+      }
+    }
+  }
+
+  /**
+   * Processes the events of the nodes until the next control event, and returns the
+   * control event to the EDSimulator, or returns null if there are no more events.
+   */
+  @Override
+  public Event removeFirst() {
+    while (true) {
+      ArrayList<NodeEvents> active = new ArrayList<NodeEvents>();
+      long start = Long.MAX_VALUE;
+      for (int i = 0; i < nodes.size(); i++) {
+        NodeEvents events = nodes.get(i);
+        if (!events.queue.isEmpty()) {
+          active.add(events);
+          start = Math.min(start, events.queue.peek().time);
+        }
+      }
+      QueuedEvent control = controls.peek();
+      if (control != null && control.time <= start) {
+        controls.poll();
+        Event result = new Event();
+        result.time = control.time;
+        result.event = control.event;
+        result.pid = control.pid;
+        return result;
+      }
+      if (active.isEmpty()) {
+        return null;
+      }
+      long end = start + lookahead;
+      if (control != null && control.time < end) {
+        end = control.time;
+      }
+      processWindow(active, start, end);
+    }
+  }
+
+  @Override
+  public long maxTime() {
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public long maxPriority() {
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * Processes the events of the specified nodes in the specified time window, and then
+   * delivers the messages sent in the window.
+   * @param active the nodes that have events
+   * @param start the start of the window
+   * @param end the end of the window (exclusive)
+   */
+  private void processWindow(ArrayList<NodeEvents> active, long start, long end) {
+    if (isParallel == null) {
+      isParallel = getParallelProtocols();
+    }
+    windowStart = start;
+    windowEnd = end;
+    CommonState.setTime(start);
+    if (pool == null || active.size() < 2) {
+      process(active, 0, active.size());
+    } else {
+      pool.invoke(new WindowTask(active, 0, active.size(), Math.max(1, active.size() / (threads << 3))));
+    }
+    for (int i = 0; i < active.size(); i++) {
+      ArrayList<QueuedEvent> outbox = active.get(i).outbox;
+      for (int j = 0; j < outbox.size(); j++) {
+        QueuedEvent event = outbox.get(j);
+        Node node = event.node;
+        event.node = null;
+        getNodeEvents(node).add(event);
+      }
+      outbox.clear();
+    }
+  }
+
+  /**
+   * Processes the events of the specified range of the nodes in the current window.
+   */
+  private void process(ArrayList<NodeEvents> active, int from, int to) {
+    for (int i = from; i < to; i++) {
+      NodeEvents events = active.get(i);
+      Node node = events.node;
+      current.set(events);
+      random.setStream(events.random);
+      try {
+        while (!events.queue.isEmpty() && events.queue.peek().time < windowEnd) {
+          QueuedEvent event = events.queue.poll();
+          events.time = event.time;
+          if (node == Network.prototype || !node.isUp()) {
+            continue;
+          }
+          Protocol protocol = node.getProtocol(event.pid);
+          if (isParallel[event.pid] && !(event.event instanceof NextCycleEvent)) {
+            processEvent(protocol, node, event.pid, event.event);
+          } else {
+            synchronized (lock) {
+              CommonState.setNode(node);
+              CommonState.setPid(event.pid);
+              if (event.event instanceof NextCycleEvent) {
+                ((NextCycleEvent)event.event).execute();
+              } else {
+                processEvent(protocol, node, event.pid, event.event);
+              }
+            }
+          }
+        }
+      } finally {
+        current.remove();
+        random.setStream(null);
+      }
+    }
+  }
+
+  /**
+   * Passes the event to the specified EDProtocol.
+   */
+  @SuppressWarnings("unchecked")
+  private static void processEvent(Protocol protocol, Node node, int pid, Object event) {
+    ((EDProtocol<Object>)protocol).processEvent(node, pid, event);
+  }
+
+  /**
+   * Returns which protocols of the nodes can process their events in parallel: the
+   * learning protocols, if every transport of the nodes is a UniformRandomTransport.
+   */
+  private static boolean[] getParallelProtocols() {
+    Node prototype = Network.prototype;
+    boolean isSafeTransport = true;
+    for (int pid = 0; pid < prototype.protocolSize(); pid++) {
+      Protocol protocol = prototype.getProtocol(pid);
+      if (protocol instanceof Transport && protocol.getClass() != UniformRandomTransport.class) {
+        isSafeTransport = false;
+      }
+    }
+    boolean[] result = new boolean[prototype.protocolSize()];
+    for (int pid = 0; pid < result.length; pid++) {
+      result[pid] = isSafeTransport && prototype.getProtocol(pid) instanceof LearningProtocol;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the events of the specified node, the events are created at the first call.
+   */
+  private NodeEvents getNodeEvents(Node node) {
+    NodeEvents events = nodeEvents.get(node);
+    if (events == null) {
+      events = new NodeEvents(node, new ExtendedRandom(RandomStreams.getSeed(node.getID(), -1, RandomStreams.COMMON)));
+      nodeEvents.put(node, events);
+      nodes.add(events);
+    }
+    return events;
+  }
+
+  /**
+   * Processes a range of the nodes by splitting it until its size reaches the threshold.
+   */
+  private class WindowTask extends RecursiveAction {
+    private static final long serialVersionUID = 2866361935725417405L;
+    private final ArrayList<NodeEvents> active;
+    private final int from;
+    private final int to;
+    private final int threshold;
+
+    public WindowTask(ArrayList<NodeEvents> active, int from, int to, int threshold) {
+      this.active = active;
+      this.from = from;
+      this.to = to;
+      this.threshold = threshold;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= threshold) {
+        process(active, from, to);
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new WindowTask(active, from, middle, threshold), new WindowTask(active, middle, to, threshold));
+      }
+    }
+  }
+
+  /**
+   * The events of a node, its random stream, and the events sent by the node in the
+   * current window.
+   */
+  private static class NodeEvents {
+    private final Node node;
+    private final ExtendedRandom random;
+    private final PriorityQueue<QueuedEvent> queue = new PriorityQueue<QueuedEvent>();
+    private final ArrayList<QueuedEvent> outbox = new ArrayList<QueuedEvent>();
+    /** The time of the processed event. */
+    private long time;
+    /** The number of events scheduled by the node. */
+    private long seq;
+
+    public NodeEvents(Node node, ExtendedRandom random) {
+      this.node = node;
+      this.random = random;
+    }
+
+    public void add(QueuedEvent event) {
+      queue.add(event);
+    }
+  }
+
+  /**
+   * An event ordered by its time, then by its origin (the ID of the scheduling node, -1
+   * for the main thread, or the priority of a control) and by the order of scheduling.
+   */
+  private static class QueuedEvent implements Comparable<QueuedEvent> {
+    private final long time;
+    private final long origin;
+    private final long seq;
+    private final Object event;
+    private final byte pid;
+    /** The destination of an event in an outbox. */
+    private Node node;
+
+    public QueuedEvent(long time, long origin, long seq, Object event, byte pid) {
+      this.time = time;
+      this.origin = origin;
+      this.seq = seq;
+      this.event = event;
+      this.pid = pid;
+    }
+
+    @Override
+    public int compareTo(QueuedEvent o) {
+      if (time != o.time) {
+        return time < o.time ? -1 : 1;
+      }
+      if (origin != o.origin) {
+        return origin < o.origin ? -1 : 1;
+      }
+      return seq < o.seq ? -1 : (seq == o.seq ? 0 : 1);
+    }
+  }
+
+}
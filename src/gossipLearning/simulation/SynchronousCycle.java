@@ -0,0 +1,111 @@
+package gossipLearning.simulation;
+
+import gossipLearning.utils.RandomStreams;
+
+import java.util.ArrayList;
+
+import peersim.cdsim.CDProtocol;
+import peersim.config.Configuration;
+import peersim.core.CommonState;
+import peersim.core.Control;
+import peersim.core.Network;
+import peersim.core.Node;
+import peersim.util.ExtendedRandom;
+
+/**
+ * This control performs a bulk-synchronous cycle of the learning protocols, i.e. it
+ * drives the simulation of the protocols by cycles instead of events. The cycle has
+ * two phases:
+ * <ul>
+ *   <li>send phase: the nextCycle method of the CDProtocols (e.g. the active thread of
+ *   the learning protocols) is called for each online node in a random order, and the
+ *   messages are stored by the CycleTransport,</li>
+ *   <li>receive phase: the messages sent in the send phase are delivered to the online
+ *   nodes by the CycleTransport (e.g. the passive thread of the learning protocols).</li>
+ * </ul>
+ * It is a faster alternative of the event-driven simulation when the delay of the
+ * active thread is the same for each node with a small variance and the transport delay
+ * is at most the delay of the active thread, since the active threads and the messages
+ * are not scheduled as events. <br/>
+ * The control is executed by the EDSimulator, its step is the length of the cycles
+ * (e.g. the delayMean of the event-driven configuration), so the time of the simulation
+ * and the output of the observers are the same as in the event-driven mode. The
+ * observers should be executed before the cycle (see the order.control parameter). The
+ * learning protocols have to use the CycleTransport as transport layer and a
+ * cycle-driven overlay (e.g. example.newscast.SimpleNewscast). The delayMean of the
+ * protocols must not be set and the StartMessageInitializer is not required, since the
+ * active threads are performed by the cycles. The nodes that come online (e.g. by the
+ * ChurnControl) take part in the next cycle without active thread alarms. <br/>
+ * Parameters: shuffle (whether the nodes are processed in a random order, true by
+ * default).
+ */
+public class SynchronousCycle implements Control {
+  private static final String PAR_SHUFFLE = "shuffle";
+
+  /**
+   * Whether the nodes are processed in a random order.
+   */
+  protected final boolean shuffle;
+
+  /** @hidden */
+  private final int[] pids;
+  /** @hidden */
+  private int[] order = new int[0];
+  /** @hidden */
+  private final ExtendedRandom random;
+
+  /**
+   * Constructs the control, and collects the CDProtocols of the nodes.
+   * @param prefix the prefix of the parameters
+   */
+  public SynchronousCycle(String prefix) {
+    shuffle = Configuration.getBoolean(prefix + "." + PAR_SHUFFLE, true);
+    random = RandomStreams.create(prefix);
+    ArrayList<Integer> cdPids = new ArrayList<Integer>();
+    for (int pid = 0; pid < Network.prototype.protocolSize(); pid++) {
+      if (Network.prototype.getProtocol(pid) instanceof CDProtocol) {
+        cdPids.add(pid);
+      }
+    }
+    pids = new int[cdPids.size()];
+    for (int i = 0; i < pids.length; i++) {
+      pids[i] = cdPids.get(i);
+    }
+  }
+
+  /**
+   * Performs the send and the receive phases of the cycle.
+   * @return false, the simulation is not stopped
+   */
+  @Override
+  public boolean execute() {
+    int size = Network.size();
+    if (order.length != size) {
+      order = new int[size];
+    }
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    if (shuffle) {
+      for (int i = size - 1; i > 0; i--) {
+        int j = random.nextInt(i + 1);
+        int tmp = order[i];
+        order[i] = order[j];
+        order[j] = tmp;
+      }
+    }
+    // send phase
+    for (int i = 0; i < size; i++) {
+      Node node = Network.get(order[i]);
+      CommonState.setNode(node);
+      for (int j = 0; j < pids.length && node.isUp(); j++) {
+        CommonState.setPid(pids[j]);
+        ((CDProtocol)node.getProtocol(pids[j])).nextCycle(node, pids[j]);
+      }
+    }
+    // receive phase
+    CycleTransport.deliver();
+    return false;
+  }
+
+}
@@ -0,0 +1,152 @@
+package gossipLearning.utils;
+
+import java.util.Arrays;
+
+/**
+ * This class computes the means and the standard deviations of the features of a set of
+ * sparse instances in a single pass. For each feature the number, the mean and the sum of
+ * squared deviations (M2) of the non 0 values are accumulated by Welford's online
+ * algorithm in primitive arrays, so adding a value takes constant time. The implicit 0
+ * values of the instances are taken into account when the statistics are queried. <br/>
+ * Statistics that were computed on disjoint sets of instances (e.g. by different threads)
+ * can be combined by the merge method, which uses the pairwise update formula of Chan
+ * et al. for each feature.
+ */
+public class FeatureStatistics {
+  private static final int defaultCapacity = 16;
+
+  private long numberOfInstances;
+  /** @hidden */
+  private long[] counts;
+  /** @hidden */
+  private double[] means;
+  /** @hidden */
+  private double[] m2s;
+
+  /**
+   * Constructs an empty statistics.
+   */
+  public FeatureStatistics() {
+    numberOfInstances = 0;
+    counts = new long[defaultCapacity];
+    means = new double[defaultCapacity];
+    m2s = new double[defaultCapacity];
+  }
+
+  /**
+   * Returns the number of the added instances.
+   * @return the number of instances
+   */
+  public long getNumberOfInstances() {
+    return numberOfInstances;
+  }
+
+  /**
+   * Adds the specified instance to the statistics.
+   * @param instance instance to add
+   */
+  public void add(SparseVector instance) {
+    numberOfInstances ++;
+    for (int i = 0; i < instance.size(); i++) {
+      addValue(instance.indexAt(i), instance.valueAt(i));
+    }
+  }
+
+  /**
+   * Adds an instance to the statistics that is stored in the specified range of the
+   * specified arrays.
+   * @param indices the indices of the values of the instance
+   * @param values the values of the instance
+   * @param from the position of the first value of the instance
+   * @param to the position after the last value of the instance
+   */
+  public void add(int[] indices, double[] values, int from, int to) {
+    numberOfInstances ++;
+    for (int i = from; i < to; i++) {
+      addValue(indices[i], values[i]);
+    }
+  }
+
+  private void addValue(int index, double value) {
+    if (value == 0.0) {
+      return;
+    }
+    if (index >= counts.length) {
+      grow(index + 1);
+    }
+    long count = ++counts[index];
+    double delta = value - means[index];
+    means[index] += delta / count;
+    m2s[index] += delta * (value - means[index]);
+  }
+
+  private void grow(int minCapacity) {
+    int capacity = Math.max(minCapacity, counts.length + (counts.length >>> 1));
+    counts = Arrays.copyOf(counts, capacity);
+    means = Arrays.copyOf(means, capacity);
+    m2s = Arrays.copyOf(m2s, capacity);
+  }
+
+  /**
+   * Merges the specified statistics into this one. The result is the statistics of the
+   * union of the instances.
+   * @param statistics statistics to merge
+   */
+  public void merge(FeatureStatistics statistics) {
+    numberOfInstances += statistics.numberOfInstances;
+    if (statistics.counts.length > counts.length) {
+      grow(statistics.counts.length);
+    }
+    for (int i = 0; i < statistics.counts.length; i++) {
+      long countB = statistics.counts[i];
+      if (countB == 0) {
+        continue;
+      }
+      long countA = counts[i];
+      long count = countA + countB;
+      double delta = statistics.means[i] - means[i];
+      means[i] += delta * countB / count;
+      m2s[i] += statistics.m2s[i] + delta * delta * ((double)countA * countB / count);
+      counts[i] = count;
+    }
+  }
+
+  /**
+   * Returns the means of the features over all of the instances (including the 0 values).
+   * @return the means of the features
+   */
+  public SparseVector getMeans() {
+    SparseVector result = new SparseVector();
+    if (numberOfInstances == 0) {
+      return result;
+    }
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        result.put(i, means[i] * counts[i] / numberOfInstances);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the (population) standard deviations of the features over all of the
+   * instances (including the 0 values).
+   * @return the standard deviations of the features
+   */
+  public SparseVector getDevs() {
+    SparseVector result = new SparseVector();
+    if (numberOfInstances == 0) {
+      return result;
+    }
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0) {
+        // merging the statistics of the non 0 values with the statistics of the 0 values
+        long zeros = numberOfInstances - counts[i];
+        double m2 = m2s[i] + means[i] * means[i] * ((double)counts[i] * zeros / numberOfInstances);
+        result.put(i, Math.sqrt(m2 / numberOfInstances));
+      }
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,84 @@
+package gossipLearning.utils;
+
+import gossipLearning.interfaces.ModelStore;
+
+import java.util.Arrays;
+
+/**
+ * This class stores the rows of the models in segments of double arrays on the heap, so
+ * the arrays do not reach the limit of the array length and the existing rows are not
+ * copied when the capacity is increased.
+ */
+public class HeapModelStore implements ModelStore {
+  /** The number of the values in a segment. */
+  private static final int SEGMENT_SIZE = 1 << 20;
+
+  private int rowLength;
+  private int rowsPerSegment;
+  /** @hidden */
+  private double[][] segments = new double[0][];
+
+  /**
+   * Constructs an uninitialized store (see init).
+   */
+  public HeapModelStore() {
+  }
+
+  /**
+   * Constructs a store for the rows of the specified length.
+   * @param rowLength the length of the rows
+   */
+  public HeapModelStore(int rowLength) {
+    init(null, rowLength);
+  }
+
+  /**
+   * The store does not have parameters.
+   */
+  @Override
+  public void init(String prefix, int rowLength) {
+    if (rowLength < 1) {
+      throw new RuntimeException("The length of the rows has to be positive: " + rowLength);
+    }
+    this.rowLength = rowLength;
+    rowsPerSegment = Math.max(1, SEGMENT_SIZE / rowLength);
+    segments = new double[0][];
+  }
+
+  @Override
+  public int getRowLength() {
+    return rowLength;
+  }
+
+  @Override
+  public int capacity() {
+    return (int)Math.min(Integer.MAX_VALUE, (long)segments.length * rowsPerSegment);
+  }
+
+  @Override
+  public void ensureCapacity(int rows) {
+    if (rows > capacity()) {
+      int from = segments.length;
+      segments = Arrays.copyOf(segments, (rows - 1) / rowsPerSegment + 1);
+      for (int i = from; i < segments.length; i++) {
+        segments[i] = new double[rowsPerSegment * rowLength];
+      }
+    }
+  }
+
+  @Override
+  public void get(int row, double[] values, int offset) {
+    System.arraycopy(segments[row / rowsPerSegment], (row % rowsPerSegment) * rowLength, values, offset, rowLength);
+  }
+
+  @Override
+  public void set(int row, double[] values, int offset) {
+    System.arraycopy(values, offset, segments[row / rowsPerSegment], (row % rowsPerSegment) * rowLength, rowLength);
+  }
+
+  @Override
+  public void close() {
+    segments = new double[0][];
+  }
+
+}
@@ -0,0 +1,274 @@
+package gossipLearning.utils;
+
+/**
+ * This class implements a vector that switches between sparse and dense representation
+ * based on the density of the stored values. <br/>
+ * While the vector is sparse it works exactly as a SparseVector. When the number of the
+ * stored values reaches the specified fraction (density threshold) of the length of the
+ * vector (the maximal index + 1), it is promoted to dense representation. In the dense
+ * representation every index from 0 to the length of the vector is stored (0 values too),
+ * so the position of an index is the index itself. Thus get, put and the addition of and
+ * the inner-product with a SparseVector need constant time for each value without
+ * binary search. <br/>
+ * When the fraction of the non 0 values drops below the half of the threshold, the 0
+ * values are removed and the vector is demoted to sparse representation. It is checked
+ * only by the additions that touch most of the values, since counting the non 0 values
+ * needs linear time. <br/>
+ * Both representations are valid states of a SparseVector, so this vector can be used
+ * everywhere instead of a SparseVector.
+ */
+public class HybridVector extends SparseVector {
+  private static final long serialVersionUID = -2719340152587305733L;
+
+  private static final double defaultDensityThreshold = 0.5;
+
+  private final double densityThreshold;
+
+  /**
+   * Constructs an empty HybridVector with density threshold 0.5.
+   */
+  public HybridVector() {
+    this(defaultDensityThreshold);
+  }
+
+  /**
+   * Constructs an empty HybridVector with the specified density threshold.
+   * @param densityThreshold the vector is promoted to dense representation if the
+   * fraction of the stored values reaches this value
+   */
+  public HybridVector(double densityThreshold) {
+    super();
+    if (densityThreshold <= 0.0 || densityThreshold > 1.0) {
+      throw new RuntimeException("The density threshold has to be in (0.0, 1.0] instead of " + densityThreshold + "!");
+    }
+    this.densityThreshold = densityThreshold;
+  }
+
+  /**
+   * Constructs a HybridVector by makes a deep copy of the specified vector.
+   * @param vector vector to be cloned
+   */
+  public HybridVector(HybridVector vector) {
+    super(vector);
+    densityThreshold = vector.densityThreshold;
+  }
+
+  /**
+   * Returns a HybridVector with the specified density threshold if the threshold is
+   * positive, otherwise returns an empty SparseVector. It can be used for creating the
+   * hyperplane of the linear models based on the configuration.
+   * @param densityThreshold the density threshold of the vector
+   * @return an empty vector
+   */
+  public static SparseVector createVector(double densityThreshold) {
+    return densityThreshold > 0.0 ? new HybridVector(densityThreshold) : new SparseVector();
+  }
+
+  /**
+   * Makes a deep copy of the current vector.
+   */
+  public Object clone() {
+    return new HybridVector(this);
+  }
+
+  /**
+   * Returns true if the vector is in dense representation i.e. every index is stored
+   * from 0 to size() - 1.
+   * @return the vector is dense or not
+   */
+  public boolean isDense() {
+    // the indices are sorted and distinct
+    return size > 0 && indices[size - 1] == size - 1;
+  }
+
+  /**
+   * Converts the vector to dense representation with at least the specified length.
+   * @param length the minimal length of the dense vector
+   */
+  private void densify(int length) {
+    if (isDense()) {
+      if (length <= size) {
+        return;
+      }
+      if (length > indices.length) {
+        grow(length);
+      }
+    } else {
+      length = Math.max(length, size == 0 ? 0 : indices[size - 1] + 1);
+      int capacity = Math.max(length, indices.length);
+      int[] newIndices = new int[capacity];
+      double[] newValues = new double[capacity];
+      for (int i = 0; i < size; i++) {
+        newValues[indices[i]] = values[i];
+      }
+      for (int i = 0; i < length; i++) {
+        newIndices[i] = i;
+      }
+      indices = newIndices;
+      values = newValues;
+      size = length;
+      return;
+    }
+    for (int i = size; i < length; i++) {
+      indices[i] = i;
+      values[i] = 0.0;
+    }
+    size = length;
+  }
+
+  /**
+   * Converts the vector to sparse representation by removing the stored 0 values.
+   */
+  private void sparsify() {
+    int w = 0;
+    for (int r = 0; r < size; r++) {
+      if (values[r] != 0.0) {
+        indices[w] = indices[r];
+        values[w] = values[r];
+        w ++;
+      }
+    }
+    size = w;
+  }
+
+  /**
+   * Promotes the vector to dense representation if it is sparse and its density reached
+   * the threshold. It takes constant time.
+   */
+  private void checkPromotion() {
+    if (size > 0 && !isDense() && size >= densityThreshold * (indices[size - 1] + 1)) {
+      densify(indices[size - 1] + 1);
+    }
+  }
+
+  /**
+   * Demotes the vector to sparse representation if it is dense and the density of the
+   * non 0 values is less than the half of the threshold. It takes linear time.
+   */
+  private void checkDemotion() {
+    if (!isDense()) {
+      return;
+    }
+    int nonZeros = 0;
+    for (int i = 0; i < size; i++) {
+      if (values[i] != 0.0) {
+        nonZeros ++;
+      }
+    }
+    if (nonZeros < 0.5 * densityThreshold * size) {
+      sparsify();
+    }
+  }
+
+  @Override
+  public double get(int index) {
+    if (isDense()) {
+      return index >= 0 && index < size ? values[index] * scale : 0.0;
+    }
+    return super.get(index);
+  }
+
+  @Override
+  public void put(int index, double value) {
+    if (index >= 0 && index < size && isDense()) {
+      values[index] = value / scale;
+      return;
+    }
+    super.put(index, value);
+    checkPromotion();
+  }
+
+  @Override
+  public double remove(int index) {
+    if (index >= 0 && index < size && isDense()) {
+      double res = values[index] * scale;
+      values[index] = 0.0;
+      return res;
+    }
+    return super.remove(index);
+  }
+
+  @Override
+  public SparseVector add(SparseVector vector, double alpha) {
+    if (alpha == 0.0 || vector.size == 0 || vector == this) {
+      return super.add(vector, alpha);
+    }
+    int length = vector.indices[vector.offset + vector.size - 1] + 1;
+    if (isDense() && length > size && size >= densityThreshold * length) {
+      // the vector remains dense after the extension
+      densify(length);
+    }
+    if (!isDense() || length > size) {
+      super.add(vector, alpha);
+      checkPromotion();
+      return this;
+    }
+    final double factor = alpha * vector.scale / scale;
+    for (int i = vector.offset; i < vector.offset + vector.size; i++) {
+      values[vector.indices[i]] += vector.values[i] * factor;
+    }
+    if (vector.size >= size >>> 3) {
+      checkDemotion();
+    }
+    return this;
+  }
+
+  @Override
+  public SparseVector add(DenseVector vector, double alpha) {
+    if (alpha == 0.0) {
+      return this;
+    }
+    if (!isDense()) {
+      super.add(vector, alpha);
+      checkPromotion();
+      return this;
+    }
+    densify(vector.size());
+    final double factor = alpha / scale;
+    for (int i = 0; i < vector.size(); i++) {
+      values[i] += vector.get(i) * factor;
+    }
+    checkDemotion();
+    return this;
+  }
+
+  @Override
+  public double mul(SparseVector vector) {
+    if (!isDense()) {
+      return super.mul(vector);
+    }
+    double result = 0.0;
+    for (int i = vector.offset; i < vector.offset + vector.size && vector.indices[i] < size; i++) {
+      result += values[vector.indices[i]] * vector.values[i];
+    }
+    return result * scale * vector.scale;
+  }
+
+  /**
+   * Returns null if the vector is dense, since its inner-products are computed by the 
+   * same way as by the array of the values.
+   */
+  @Override
+  public double[] toDenseArray(int numberOfProducts) {
+    return isDense() ? null : super.toDenseArray(numberOfProducts);
+  }
+  
+  @Override
+  public double mul(SparseVector vector, double[] dense) {
+    return isDense() ? mul(vector) : super.mul(vector, dense);
+  }
+  
+  @Override
+  public double mul(DenseVector vector) {
+    if (!isDense()) {
+      return super.mul(vector);
+    }
+    double result = 0.0;
+    int length = Math.min(size, vector.size());
+    for (int i = 0; i < length; i++) {
+      result += values[i] * vector.get(i);
+    }
+    return result * scale;
+  }
+
+}
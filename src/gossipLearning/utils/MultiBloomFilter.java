@@ -16,7 +16,6 @@
 package gossipLearning.utils;
 
 import gossipLearning.DataBaseReader;
-import gossipLearning.interfaces.VectorEntry;
 
 import java.io.File;
 import java.io.Serializable;
@@ -398,12 +397,14 @@ public class MultiBloomFilter implements Serializable {
       int uid = r.nextInt(reader.getTrainingSet().size());
       double uniqueErrCounter = 0.0;
       double multiErrCounter = 0.0;
-      for (VectorEntry e : reader.getTrainingSet().getInstance(uid)) {
-        if (!map.containsKey(e.index)) {
-          map.put(e.index, 0);
+      SparseVector instance = reader.getTrainingSet().getInstance(uid);
+      for (int i = 0; i < instance.size(); i++) {
+        int index = instance.indexAt(i);
+        if (!map.containsKey(index)) {
+          map.put(index, 0);
         }
-        map.put(e.index, map.get(e.index) + 1);
-        f.add(e.index);
+        map.put(index, map.get(index) + 1);
+        f.add(index);
         numOfValues ++;
       }
       
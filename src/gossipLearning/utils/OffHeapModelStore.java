@@ -0,0 +1,210 @@
+package gossipLearning.utils;
+
+import gossipLearning.interfaces.ModelStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import peersim.config.Configuration;
+
+/**
+ * This class stores the rows of the models outside of the heap, in at most 1GB large
+ * segments of direct buffers, or of a memory-mapped temporary file if the directory
+ * parameter is set. The garbage collector sees only the few buffer objects of the
+ * segments instead of the arrays of the models, and the memory of the mapped segments
+ * is managed by the operating system (the file is deleted by close or at exit). Note
+ * that the size of the direct buffers is limited by the -XX:MaxDirectMemorySize option
+ * of the JVM. <br/>
+ * The first segment grows by half of its size until it reaches the size of a segment
+ * (the rows of a direct buffer are copied at growing), the other segments are allocated
+ * at full size. <br/>
+ * Parameters: OffHeapModelStore.directory (the directory of the mapped file, direct
+ * buffers are used by default).
+ */
+public class OffHeapModelStore implements ModelStore {
+  private static final String PAR_DIRECTORY = "OffHeapModelStore.directory";
+  /** The maximal number of the bytes in a segment. */
+  private static final int MAX_SEGMENT_SIZE = 1 << 30;
+  /** The initial number of the rows of the first segment. */
+  private static final int INITIAL_ROWS = 1 << 10;
+
+  private int rowLength;
+  private int rowsPerSegment;
+  private int firstSegmentRows;
+  /** @hidden */
+  private DoubleBuffer[] segments = new DoubleBuffer[0];
+  /** @hidden */
+  private File file;
+  /** @hidden */
+  private RandomAccessFile randomAccessFile;
+  /** @hidden */
+  private FileChannel channel;
+
+  /**
+   * Constructs an uninitialized store (see init).
+   */
+  public OffHeapModelStore() {
+  }
+
+  /**
+   * Constructs a store for the rows of the specified length.
+   * @param rowLength the length of the rows
+   * @param directory the directory of the mapped file or null for using direct buffers
+   */
+  public OffHeapModelStore(int rowLength, File directory) {
+    init(rowLength, directory);
+  }
+
+  @Override
+  public void init(String prefix, int rowLength) {
+    String directory = Configuration.getString(prefix + "." + PAR_DIRECTORY, null);
+    init(rowLength, directory == null ? null : new File(directory));
+  }
+
+  /**
+   * Initializes the store, and creates the mapped file in the specified directory.
+   */
+  private void init(int rowLength, File directory) {
+    if (rowLength < 1 || (long)rowLength * 8 > MAX_SEGMENT_SIZE) {
+      throw new RuntimeException("The length of the rows has to be between 1 and " + (MAX_SEGMENT_SIZE / 8) + ": " + rowLength);
+    }
+    this.rowLength = rowLength;
+    rowsPerSegment = MAX_SEGMENT_SIZE / (rowLength * 8);
+    firstSegmentRows = 0;
+    segments = new DoubleBuffer[0];
+    file = null;
+    randomAccessFile = null;
+    channel = null;
+    if (directory != null) {
+      try {
+        file = File.createTempFile("models", ".store", directory);
+        file.deleteOnExit();
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        channel = randomAccessFile.getChannel();
+      } catch (IOException e) {
+        throw new RuntimeException("The file of " + getClass().getCanonicalName() + " cannot be created in " + directory + "!", e);
+      }
+    }
+  }
+
+  /**
+   * Returns true if the rows are stored in a memory-mapped file.
+   * @return the rows are mapped or not
+   */
+  public boolean isMapped() {
+    return channel != null;
+  }
+
+  @Override
+  public int getRowLength() {
+    return rowLength;
+  }
+
+  @Override
+  public int capacity() {
+    if (segments.length < 2) {
+      return firstSegmentRows;
+    }
+    return (int)Math.min(Integer.MAX_VALUE, (long)segments.length * rowsPerSegment);
+  }
+
+  @Override
+  public void ensureCapacity(int rows) {
+    if (rows <= capacity()) {
+      return;
+    }
+    if (firstSegmentRows < rowsPerSegment) {
+      // the first segment grows by half of its size
+      int size = Math.max(rows, Math.max(INITIAL_ROWS, firstSegmentRows + (firstSegmentRows >> 1)));
+      size = Math.min(size, rowsPerSegment);
+      DoubleBuffer segment = allocate(0, size);
+      if (segments.length == 0) {
+        segments = new DoubleBuffer[1];
+      } else if (channel == null) {
+        DoubleBuffer previous = segments[0].duplicate();
+        previous.clear();
+        segment.put(previous);
+        segment.clear();
+      }
+      segments[0] = segment;
+      firstSegmentRows = size;
+    }
+    if (rows > capacity()) {
+      int from = segments.length;
+      segments = Arrays.copyOf(segments, (rows - 1) / rowsPerSegment + 1);
+      for (int i = from; i < segments.length; i++) {
+        segments[i] = allocate(i, rowsPerSegment);
+      }
+    }
+  }
+
+  /**
+   * Releases the segments, and closes and deletes the mapped file.
+   */
+  @Override
+  public void close() {
+    segments = new DoubleBuffer[0];
+    firstSegmentRows = 0;
+    if (randomAccessFile != null) {
+      try {
+        randomAccessFile.close();
+      } catch (IOException e) {
+        throw new RuntimeException("The file of " + getClass().getCanonicalName() + " cannot be closed!", e);
+      } finally {
+        file.delete();
+        file = null;
+        randomAccessFile = null;
+        channel = null;
+      }
+    }
+  }
+
+  /**
+   * Copies the row by a bulk operation of a duplicate of the segment, so the rows can be
+   * read concurrently.
+   */
+  @Override
+  public void get(int row, double[] values, int offset) {
+    getRow(row).get(values, offset, rowLength);
+  }
+
+  @Override
+  public void set(int row, double[] values, int offset) {
+    getRow(row).put(values, offset, rowLength);
+  }
+
+  /**
+   * Returns a duplicate of the segment of the specified row positioned at the row.
+   */
+  private DoubleBuffer getRow(int row) {
+    DoubleBuffer segment = segments[row / rowsPerSegment].duplicate();
+    segment.position((row % rowsPerSegment) * rowLength);
+    return segment;
+  }
+
+  /**
+   * Allocates the specified number of rows of the specified segment in a direct buffer,
+   * or maps them from the file (the already mapped rows of the segment keep their values).
+   */
+  private DoubleBuffer allocate(int segment, int rows) {
+    int size = rows * rowLength * 8;
+    ByteBuffer buffer;
+    if (channel == null) {
+      buffer = ByteBuffer.allocateDirect(size);
+    } else {
+      try {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, (long)segment * rowsPerSegment * rowLength * 8, size);
+      } catch (IOException e) {
+        throw new RuntimeException("The file of " + getClass().getCanonicalName() + " cannot be mapped!", e);
+      }
+    }
+    return buffer.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+  }
+
+}
@@ -0,0 +1,161 @@
+package gossipLearning.utils;
+
+import gossipLearning.simulation.NodeRandom;
+
+import java.util.Arrays;
+
+import peersim.core.CommonState;
+import peersim.util.ExtendedRandom;
+
+/**
+ * This class provides independent random streams for the nodes instead of the global
+ * CommonState.r. Each stream belongs to a node (and a protocol of the node) and to a
+ * purpose (e.g. the selection of a neighbor), and it is seeded by the random seed of the
+ * simulation, the ID of the node, the ID of the protocol and the purpose. Therefore the
+ * numbers drawn by a node for a purpose do not depend on the other nodes and the other
+ * purposes, i.e. the results are reproducible if the events of the nodes are processed
+ * in a different order or concurrently. <br/>
+ * An object of this class stores the streams of a node, and the streams are created at
+ * the first request. The learning protocols set the streams of the processed node as
+ * the current streams of the thread, so the models can draw from the streams of the
+ * node by the current method. The controls should use named streams (see the create
+ * method). <br/>
+ * The seeds are generated by the SplitMix64 mixing function, since the seeds of the
+ * different streams have to be uncorrelated.
+ */
+public class RandomStreams {
+  /** The purpose of the delay of the active thread. */
+  public static final int DELAY = 0;
+  /** The purpose of the selection of a neighbor. */
+  public static final int NEIGHBOR = 1;
+  /** The purpose of the selection of a training sample. */
+  public static final int SAMPLE = 2;
+  /** The purpose of the models (e.g. initialization of the weights). */
+  public static final int MODEL = 3;
+  /** The purpose of the overlay. */
+  public static final int OVERLAY = 4;
+  /** The purpose of the components that use CommonState.r (see ParallelEventQueue). */
+  public static final int COMMON = 5;
+  /** The number of the purposes defined here. */
+  public static final int NUMBER_OF_PURPOSES = 6;
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  /** @hidden */
+  private static final ThreadLocal<RandomStreams> current = new ThreadLocal<RandomStreams>();
+  /** @hidden */
+  private static RandomStreams global;
+  private static long globalSeed;
+
+  private final long nodeID;
+  private final int pid;
+  /** @hidden */
+  private ExtendedRandom[] streams = new ExtendedRandom[NUMBER_OF_PURPOSES];
+
+  /**
+   * Constructs the streams of the specified node and protocol.
+   * @param nodeID the ID of the node
+   * @param pid the ID of the protocol
+   */
+  public RandomStreams(long nodeID, int pid) {
+    this.nodeID = nodeID;
+    this.pid = pid;
+  }
+
+  /**
+   * Returns the stream of the specified purpose, the stream is created at the first call.
+   * @param purpose the purpose of the stream (e.g. NEIGHBOR)
+   * @return the stream
+   */
+  public ExtendedRandom get(int purpose) {
+    if (purpose >= streams.length) {
+      streams = Arrays.copyOf(streams, purpose + 1);
+    }
+    ExtendedRandom stream = streams[purpose];
+    if (stream == null) {
+      stream = new ExtendedRandom(getSeed(nodeID, pid, purpose));
+      streams[purpose] = stream;
+    }
+    return stream;
+  }
+
+  /**
+   * Sets the streams of the current thread, i.e. the streams of the node whose event is
+   * processed by the thread.
+   * @param streams the streams of the node or null
+   * @return the previous streams of the thread
+   */
+  public static RandomStreams setCurrent(RandomStreams streams) {
+    RandomStreams previous = current.get();
+    if (streams == null) {
+      current.remove();
+    } else {
+      current.set(streams);
+    }
+    return previous;
+  }
+
+  /**
+   * Returns the stream of the specified purpose of the node that is processed by the
+   * current thread. If no node is processed (e.g. in the initialization), the global
+   * stream of the purpose is returned, that can be used by the main thread only.
+   * @param purpose the purpose of the stream
+   * @return the stream
+   */
+  public static ExtendedRandom current(int purpose) {
+    RandomStreams streams = current.get();
+    if (streams == null) {
+      long seed = getSeed();
+      if (global == null || globalSeed != seed) {
+        // the global streams of a new simulation
+        global = new RandomStreams(-1, -1);
+        globalSeed = seed;
+      }
+      streams = global;
+    }
+    return streams.get(purpose);
+  }
+
+  /**
+   * Creates a stream identified by the specified name (e.g. the prefix of a control).
+   * @param name the name of the stream
+   * @return the stream
+   */
+  public static ExtendedRandom create(String name) {
+    return new ExtendedRandom(mix(getSeed() ^ mix(name.hashCode())));
+  }
+
+  /**
+   * Returns the seed of the stream of the specified node, protocol and purpose.
+   * @param nodeID the ID of the node
+   * @param pid the ID of the protocol
+   * @param purpose the purpose of the stream
+   * @return the seed of the stream
+   */
+  public static long getSeed(long nodeID, int pid, int purpose) {
+    long seed = mix(getSeed() + (nodeID + 1) * GOLDEN_GAMMA);
+    seed = mix(seed + (pid + 1) * GOLDEN_GAMMA);
+    return mix(seed + (purpose + 1) * GOLDEN_GAMMA);
+  }
+
+  /**
+   * Returns the seed of the simulation, i.e. the seed of CommonState.r (or the seed of
+   * its base generator if it is a NodeRandom).
+   * @return the seed of the simulation
+   */
+  public static long getSeed() {
+    return CommonState.r instanceof NodeRandom ? ((NodeRandom)CommonState.r).getBase().getLastSeed() : CommonState.r.getLastSeed();
+  }
+
+  /**
+   * Mixes the bits of the specified value (the finalizer of SplitMix64).
+   * @param value the value
+   * @return the mixed value
+   */
+  public static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+    value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+    return value ^ (value >>> 31);
+  }
+
+}
@@ -1,658 +1,990 @@
-package gossipLearning.utils;
-
-import gossipLearning.interfaces.VectorEntry;
-
-import java.io.Serializable;
-import java.util.Iterator;
-import java.util.Map;
-
-/**
- * This class implements a sparse vector by arrays and sparse for the 0.0 value. <br/>
- * For get, put and remove methods uses O(log(n)) time. The iteration is 
- * linear time and enumerates the indices in ascendant order. <br/>
- * The default size of this container is 16. If the container is full, it grows 
- * automatically by a factor, that is 1.5 by default.
- * @author István Hegedűs
- *
- */
-public class SparseVector implements Serializable, Iterable<VectorEntry>, Comparable<SparseVector> {
-  private static final long serialVersionUID = 5601072455432194047L;
-  
-  private static final int defaultCapacity = 16;
-  private static final double sparseValue = 0.0;
-  private static final double defaultGrowFactor = 1.5;
-
-  private final double growFactor;
-  
-  private int[] indices;
-  private double[] values;
-  private int size;
-  
-  /**
-   * Constructs a SparseVector instance with capacity 16, growing factor 1.5.
-   */
-  public SparseVector() {
-    this(defaultCapacity);
-  }
-  
-  /**
-   * Constructs a SparseVector instance with the specified capacity and 
-   * default grow factor.
-   * @param capacity capacity of the vector
-   */
-  public SparseVector(int capacity) {
-    this(capacity, defaultGrowFactor);
-  }
-  
-  /**
-   * Constructs a SparseVector instance with the specified capacity and 
-   * the specified grow factor.
-   * @param capacity capacity of the vector
-   * @param growFactor the factor of the growth
-   */
-  public SparseVector(int capacity, double growFactor) {
-    indices = new int[capacity];
-    values = new double[capacity];
-    size = 0;
-    this.growFactor = growFactor;
-  }
-  
-  /**
-   * Constructs a SparseVector by makes a deep copy of the specified vector.
-   * @param vector vector to be cloned
-   */
-  public SparseVector(SparseVector vector) {
-    this(vector.indices.length, vector.growFactor);
-    size = vector.size;
-    System.arraycopy(vector.indices, 0, indices, 0, size);
-    System.arraycopy(vector.values, 0, values, 0, size);
-  }
-  
-  /**
-   * Constructs a SparseVector from the specified double array vector.
-   * @param vector array to be stored
-   */
-  public SparseVector(double[] vector) {
-    this(vector.length);
-    for (int i = 0; i < vector.length; i++) {
-      if (vector[i] != sparseValue) {
-        indices[size] = i;
-        values[size] = vector[i];
-        size ++;
-      }
-    }
-  }
-  
-  /**
-   * Constructs a SparseVector from the specified Map<Integer, Double> vector.
-   * @param vector array to be stored
-   */
-  public SparseVector(Map<Integer, Double> vector) {
-    this(vector.size());
-    for (Map.Entry<Integer, Double> e : vector.entrySet()) {
-      if (e.getValue() != sparseValue) {
-        put(e.getKey(), e.getValue());
-        size ++;
-      }
-    }
-  }
-  
-  /**
-   * Constructs a SparseVector from the specified DenseVector vector.
-   * @param vector vector to be stored
-   */
-  public SparseVector(DenseVector vector) {
-    this();
-    for (int i = 0; i < vector.size(); i++) {
-      put(i, vector.get(i));
-    }
-  }
-  
-  /**
-   * Makes a deep copy of the current vector.
-   */
-  public Object clone() {
-    return new SparseVector(this);
-  }
-  
-  /**
-   * Two sparse vectors are equal if have the same size and have the same values at 
-   * the same positions.
-   */
-  public boolean equals(Object vector) {
-    if (!(vector instanceof SparseVector)) {
-      return false;
-    }
-    if (size != ((SparseVector)vector).size()) {
-      return false;
-    }
-    for (VectorEntry e : (SparseVector)vector) {
-      if (e.value != get(e.index)) {
-        return false;
-      }
-    }
-    return true;
-  }
-  
-  @Override
-  public Iterator<VectorEntry> iterator() {
-    return new SparseVectorIterator(this);
-  }
-
-  /**
-   * Returns the position of the specified index in the array.
-   * @param index index to looking for
-   * @return the position of the specified index
-   */
-  private int getIdx(int index) {
-    int first = 0;
-    int last = size - 1;
-    while(first <= last) {
-      int med = (first + last) >>> 1;
-      if (indices[med] < index) {
-        first = med + 1;
-      } else if (indices[med] > index) {
-        last = med - 1;
-      } else {
-        return med;
-      }
-    }
-    return -(first + 1);
-  }
-  
-  /**
-   * Returns the value that is stored at the specified index.
-   * @param index index of the value to be returned
-   * @return value at the specified index
-   */
-  public double get(int index) {
-    int idx = getIdx(index);
-    return idx < 0 ? 0.0 : values[idx];
-  }
-
-  /**
-   * Resizes the vector by the factor of growth.
-   */
-  private void grow() {
-    int capacity = Math.max((int)(indices.length * growFactor), indices.length + 1);
-    int[] newIndices = new int[capacity];
-    double[] newValues = new double[capacity];
-    System.arraycopy(indices, 0, newIndices, 0, size);
-    System.arraycopy(values, 0, newValues, 0, size);
-    indices = newIndices;
-    values = newValues;
-  }
-  
-  /**
-   * Stores the specified value at the specified index. The value, that is stored, at 
-   * the specified index will be overridden.
-   * @param index index to store at
-   * @param value value to be stored
-   */
-  public void put(int index, double value) {
-    // get the position of insertion
-    int idx = getIdx(index);
-    if (idx >= 0) {
-      // the container contains the value at index
-      // if the insertion is default value then remove
-      if (value == sparseValue) {
-        removeIdx(idx);
-        size --;
-        return;
-      }
-      // insert the value
-      values[idx] = value;
-    } else {
-      // if the container does not contain value at index
-      if (value == sparseValue) {
-        // if the value is the default return
-        return;
-      }
-      if (size >= indices.length) {
-        // if the container is full, then grow
-        grow();
-      }
-      // the insertion index can be computed from the result of the getIndex
-      idx = -idx - 1;
-      // slide the indices and the values
-      for (int i = size -1; i >= idx; i--) {
-        indices[i + 1] = indices[i];
-        values[i + 1] = values[i];
-      }
-      // insert new element
-      indices[idx] = index;
-      values[idx] = value;
-      size ++;
-    }
-  }
-
-  /**
-   * Removes and returns the value at the specified index.
-   * @param index index of value to be removed
-   * @return the value that was removed
-   */
-  private double delete(int index) {
-    return remove(index);
-  }
-  
-  
-  /**
-   * Removes and returns the value at the specified index.
-   * @param index index of value to be removed
-   * @return the value that was removed
-   */
-  public double remove(int index) {
-    int idx = getIdx(index);
-    if (idx >= 0) {
-      double res = values[idx];
-      removeIdx(idx);
-      size --;
-      return res;
-    }
-    return sparseValue;
-  }
-
-  /**
-   * Adds the specified SparseVector to the vector that is represented by the current object. 
-   * @param vector to be added
-   * @return the sum of the specified vector and this
-   */
-  public SparseVector add(SparseVector vector) {
-    return add(vector, 1.0);
-  }
-  
-  /**
-   * Adds the specified DenseVector to the vector that is represented by the current object. 
-   * @param vector to be added
-   * @return the sum of the specified vector and this
-   */
-  public SparseVector add(DenseVector vector) {
-    return add(vector, 1.0);
-  }
-  
-  /**
-   * Shifts the values forward to fill the space of the specified unnecessary index.
-   * @param idx index to be removed
-   */
-  private void removeIdx(int idx) {
-    for (int i = idx; i < size -1; i++) {
-      indices[i] = indices[i + 1];
-      values[i] = values[i + 1];
-    }
-  }
-  
-  /**
-   * Adds the specified value to the value at the specified index.
-   * @param index index of value to add to
-   * @param value value to be added
-   */
-  private void add(int index, double value) {
-    int idx = getIdx(index);
-    if (idx >= 0) {
-      if (value != sparseValue) {
-        values[idx] += value;
-      }
-      if (values[idx] == sparseValue) {
-        removeIdx(idx);
-        size --;
-      }
-    } else {
-      if (value == sparseValue) {
-        return;
-      }
-      if (size >= indices.length) {
-        grow();
-      }
-      idx = -idx - 1;
-      for (int i = size -1; i >= idx; i--) {
-        indices[i + 1] = indices[i];
-        values[i + 1] = values[i];
-      }
-      indices[idx] = index;
-      values[idx] = value;
-      size ++;
-    }
-  }
-
-  /**
-   * Adds the specified SparseVector to the vector, that is represented by the current 
-   * object, by the specified alpha times.
-   * @param vector to be added
-   * @param alpha scale factor of the addition
-   * @return the sum of this and the alpha times of the vector
-   */
-  public SparseVector add(SparseVector vector, double alpha) {
-    int idx = 0;
-    int idx2 = 0;
-    while (idx < size && idx2 < vector.size) {
-      if (indices[idx] == vector.indices[idx2]) {
-        values[idx] += vector.values[idx2] * alpha;
-        if (values[idx] == sparseValue) {
-          removeIdx(idx);
-          size --;
-        } else {
-          idx ++;
-        }
-        idx2 ++;
-      } else if (indices[idx] < vector.indices[idx2]) {
-        idx ++;
-      } else {
-        put(vector.indices[idx2], vector.values[idx2] * alpha);
-        idx2 ++;
-      }
-    }
-    for (int i = idx2; i < vector.size; i++) {
-      put(vector.indices[i],vector.values[i] * alpha);
-    }
-    return this;
-  }
-  
-  /**
-   * Adds the specified DenseVector to the vector, that is represented by the current 
-   * object, by the specified alpha times.
-   * @param vector to be added
-   * @param alpha scale factor of the addition
-   * @return the sum of this and the alpha times of the vector
-   */
-  public SparseVector add(DenseVector vector, double alpha) {
-    if (alpha == 0.0) {
-      return this;
-    }
-    for (int i = 0; i < vector.size(); i++) {
-      add(i, vector.get(i) * alpha);
-    }
-    return this;
-  }
-  
-  /**
-   * Scales the current vector by the specified value.
-   * @param alpha the scale factor
-   * @return this
-   */
-  public SparseVector mul(double alpha) {
-    if (alpha == 0.0) {
-      clear();
-    }
-    for (int i = 0; i < size; i++) {
-      values[i] *= alpha;
-    }
-    return this;
-  }
-
-  /**
-   * Returns the inner-product of the specified SparseVector and this
-   * @param vector to multiply by this
-   * @return the inner-product
-   */
-  public double mul(SparseVector vector) {
-    int idx = 0;
-    int idx2 = 0;
-    double result = 0.0;
-    while (idx < size && idx2 < vector.size) {
-      if (indices[idx] == vector.indices[idx2]) {
-        result += values[idx] * vector.values[idx2];
-        idx ++;
-        idx2 ++;
-      } else if (indices[idx] < vector.indices[idx2]) {
-        idx ++;
-      } else {
-        idx2 ++;
-      }
-    }
-    return result;
-  }
-  
-  /**
-   * Returns the inner-product of the specified DenseVector and this
-   * @param vector to multiply by this
-   * @return the inner-product
-   */
-  public double mul(DenseVector vector) {
-    double result = 0.0;
-    for (int i = 0; i < size; i++) {
-      if (indices[i] < vector.size()) {
-        result += values[i] * vector.get(indices[i]);
-      }
-    }
-    return result;
-  }
-  
-  /**
-   * Point-wise divides the current vector by the non 0 elements of the specified sparse vector.
-   * @param vector to divide with
-   * @return this
-   */
-  public SparseVector div(SparseVector vector) {
-    int idx = 0;
-    int idx2 = 0;
-    while (idx < size && idx2 < vector.size) {
-      if (indices[idx] == vector.indices[idx2]) {
-        values[idx] = vector.values[idx2] == 0.0 ? 0.0 : values[idx] / vector.values[idx2];
-        idx ++;
-        idx2 ++;
-      } else if (indices[idx] < vector.indices[idx2]) {
-        idx ++;
-      } else {
-        idx2 ++;
-      }
-    }
-    return this;
-  }
-  
-  /**
-   * Point-wise divides the current vector by the non 0 elements of the specified dense vector.
-   * @param vector to divide with
-   * @return this
-   */
-  public SparseVector div(DenseVector vector) {
-    for (int i = 0; i < size && indices[i] < vector.size(); i++) {
-      values[i] = vector.get(indices[i]) == 0.0 ? 0.0 : values[i] / vector.get(indices[i]);
-    }
-    return this;
-  }
-  
-  /**
-   * Point-wise inverts the non 0 vector elements.
-   * @return this
-   */
-  public SparseVector inv() {
-    for (int i = 0; i < size; i++) {
-      values[i] = 1.0 / values[i];
-    }
-    return this;
-  }
-  
-  /**
-   * Computes the cosine similarity between the specified SparseVector and this.
-   * @param vector
-   * @return the cosine similarity
-   */
-  public double cosSim(SparseVector vector) {
-    double norm = norm();
-    double norm2 = vector.norm();
-    if (norm == 0.0 || norm2 == 0.0) {
-      return 0.0;
-    }
-    return mul(vector) / (norm() * vector.norm());
-  }
-  
-  /**
-   * Computes the cosine similarity between the specified DenseVector and this.
-   * @param vector
-   * @return the cosine similarity
-   */
-  public double cosSim(DenseVector vector) {
-    double norm = norm();
-    double norm2 = vector.norm();
-    if (norm == 0.0 || norm2 == 0.0) {
-      return 0.0;
-    }
-    return mul(vector) / (norm() * vector.norm());
-  }
-  
-  /**
-   * Computes the Euclidean distance between the specified SparseVector and this.
-   * @param vector
-   * @return the Euclidean distance
-   */
-  public double euclideanDistance(SparseVector vector) {
-    SparseVector clone = (SparseVector)clone();
-    clone.add(vector, -1.0);
-    return clone.norm();
-  }
-  
-  /**
-   * Computes the Euclidean distance between the specified DenseVector and this.
-   * @param vector
-   * @return the Euclidean distance
-   */
-  public double euclideanDistance(DenseVector vector) {
-    SparseVector clone = (SparseVector)clone();
-    clone.add(vector, -1.0);
-    return clone.norm();
-  }
-
-  /**
-   * Returns the number of stored values.
-   * @return the number of stored values
-   */
-  public int size() {
-    return size;
-  }
-
-  /**
-   * Returns the norm of the current vector (Euclidean norm).
-   * @return the norm of the current vector
-   */
-  public double norm() {
-    double norm = 0.0;
-    for (int i = 0; i < size; i++) {
-      norm += values[i] * values[i];
-    }
-    return Math.sqrt(norm);
-  }
-
-  /**
-   * Normalizes the current vector (Euclidean norm).
-   * @return this
-   */
-  public SparseVector normalize() {
-    double norm = norm();
-    if (norm > 0.0 ) {
-      mul(1.0 / norm);
-    }
-    return this;
-  }
-
-  /**
-   * Removes the elements from the vector.
-   */
-  public void clear() {
-    size = 0;
-  }
-
-  /**
-   * Returns the maximal index of value that is stored in the vector or -1 if the 
-   * vector is empty.
-   * @return maximal stored index
-   */
-  public int maxIndex() {
-    return size == 0 ? -1 : indices[size -1];
-  }
-  
-  /**
-   * Performs squared root on every values in the vector;
-   */
-  public void sqrt() {
-    for (int i = 0; i < size; i++) {
-      values[i] = Math.sqrt(values[i]);
-    }
-  }
-  
-  /**
-   * Returns the String, java Map like, representation of the current object.
-   */
-  public String toString() {
-    StringBuffer sb = new StringBuffer();
-    sb.append('{');
-    for (int i = 0; i < size; i++) {
-      if (i != 0) {
-        sb.append(',');
-        sb.append(' ');
-      }
-      sb.append(indices[i]);
-      sb.append('=');
-      sb.append(values[i]);
-    }
-    sb.append('}');
-    return sb.toString();
-  }
-
-  /**
-   * Lexicographically comparison of vectors.
-   */
-  @Override
-  public int compareTo(SparseVector o) {
-    int idx = 0;
-    int idx2 = 0;
-    while (idx < size && idx2 < o.size) {
-      if (indices[idx] == o.indices[idx2]) {
-        if (values[idx] < o.values[idx2]) {
-          return -1;
-        } else if (values[idx] > o.values[idx2]) {
-          return 1;
-        }
-        idx ++;
-        idx2 ++;
-      } else if (indices[idx] < o.indices[idx2]) {
-        return 1;
-      } else {
-        return -1;
-      }
-    }
-    if (idx < size) {
-      return 1;
-    }
-    if (idx2 < o.size) {
-      return -1;
-    }
-    return 0;
-  }
-  
-  /**
-   * Iterator class for SparseVector.
-   * @author István Hegedűs
-   *
-   */
-  private class SparseVectorIterator implements Iterator<VectorEntry> {
-    
-    private final SparseVector vector;
-    private int index;
-    
-    public SparseVectorIterator(SparseVector vector) {
-      this.vector = vector;
-      index = -1;
-    }
-    
-    @Override
-    public boolean hasNext() {
-      return index < vector.size-1;
-    }
-
-    @Override
-    public VectorEntry next() {
-      index ++;
-      return new VectorEntry(vector.indices[index], vector.values[index]);
-    }
-
-    @Override
-    public void remove() {
-      if (index == -1) {
-        throw new IllegalStateException();
-      }
-      vector.delete(vector.indices[index]);
-    }
-    
-  }
-
-}
+package gossipLearning.utils;
+
+import gossipLearning.interfaces.VectorEntry;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * This class implements a sparse vector by arrays and sparse for the 0.0 value. <br/>
+ * For get, put and remove methods uses O(log(n)) time. The iteration is 
+ * linear time and enumerates the indices in ascendant order. <br/>
+ * The default size of this container is 16. If the container is full, it grows 
+ * automatically by a factor, that is 1.5 by default. <br/>
+ * Scaling by a constant takes O(1) time, since the scale factor is stored separately 
+ * from the values and it is applied on the values only when it becomes too small or 
+ * too large. <br/>
+ * A SparseVector can also be a read-only view of a part of arrays that are shared with 
+ * other objects (e.g. a row of a CSRInstanceHolder). A view copies its values into its 
+ * own arrays before the first modification.
+ * @author István Hegedűs
+ *
+ */
+public class SparseVector implements Serializable, Iterable<VectorEntry>, Comparable<SparseVector> {
+  private static final long serialVersionUID = 5601072455432194047L;
+  
+  private static final int defaultCapacity = 16;
+  private static final double sparseValue = 0.0;
+  private static final double defaultGrowFactor = 1.5;
+  private static final double minScale = 1E-50;
+  private static final double maxScale = 1E50;
+
+  private final double growFactor;
+  
+  protected int[] indices;
+  protected double[] values;
+  /**
+   * The position of the first stored value in the arrays. It can be non 0 only for views.
+   */
+  protected int offset;
+  protected int size;
+  /**
+   * The stored values have to be multiplied by this factor.
+   */
+  protected double scale;
+  /**
+   * The arrays are shared with other objects, so they have to be copied before modification.
+   */
+  private boolean shared;
+  
+  /**
+   * Constructs a SparseVector instance with capacity 16, growing factor 1.5.
+   */
+  public SparseVector() {
+    this(defaultCapacity);
+  }
+  
+  /**
+   * Constructs a SparseVector instance with the specified capacity and 
+   * default grow factor.
+   * @param capacity capacity of the vector
+   */
+  public SparseVector(int capacity) {
+    this(capacity, defaultGrowFactor);
+  }
+  
+  /**
+   * Constructs a SparseVector instance with the specified capacity and 
+   * the specified grow factor.
+   * @param capacity capacity of the vector
+   * @param growFactor the factor of the growth
+   */
+  public SparseVector(int capacity, double growFactor) {
+    indices = new int[capacity];
+    values = new double[capacity];
+    size = 0;
+    scale = 1.0;
+    this.growFactor = growFactor;
+  }
+  
+  /**
+   * Constructs a SparseVector by makes a deep copy of the specified vector.
+   * @param vector vector to be cloned
+   */
+  public SparseVector(SparseVector vector) {
+    this(vector.shared ? vector.size : vector.indices.length, vector.growFactor);
+    size = vector.size;
+    scale = vector.scale;
+    System.arraycopy(vector.indices, vector.offset, indices, 0, size);
+    System.arraycopy(vector.values, vector.offset, values, 0, size);
+  }
+  
+  /**
+   * Constructs a read-only view of the specified arrays without copying them. The vector 
+   * contains the indices and values stored at the positions from offset (inclusive) to 
+   * offset + size (exclusive), where the indices have to be sorted in ascendant order and 
+   * have to be distinct. Before the first modification the vector copies these values 
+   * into its own arrays, so the specified arrays are never modified by the vector.
+   * @param indices array of the indices
+   * @param values array of the values
+   * @param offset position of the first value of the vector
+   * @param size number of values of the vector
+   */
+  public SparseVector(int[] indices, double[] values, int offset, int size) {
+    this.indices = indices;
+    this.values = values;
+    this.offset = offset;
+    this.size = size;
+    scale = 1.0;
+    growFactor = defaultGrowFactor;
+    shared = true;
+  }
+  
+  /**
+   * Constructs a SparseVector from the specified double array vector.
+   * @param vector array to be stored
+   */
+  public SparseVector(double[] vector) {
+    this(vector.length);
+    for (int i = 0; i < vector.length; i++) {
+      if (vector[i] != sparseValue) {
+        indices[size] = i;
+        values[size] = vector[i];
+        size ++;
+      }
+    }
+  }
+  
+  /**
+   * Constructs a SparseVector from the specified Map<Integer, Double> vector.
+   * @param vector array to be stored
+   */
+  public SparseVector(Map<Integer, Double> vector) {
+    this(vector.size());
+    for (Map.Entry<Integer, Double> e : vector.entrySet()) {
+      if (e.getValue() != sparseValue) {
+        put(e.getKey(), e.getValue());
+        size ++;
+      }
+    }
+  }
+  
+  /**
+   * Constructs a SparseVector from the specified DenseVector vector.
+   * @param vector vector to be stored
+   */
+  public SparseVector(DenseVector vector) {
+    this();
+    for (int i = 0; i < vector.size(); i++) {
+      put(i, vector.get(i));
+    }
+  }
+  
+  /**
+   * Makes a deep copy of the current vector.
+   */
+  public Object clone() {
+    return new SparseVector(this);
+  }
+  
+  /**
+   * Overwrites the current vector by the values of the specified vector. The arrays of 
+   * the current vector are reused if they are large enough, so a vector can be recycled 
+   * instead of cloning the specified vector.
+   * @param vector vector to be copied
+   * @return this
+   */
+  public SparseVector set(SparseVector vector) {
+    if (vector == this) {
+      return this;
+    }
+    if (shared || indices.length < vector.size) {
+      indices = new int[Math.max(vector.size, indices.length)];
+      values = new double[indices.length];
+      offset = 0;
+      shared = false;
+    }
+    System.arraycopy(vector.indices, vector.offset, indices, 0, vector.size);
+    System.arraycopy(vector.values, vector.offset, values, 0, vector.size);
+    size = vector.size;
+    scale = vector.scale;
+    return this;
+  }
+  
+  /**
+   * Two sparse vectors are equal if have the same non 0 values at the same positions.
+   */
+  public boolean equals(Object vector) {
+    if (!(vector instanceof SparseVector)) {
+      return false;
+    }
+    SparseVector o = (SparseVector)vector;
+    int idx = 0;
+    int idx2 = 0;
+    while (true) {
+      // skipping the explicitly stored 0 values (e.g. of a dense HybridVector)
+      while (idx < size && values[offset + idx] == sparseValue) {
+        idx ++;
+      }
+      while (idx2 < o.size && o.values[o.offset + idx2] == sparseValue) {
+        idx2 ++;
+      }
+      if (idx == size || idx2 == o.size) {
+        return idx == size && idx2 == o.size;
+      }
+      if (indices[offset + idx] != o.indices[o.offset + idx2] || 
+          values[offset + idx] * scale != o.values[o.offset + idx2] * o.scale) {
+        return false;
+      }
+      idx ++;
+      idx2 ++;
+    }
+  }
+  
+  /**
+   * A view is serialized without the shared arrays.
+   */
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    detach();
+    out.defaultWriteObject();
+  }
+  
+  /**
+   * The vectors that were serialized without the scale factor read it as 0.0, so it is 
+   * set to 1.0 (the scale factor of a vector is never 0.0).
+   */
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    if (scale == 0.0) {
+      scale = 1.0;
+    }
+  }
+  
+  @Override
+  public Iterator<VectorEntry> iterator() {
+    return new SparseVectorIterator(this);
+  }
+
+  /**
+   * Returns the position of the specified index in the array.
+   * @param index index to looking for
+   * @return the position of the specified index
+   */
+  private int getIdx(int index) {
+    return getIdx(index, 0, size - 1);
+  }
+  
+  /**
+   * Returns the position of the specified index in the array between the specified 
+   * positions (inclusive).
+   * @param index index to looking for
+   * @param first the first position of the search
+   * @param last the last position of the search
+   * @return the position of the specified index
+   */
+  protected int getIdx(int index, int first, int last) {
+    while(first <= last) {
+      int med = (first + last) >>> 1;
+      if (indices[offset + med] < index) {
+        first = med + 1;
+      } else if (indices[offset + med] > index) {
+        last = med - 1;
+      } else {
+        return med;
+      }
+    }
+    return -(first + 1);
+  }
+  
+  /**
+   * Returns the value that is stored at the specified index.
+   * @param index index of the value to be returned
+   * @return value at the specified index
+   */
+  public double get(int index) {
+    int idx = getIdx(index);
+    return idx < 0 ? 0.0 : values[offset + idx] * scale;
+  }
+  
+  /**
+   * Copies the values of a view into its own arrays, so they can be modified.
+   */
+  protected void detach() {
+    if (shared) {
+      int[] newIndices = new int[size];
+      double[] newValues = new double[size];
+      System.arraycopy(indices, offset, newIndices, 0, size);
+      System.arraycopy(values, offset, newValues, 0, size);
+      indices = newIndices;
+      values = newValues;
+      offset = 0;
+      shared = false;
+    }
+  }
+  
+  /**
+   * Multiplies the stored values by the scale factor and resets the scale factor to 1.0.
+   */
+  protected void applyScale() {
+    if (scale != 1.0) {
+      detach();
+      for (int i = 0; i < size; i++) {
+        values[i] *= scale;
+      }
+      scale = 1.0;
+    }
+  }
+
+  /**
+   * Resizes the vector by the factor of growth.
+   */
+  private void grow() {
+    grow(indices.length + 1);
+  }
+  
+  /**
+   * Resizes the vector by the factor of growth, but at least to the specified capacity.
+   * @param minCapacity the minimal capacity after growing
+   */
+  protected void grow(int minCapacity) {
+    int capacity = Math.max((int)(indices.length * growFactor), minCapacity);
+    int[] newIndices = new int[capacity];
+    double[] newValues = new double[capacity];
+    System.arraycopy(indices, 0, newIndices, 0, size);
+    System.arraycopy(values, 0, newValues, 0, size);
+    indices = newIndices;
+    values = newValues;
+  }
+  
+  /**
+   * Stores the specified value at the specified index. The value, that is stored, at 
+   * the specified index will be overridden.
+   * @param index index to store at
+   * @param value value to be stored
+   */
+  public void put(int index, double value) {
+    detach();
+    // get the position of insertion
+    int idx = getIdx(index);
+    if (idx >= 0) {
+      // the container contains the value at index
+      // if the insertion is default value then remove
+      if (value == sparseValue) {
+        removeIdx(idx);
+        size --;
+        return;
+      }
+      // insert the value
+      values[idx] = value / scale;
+    } else {
+      // if the container does not contain value at index
+      if (value == sparseValue) {
+        // if the value is the default return
+        return;
+      }
+      if (size >= indices.length) {
+        // if the container is full, then grow
+        grow();
+      }
+      // the insertion index can be computed from the result of the getIndex
+      idx = -idx - 1;
+      // slide the indices and the values
+      for (int i = size -1; i >= idx; i--) {
+        indices[i + 1] = indices[i];
+        values[i + 1] = values[i];
+      }
+      // insert new element
+      indices[idx] = index;
+      values[idx] = value / scale;
+      size ++;
+    }
+  }
+
+  /**
+   * Removes and returns the value at the specified index.
+   * @param index index of value to be removed
+   * @return the value that was removed
+   */
+  private double delete(int index) {
+    return remove(index);
+  }
+  
+  
+  /**
+   * Removes and returns the value at the specified index.
+   * @param index index of value to be removed
+   * @return the value that was removed
+   */
+  public double remove(int index) {
+    int idx = getIdx(index);
+    if (idx >= 0) {
+      detach();
+      double res = values[idx] * scale;
+      removeIdx(idx);
+      size --;
+      return res;
+    }
+    return sparseValue;
+  }
+
+  /**
+   * Adds the specified SparseVector to the vector that is represented by the current object. 
+   * @param vector to be added
+   * @return the sum of the specified vector and this
+   */
+  public SparseVector add(SparseVector vector) {
+    return add(vector, 1.0);
+  }
+  
+  /**
+   * Adds the specified DenseVector to the vector that is represented by the current object. 
+   * @param vector to be added
+   * @return the sum of the specified vector and this
+   */
+  public SparseVector add(DenseVector vector) {
+    return add(vector, 1.0);
+  }
+  
+  /**
+   * Shifts the values forward to fill the space of the specified unnecessary index.
+   * @param idx index to be removed
+   */
+  private void removeIdx(int idx) {
+    for (int i = idx; i < size -1; i++) {
+      indices[i] = indices[i + 1];
+      values[i] = values[i + 1];
+    }
+  }
+  
+  /**
+   * Adds the specified value to the value at the specified index.
+   * @param index index of value to add to
+   * @param value value to be added
+   */
+  private void add(int index, double value) {
+    detach();
+    int idx = getIdx(index);
+    if (idx >= 0) {
+      if (value != sparseValue) {
+        values[idx] += value / scale;
+      }
+      if (values[idx] == sparseValue) {
+        removeIdx(idx);
+        size --;
+      }
+    } else {
+      if (value == sparseValue) {
+        return;
+      }
+      if (size >= indices.length) {
+        grow();
+      }
+      idx = -idx - 1;
+      for (int i = size -1; i >= idx; i--) {
+        indices[i + 1] = indices[i];
+        values[i + 1] = values[i];
+      }
+      indices[idx] = index;
+      values[idx] = value / scale;
+      size ++;
+    }
+  }
+
+  /**
+   * Adds the specified SparseVector to the vector, that is represented by the current
+   * object, by the specified alpha times. <br/>
+   * The addition is performed by a single backward merge in place, so it needs
+   * O(m log(n)) time for locating the new indices plus linear time in the number of
+   * stored values that follow the smallest index of the specified vector, where m is
+   * the size of the specified vector and n is the size of this.
+   * @param vector to be added
+   * @param alpha scale factor of the addition
+   * @return the sum of this and the alpha times of the vector
+   */
+  public SparseVector add(SparseVector vector, double alpha) {
+    if (alpha == 0.0 || vector.size == 0) {
+      return this;
+    }
+    if (vector == this) {
+      // the values can be scaled, the indices remain the same
+      return mul(1.0 + alpha);
+    }
+    detach();
+    final int[] vIndices = vector.indices;
+    final double[] vValues = vector.values;
+    final int vOffset = vector.offset;
+    // the stored values of the specified vector have to be multiplied by this factor
+    final double factor = alpha * vector.scale / scale;
+    // counting the indices that are not stored in this vector
+    int numOfNew = 0;
+    int from = 0;
+    for (int i = 0; i < vector.size; i++) {
+      int idx = getIdx(vIndices[vOffset + i], from, size - 1);
+      if (idx < 0) {
+        numOfNew ++;
+        from = -idx - 1;
+      } else {
+        from = idx + 1;
+      }
+    }
+    if (size + numOfNew > indices.length) {
+      grow(size + numOfNew);
+    }
+    // merging backward, the position of the written element is k
+    int i = size - 1;
+    int j = vector.size - 1;
+    int k = size + numOfNew - 1;
+    int numOfZeros = 0;
+    while (j >= 0) {
+      if (i >= 0 && indices[i] > vIndices[vOffset + j]) {
+        indices[k] = indices[i];
+        values[k] = values[i];
+        i --;
+      } else if (i >= 0 && indices[i] == vIndices[vOffset + j]) {
+        indices[k] = indices[i];
+        values[k] = values[i] + vValues[vOffset + j] * factor;
+        i --;
+        j --;
+      } else {
+        indices[k] = vIndices[vOffset + j];
+        values[k] = vValues[vOffset + j] * factor;
+        j --;
+      }
+      if (values[k] == sparseValue) {
+        numOfZeros ++;
+      }
+      k --;
+    }
+    size += numOfNew;
+    // the elements before k are untouched, the merged part may contain zeros
+    if (numOfZeros > 0) {
+      int w = k + 1;
+      for (int r = k + 1; r < size; r++) {
+        if (values[r] != sparseValue) {
+          indices[w] = indices[r];
+          values[w] = values[r];
+          w ++;
+        }
+      }
+      size = w;
+    }
+    return this;
+  }
+  
+  /**
+   * Adds the specified DenseVector to the vector, that is represented by the current 
+   * object, by the specified alpha times.
+   * @param vector to be added
+   * @param alpha scale factor of the addition
+   * @return the sum of this and the alpha times of the vector
+   */
+  public SparseVector add(DenseVector vector, double alpha) {
+    if (alpha == 0.0) {
+      return this;
+    }
+    for (int i = 0; i < vector.size(); i++) {
+      add(i, vector.get(i) * alpha);
+    }
+    return this;
+  }
+  
+  /**
+   * Scales the current vector by the specified value in constant time. The stored 
+   * values are rescaled only if the scale factor gets too small or too large.
+   * @param alpha the scale factor
+   * @return this
+   */
+  public SparseVector mul(double alpha) {
+    if (alpha == 0.0) {
+      clear();
+      return this;
+    }
+    scale *= alpha;
+    double absScale = Math.abs(scale);
+    if (absScale < minScale || absScale > maxScale) {
+      applyScale();
+    }
+    return this;
+  }
+
+  /**
+   * Returns the inner-product of the specified SparseVector and this
+   * @param vector to multiply by this
+   * @return the inner-product
+   */
+  public double mul(SparseVector vector) {
+    if (vector.size < size >>> 3) {
+      return vector.mul(this);
+    }
+    double result = 0.0;
+    if (size < vector.size >>> 3) {
+      // searching the few stored indices in the much longer vector
+      int from = 0;
+      for (int i = 0; i < size && from < vector.size; i++) {
+        int idx = vector.getIdx(indices[offset + i], from, vector.size - 1);
+        if (idx >= 0) {
+          result += values[offset + i] * vector.values[vector.offset + idx];
+          from = idx + 1;
+        } else {
+          from = -idx - 1;
+        }
+      }
+      return result * scale * vector.scale;
+    }
+    int idx = offset;
+    int idx2 = vector.offset;
+    final int end = offset + size;
+    final int end2 = vector.offset + vector.size;
+    while (idx < end && idx2 < end2) {
+      if (indices[idx] == vector.indices[idx2]) {
+        result += values[idx] * vector.values[idx2];
+        idx ++;
+        idx2 ++;
+      } else if (indices[idx] < vector.indices[idx2]) {
+        idx ++;
+      } else {
+        idx2 ++;
+      }
+    }
+    return result * scale * vector.scale;
+  }
+  
+  /**
+   * Returns the inner-product of the specified DenseVector and this
+   * @param vector to multiply by this
+   * @return the inner-product
+   */
+  public double mul(DenseVector vector) {
+    double result = 0.0;
+    for (int i = offset; i < offset + size; i++) {
+      if (indices[i] < vector.size()) {
+        result += values[i] * vector.get(indices[i]);
+      }
+    }
+    return result * scale;
+  }
+  
+  /**
+   * Returns the stored values of this vector without the scale factor in an array 
+   * indexed by the indices of the values (see mul(SparseVector, double[])). The array 
+   * is built in O(maxIndex()) time, hence null is returned if it is longer than the 
+   * specified number of products that are expected to use it.
+   * @param numberOfProducts the expected number of the inner-products computed by the array
+   * @return the array of the values or null
+   */
+  public double[] toDenseArray(int numberOfProducts) {
+    int length = maxIndex() + 1;
+    if (length > numberOfProducts) {
+      return null;
+    }
+    double[] dense = new double[length];
+    for (int i = offset; i < offset + size && indices[i] < length; i++) {
+      dense[indices[i]] = values[i];
+    }
+    return dense;
+  }
+  
+  /**
+   * Returns the inner-product of the specified SparseVector and this, where the specified 
+   * array is the result of toDenseArray of this (or null), and this was not modified 
+   * since it was created. The result is the same as the result of mul(SparseVector), but 
+   * it takes O(size of the specified vector) time by looking up the values of this in the 
+   * array.
+   * @param vector to multiply by this
+   * @param dense the values of this by toDenseArray or null
+   * @return the inner-product
+   */
+  public double mul(SparseVector vector, double[] dense) {
+    if (dense == null) {
+      return mul(vector);
+    }
+    double result = 0.0;
+    for (int i = vector.offset; i < vector.offset + vector.size; i++) {
+      if (vector.indices[i] < dense.length) {
+        result += dense[vector.indices[i]] * vector.values[i];
+      }
+    }
+    // the scale factors are applied in the same order as in mul(SparseVector)
+    return vector.size < size >>> 3 ? result * vector.scale * scale : result * scale * vector.scale;
+  }
+  
+  /**
+   * Point-wise divides the current vector by the non 0 elements of the specified sparse vector.
+   * @param vector to divide with
+   * @return this
+   */
+  public SparseVector div(SparseVector vector) {
+    detach();
+    int idx = 0;
+    int idx2 = vector.offset;
+    final int end2 = vector.offset + vector.size;
+    while (idx < size && idx2 < end2) {
+      if (indices[idx] == vector.indices[idx2]) {
+        values[idx] = vector.values[idx2] == 0.0 ? 0.0 : values[idx] / (vector.values[idx2] * vector.scale);
+        idx ++;
+        idx2 ++;
+      } else if (indices[idx] < vector.indices[idx2]) {
+        idx ++;
+      } else {
+        idx2 ++;
+      }
+    }
+    return this;
+  }
+  
+  /**
+   * Point-wise divides the current vector by the non 0 elements of the specified dense vector.
+   * @param vector to divide with
+   * @return this
+   */
+  public SparseVector div(DenseVector vector) {
+    detach();
+    for (int i = 0; i < size && indices[i] < vector.size(); i++) {
+      values[i] = vector.get(indices[i]) == 0.0 ? 0.0 : values[i] / vector.get(indices[i]);
+    }
+    return this;
+  }
+  
+  /**
+   * Point-wise inverts the non 0 vector elements.
+   * @return this
+   */
+  public SparseVector inv() {
+    detach();
+    applyScale();
+    for (int i = 0; i < size; i++) {
+      if (values[i] != sparseValue) {
+        values[i] = 1.0 / values[i];
+      }
+    }
+    return this;
+  }
+  
+  /**
+   * Computes the cosine similarity between the specified SparseVector and this.
+   * @param vector
+   * @return the cosine similarity
+   */
+  public double cosSim(SparseVector vector) {
+    double norm = norm();
+    double norm2 = vector.norm();
+    if (norm == 0.0 || norm2 == 0.0) {
+      return 0.0;
+    }
+    return mul(vector) / (norm() * vector.norm());
+  }
+  
+  /**
+   * Computes the cosine similarity between the specified DenseVector and this.
+   * @param vector
+   * @return the cosine similarity
+   */
+  public double cosSim(DenseVector vector) {
+    double norm = norm();
+    double norm2 = vector.norm();
+    if (norm == 0.0 || norm2 == 0.0) {
+      return 0.0;
+    }
+    return mul(vector) / (norm() * vector.norm());
+  }
+  
+  /**
+   * Computes the Euclidean distance between the specified SparseVector and this.
+   * @param vector
+   * @return the Euclidean distance
+   */
+  public double euclideanDistance(SparseVector vector) {
+    SparseVector clone = (SparseVector)clone();
+    clone.add(vector, -1.0);
+    return clone.norm();
+  }
+  
+  /**
+   * Computes the Euclidean distance between the specified DenseVector and this.
+   * @param vector
+   * @return the Euclidean distance
+   */
+  public double euclideanDistance(DenseVector vector) {
+    SparseVector clone = (SparseVector)clone();
+    clone.add(vector, -1.0);
+    return clone.norm();
+  }
+
+  /**
+   * Returns the number of stored values.
+   * @return the number of stored values
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the index that is stored at the specified position of the vector.
+   * Together with valueAt(int) it can be used for iterating over the stored values
+   * without allocating an iterator and a VectorEntry for each value.
+   * @param position position of the stored value (0 &lt;= position &lt; size())
+   * @return index at the specified position
+   */
+  public int indexAt(int position) {
+    if (position < 0 || position >= size) {
+      throw new ArrayIndexOutOfBoundsException(position);
+    }
+    return indices[offset + position];
+  }
+
+  /**
+   * Returns the value that is stored at the specified position of the vector.
+   * @param position position of the stored value (0 &lt;= position &lt; size())
+   * @return value at the specified position
+   */
+  public double valueAt(int position) {
+    if (position < 0 || position >= size) {
+      throw new ArrayIndexOutOfBoundsException(position);
+    }
+    return values[offset + position] * scale;
+  }
+
+  /**
+   * Returns the norm of the current vector (Euclidean norm).
+   * @return the norm of the current vector
+   */
+  public double norm() {
+    double norm = 0.0;
+    for (int i = offset; i < offset + size; i++) {
+      norm += values[i] * values[i];
+    }
+    return Math.sqrt(norm) * Math.abs(scale);
+  }
+
+  /**
+   * Normalizes the current vector (Euclidean norm).
+   * @return this
+   */
+  public SparseVector normalize() {
+    double norm = norm();
+    if (norm > 0.0 ) {
+      mul(1.0 / norm);
+    }
+    return this;
+  }
+
+  /**
+   * Removes the elements from the vector.
+   */
+  public void clear() {
+    size = 0;
+    scale = 1.0;
+  }
+
+  /**
+   * Returns the maximal index of value that is stored in the vector or -1 if the 
+   * vector is empty.
+   * @return maximal stored index
+   */
+  public int maxIndex() {
+    int idx = size -1;
+    while (idx >= 0 && values[offset + idx] == sparseValue) {
+      idx --;
+    }
+    return idx < 0 ? -1 : indices[offset + idx];
+  }
+  
+  /**
+   * Performs squared root on every values in the vector;
+   */
+  public void sqrt() {
+    detach();
+    applyScale();
+    for (int i = 0; i < size; i++) {
+      values[i] = Math.sqrt(values[i]);
+    }
+  }
+  
+  /**
+   * Returns the String, java Map like, representation of the current object.
+   */
+  public String toString() {
+    StringBuffer sb = new StringBuffer();
+    sb.append('{');
+    for (int i = offset; i < offset + size; i++) {
+      if (values[i] == sparseValue) {
+        continue;
+      }
+      if (sb.length() > 1) {
+        sb.append(',');
+        sb.append(' ');
+      }
+      sb.append(indices[i]);
+      sb.append('=');
+      sb.append(values[i] * scale);
+    }
+    sb.append('}');
+    return sb.toString();
+  }
+
+  /**
+   * Lexicographically comparison of vectors.
+   */
+  @Override
+  public int compareTo(SparseVector o) {
+    int idx = 0;
+    int idx2 = 0;
+    while (true) {
+      while (idx < size && values[offset + idx] == sparseValue) {
+        idx ++;
+      }
+      while (idx2 < o.size && o.values[o.offset + idx2] == sparseValue) {
+        idx2 ++;
+      }
+      if (idx == size || idx2 == o.size) {
+        break;
+      }
+      double value = values[offset + idx] * scale;
+      double value2 = o.values[o.offset + idx2] * o.scale;
+      if (indices[offset + idx] == o.indices[o.offset + idx2]) {
+        if (value < value2) {
+          return -1;
+        } else if (value > value2) {
+          return 1;
+        }
+        idx ++;
+        idx2 ++;
+      } else if (indices[offset + idx] < o.indices[o.offset + idx2]) {
+        return 1;
+      } else {
+        return -1;
+      }
+    }
+    if (idx < size) {
+      return 1;
+    }
+    if (idx2 < o.size) {
+      return -1;
+    }
+    return 0;
+  }
+  
+  /**
+   * Iterator class for SparseVector. It skips the explicitly stored 0 values.
+   * @author István Hegedűs
+   *
+   */
+  private class SparseVectorIterator implements Iterator<VectorEntry> {
+    
+    private final SparseVector vector;
+    private int index;
+    private int next;
+    
+    public SparseVectorIterator(SparseVector vector) {
+      this.vector = vector;
+      index = -1;
+      next = nextPosition(0);
+    }
+    
+    private int nextPosition(int from) {
+      while (from < vector.size && vector.values[vector.offset + from] == sparseValue) {
+        from ++;
+      }
+      return from;
+    }
+    
+    @Override
+    public boolean hasNext() {
+      return next < vector.size;
+    }
+
+    @Override
+    public VectorEntry next() {
+      index = next;
+      next = nextPosition(index + 1);
+      return new VectorEntry(vector.indices[vector.offset + index], vector.values[vector.offset + index] * vector.scale);
+    }
+
+    @Override
+    public void remove() {
+      if (index == -1) {
+        throw new IllegalStateException();
+      }
+      int size = vector.size;
+      vector.delete(vector.indices[vector.offset + index]);
+      // the following values are shifted if the value was removed from the arrays
+      next -= size - vector.size;
+    }
+    
+  }
+
+}
@@ -1,13 +1,109 @@
 package gossipLearning.utils;
 
+import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.BatchPredictable;
+import gossipLearning.interfaces.BatchUpdatable;
+import gossipLearning.interfaces.Model;
+
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Random;
 import java.util.Stack;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Utils {
+  /** @hidden */
+  private static final AtomicLong lastVersion = new AtomicLong();
+  
+  /**
+   * Returns a new version stamp for a model (see VersionedModel). The stamps are unique 
+   * in the JVM.
+   * @return a version stamp that was not returned before
+   */
+  public static long nextVersion() {
+    return lastVersion.incrementAndGet();
+  }
+  
+  /**
+   * Sets the specified vector to the values of the specified part of an array (see 
+   * CompactModel). The zero values are not stored.
+   * @param vector the vector to set
+   * @param array the array of the values
+   * @param offset the position of the value of the 0th feature in the array
+   * @param dimension the number of the features
+   */
+  public static void loadVector(SparseVector vector, double[] array, int offset, int dimension) {
+    vector.clear();
+    for (int i = 0; i < dimension; i++) {
+      if (array[offset + i] != 0.0) {
+        vector.put(i, array[offset + i]);
+      }
+    }
+  }
+  
+  /**
+   * Stores the values of the specified vector in the specified part of an array (see 
+   * CompactModel).
+   * @param vector the vector to store
+   * @param array the array of the values
+   * @param offset the position of the value of the 0th feature in the array
+   * @param dimension the number of the features, the indices of the vector have to be 
+   * less than it
+   */
+  public static void storeVector(SparseVector vector, double[] array, int offset, int dimension) {
+    if (vector.maxIndex() >= dimension) {
+      throw new RuntimeException("The index " + vector.maxIndex() + " of the vector exceeds the dimension " + dimension + "!");
+    }
+    Arrays.fill(array, offset, offset + dimension, 0.0);
+    for (int i = 0; i < vector.size(); i++) {
+      array[offset + vector.indexAt(i)] = vector.valueAt(i);
+    }
+  }
+  
+  /**
+   * Updates the specified model by the instances of the specified holder at the positions 
+   * from (inclusive) to (exclusive). The batch update of the model is used if it is 
+   * BatchUpdatable, otherwise the model is updated by the instances one by one.
+   * @param model model to be updated
+   * @param instances holder of the training instances
+   * @param from position of the first instance
+   * @param to position after the last instance
+   */
+  public static void updateModel(Model model, InstanceHolder instances, int from, int to) {
+    if (model instanceof BatchUpdatable) {
+      ((BatchUpdatable)model).update(instances, from, to);
+    } else {
+      for (int i = from; i < to; i++) {
+        model.update(instances.getInstance(i), instances.getLabel(i));
+      }
+    }
+  }
+  
+  /**
+   * Predicts the labels of the instances of the specified holder by the specified model 
+   * into the specified array. The batch prediction of the model is used if it is 
+   * BatchPredictable, otherwise the instances are predicted one by one.
+   * @param model model to be used
+   * @param instances holder of the evaluation instances
+   * @param predictions array of the results, its length has to be at least the number 
+   * of instances
+   * @return the array of the predictions
+   */
+  public static double[] predict(Model model, InstanceHolder instances, double[] predictions) {
+    if (predictions.length < instances.size()) {
+      throw new RuntimeException("The length of the prediction array is " + predictions.length + " instead of at least " + instances.size() + "!");
+    }
+    if (model instanceof BatchPredictable) {
+      ((BatchPredictable)model).predict(instances, predictions);
+    } else {
+      for (int i = 0; i < instances.size(); i++) {
+        predictions[i] = model.predict(instances.getInstance(i));
+      }
+    }
+    return predictions;
+  }
   
   /**
    * Computes the liner regression line for the values of the specified double array.</br>
@@ -0,0 +1,75 @@
+package tests.gossipLearning;
+
+import gossipLearning.CSRInstanceHolder;
+import gossipLearning.InstanceHolder;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class CSRInstanceHolderTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -6370520232361834567L;
+
+  private static SparseVector randomInstance(Random r) {
+    SparseVector instance = new SparseVector();
+    int size = r.nextInt(20);
+    for (int i = 0; i < size; i++) {
+      instance.put(r.nextInt(50), r.nextGaussian());
+    }
+    return instance;
+  }
+
+  public void testSameAsInstanceHolder() {
+    Random r = new Random(1234);
+    InstanceHolder expected = new InstanceHolder(2, 50);
+    CSRInstanceHolder holder = new CSRInstanceHolder(2, 50);
+    for (int i = 0; i < 1000; i++) {
+      int operation = expected.size() == 0 ? 0 : r.nextInt(4);
+      if (operation <= 1) {
+        SparseVector instance = randomInstance(r);
+        double label = r.nextInt(2);
+        expected.add(instance, label);
+        holder.add(instance, label);
+      } else if (operation == 2) {
+        int index = r.nextInt(expected.size());
+        SparseVector instance = randomInstance(r);
+        expected.setInstance(index, instance);
+        holder.setInstance(index, instance);
+      } else {
+        int index = r.nextInt(expected.size());
+        expected.remove(index);
+        holder.remove(index);
+      }
+      assertEquals(expected.size(), holder.size());
+    }
+    assertEquals(expected.toString(), holder.toString());
+    assertEquals(expected.toString(), holder.clone().toString());
+    assertEquals(expected.toString(), new CSRInstanceHolder(expected, 2, 50).toString());
+  }
+
+  public void testViews() {
+    CSRInstanceHolder holder = new CSRInstanceHolder(2, 4);
+    holder.add(new SparseVector(new double[]{1,0,2,0}), 1.0);
+    holder.add(new SparseVector(new double[]{0,3,0,4}), 0.0);
+    SparseVector view = holder.getInstance(1);
+    assertEquals(new SparseVector(new double[]{0,3,0,4}), view);
+    assertEquals(11.0, holder.getInstance(0).mul(new SparseVector(new double[]{1,1,5,1})));
+
+    // modifying the view does not modify the holder
+    view.put(0, 5.0);
+    view.mul(2.0);
+    view.sqrt();
+    assertEquals(new SparseVector(new double[]{0,3,0,4}), holder.getInstance(1));
+    assertEquals(new SparseVector(new double[]{1,0,2,0}), holder.getInstance(0));
+
+    // replacing the instance does not modify the earlier views
+    SparseVector old = holder.getInstance(0);
+    holder.setInstance(0, new SparseVector(new double[]{0,0,0,7}));
+    assertEquals(new SparseVector(new double[]{1,0,2,0}), old);
+    assertEquals(new SparseVector(new double[]{0,0,0,7}), holder.getInstance(0));
+    assertEquals(1.0, holder.getLabel(0));
+  }
+
+}
@@ -0,0 +1,112 @@
+package tests.gossipLearning;
+
+import gossipLearning.DataBaseCache;
+import gossipLearning.DataBaseReader;
+import gossipLearning.InstanceHolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+
+public class DataBaseReaderTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = 3109575184021760294L;
+
+  /**
+   * Reader that declares only the basic constructor.
+   */
+  public static class BasicDataBaseReader extends DataBaseReader {
+    public BasicDataBaseReader(final File tFile, final File eFile) throws IOException {
+      super(tFile, eFile);
+    }
+  }
+
+  public void testCacheRoles() throws Exception {
+    File dir = File.createTempFile("cache", "");
+    dir.delete();
+    dir.mkdir();
+    File tFile = copy(new File("res/db/iris_setosa_versicolor_train.dat"), new File(dir, "train.dat"));
+    File eFile = copy(new File("res/db/iris_setosa_versicolor_eval.dat"), new File(dir, "eval.dat"));
+    try {
+      // the training file is cached without statistics in the evaluation role
+      DataBaseReader.createDataBaseReader("gossipLearning.DataBaseReader", eFile, tFile, true, false);
+      assertTrue(new File(tFile.getPath() + ".cache").exists());
+      DataBaseReader plain = DataBaseReader.createDataBaseReader("gossipLearning.DataBaseReader", new File("res/db/iris_setosa_versicolor_train.dat"), new File("res/db/iris_setosa_versicolor_eval.dat"));
+      plain.standardize();
+      DataBaseReader reader = DataBaseReader.createDataBaseReader("gossipLearning.DataBaseReader", tFile, eFile, true, false);
+      reader.standardize();
+      assertEquals(plain.getTrainingSet().size(), reader.getTrainingSet().size());
+      for (int i = 0; i < plain.getTrainingSet().size(); i++) {
+        assertEquals(plain.getTrainingSet().getInstance(i), reader.getTrainingSet().getInstance(i));
+      }
+      for (int i = 0; i < plain.getEvalSet().size(); i++) {
+        assertEquals(plain.getEvalSet().getInstance(i), reader.getEvalSet().getInstance(i));
+      }
+      // the cache is rewritten with the statistics
+      DataBaseCache cache = new DataBaseCache(tFile, "gossipLearning.DataBaseReader");
+      assertTrue(cache.load());
+      assertNotNull(cache.getMeans());
+      assertNotNull(cache.getDevs());
+    } finally {
+      for (File file : dir.listFiles()) {
+        file.delete();
+      }
+      dir.delete();
+    }
+  }
+
+  public void testStreamingBlocks() throws Exception {
+    File tFile = new File("res/db/iris_train.dat");
+    File eFile = new File("res/db/iris_eval.dat");
+    DataBaseReader plain = DataBaseReader.createDataBaseReader("gossipLearning.DataBaseReader", tFile, eFile);
+    InstanceHolder training = plain.getTrainingSet();
+    DataBaseReader reader = DataBaseReader.createDataBaseReader("gossipLearning.DataBaseReader", null, tFile, eFile, false, true, 4, 2);
+    assertTrue(reader.isStreaming());
+    assertEquals(training.size(), reader.getTrainingSet().size());
+    for (int i = 0; i < training.size(); i++) {
+      assertEquals(training.getLabel(i), reader.getTrainingSet().getLabel(i));
+      assertEquals(training.getInstance(i), reader.getTrainingSet().getInstance(i));
+    }
+    // the reader is created again for the other size of blocks
+    assertNotSame(reader, DataBaseReader.createDataBaseReader("gossipLearning.DataBaseReader", null, tFile, eFile, false, true, 8, 2));
+  }
+
+  public void testBasicConstructor() throws Exception {
+    String className = BasicDataBaseReader.class.getName();
+    File tFile = new File("res/db/iris_setosa_versicolor_train.dat");
+    File eFile = new File("res/db/iris_setosa_versicolor_eval.dat");
+    DataBaseReader plain = DataBaseReader.createDataBaseReader("gossipLearning.DataBaseReader", tFile, eFile);
+    DataBaseReader reader = DataBaseReader.createDataBaseReader(className, tFile, eFile);
+    assertTrue(reader instanceof BasicDataBaseReader);
+    assertFalse(reader.isStreaming());
+    assertEquals(plain.getTrainingSet().size(), reader.getTrainingSet().size());
+    assertEquals(plain.getEvalSet().size(), reader.getEvalSet().size());
+    // the cache and the streaming mode are not supported by the basic constructor
+    try {
+      DataBaseReader.createDataBaseReader(className, tFile, eFile, false, true);
+      fail("exception is expected");
+    } catch (RuntimeException e) {
+    }
+  }
+
+  private static File copy(File from, File to) throws IOException {
+    InputStream in = new FileInputStream(from);
+    OutputStream out = new FileOutputStream(to);
+    try {
+      byte[] buffer = new byte[1 << 12];
+      for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+        out.write(buffer, 0, n);
+      }
+    } finally {
+      in.close();
+      out.close();
+    }
+    return to;
+  }
+
+}
@@ -0,0 +1,66 @@
+package tests.gossipLearning;
+
+import gossipLearning.CSRInstanceHolder;
+import gossipLearning.DriftingInstanceHolder;
+import gossipLearning.InstanceHolder;
+import gossipLearning.InstanceHolderSlice;
+import gossipLearning.interfaces.LabelTransform;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+
+public class DriftingInstanceHolderTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -3406213529147784530L;
+
+  private static class Shift implements LabelTransform {
+    private static final long serialVersionUID = 1L;
+    int shift = 0;
+    int calls = 0;
+    public double transform(InstanceHolder source, int index) {
+      calls ++;
+      return (source.getLabel(index) + shift) % 3;
+    }
+  }
+
+  public void testDrift() {
+    InstanceHolder source = new CSRInstanceHolder(3, 2);
+    for (int i = 0; i < 10; i++) {
+      source.add(new SparseVector(new double[]{i, 1.0}), i % 3);
+    }
+    Shift shift = new Shift();
+    DriftingInstanceHolder holder = new DriftingInstanceHolder(source, shift);
+    assertEquals(10, holder.size());
+    assertEquals(source.getInstance(4), holder.getInstance(4));
+    for (int i = 0; i < 10; i++) {
+      assertEquals((double)(i % 3), holder.getLabel(i));
+      assertEquals((double)(i % 3), holder.getLabel(i));
+    }
+    // the labels are computed once per version
+    assertEquals(10, shift.calls);
+
+    InstanceHolderSlice slice = new InstanceHolderSlice(holder, 2, true);
+    slice.addIndex(4);
+    shift.shift = 1;
+    holder.drift();
+    assertEquals(1, holder.getVersion());
+    assertEquals(10, shift.calls);
+    assertEquals(2.0, holder.getLabel(4));
+    assertEquals(11, shift.calls);
+    // the copied labels keep the labelling of the time of the sampling
+    assertEquals(1.0, slice.getLabel(0));
+    slice.addIndex(4);
+    assertEquals(2.0, slice.getLabel(1));
+    assertEquals(11, shift.calls);
+    assertEquals(1.0, source.getLabel(4));
+
+    try {
+      holder.setLabel(0, 1.0);
+      fail("exception is expected");
+    } catch (RuntimeException e) {
+      // the labels are defined by the transform
+    }
+  }
+
+}
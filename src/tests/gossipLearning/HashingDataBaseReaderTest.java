@@ -0,0 +1,87 @@
+package tests.gossipLearning;
+
+import gossipLearning.DataBaseReader;
+import gossipLearning.HashingDataBaseReader;
+import gossipLearning.InstanceHolder;
+import gossipLearning.utils.SparseVector;
+
+import java.io.File;
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+import peersim.config.Configuration;
+import peersim.config.ParsedProperties;
+
+public class HashingDataBaseReaderTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -8571063514637245210L;
+  private static boolean isConfigured = false;
+
+  @Override
+  public void setUp() throws Exception {
+    if (!isConfigured) {
+      Configuration.setConfig(new ParsedProperties(new String[]{
+        "res/config/no_failure_applying_more_learners.txt",
+        "loader4.hashingBits 4",
+        "loader5.hashingBits 5"
+      }));
+      isConfigured = true;
+    }
+  }
+
+  public void testHash() {
+    SparseVector x = new SparseVector();
+    for (int i = 0; i < 100; i++) {
+      x.put(i * 1000003, i + 1.0);
+    }
+    SparseVector hashed = HashingDataBaseReader.hash(x, 10);
+    assertTrue(hashed.maxIndex() < 1 << 10);
+    for (int i = 0; i < x.size(); i++) {
+      int index = x.indexAt(i);
+      assertTrue(HashingDataBaseReader.bucket(index, 10) >= 0 && HashingDataBaseReader.bucket(index, 10) < 1 << 10);
+      assertEquals(1.0, Math.abs(HashingDataBaseReader.sign(index)));
+    }
+    // the sum of the signed values is preserved by the buckets
+    double expected = 0.0;
+    for (int i = 0; i < x.size(); i++) {
+      expected += HashingDataBaseReader.sign(x.indexAt(i)) * x.valueAt(i);
+    }
+    double sum = 0.0;
+    for (int i = 0; i < hashed.size(); i++) {
+      sum += hashed.valueAt(i);
+    }
+    assertEquals(expected, sum, 1E-9);
+  }
+
+  public void testReader() throws Exception {
+    File tFile = new File("res/db/iris_setosa_versicolor_train.dat");
+    File eFile = new File("res/db/iris_setosa_versicolor_eval.dat");
+    DataBaseReader plain = DataBaseReader.createDataBaseReader("gossipLearning.DataBaseReader", tFile, eFile);
+    InstanceHolder training = plain.getTrainingSet();
+    InstanceHolder eval = plain.getEvalSet();
+    DataBaseReader reader = DataBaseReader.createDataBaseReader("gossipLearning.HashingDataBaseReader", "loader4", tFile, eFile, false, false, 256, 256);
+    assertEquals(4, ((HashingDataBaseReader)reader).getNumberOfBits());
+    assertEquals(16, reader.getTrainingSet().getNumberOfFeatures());
+    assertEquals(16, reader.getEvalSet().getNumberOfFeatures());
+    assertEquals(training.size(), reader.getTrainingSet().size());
+    for (int i = 0; i < training.size(); i++) {
+      assertEquals(training.getLabel(i), reader.getTrainingSet().getLabel(i));
+      assertEquals(HashingDataBaseReader.hash(training.getInstance(i), 4), reader.getTrainingSet().getInstance(i));
+    }
+    for (int i = 0; i < eval.size(); i++) {
+      assertEquals(HashingDataBaseReader.hash(eval.getInstance(i), 4), reader.getEvalSet().getInstance(i));
+    }
+  }
+
+  public void testParameters() throws Exception {
+    File tFile = new File("res/db/iris_setosa_versicolor_train.dat");
+    File eFile = new File("res/db/iris_setosa_versicolor_eval.dat");
+    DataBaseReader reader = DataBaseReader.createDataBaseReader("gossipLearning.HashingDataBaseReader", "loader4", tFile, eFile, false, false, 256, 256);
+    // the reader is created again if the number of bits is changed
+    DataBaseReader other = DataBaseReader.createDataBaseReader("gossipLearning.HashingDataBaseReader", "loader5", tFile, eFile, false, false, 256, 256);
+    assertNotSame(reader, other);
+    assertSame(other, DataBaseReader.createDataBaseReader("gossipLearning.HashingDataBaseReader", "loader5", tFile, eFile, false, false, 256, 256));
+    assertEquals(32, other.getTrainingSet().getNumberOfFeatures());
+    assertEquals(1 << 20, DataBaseReader.createDataBaseReader("gossipLearning.HashingDataBaseReader", tFile, eFile).getTrainingSet().getNumberOfFeatures());
+  }
+
+}
@@ -0,0 +1,81 @@
+package tests.gossipLearning;
+
+import gossipLearning.CSRInstanceHolder;
+import gossipLearning.InstanceHolder;
+import gossipLearning.InstanceHolderSlice;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+
+public class InstanceHolderSliceTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = 2530858290591262307L;
+
+  private static InstanceHolder createSource() {
+    InstanceHolder source = new CSRInstanceHolder(2, 10);
+    for (int i = 0; i < 10; i++) {
+      source.add(new SparseVector(new double[]{i, 1.0}), i % 2);
+    }
+    return source;
+  }
+
+  public void testCopiedLabels() {
+    InstanceHolder source = createSource();
+    InstanceHolderSlice slice = new InstanceHolderSlice(source, 1, true);
+    slice.addIndex(3);
+    slice.addIndex(8);
+    slice.addIndex(3);
+    assertEquals(3, slice.size());
+    assertEquals(8, slice.getSourceIndex(1));
+    assertEquals(source.getInstance(8), slice.getInstance(1));
+    assertEquals(1.0, slice.getLabel(0));
+
+    // the copied labels do not follow the source
+    source.setLabel(3, 0.0);
+    assertEquals(1.0, slice.getLabel(0));
+    slice.setLabel(2, 5.0);
+    assertEquals(0.0, source.getLabel(3));
+    assertEquals(5.0, slice.getLabel(2));
+
+    slice.remove(0);
+    assertEquals(2, slice.size());
+    assertEquals(5.0, slice.getLabel(1));
+    slice.clear();
+    assertEquals(0, slice.size());
+    slice.addIndex(3);
+    assertEquals(0.0, slice.getLabel(0));
+  }
+
+  public void testRange() {
+    InstanceHolder source = createSource();
+    InstanceHolderSlice slice = new InstanceHolderSlice(source, 8, 4, false);
+    assertEquals(4, slice.size());
+    int[] expected = {8, 9, 0, 1};
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], slice.getSourceIndex(i));
+      assertEquals(source.getInstance(expected[i]), slice.getInstance(i));
+    }
+    // the labels are written to the source
+    slice.setLabel(0, 7.0);
+    assertEquals(7.0, source.getLabel(8));
+    try {
+      slice.add(new SparseVector(), 0.0);
+      fail("exception is expected");
+    } catch (RuntimeException e) {
+      // only the instances of the source can be added
+    }
+  }
+
+  public void testNumberOfPredictions() {
+    InstanceHolderSlice slice = new InstanceHolderSlice(createSource(), 2, 3, false);
+    assertEquals(3, slice.getNumberOfPredictions());
+    slice.setNumberOfPredictions(10);
+    assertEquals(10, slice.getNumberOfPredictions());
+    assertEquals(10, ((InstanceHolder)slice.clone()).getNumberOfPredictions());
+    slice.setNumberOfPredictions(-1);
+    slice.remove(0);
+    assertEquals(2, slice.getNumberOfPredictions());
+  }
+
+}
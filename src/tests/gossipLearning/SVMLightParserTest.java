@@ -0,0 +1,111 @@
+package tests.gossipLearning;
+
+import gossipLearning.CSRInstanceHolder;
+import gossipLearning.InstanceHolder;
+import gossipLearning.SVMLightParser;
+import gossipLearning.utils.SparseVector;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class SVMLightParserTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -2917254461826317309L;
+
+  private static File writeFile(String content) throws IOException {
+    File file = File.createTempFile("svmlight", ".dat");
+    file.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(content.getBytes("ISO-8859-1"));
+    out.close();
+    return file;
+  }
+
+  private static void assertSame(InstanceHolder expected, InstanceHolder actual) {
+    assertEquals(expected.getNumberOfClasses(), actual.getNumberOfClasses());
+    assertEquals(expected.getNumberOfFeatures(), actual.getNumberOfFeatures());
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(Double.doubleToLongBits(expected.getLabel(i)), Double.doubleToLongBits(actual.getLabel(i)));
+      SparseVector e = expected.getInstance(i);
+      SparseVector a = actual.getInstance(i);
+      assertEquals(e.size(), a.size());
+      for (int j = 0; j < e.size(); j++) {
+        assertEquals(e.indexAt(j), a.indexAt(j));
+        assertEquals(Double.doubleToLongBits(e.valueAt(j)), Double.doubleToLongBits(a.valueAt(j)));
+      }
+    }
+  }
+
+  public void testSpecialLines() throws IOException {
+    String content = "# Regression\r\n" +
+        "1.5 1:0.25 3:-1e-3 # comment\r\n" +
+        "\r\n" +
+        "# comment line\n" +
+        "-2 3:1 1:2 3:4 2:0 5:0\n" +
+        "+0.1\t7:.5E+2 2:-0\r" +
+        "  3 2:1.7976931348623157E308 4:4.9e-324   \n" +
+        "0 1:123456789012345678901234567890 2:0x1p3";
+    File file = writeFile(content);
+    InstanceHolder expected = SVMLightParser.parseByLines(file);
+    assertEquals(Integer.MAX_VALUE, expected.getNumberOfClasses());
+    assertEquals(7, expected.getNumberOfFeatures());
+    for (int chunkSize = 1; chunkSize < 64; chunkSize *= 2) {
+      assertSame(expected, new SVMLightParser(chunkSize, 3).parse(file));
+    }
+    assertSame(expected, new SVMLightParser().parse(file));
+  }
+
+  public void testRandomFile() throws IOException {
+    Random r = new Random(1234);
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      content.append(r.nextInt(3));
+      int size = r.nextInt(10);
+      for (int j = 0; j < size; j++) {
+        content.append(' ').append(1 + r.nextInt(100)).append(':');
+        switch (r.nextInt(4)) {
+          case 0: content.append(r.nextInt(10)); break;
+          case 1: content.append(r.nextGaussian()); break;
+          case 2: content.append(String.format("%.4f", r.nextDouble())); break;
+          default: content.append(r.nextDouble() * 1E-30); break;
+        }
+      }
+      content.append(r.nextBoolean() ? "\n" : "\r\n");
+    }
+    File file = writeFile(content.toString());
+    InstanceHolder expected = SVMLightParser.parseByLines(file);
+    assertEquals(3, expected.getNumberOfClasses());
+    assertSame(expected, new SVMLightParser(1000, 4).parse(file));
+    assertSame(expected, new SVMLightParser().parse(file));
+
+    // the instances are passed to the consumer in order
+    final CSRInstanceHolder consumed = new CSRInstanceHolder(0, 0);
+    int numberOfClasses = new SVMLightParser(1000, 4).parseEach(file, new SVMLightParser.InstanceConsumer() {
+      @Override
+      public void consume(SparseVector instance, double label) {
+        consumed.add(instance, label);
+      }
+    });
+    assertSame(expected, new CSRInstanceHolder(consumed, numberOfClasses, expected.getNumberOfFeatures()));
+  }
+
+  public void testInvalidLines() throws IOException {
+    String[] contents = {"1 1:1\n1 2:1\n1 2\n", "1 1:1\n\n1 0:1\n", "1 1:1\n1 1:a\n"};
+    String[] messages = {"has invalid structure at line 3", "must be non-negative integer, line 3", "at line 2"};
+    for (int i = 0; i < contents.length; i++) {
+      File file = writeFile(contents[i]);
+      try {
+        new SVMLightParser(4, 2).parse(file);
+        fail("exception is expected");
+      } catch (RuntimeException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains(messages[i]));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,45 @@
+package tests.gossipLearning;
+
+import gossipLearning.CSRInstanceHolder;
+import gossipLearning.StandardizedInstanceHolder;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class StandardizedInstanceHolderTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = 2787713064571403946L;
+
+  public void testMemoizedRows() {
+    Random r = new Random(1234);
+    CSRInstanceHolder source = new CSRInstanceHolder(2, 30);
+    for (int i = 0; i < 100; i++) {
+      SparseVector instance = new SparseVector();
+      for (int j = 0; j < 10; j++) {
+        instance.put(r.nextInt(30), r.nextGaussian());
+      }
+      source.add(instance, r.nextInt(2));
+    }
+    SparseVector means = new SparseVector();
+    SparseVector devs = new SparseVector();
+    for (int j = 0; j < 30; j++) {
+      means.put(j, r.nextGaussian());
+      devs.put(j, r.nextDouble() + 0.5);
+    }
+    StandardizedInstanceHolder holder = new StandardizedInstanceHolder(source, means, devs);
+    for (int t = 0; t < 2; t++) {
+      for (int i = 0; i < source.size(); i++) {
+        SparseVector expected = new SparseVector(source.getInstance(i)).add(means, -1.0).div(devs);
+        SparseVector instance = holder.getInstance(i);
+        assertEquals(expected, instance);
+        assertEquals(source.getLabel(i), holder.getLabel(i));
+        // the returned views can be modified without changing the memoized instance
+        instance.mul(2.0);
+        instance.put(0, 100.0);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,71 @@
+package tests.gossipLearning;
+
+import gossipLearning.InstanceHolder;
+import gossipLearning.InstanceHolderSlice;
+import gossipLearning.SVMLightParser;
+import gossipLearning.StreamingInstanceHolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class StreamingInstanceHolderTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = 6937213618307443213L;
+
+  private static File writeRandomFile(Random r, int numberOfInstances) throws IOException {
+    StringBuilder content = new StringBuilder("# comment\n");
+    for (int i = 0; i < numberOfInstances; i++) {
+      content.append(r.nextInt(4));
+      int size = r.nextInt(10);
+      for (int j = 0; j < size; j++) {
+        content.append(' ').append(1 + r.nextInt(200)).append(':').append(r.nextGaussian());
+      }
+      content.append(r.nextInt(10) == 0 ? "\n\n" : "\n");
+    }
+    File file = File.createTempFile("streaming", ".dat");
+    file.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(content.toString().getBytes("ISO-8859-1"));
+    out.close();
+    return file;
+  }
+
+  public void testSameAsParsed() throws IOException {
+    Random r = new Random(1234);
+    File file = writeRandomFile(r, 1000);
+    InstanceHolder expected = new SVMLightParser().parse(file);
+    StreamingInstanceHolder holder = new SVMLightParser(256, 2).parseStreaming(file, 7, 3);
+    assertEquals(expected.size(), holder.size());
+    assertEquals(expected.getNumberOfClasses(), holder.getNumberOfClasses());
+    assertEquals(expected.getNumberOfFeatures(), holder.getNumberOfFeatures());
+    for (int t = 0; t < 5000; t++) {
+      int i = t < expected.size() ? t : r.nextInt(expected.size());
+      assertEquals(expected.getLabel(i), holder.getLabel(i));
+      assertEquals(expected.getInstance(i), holder.getInstance(i));
+    }
+  }
+
+  public void testSlice() throws IOException {
+    Random r = new Random(1234);
+    File file = writeRandomFile(r, 100);
+    InstanceHolder expected = new SVMLightParser().parse(file);
+    StreamingInstanceHolder holder = new SVMLightParser().parseStreaming(file, 16, 2);
+    InstanceHolder shard = new InstanceHolderSlice(holder, 95, 10, false);
+    assertEquals(10, shard.size());
+    for (int i = 0; i < shard.size(); i++) {
+      assertEquals(expected.getLabel((95 + i) % 100), shard.getLabel(i));
+      assertEquals(expected.getInstance((95 + i) % 100), shard.getInstance(i));
+    }
+    try {
+      shard.setLabel(0, 1.0);
+      fail("exception is expected");
+    } catch (RuntimeException e) {
+      // the streamed labels are read-only
+    }
+  }
+
+}
@@ -0,0 +1,188 @@
+package tests.gossipLearning.controls.observers;
+
+import gossipLearning.DataBaseReader;
+import gossipLearning.InstanceHolder;
+import gossipLearning.controls.observers.PredictionObserver;
+import gossipLearning.interfaces.LearningProtocol;
+import gossipLearning.interfaces.Model;
+import gossipLearning.interfaces.ModelHolder;
+import gossipLearning.interfaces.VersionedModel;
+import gossipLearning.modelHolders.BoundedModelHolder;
+import gossipLearning.utils.SparseVector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+import peersim.config.Configuration;
+import peersim.config.ParsedProperties;
+import peersim.core.CommonState;
+import peersim.core.Network;
+
+public class PredictionObserverTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -3405168322841306587L;
+  private static final String[] properties = new String[]{
+    "res/config/no_failure_applying_more_learners_voting10.txt",
+    "C 10",
+    "NETWORKSIZE 40",
+    "control.sequential gossipLearning.controls.observers.PredictionObserver",
+    "control.sequential.protocol learningProtocol",
+    "control.sequential.errorComputatorClass gossipLearning.controls.observers.errorComputation.VotedErrorComputator",
+    "control.sequential.errorFunctionClass gossipLearning.controls.observers.errorComputation.ZeroOneError",
+    "control.sequential.format gpt",
+    "control.sequential.cache false",
+    "control.parallel gossipLearning.controls.observers.PredictionObserver",
+    "control.parallel.protocol learningProtocol",
+    "control.parallel.errorComputatorClass gossipLearning.controls.observers.errorComputation.VotedErrorComputator",
+    "control.parallel.errorFunctionClass gossipLearning.controls.observers.errorComputation.ZeroOneError",
+    "control.parallel.format gpt",
+    "control.parallel.cache false",
+    "control.parallel.parallelism 3",
+    "control.cached gossipLearning.controls.observers.PredictionObserver",
+    "control.cached.protocol learningProtocol",
+    "control.cached.errorComputatorClass gossipLearning.controls.observers.errorComputation.VotedErrorComputator",
+    "control.cached.errorFunctionClass gossipLearning.controls.observers.errorComputation.ZeroOneError"
+  };
+  private static boolean isConfigured = false;
+  private static int numberOfPredictions = 0;
+  private static InstanceHolder training;
+  private static InstanceHolder eval;
+
+  /**
+   * Model that counts its predictions, and its version is changed by the updates.
+   */
+  private static class CountingModel implements Model, VersionedModel {
+    private static final long serialVersionUID = 1L;
+    private long version;
+    public CountingModel(long version) {
+      this.version = version;
+    }
+    public Object clone() {
+      return new CountingModel(version);
+    }
+    public void init(String prefix) {
+    }
+    public void update(SparseVector instance, double label) {
+      version ++;
+    }
+    public double predict(SparseVector instance) {
+      numberOfPredictions ++;
+      return 0.0;
+    }
+    public int getNumberOfClasses() {
+      return 2;
+    }
+    public void setNumberOfClasses(int numberOfClasses) {
+    }
+    public long getVersion() {
+      return version;
+    }
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    if (!isConfigured) {
+      Configuration.setConfig(new ParsedProperties(properties));
+      DataBaseReader reader = DataBaseReader.createDataBaseReader("gossipLearning.DataBaseReader", new File("res/db/iris_setosa_versicolor_train.dat"), new File("res/db/iris_setosa_versicolor_eval.dat"));
+      training = reader.getTrainingSet();
+      eval = reader.getEvalSet();
+      isConfigured = true;
+    }
+    CommonState.r.setSeed(1234567890);
+    CommonState.setTime(0);
+    Network.reset();
+  }
+
+  /**
+   * Adds the updated copies of the latest models to the holders of the nodes, so the
+   * nodes vote by different models.
+   */
+  private static void train(int steps) {
+    for (int t = 0; t < steps; t++) {
+      for (int i = 0; i < Network.size(); i++) {
+        LearningProtocol protocol = (LearningProtocol)Network.get(i).getProtocol(Configuration.lookupPid("learningProtocol"));
+        for (int j = 0; j < protocol.size(); j++) {
+          ModelHolder holder = protocol.getModelHolder(j);
+          Model model = (Model)holder.getModel(holder.size() - 1).clone();
+          int index = CommonState.r.nextInt(training.size());
+          model.update(training.getInstance(index), training.getLabel(index));
+          holder.add(model);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the printed output of the observer.
+   */
+  private static String execute(PredictionObserver observer) {
+    PrintStream out = System.out;
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(buffer));
+    try {
+      observer.execute();
+    } finally {
+      System.setOut(out);
+    }
+    return buffer.toString();
+  }
+
+  public void testParallelism() throws Exception {
+    PredictionObserver sequential = new PredictionObserver("control.sequential");
+    PredictionObserver parallel = new PredictionObserver("control.parallel");
+    sequential.setEvalSet(eval);
+    parallel.setEvalSet(eval);
+    for (int t = 1; t <= 3; t++) {
+      train(4);
+      CommonState.setTime(t * Configuration.getLong("simulation.logtime"));
+      String expected = execute(sequential);
+      assertTrue(expected.length() > 0);
+      assertEquals(expected, execute(parallel));
+    }
+  }
+
+  public void testCache() throws Exception {
+    PredictionObserver observer = new PredictionObserver("control.cached");
+    observer.setEvalSet(eval);
+    int pid = Configuration.lookupPid("learningProtocol");
+    ModelHolder[][] holders = new ModelHolder[Network.size()][];
+    for (int i = 0; i < Network.size(); i++) {
+      LearningProtocol protocol = (LearningProtocol)Network.get(i).getProtocol(pid);
+      holders[i] = new ModelHolder[protocol.size()];
+      for (int j = 0; j < protocol.size(); j++) {
+        holders[i][j] = new BoundedModelHolder(1);
+        holders[i][j].add(new CountingModel(i));
+        protocol.setModelHolder(j, holders[i][j]);
+      }
+    }
+    numberOfPredictions = 0;
+    execute(observer);
+    assertEquals(Network.size() * holders[0].length * eval.size(), numberOfPredictions);
+
+    // the unchanged model holders are not evaluated again
+    numberOfPredictions = 0;
+    execute(observer);
+    assertEquals(0, numberOfPredictions);
+
+    // the model holder having a new version is evaluated again
+    holders[0][0].getModel(0).update(training.getInstance(0), training.getLabel(0));
+    execute(observer);
+    assertEquals(eval.size(), numberOfPredictions);
+
+    // the replaced model holder is evicted, so it is evaluated again when it is set back
+    LearningProtocol protocol = (LearningProtocol)Network.get(1).getProtocol(pid);
+    ModelHolder replacement = new BoundedModelHolder(1);
+    replacement.add(holders[1][0].getModel(0));
+    protocol.setModelHolder(0, replacement);
+    numberOfPredictions = 0;
+    execute(observer);
+    assertEquals(eval.size(), numberOfPredictions);
+    protocol.setModelHolder(0, holders[1][0]);
+    numberOfPredictions = 0;
+    execute(observer);
+    assertEquals(eval.size(), numberOfPredictions);
+  }
+
+}
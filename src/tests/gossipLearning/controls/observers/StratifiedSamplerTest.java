@@ -0,0 +1,117 @@
+package tests.gossipLearning.controls.observers;
+
+import gossipLearning.CSRInstanceHolder;
+import gossipLearning.InstanceHolder;
+import gossipLearning.InstanceHolderSlice;
+import gossipLearning.controls.observers.StratifiedSampler;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class StratifiedSamplerTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -6029717316512440963L;
+
+  /**
+   * Returns a population of 20 instances of class 0, 10 instances of class 1, no 
+   * instances of class 2 and 5 instances having invalid label.
+   */
+  private static InstanceHolder createPopulation() {
+    InstanceHolder population = new CSRInstanceHolder(3, 1);
+    for (int i = 0; i < 35; i++) {
+      double label = i % 7 == 6 ? 7.0 : (i % 7 < 2 ? 1.0 : 0.0);
+      population.add(new SparseVector(new double[]{i}), label);
+    }
+    return population;
+  }
+
+  public void testStrata() {
+    StratifiedSampler sampler = new StratifiedSampler(createPopulation());
+    assertEquals(4, sampler.getNumberOfStrata());
+    assertEquals(20, sampler.getStratumSize(0));
+    assertEquals(10, sampler.getStratumSize(1));
+    assertEquals(0, sampler.getStratumSize(2));
+    assertEquals(5, sampler.getStratumSize(3));
+
+    // regression tasks have one stratum
+    InstanceHolder regression = new CSRInstanceHolder(0, 1);
+    for (int i = 0; i < 10; i++) {
+      regression.add(new SparseVector(new double[]{i}), i * 0.5);
+    }
+    sampler = new StratifiedSampler(regression);
+    assertEquals(1, sampler.getNumberOfStrata());
+    assertEquals(10, sampler.getStratumSize(0));
+  }
+
+  public void testBatches() {
+    InstanceHolder population = createPopulation();
+    StratifiedSampler sampler = new StratifiedSampler(population);
+    InstanceHolderSlice batch = new InstanceHolderSlice(population, 7, false);
+    Random random = new Random(1234567890);
+    for (int sample = 0; sample < 3; sample++) {
+      sampler.restart();
+      boolean[] isDrawn = new boolean[population.size()];
+      for (int step = 1; step <= 5; step++) {
+        sampler.nextBatch(batch, 7, random);
+        // the sample sizes of the strata are proportional to their sizes
+        assertEquals(7, batch.size());
+        assertEquals(step * 7, sampler.getSampleSize());
+        assertEquals(step * 4, sampler.getTaken(0));
+        assertEquals(step * 2, sampler.getTaken(1));
+        assertEquals(0, sampler.getTaken(2));
+        assertEquals(step, sampler.getTaken(3));
+        int[] counts = new int[3];
+        for (int i = 0; i < batch.size(); i++) {
+          int index = batch.getSourceIndex(i);
+          // the instances are drawn without replacement
+          assertFalse(isDrawn[index]);
+          isDrawn[index] = true;
+          double label = batch.getLabel(i);
+          counts[label == 7.0 ? 2 : (int)label] ++;
+        }
+        assertEquals(Arrays.toString(new int[]{4, 2, 1}), Arrays.toString(counts));
+      }
+      // the whole population is sampled at the end
+      for (int i = 0; i < isDrawn.length; i++) {
+        assertTrue(isDrawn[i]);
+      }
+      sampler.nextBatch(batch, 7, random);
+      assertEquals(0, batch.size());
+      assertEquals(population.size(), sampler.getSampleSize());
+    }
+  }
+
+  public void testHalfWidths() {
+    List<double[][]> batchAverages = new ArrayList<double[][]>();
+    List<Integer> batchSizes = new ArrayList<Integer>();
+    batchAverages.add(new double[][]{{0.2, 1.0}});
+    batchSizes.add(10);
+    batchAverages.add(new double[][]{{0.4, 1.0}});
+    batchSizes.add(10);
+    batchAverages.add(new double[][]{{0.3, 1.0}});
+    batchSizes.add(20);
+
+    // mean = 0.3, the variance of the batch means is 
+    // (0.25^2 * 0.1^2 + 0.25^2 * 0.1^2) * 3 / 2 = 0.001875, and half of the population 
+    // is sampled
+    double[][] halfWidths = StratifiedSampler.computeHalfWidths(batchAverages, batchSizes, 80, 2.0);
+    assertEquals(1, halfWidths.length);
+    assertEquals(2, halfWidths[0].length);
+    assertEquals(2.0 * Math.sqrt(0.001875 * 0.5), halfWidths[0][0], 1E-12);
+    assertEquals(0.0, halfWidths[0][1], 1E-12);
+
+    // the whole population is sampled
+    halfWidths = StratifiedSampler.computeHalfWidths(batchAverages, batchSizes, 40, 2.0);
+    assertEquals(0.0, halfWidths[0][0], 1E-12);
+
+    // the variance cannot be estimated from one batch
+    halfWidths = StratifiedSampler.computeHalfWidths(batchAverages.subList(0, 1), batchSizes.subList(0, 1), 80, 2.0);
+    assertEquals(0.0, halfWidths[0][0], 1E-12);
+  }
+
+}
@@ -0,0 +1,73 @@
+package tests.gossipLearning.messages;
+
+import gossipLearning.interfaces.Model;
+import gossipLearning.messages.ModelMessage;
+import gossipLearning.modelHolders.BoundedModelHolder;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+
+public class ModelMessageTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -1967745245734871066L;
+
+  private static class CountingModel implements Model {
+    private static final long serialVersionUID = 1L;
+    static int clones = 0;
+    int updates = 0;
+    public Object clone() {
+      clones ++;
+      CountingModel result = new CountingModel();
+      result.updates = updates;
+      return result;
+    }
+    public void init(String prefix) {
+    }
+    public void update(SparseVector instance, double label) {
+      updates ++;
+    }
+    public double predict(SparseVector instance) {
+      return updates;
+    }
+    public int getNumberOfClasses() {
+      return 0;
+    }
+    public void setNumberOfClasses(int numberOfClasses) {
+    }
+  }
+
+  public void testCopyOnWrite() {
+    BoundedModelHolder holder = new BoundedModelHolder(2);
+    CountingModel first = new CountingModel();
+    CountingModel second = new CountingModel();
+    holder.add(first);
+    holder.add(second);
+    CountingModel.clones = 0;
+    ModelMessage message = new ModelMessage(null, holder);
+    assertEquals(2, message.size());
+    assertEquals(0, CountingModel.clones);
+    assertSame(first, message.getSharedModel(0));
+
+    // the model is copied once, when it is requested for modification
+    Model model = message.getModel(0);
+    assertNotSame(first, model);
+    assertSame(model, message.getModel(0));
+    assertEquals(1, CountingModel.clones);
+    model.update(null, 0.0);
+    assertEquals(0, first.updates);
+    assertSame(model, message.getSharedModel(0));
+
+    // the clone shares the untouched models and copies the modified ones
+    ModelMessage clone = (ModelMessage)message.clone();
+    assertEquals(2, CountingModel.clones);
+    assertSame(second, clone.getSharedModel(1));
+    assertEquals(1, ((CountingModel)clone.getSharedModel(0)).updates);
+    assertNotSame(model, clone.getSharedModel(0));
+
+    assertSame(model, message.remove(0));
+    assertEquals(1, message.size());
+    assertSame(second, message.getSharedModel(0));
+  }
+
+}
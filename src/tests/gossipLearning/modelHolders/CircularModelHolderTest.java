@@ -0,0 +1,161 @@
+package tests.gossipLearning.modelHolders;
+
+import gossipLearning.interfaces.Model;
+import gossipLearning.interfaces.ModelHolder;
+import gossipLearning.modelHolders.BoundedModelHolder;
+import gossipLearning.modelHolders.CircularModelHolder;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class CircularModelHolderTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = 5190337460582296254L;
+
+  private static class IdModel implements Model {
+    private static final long serialVersionUID = 1L;
+    private final int id;
+    private int updates;
+    public IdModel(int id) {
+      this.id = id;
+    }
+    public Object clone() {
+      IdModel model = new IdModel(id);
+      model.updates = updates;
+      return model;
+    }
+    public void init(String prefix) {
+    }
+    public void update(SparseVector instance, double label) {
+      updates ++;
+    }
+    public double predict(SparseVector instance) {
+      return id;
+    }
+    public int getNumberOfClasses() {
+      return 0;
+    }
+    public void setNumberOfClasses(int numberOfClasses) {
+    }
+  }
+
+  private static void assertSameIds(ModelHolder expected, ModelHolder actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(((IdModel)expected.getModel(i)).id, ((IdModel)actual.getModel(i)).id);
+    }
+  }
+
+  public void testSameAsBounded() {
+    Random r = new Random(1234);
+    for (int capacity : new int[]{1, 3, 10, 40}) {
+      ModelHolder expected = new BoundedModelHolder(capacity);
+      ModelHolder holder = new CircularModelHolder(capacity);
+      for (int t = 0; t < 2000; t++) {
+        int op = r.nextInt(10);
+        if (op < 6 || expected.size() == 0) {
+          assertTrue(holder.add(new IdModel(t)));
+          expected.add(new IdModel(t));
+        } else if (op < 8) {
+          int index = r.nextInt(expected.size());
+          assertEquals(((IdModel)expected.remove(index)).id, ((IdModel)holder.remove(index)).id);
+        } else if (op < 9) {
+          int index = r.nextInt(expected.size());
+          expected.setModel(index, new IdModel(-t));
+          holder.setModel(index, new IdModel(-t));
+        } else if (r.nextInt(20) == 0) {
+          expected.clear();
+          holder.clear();
+        }
+        assertSameIds(expected, holder);
+      }
+    }
+  }
+
+  public void testClone() {
+    CircularModelHolder holder = new CircularModelHolder(4);
+    for (int i = 0; i < 6; i++) {
+      holder.add(new IdModel(i));
+    }
+    ModelHolder clone = (ModelHolder)holder.clone();
+    assertSameIds(holder, clone);
+    // the accessed models are copied
+    assertNotSame(holder.getModel(0), clone.getModel(0));
+    clone.add(new IdModel(6));
+    assertEquals(3, ((IdModel)clone.getModel(0)).id);
+    assertEquals(6, ((IdModel)clone.getModel(3)).id);
+    assertEquals(2, ((IdModel)holder.getModel(0)).id);
+    assertEquals(5, ((IdModel)holder.getModel(3)).id);
+    holder.remove(0);
+    assertEquals(3, holder.size());
+    assertEquals(4, clone.size());
+    clone.setModel(1, new IdModel(7));
+    assertEquals(4, ((IdModel)holder.getModel(1)).id);
+    clone.clear();
+    assertEquals(3, holder.size());
+    assertEquals(3, ((IdModel)holder.getModel(0)).id);
+  }
+
+  public void testCopyOnWrite() {
+    CircularModelHolder holder = new CircularModelHolder(3);
+    for (int i = 0; i < 3; i++) {
+      holder.add(new IdModel(i));
+    }
+    Model first = holder.getModel(0);
+    ModelHolder clone = (ModelHolder)holder.clone();
+    // the models updated in place through the clone are not changed in the original
+    clone.getModel(0).update(null, 0.0);
+    clone.getModel(0).update(null, 0.0);
+    assertEquals(2, ((IdModel)clone.getModel(0)).updates);
+    assertEquals(0, ((IdModel)first).updates);
+    assertEquals(0, ((IdModel)holder.getModel(0)).updates);
+    // and vice versa, also after the modifications of the structure
+    ModelHolder second = (ModelHolder)holder.clone();
+    holder.add(new IdModel(3));
+    holder.getModel(0).update(null, 0.0);
+    assertEquals(1, ((IdModel)holder.getModel(0)).updates);
+    assertEquals(1, ((IdModel)second.getModel(1)).id);
+    assertEquals(0, ((IdModel)second.getModel(1)).updates);
+    ((IdModel)second.remove(2)).update(null, 0.0);
+    assertEquals(2, ((IdModel)holder.getModel(1)).id);
+    assertEquals(0, ((IdModel)holder.getModel(1)).updates);
+    // the models that are accessed again are not copied again
+    assertSame(holder.getModel(2), holder.getModel(2));
+  }
+
+  public void testCloneSameAsBounded() {
+    Random r = new Random(4321);
+    ModelHolder expected = new BoundedModelHolder(5);
+    CircularModelHolder holder = new CircularModelHolder(5);
+    ModelHolder expectedClone = null;
+    ModelHolder clone = null;
+    for (int t = 0; t < 2000; t++) {
+      if (t % 7 == 0) {
+        expectedClone = (ModelHolder)expected.clone();
+        clone = (ModelHolder)holder.clone();
+      }
+      ModelHolder e = r.nextBoolean() ? expected : expectedClone;
+      ModelHolder h = e == expected ? holder : clone;
+      int op = r.nextInt(10);
+      if (op < 6 || e.size() == 0) {
+        e.add(new IdModel(t));
+        h.add(new IdModel(t));
+      } else if (op < 8) {
+        int index = r.nextInt(e.size());
+        assertEquals(((IdModel)e.remove(index)).id, ((IdModel)h.remove(index)).id);
+      } else if (op < 9) {
+        int index = r.nextInt(e.size());
+        e.setModel(index, new IdModel(-t));
+        h.setModel(index, new IdModel(-t));
+      } else {
+        e.clear();
+        h.clear();
+      }
+      assertSameIds(expected, holder);
+      assertSameIds(expectedClone, clone);
+    }
+  }
+
+}
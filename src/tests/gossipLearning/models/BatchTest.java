@@ -0,0 +1,109 @@
+package tests.gossipLearning.models;
+
+import gossipLearning.CSRInstanceHolder;
+import gossipLearning.InstanceHolder;
+import gossipLearning.interfaces.BatchPredictable;
+import gossipLearning.interfaces.BatchUpdatable;
+import gossipLearning.interfaces.Model;
+import gossipLearning.interfaces.ProbabilityModel;
+import gossipLearning.models.LogisticRegression;
+import gossipLearning.models.P2Pegasos;
+import gossipLearning.models.clusterer.KMeans;
+import gossipLearning.models.multiClassLearners.MultiLogReg;
+import gossipLearning.models.regression.LinearRegression;
+import gossipLearning.utils.SparseVector;
+import gossipLearning.utils.Utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class BatchTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -2371840021863526105L;
+
+  private static InstanceHolder createInstances(Random r, int numberOfClasses) {
+    InstanceHolder instances = new CSRInstanceHolder(numberOfClasses, 20);
+    for (int i = 0; i < 100; i++) {
+      SparseVector instance = new SparseVector();
+      for (int d = 0; d < 20; d++) {
+        if (r.nextInt(3) == 0) {
+          instance.put(d, r.nextGaussian());
+        }
+      }
+      instances.add(instance, r.nextInt(numberOfClasses));
+    }
+    return instances;
+  }
+
+  private static void checkUpdate(ProbabilityModel model, InstanceHolder instances) {
+    ProbabilityModel sequential = (ProbabilityModel)model.clone();
+    for (int i = 10; i < 90; i++) {
+      sequential.update(instances.getInstance(i), instances.getLabel(i));
+    }
+    Utils.updateModel(model, instances, 10, 90);
+    for (int i = 0; i < instances.size(); i++) {
+      assertTrue(Arrays.equals(sequential.distributionForInstance(instances.getInstance(i)), model.distributionForInstance(instances.getInstance(i))));
+    }
+  }
+
+  private static void checkPredict(Model model, InstanceHolder instances) {
+    for (int i = 0; i < 50; i++) {
+      model.update(instances.getInstance(i), instances.getLabel(i));
+    }
+    double[] predictions = new double[instances.size() + 1];
+    predictions[instances.size()] = -2.0;
+    assertSame(predictions, Utils.predict(model, instances, predictions));
+    for (int i = 0; i < instances.size(); i++) {
+      assertEquals(model.predict(instances.getInstance(i)), predictions[i]);
+    }
+    // the rest of the array is not modified
+    assertEquals(-2.0, predictions[instances.size()]);
+  }
+
+  public void testLogisticRegression() {
+    LogisticRegression model = new LogisticRegression();
+    assertTrue(model instanceof BatchUpdatable);
+    assertTrue(model instanceof BatchPredictable);
+    checkUpdate(model, createInstances(new Random(1), 2));
+    checkPredict(new LogisticRegression(), createInstances(new Random(1), 2));
+  }
+
+  public void testMultiLogReg() {
+    MultiLogReg model = new MultiLogReg();
+    model.setNumberOfClasses(4);
+    checkUpdate(model, createInstances(new Random(2), 4));
+    model = new MultiLogReg();
+    model.setNumberOfClasses(4);
+    checkPredict(model, createInstances(new Random(3), 4));
+  }
+
+  public void testP2Pegasos() {
+    P2Pegasos model = new P2Pegasos();
+    // the updates are performed by the default loop
+    assertFalse(model instanceof BatchUpdatable);
+    checkUpdate(model, createInstances(new Random(3), 2));
+    checkPredict(new P2Pegasos(), createInstances(new Random(2), 2));
+  }
+
+  public void testLinearRegression() {
+    checkPredict(new LinearRegression(), createInstances(new Random(4), 2));
+  }
+
+  public void testDefaultPredictLoop() {
+    KMeans model = new KMeans(3);
+    assertFalse(model instanceof BatchPredictable);
+    checkPredict(model, createInstances(new Random(6), 2));
+  }
+
+  public void testShortArray() {
+    try {
+      Utils.predict(new P2Pegasos(), createInstances(new Random(5), 2), new double[10]);
+      fail("exception is expected");
+    } catch (RuntimeException e) {
+      // the array cannot store all of the predictions
+    }
+  }
+
+}
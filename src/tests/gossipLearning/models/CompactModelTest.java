@@ -0,0 +1,105 @@
+package tests.gossipLearning.models;
+
+import gossipLearning.interfaces.CompactModel;
+import gossipLearning.interfaces.Model;
+import gossipLearning.interfaces.VersionedModel;
+import gossipLearning.models.LogisticRegression;
+import gossipLearning.models.P2Pegasos;
+import gossipLearning.models.multiClassLearners.MultiLogReg;
+import gossipLearning.models.regression.LinearRegression;
+import gossipLearning.protocols.CompactState;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+
+public class CompactModelTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = 4528163702739475150L;
+
+  private static final int DIMENSION = 4;
+  private static final SparseVector[] instances = new SparseVector[]{
+    new SparseVector(new double[]{1.0, -0.5, 0.0, 2.0}),
+    new SparseVector(new double[]{0.0, 1.5, -1.0, 0.5}),
+    new SparseVector(new double[]{-2.0, 0.0, 0.5, 1.0})
+  };
+  private static final double[] labels = new double[]{1.0, 0.0, 1.0};
+
+  public void testLogisticRegression() {
+    checkRoundTrip(new LogisticRegression());
+  }
+
+  public void testPegasos() {
+    checkRoundTrip(new P2Pegasos());
+  }
+
+  public void testLinearRegression() {
+    checkRoundTrip(new LinearRegression());
+  }
+
+  public void testMultiLogReg() {
+    MultiLogReg model = new MultiLogReg();
+    model.setNumberOfClasses(3);
+    assertEquals(2 + 3 * (DIMENSION + 1), model.getRowLength(DIMENSION));
+    checkRoundTrip(model);
+  }
+
+  public void testDimension() {
+    LogisticRegression model = new LogisticRegression();
+    model.update(new SparseVector(new double[]{0.0, 0.0, 0.0, 0.0, 1.0}), 1.0);
+    try {
+      model.store(new double[model.getRowLength(DIMENSION)], 0, DIMENSION);
+      fail("The index of the hyperplane exceeds the dimension!");
+    } catch (RuntimeException e) {
+    }
+  }
+
+  public void testState() {
+    LogisticRegression template = new LogisticRegression();
+    CompactState state = new CompactState(template, DIMENSION, 1, 0);
+    int a = state.allocate(-1);
+    int b = state.allocate(-1);
+    assertEquals(2, state.size());
+    Model model = state.getModel(a);
+    model.update(instances[0], labels[0]);
+    state.setModel(a, model);
+    // the rows are independent, and the copies keep the versions
+    assertEquals(((VersionedModel)model).getVersion(), ((VersionedModel)state.getModel(a)).getVersion());
+    assertEquals(template.getVersion(), ((VersionedModel)state.getModel(b)).getVersion());
+    int c = state.allocate(a);
+    assertEquals(((VersionedModel)model).getVersion(), ((VersionedModel)state.getModel(c)).getVersion());
+    for (int i = 0; i < instances.length; i++) {
+      assertEquals(model.predict(instances[i]), state.getModel(c).predict(instances[i]));
+    }
+  }
+
+  private static void checkRoundTrip(Model model) {
+    for (int i = 0; i < instances.length; i++) {
+      model.update(instances[i], labels[i]);
+    }
+    CompactModel compact = (CompactModel)model;
+    double[] rows = new double[2 * compact.getRowLength(DIMENSION)];
+    int offset = compact.getRowLength(DIMENSION);
+    compact.store(rows, offset, DIMENSION);
+
+    // the flyweight gets the parameters of the stored model
+    Model flyweight = (Model)model.clone();
+    flyweight.update(instances[1], labels[1]);
+    ((CompactModel)flyweight).load(rows, offset, DIMENSION);
+    assertEquals(((VersionedModel)model).getVersion(), ((VersionedModel)flyweight).getVersion());
+    for (int i = 0; i < instances.length; i++) {
+      assertEquals(model.predict(instances[i]), flyweight.predict(instances[i]), 1E-9 * Math.abs(model.predict(instances[i])));
+    }
+
+    // the updates of the loaded model are the same (up to the order of the summation)
+    model.update(instances[2], labels[2]);
+    flyweight.update(instances[2], labels[2]);
+    for (int i = 0; i < instances.length; i++) {
+      assertEquals(model.predict(instances[i]), flyweight.predict(instances[i]), 1E-9 * Math.abs(model.predict(instances[i])));
+    }
+    for (int i = 0; i < offset; i++) {
+      assertEquals(0.0, rows[i]);
+    }
+  }
+
+}
@@ -0,0 +1,80 @@
+package tests.gossipLearning.models;
+
+import gossipLearning.interfaces.Mergeable;
+import gossipLearning.interfaces.ProbabilityModel;
+import gossipLearning.models.MergeableLogisticRegression;
+import gossipLearning.models.MergeablePegasos;
+import gossipLearning.models.multiClassLearners.MergeableMultiLogReg;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class MergeableModelsTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = 8467021316045927213L;
+
+  private static SparseVector randomInstance(Random r) {
+    SparseVector instance = new SparseVector();
+    for (int d = 0; d < 10; d++) {
+      if (r.nextBoolean()) {
+        instance.put(d, r.nextGaussian());
+      }
+    }
+    return instance;
+  }
+
+  private static void train(ProbabilityModel model, Random r, int n) {
+    for (int i = 0; i < n; i++) {
+      model.update(randomInstance(r), r.nextInt(model.getNumberOfClasses()));
+    }
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static void checkMergeInto(ProbabilityModel a, ProbabilityModel b, ProbabilityModel other) {
+    Random r = new Random(42);
+    train(a, r, 20);
+    train(b, r, 30);
+    train(other, r, 5);
+    ProbabilityModel expected = (ProbabilityModel)((Mergeable)a).merge(b);
+    // a model merged with itself is itself
+    assertSame(other, ((Mergeable)other).mergeInto(other, other));
+    // into a recycled model
+    assertSame(other, ((Mergeable)a).mergeInto(other, b));
+    // in place and into the specified model
+    ProbabilityModel aCopy = (ProbabilityModel)a.clone();
+    ProbabilityModel bCopy = (ProbabilityModel)b.clone();
+    ((Mergeable)aCopy).mergeInto(aCopy, b);
+    ((Mergeable)a).mergeInto(bCopy, bCopy);
+    for (int i = 0; i < 20; i++) {
+      SparseVector instance = randomInstance(r);
+      double[] dist = expected.distributionForInstance(instance);
+      assertTrue(Arrays.equals(dist, other.distributionForInstance(instance)));
+      assertTrue(Arrays.equals(dist, aCopy.distributionForInstance(instance)));
+      double[] symmetric = bCopy.distributionForInstance(instance);
+      for (int j = 0; j < dist.length; j++) {
+        assertEquals(dist[j], symmetric[j], 1E-12);
+      }
+    }
+  }
+
+  public void testMergeablePegasos() {
+    checkMergeInto(new MergeablePegasos(), new MergeablePegasos(), new MergeablePegasos());
+  }
+
+  public void testMergeableLogisticRegression() {
+    checkMergeInto(new MergeableLogisticRegression(), new MergeableLogisticRegression(), new MergeableLogisticRegression());
+  }
+
+  public void testMergeableMultiLogReg() {
+    MergeableMultiLogReg[] models = new MergeableMultiLogReg[3];
+    for (int i = 0; i < models.length; i++) {
+      models[i] = new MergeableMultiLogReg();
+      models[i].setNumberOfClasses(3);
+    }
+    checkMergeInto(models[0], models[1], models[2]);
+  }
+
+}
@@ -0,0 +1,59 @@
+package tests.gossipLearning.models;
+
+import gossipLearning.interfaces.Model;
+import gossipLearning.interfaces.VersionedModel;
+import gossipLearning.models.MergeableLogisticRegression;
+import gossipLearning.models.MergeablePegasos;
+import gossipLearning.models.multiClassLearners.MergeableMultiLogReg;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+
+public class VersionedModelTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -3087526390714620834L;
+
+  private static final SparseVector instance = new SparseVector(new double[]{1.0, -0.5, 2.0});
+
+  public void testLogisticRegression() {
+    MergeableLogisticRegression a = new MergeableLogisticRegression();
+    MergeableLogisticRegression b = new MergeableLogisticRegression();
+    assertTrue(a.getVersion() != b.getVersion());
+
+    // a copy has the same parameters, hence the same version
+    MergeableLogisticRegression copy = (MergeableLogisticRegression)a.clone();
+    assertEquals(a.getVersion(), copy.getVersion());
+
+    long version = a.getVersion();
+    a.update(instance, 1.0);
+    assertTrue(version != a.getVersion());
+    assertEquals(version, copy.getVersion());
+
+    version = a.getVersion();
+    MergeableLogisticRegression merged = a.merge(b);
+    assertEquals(version, a.getVersion());
+    assertTrue(merged.getVersion() != version && merged.getVersion() != b.getVersion());
+    a.mergeInto(a, b);
+    assertTrue(version != a.getVersion());
+  }
+
+  public void testPegasos() {
+    checkUpdate(new MergeablePegasos(), 1.0);
+  }
+
+  public void testMultiLogReg() {
+    MergeableMultiLogReg model = new MergeableMultiLogReg();
+    model.setNumberOfClasses(3);
+    checkUpdate(model, 2.0);
+  }
+
+  private static void checkUpdate(Model model, double label) {
+    long version = ((VersionedModel)model).getVersion();
+    model.predict(instance);
+    assertEquals(version, ((VersionedModel)model).getVersion());
+    model.update(instance, label);
+    assertTrue(version != ((VersionedModel)model).getVersion());
+  }
+
+}
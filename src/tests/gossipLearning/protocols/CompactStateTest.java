@@ -0,0 +1,135 @@
+package tests.gossipLearning.protocols;
+
+import gossipLearning.CSRInstanceHolder;
+import gossipLearning.InstanceHolder;
+import gossipLearning.InstanceHolderSlice;
+import gossipLearning.interfaces.CompactModel;
+import gossipLearning.interfaces.Model;
+import gossipLearning.interfaces.VersionedModel;
+import gossipLearning.protocols.CompactLearningProtocol;
+import gossipLearning.protocols.CompactState;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import peersim.config.Configuration;
+import peersim.config.ParsedProperties;
+import peersim.core.CommonState;
+import peersim.core.Fallible;
+import peersim.core.Network;
+import peersim.util.ExtendedRandom;
+
+public class CompactStateTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = 7405519738220618384L;
+  private static final int DIMENSION = 4;
+  private static boolean isConfigured = false;
+  private static int pid;
+  private CompactState state;
+  private InstanceHolder source;
+
+  @Override
+  public void setUp() throws Exception {
+    if (!isConfigured) {
+      Configuration.setConfig(new ParsedProperties(new String[]{
+        "res/config/no_failure_compact_learner.txt",
+        "C 1",
+        "NETWORKSIZE 8",
+        "DIMENSION " + DIMENSION
+      }));
+      pid = Configuration.lookupPid("learningProtocol");
+      isConfigured = true;
+    }
+    CommonState.r = new ExtendedRandom(Configuration.getLong("random.seed"));
+    Network.reset();
+    state = ((CompactLearningProtocol)Network.prototype.getProtocol(pid)).getState();
+    source = new CSRInstanceHolder(2, DIMENSION);
+    for (int i = 0; i < Network.size(); i++) {
+      source.add(new SparseVector(new double[]{i % 3, 1.0 - i, 0.5 * i, 1.0}), i % 2);
+    }
+    // the nodes have different models
+    for (int i = 0; i < Network.size(); i++) {
+      CompactLearningProtocol protocol = (CompactLearningProtocol)Network.get(i).getProtocol(pid);
+      protocol.setInstenceHolder(new InstanceHolderSlice(source, i, 1, false));
+      Model model = state.getModel(protocol.getRow());
+      for (int j = 0; j <= i; j++) {
+        model.update(source.getInstance(j), source.getLabel(j));
+      }
+      state.setModel(protocol.getRow(), model);
+    }
+  }
+
+  /**
+   * Returns the index of the node whose model of the specified models was received by the
+   * specified node, or -1 if the model of the node was not changed. The models are 
+   * compared by their stored parameters except the version stamp (the first value).
+   */
+  private int findSender(Model[] models, int node) {
+    int row = ((CompactLearningProtocol)Network.get(node).getProtocol(pid)).getRow();
+    double[] values = store(state.getModel(row));
+    if (((VersionedModel)state.getModel(row)).getVersion() == ((VersionedModel)models[node]).getVersion()) {
+      return -1;
+    }
+    for (int sender = 0; sender < models.length; sender++) {
+      Model expected = (Model)models[sender].clone();
+      expected.update(source.getInstance(node), source.getLabel(node));
+      double[] expectedValues = store(expected);
+      boolean isEqual = sender != node;
+      for (int i = 1; i < values.length && isEqual; i++) {
+        isEqual = Math.abs(expectedValues[i] - values[i]) <= 1E-9 * Math.abs(expectedValues[i]);
+      }
+      if (isEqual) {
+        return sender;
+      }
+    }
+    fail("The model of node " + node + " is not a received model of the start of the cycle!");
+    return -1;
+  }
+
+  private double[] store(Model model) {
+    CompactModel compact = (CompactModel)model;
+    double[] values = new double[compact.getRowLength(DIMENSION)];
+    compact.store(values, 0, DIMENSION);
+    return values;
+  }
+
+  private Model[] getModels() {
+    Model[] models = new Model[Network.size()];
+    for (int i = 0; i < models.length; i++) {
+      models[i] = state.getModel(((CompactLearningProtocol)Network.get(i).getProtocol(pid)).getRow());
+    }
+    return models;
+  }
+
+  public void testCycle() {
+    Random random = new Random(1234567890);
+    for (int t = 0; t < 10; t++) {
+      Model[] models = getModels();
+      int numOfUpdates = state.cycle(pid, random);
+      int numOfReceivers = 0;
+      for (int i = 0; i < models.length; i++) {
+        if (findSender(models, i) >= 0) {
+          numOfReceivers ++;
+        }
+      }
+      assertEquals(numOfReceivers, numOfUpdates);
+      assertTrue(numOfUpdates > 0);
+    }
+  }
+
+  public void testSwap() {
+    for (int i = 2; i < Network.size(); i++) {
+      Network.get(i).setFailState(Fallible.DOWN);
+    }
+    // the two online nodes send their models to each other
+    Model[] models = getModels();
+    assertEquals(2, state.cycle(pid, new Random(1234567890)));
+    assertEquals(1, findSender(models, 0));
+    assertEquals(0, findSender(models, 1));
+    for (int i = 2; i < Network.size(); i++) {
+      assertEquals(-1, findSender(models, i));
+    }
+  }
+
+}
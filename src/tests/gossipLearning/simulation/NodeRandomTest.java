@@ -0,0 +1,51 @@
+package tests.gossipLearning.simulation;
+
+import gossipLearning.simulation.NodeRandom;
+
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+import peersim.util.ExtendedRandom;
+
+public class NodeRandomTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -1180526771482926151L;
+
+  public void testStreams() {
+    ExtendedRandom base = new ExtendedRandom(1);
+    ExtendedRandom expectedBase = new ExtendedRandom(1);
+    NodeRandom random = new NodeRandom(base);
+    assertSame(base, random.getStream());
+    assertEquals(expectedBase.nextInt(100), random.nextInt(100));
+
+    // the numbers of the stream do not depend on the base generator
+    ExtendedRandom stream = new ExtendedRandom(2);
+    ExtendedRandom expectedStream = new ExtendedRandom(2);
+    random.setStream(stream);
+    assertSame(stream, random.getStream());
+    assertEquals(2, random.getLastSeed());
+    assertEquals(expectedStream.nextDouble(), random.nextDouble());
+    assertEquals(expectedStream.nextLong(50), random.nextLong(50));
+
+    random.setStream(null);
+    assertEquals(expectedBase.nextGaussian(), random.nextGaussian());
+  }
+
+  public void testThreads() throws InterruptedException {
+    final NodeRandom random = new NodeRandom(new ExtendedRandom(1));
+    final ExtendedRandom stream = new ExtendedRandom(2);
+    random.setStream(stream);
+    final ExtendedRandom[] other = new ExtendedRandom[1];
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        other[0] = random.getStream();
+      }
+    };
+    thread.start();
+    thread.join();
+    // the stream is set for the current thread only
+    assertSame(random.getBase(), other[0]);
+    assertSame(stream, random.getStream());
+  }
+
+}
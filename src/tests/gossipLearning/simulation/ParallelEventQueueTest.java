@@ -0,0 +1,151 @@
+package tests.gossipLearning.simulation;
+
+import gossipLearning.simulation.ParallelEventQueue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+import peersim.config.Configuration;
+import peersim.config.ParsedProperties;
+import peersim.core.CommonState;
+import peersim.core.Network;
+import peersim.core.Node;
+import peersim.edsim.EDProtocol;
+import peersim.edsim.PriorityQ;
+import peersim.util.ExtendedRandom;
+
+public class ParallelEventQueueTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = 4315290765170871466L;
+  private static final String[] simulation = new String[]{
+    "res/config/no_failure_applying_more_learners_parallel.txt",
+    "C 5",
+    "NETWORKSIZE 40",
+    "init.instanceLoader.trainingFile res/db/iris_setosa_versicolor_train.dat",
+    "init.instanceLoader.evaluationFile res/db/iris_setosa_versicolor_eval.dat"
+  };
+  private static boolean isConfigured = false;
+  private static ParallelEventQueue queue;
+
+  /**
+   * Protocol that logs its events, and sends the events of the form
+   * {destination index, delay, event} (to itself if the destination is its node).
+   */
+  public static class RecordingProtocol implements EDProtocol<Object> {
+    private final ArrayList<Object> log = new ArrayList<Object>();
+    public RecordingProtocol(String prefix) {
+    }
+    public Object clone() {
+      return new RecordingProtocol(null);
+    }
+    public void processEvent(Node node, int pid, Object event) {
+      if (event instanceof Object[]) {
+        Object[] send = (Object[])event;
+        queue.add(CommonState.getTime() + (Long)send[1], send[2], Network.get((Integer)send[0]), (byte)pid);
+      } else {
+        log.add(event);
+      }
+    }
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    if (!isConfigured) {
+      Configuration.setConfig(new ParsedProperties(new String[]{
+        simulation[0],
+        "NETWORKSIZE 20",
+        "protocol.recorder tests.gossipLearning.simulation.ParallelEventQueueTest$RecordingProtocol",
+        "queue.lookahead 10",
+        "queue.threads 3"
+      }));
+      CommonState.setEndTime(100);
+      isConfigured = true;
+    }
+    CommonState.r = new ExtendedRandom(Configuration.getLong("random.seed"));
+    CommonState.setTime(0);
+    Network.reset();
+  }
+
+  public void testWindows() {
+    queue = new ParallelEventQueue("queue");
+    byte pid = (byte)Configuration.lookupPid("recorder");
+    Node node0 = Network.get(0);
+    Node node1 = Network.get(1);
+    queue.add(5, "a", node0, pid);
+    queue.add(3, new Object[]{0, 1L, "c"}, node0, pid);
+    queue.add(3, new Object[]{1, 10L, "m"}, node0, pid);
+    queue.add(3, "b", node0, pid);
+    queue.add(12, "control", null, pid);
+    queue.add(2, "d", node1, pid);
+
+    // the first window is [2, 12), the message of node 0 arrives after it
+    PriorityQ.Event event = queue.removeFirst();
+    assertEquals("control", event.event);
+    assertEquals(12, event.time);
+    RecordingProtocol recorder0 = (RecordingProtocol)node0.getProtocol(pid);
+    RecordingProtocol recorder1 = (RecordingProtocol)node1.getProtocol(pid);
+    // the events of a node are processed in time order including its own events
+    assertEquals("[b, c, a]", recorder0.log.toString());
+    assertEquals("[d]", recorder1.log.toString());
+    assertEquals(1, queue.size());
+
+    assertNull(queue.removeFirst());
+    assertEquals("[d, m]", recorder1.log.toString());
+    assertEquals(0, queue.size());
+
+    // the messages to the other nodes have to arrive after the window
+    queue.add(20, new Object[]{1, 5L, "late"}, node0, pid);
+    try {
+      queue.removeFirst();
+      fail("exception is expected");
+    } catch (RuntimeException e) {
+      // the delay is less than the lookahead
+    }
+  }
+
+  /**
+   * The simulations are run in separate JVMs, since the IDs of the nodes (and so the seeds 
+   * of their random streams) are not reset by the simulator.
+   */
+  public void testThreads() throws Exception {
+    String expected = execute(1);
+    assertTrue(expected.length() > 0);
+    assertEquals(expected, execute(4));
+  }
+
+  /**
+   * Runs the simulation by the specified number of threads, and returns its printed output.
+   */
+  private static String execute(int threads) throws Exception {
+    ArrayList<String> command = new ArrayList<String>();
+    command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add("peersim.Simulator");
+    for (String property : simulation) {
+      command.add(property);
+    }
+    command.add("simulation.eventqueue.threads " + threads);
+    File err = File.createTempFile("simulation", ".err");
+    try {
+      ProcessBuilder builder = new ProcessBuilder(command);
+      builder.redirectError(err);
+      Process process = builder.start();
+      InputStream in = process.getInputStream();
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[1 << 12];
+      for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+        out.write(buffer, 0, n);
+      }
+      in.close();
+      assertEquals(0, process.waitFor());
+      return out.toString();
+    } finally {
+      err.delete();
+    }
+  }
+
+}
@@ -0,0 +1,164 @@
+package tests.gossipLearning.simulation;
+
+import gossipLearning.interfaces.Churnable;
+import gossipLearning.interfaces.LearningProtocol;
+import gossipLearning.interfaces.Model;
+import gossipLearning.interfaces.ModelHolder;
+import gossipLearning.simulation.CycleTransport;
+import gossipLearning.simulation.SynchronousCycle;
+import gossipLearning.utils.SparseVector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+import peersim.config.Configuration;
+import peersim.config.ParsedProperties;
+import peersim.core.CommonState;
+import peersim.core.Control;
+import peersim.core.Fallible;
+import peersim.core.Network;
+import peersim.core.Node;
+import peersim.dynamics.WireKOut;
+import peersim.edsim.EDSimulator;
+import peersim.util.ExtendedRandom;
+
+public class SynchronousCycleTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -8244176418093624917L;
+  private static boolean isConfigured = false;
+  private static int pid;
+
+  /**
+   * Model that is identified by its stamp, the copies have the same stamp.
+   */
+  public static class StampModel implements Model {
+    private static final long serialVersionUID = 1L;
+    private int stamp = -1;
+    public Object clone() {
+      StampModel result = new StampModel();
+      result.stamp = stamp;
+      return result;
+    }
+    public void init(String prefix) {
+    }
+    public void update(SparseVector instance, double label) {
+    }
+    public double predict(SparseVector instance) {
+      return 0.0;
+    }
+    public int getNumberOfClasses() {
+      return 2;
+    }
+    public void setNumberOfClasses(int numberOfClasses) {
+    }
+  }
+
+  /**
+   * Control that starts a new session of the first node, like the ChurnControl does for 
+   * the nodes that come online.
+   */
+  public static class SessionControl implements Control {
+    public SessionControl(String prefix) {
+    }
+    public boolean execute() {
+      Node node = Network.get(0);
+      ((Churnable)node.getProtocol(pid)).initSession(node, pid);
+      return false;
+    }
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    if (!isConfigured) {
+      Configuration.setConfig(new ParsedProperties(new String[]{
+        "res/config/no_failure_applying_more_learners_cycle_driven.txt",
+        "C 5",
+        "NETWORKSIZE 30",
+        "protocol.learningProtocol gossipLearning.protocols.SimpleLearningProtocol",
+        "protocol.learningProtocol.modelHolderName gossipLearning.modelHolders.BoundedModelHolder",
+        "protocol.learningProtocol.modelName tests.gossipLearning.simulation.SynchronousCycleTest$StampModel",
+        "protocol.learningProtocol.capacity 100",
+        "init.instanceLoader.trainingFile res/db/iris_setosa_versicolor_train.dat",
+        "init.instanceLoader.evaluationFile res/db/iris_setosa_versicolor_eval.dat",
+        "control.session tests.gossipLearning.simulation.SynchronousCycleTest$SessionControl",
+        "control.session.step DELAY_MEAN",
+        "order.control prediction cycle session"
+      }));
+      pid = Configuration.lookupPid("learningProtocol");
+      isConfigured = true;
+    }
+    CommonState.r = new ExtendedRandom(Configuration.getLong("random.seed"));
+    CommonState.setTime(0);
+    Network.reset();
+    new WireKOut("init.overlayInit").execute();
+    for (int i = 0; i < Network.size(); i++) {
+      ((StampModel)getModelHolder(Network.get(i)).getModel(0)).stamp = i;
+    }
+  }
+
+  private static ModelHolder getModelHolder(Node node) {
+    return ((LearningProtocol)node.getProtocol(pid)).getModelHolder(0);
+  }
+
+  /**
+   * Returns how many times the models of the nodes were received in the cycle.
+   */
+  private static int[] executeCycle() {
+    new SynchronousCycle("control.cycle").execute();
+    assertEquals(0, CycleTransport.size());
+    int[] received = new int[Network.size()];
+    for (int i = 0; i < Network.size(); i++) {
+      ModelHolder holder = getModelHolder(Network.get(i));
+      for (int j = 1; j < holder.size(); j++) {
+        received[((StampModel)holder.getModel(j)).stamp] ++;
+      }
+    }
+    return received;
+  }
+
+  public void testCycle() {
+    // each node sends its model of the start of the cycle once
+    int[] received = executeCycle();
+    for (int i = 0; i < received.length; i++) {
+      assertEquals(1, received[i]);
+    }
+  }
+
+  public void testOfflineNodes() {
+    for (int i = 0; i < Network.size(); i += 3) {
+      Network.get(i).setFailState(Fallible.DOWN);
+    }
+    int[] received = executeCycle();
+    int numOfReceived = 0;
+    for (int i = 0; i < received.length; i++) {
+      if (i % 3 == 0) {
+        // the offline nodes do not send, and the messages to them are dropped
+        assertEquals(0, received[i]);
+        assertEquals(1, getModelHolder(Network.get(i)).size());
+      } else {
+        assertTrue(received[i] <= 1);
+      }
+      numOfReceived += received[i];
+    }
+    assertTrue(numOfReceived > 0);
+  }
+
+  public void testSession() {
+    PrintStream out = System.out;
+    System.setOut(new PrintStream(new ByteArrayOutputStream()));
+    try {
+      EDSimulator.nextExperiment();
+    } finally {
+      System.setOut(out);
+    }
+    // the new sessions do not add active thread alarms, so the nodes send once per cycle
+    int numOfCycles = Configuration.getInt("C") + 1;
+    int numOfReceived = 0;
+    for (int i = 0; i < Network.size(); i++) {
+      numOfReceived += getModelHolder(Network.get(i)).size() - 1;
+    }
+    assertEquals(numOfCycles * Network.size(), numOfReceived);
+  }
+
+}
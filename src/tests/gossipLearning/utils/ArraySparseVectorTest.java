@@ -1,91 +1,237 @@
-package tests.gossipLearning.utils;
-
-import gossipLearning.utils.SparseVector;
-
-import java.io.Serializable;
-
-import junit.framework.TestCase;
-
-public class ArraySparseVectorTest extends TestCase implements Serializable {
-  private static final long serialVersionUID = -3392393660556646822L;
-  
-  public void testClone() {
-    SparseVector vector = new SparseVector();
-    vector.put(1, 1.0);
-    vector.put(2, 1.2);
-    SparseVector vectorClone = (SparseVector)vector.clone();
-    assertEquals(vector.toString(), vectorClone.toString());
-    vector.remove(10);
-    assertEquals(vector.toString(), vectorClone.toString());
-    vector.remove(2);
-    assertFalse(vector.toString().equals(vectorClone.toString()));
-  }
-  
-  public void testEquals() {
-    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
-    SparseVector v2 = new SparseVector(new double[]{1,0,0,2});
-    assertEquals(v1, v2);
-  }
-  
-  public void testMul() {
-    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
-    SparseVector v2 = new SparseVector(new double[]{1,2,3,4});
-    assertEquals(v1.mul(v2), 9.0);
-  }
-  
-  public void testMul2() {
-    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
-    SparseVector v2 = new SparseVector(new double[]{1.8,0,0,3.6});
-    SparseVector v3 = new SparseVector(new double[]{});
-    assertEquals(v1.mul(1.8), v2);
-    assertEquals(v1.mul(0.0), v3);
-  }
-  
-  public void testGet() {
-    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
-    assertEquals(v1.get(-1), 0.0);
-    assertEquals(v1.get(3), 2.0);
-    assertEquals(v1.get(Integer.MAX_VALUE), 0.0);
-  }
-  
-  public void testPut() {
-    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
-    SparseVector v2 = new SparseVector(new double[]{1,0,0,2,0,0,8});
-    SparseVector v3 = new SparseVector(new double[]{1,0.2,0,2,0,0,8});
-    SparseVector v4 = new SparseVector(new double[]{10,0.2,0,2,0,0,8});
-    SparseVector v5 = new SparseVector(new double[]{0,0.2,0,2,0,0,8});
-    v1.put(6, 8.0);
-    assertEquals(v1, v2);
-    v1.put(1, 0.2);
-    assertEquals(v1, v3);
-    v1.put(0, 10.0);
-    assertEquals(v1, v4);
-    v1.put(0, 0.0);
-    assertEquals(v1, v5);
-  }
-  
-  public void testRemove() {
-    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
-    SparseVector v2 = new SparseVector(new double[]{1,0,0,2});
-    SparseVector v3 = new SparseVector(new double[]{0,0,0,2});
-    v1.remove(1);
-    assertEquals(v1, v2);
-    v1.remove(0);
-    assertEquals(v1, v3);
-  }
-  
-  public void testAdd() {
-    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
-    SparseVector v2 = new SparseVector(new double[]{0.1,3,0,2,0,1.1});
-    SparseVector v3 = new SparseVector(new double[]{1.1,3,0,4,0,1.1});
-    SparseVector v4 = new SparseVector(new double[]{1.2,6,0,6,0,2.2});
-    SparseVector v5 = new SparseVector(new double[]{0,0,0,2});
-    SparseVector v6 = new SparseVector(new double[]{-0.5});
-    assertEquals(v1.add(v2), v3);
-    v1 = new SparseVector(new double[]{1,0,0,2});
-    assertEquals(v1.add(v2, 2.0), v4);
-    v1 = new SparseVector(new double[]{1,0,0,2});
-    assertEquals(v1.add(v6, 2.0), v5);
-  }
-
-}
+package tests.gossipLearning.utils;
+
+import gossipLearning.utils.DenseVector;
+import gossipLearning.utils.SparseVector;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class ArraySparseVectorTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -3392393660556646822L;
+  
+  public void testClone() {
+    SparseVector vector = new SparseVector();
+    vector.put(1, 1.0);
+    vector.put(2, 1.2);
+    SparseVector vectorClone = (SparseVector)vector.clone();
+    assertEquals(vector.toString(), vectorClone.toString());
+    vector.remove(10);
+    assertEquals(vector.toString(), vectorClone.toString());
+    vector.remove(2);
+    assertFalse(vector.toString().equals(vectorClone.toString()));
+  }
+  
+  public void testEquals() {
+    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
+    SparseVector v2 = new SparseVector(new double[]{1,0,0,2});
+    assertEquals(v1, v2);
+  }
+  
+  public void testMul() {
+    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
+    SparseVector v2 = new SparseVector(new double[]{1,2,3,4});
+    assertEquals(v1.mul(v2), 9.0);
+  }
+  
+  public void testMul2() {
+    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
+    SparseVector v2 = new SparseVector(new double[]{1.8,0,0,3.6});
+    SparseVector v3 = new SparseVector(new double[]{});
+    assertEquals(v1.mul(1.8), v2);
+    assertEquals(v1.mul(0.0), v3);
+  }
+  
+  public void testGet() {
+    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
+    assertEquals(v1.get(-1), 0.0);
+    assertEquals(v1.get(3), 2.0);
+    assertEquals(v1.get(Integer.MAX_VALUE), 0.0);
+  }
+  
+  public void testPut() {
+    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
+    SparseVector v2 = new SparseVector(new double[]{1,0,0,2,0,0,8});
+    SparseVector v3 = new SparseVector(new double[]{1,0.2,0,2,0,0,8});
+    SparseVector v4 = new SparseVector(new double[]{10,0.2,0,2,0,0,8});
+    SparseVector v5 = new SparseVector(new double[]{0,0.2,0,2,0,0,8});
+    v1.put(6, 8.0);
+    assertEquals(v1, v2);
+    v1.put(1, 0.2);
+    assertEquals(v1, v3);
+    v1.put(0, 10.0);
+    assertEquals(v1, v4);
+    v1.put(0, 0.0);
+    assertEquals(v1, v5);
+  }
+  
+  public void testRemove() {
+    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
+    SparseVector v2 = new SparseVector(new double[]{1,0,0,2});
+    SparseVector v3 = new SparseVector(new double[]{0,0,0,2});
+    v1.remove(1);
+    assertEquals(v1, v2);
+    v1.remove(0);
+    assertEquals(v1, v3);
+  }
+  
+  public void testAdd() {
+    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
+    SparseVector v2 = new SparseVector(new double[]{0.1,3,0,2,0,1.1});
+    SparseVector v3 = new SparseVector(new double[]{1.1,3,0,4,0,1.1});
+    SparseVector v4 = new SparseVector(new double[]{1.2,6,0,6,0,2.2});
+    SparseVector v5 = new SparseVector(new double[]{0,0,0,2});
+    SparseVector v6 = new SparseVector(new double[]{-0.5});
+    assertEquals(v1.add(v2), v3);
+    v1 = new SparseVector(new double[]{1,0,0,2});
+    assertEquals(v1.add(v2, 2.0), v4);
+    v1 = new SparseVector(new double[]{1,0,0,2});
+    assertEquals(v1.add(v6, 2.0), v5);
+  }
+
+  public void testAddMerge() {
+    SparseVector v1 = new SparseVector(new double[]{1,0,3,0,5});
+    SparseVector v2 = new SparseVector(new double[]{0,2,-3,4,0,0,7});
+    SparseVector v3 = new SparseVector(new double[]{1,2,0,4,5,0,7});
+    assertEquals(v1.add(v2), v3);
+    assertEquals(5, v1.size());
+    assertEquals(v1.add(v1, 1.0), v3.mul(2.0));
+    
+    // compares the merge to the sequential put based addition
+    Random r = new Random(1234567890);
+    for (int t = 0; t < 100; t++) {
+      SparseVector a = new SparseVector(1);
+      SparseVector b = new SparseVector(1);
+      for (int i = 0; i < 50; i++) {
+        a.put(r.nextInt(100), r.nextInt(5) - 2);
+        b.put(r.nextInt(100), r.nextInt(5) - 2);
+      }
+      SparseVector expected = new SparseVector(a);
+      for (int i = 0; i < 100; i++) {
+        expected.put(i, expected.get(i) + b.get(i) * 0.5);
+      }
+      assertEquals(expected, a.add(b, 0.5));
+      assertEquals(expected.toString(), a.toString());
+    }
+  }
+
+  public void testScale() {
+    SparseVector v1 = new SparseVector(new double[]{1,0,0,2});
+    SparseVector v2 = new SparseVector(new double[]{0,4,0,2});
+    v1.mul(0.5);
+    assertEquals(1.0, v1.get(3));
+    assertEquals(0.5 * Math.sqrt(5.0), v1.norm(), 1E-12);
+    assertEquals(2.0, v1.mul(v2));
+    v1.add(v2, 2.0);
+    assertEquals(new SparseVector(new double[]{0.5,8,0,5}), v1);
+    v1.put(2, 3.0);
+    assertEquals(3.0, v1.get(2));
+    assertEquals(3.0, v1.remove(2));
+    
+    // repeated scaling should not underflow the stored values
+    for (int i = 0; i < 1000; i++) {
+      v1.mul(0.5);
+    }
+    for (int i = 0; i < 1000; i++) {
+      v1.mul(2.0);
+    }
+    assertEquals("{0=0.5, 1=8.0, 3=5.0}", v1.toString());
+  }
+
+  public void testDenseArrayMul() {
+    Random r = new Random(1234);
+    for (int t = 0; t < 200; t++) {
+      SparseVector a = new SparseVector();
+      SparseVector b = new SparseVector();
+      // both branches of the order of the scale factors are covered by the sizes
+      int sizeA = 1 + r.nextInt(t % 2 == 0 ? 100 : 5);
+      int sizeB = 1 + r.nextInt(t % 2 == 0 ? 5 : 100);
+      for (int i = 0; i < sizeA; i++) {
+        a.put(r.nextInt(200), r.nextGaussian());
+      }
+      for (int i = 0; i < sizeB; i++) {
+        b.put(r.nextInt(300), r.nextGaussian());
+      }
+      a.mul(r.nextDouble() + 0.1);
+      b.mul(r.nextDouble() + 0.1);
+      double[] dense = a.toDenseArray(1000);
+      assertEquals(a.maxIndex() + 1, dense.length);
+      assertEquals(a.mul(b), a.mul(b, dense));
+      assertEquals(a.mul(b), a.mul(b, null));
+    }
+    SparseVector v = new SparseVector(new double[]{0,1,0,2});
+    assertNull(v.toDenseArray(3));
+    assertEquals(4, v.toDenseArray(4).length);
+  }
+
+  public void testIndexAt() {
+    SparseVector v = new SparseVector(new double[]{0,1,0,2});
+    v.mul(2.0);
+    assertEquals(2, v.size());
+    assertEquals(1, v.indexAt(0));
+    assertEquals(2.0, v.valueAt(0));
+    assertEquals(3, v.indexAt(1));
+    assertEquals(4.0, v.valueAt(1));
+    try {
+      v.valueAt(2);
+      fail();
+    } catch (ArrayIndexOutOfBoundsException e) {
+    }
+    // the entries before the offset of a view are not accessible
+    SparseVector view = new SparseVector(new int[]{0, 2, 5}, new double[]{1.0, 2.0, 3.0}, 1, 2);
+    assertEquals(2, view.indexAt(0));
+    try {
+      view.indexAt(-1);
+      fail();
+    } catch (ArrayIndexOutOfBoundsException e) {
+    }
+    try {
+      view.valueAt(-1);
+      fail();
+    } catch (ArrayIndexOutOfBoundsException e) {
+    }
+  }
+
+  public void testSerialization() throws Exception {
+    SparseVector sparse = new SparseVector(new double[]{1,0,0,2});
+    sparse.mul(0.5);
+    assertEquals(sparse, copy(sparse));
+    DenseVector dense = new DenseVector(new double[]{1,0,0,2});
+    dense.mul(0.5);
+    assertEquals(dense, copy(dense));
+    
+    // the vectors serialized without the scale factor read it as 0.0
+    sparse = new SparseVector(new double[]{1,0,0,2});
+    setScale(SparseVector.class, sparse, 0.0);
+    assertEquals(new SparseVector(new double[]{1,0,0,2}), copy(sparse));
+    dense = new DenseVector(new double[]{1,0,0,2});
+    setScale(DenseVector.class, dense, 0.0);
+    assertEquals(new DenseVector(new double[]{1,0,0,2}), copy(dense));
+  }
+
+  private static void setScale(Class<?> type, Object vector, double scale) throws Exception {
+    Field field = type.getDeclaredField("scale");
+    field.setAccessible(true);
+    field.setDouble(vector, scale);
+  }
+
+  private static Object copy(Object object) throws Exception {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(buffer);
+    out.writeObject(object);
+    out.close();
+    ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+    try {
+      return in.readObject();
+    } finally {
+      in.close();
+    }
+  }
+
+}
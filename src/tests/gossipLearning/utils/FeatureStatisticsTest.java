@@ -0,0 +1,72 @@
+package tests.gossipLearning.utils;
+
+import gossipLearning.utils.FeatureStatistics;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class FeatureStatisticsTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -3207152790453913218L;
+
+  private static SparseVector[] randomInstances(Random r, int size) {
+    SparseVector[] instances = new SparseVector[size];
+    for (int i = 0; i < size; i++) {
+      instances[i] = new SparseVector();
+      for (int j = 0; j < 30; j++) {
+        if (r.nextDouble() < 0.3) {
+          // large offset makes the E[x^2]-E[x]^2 formula inaccurate
+          instances[i].put(j, 1E6 + j + r.nextGaussian());
+        }
+      }
+    }
+    return instances;
+  }
+
+  public void testTwoPassEquivalence() {
+    SparseVector[] instances = randomInstances(new Random(1234), 500);
+    FeatureStatistics statistics = new FeatureStatistics();
+    for (SparseVector instance : instances) {
+      statistics.add(instance);
+    }
+    assertEquals(500, statistics.getNumberOfInstances());
+    SparseVector means = statistics.getMeans();
+    SparseVector devs = statistics.getDevs();
+    for (int j = 0; j < 30; j++) {
+      double mean = 0.0;
+      for (SparseVector instance : instances) {
+        mean += instance.get(j);
+      }
+      mean /= instances.length;
+      double var = 0.0;
+      for (SparseVector instance : instances) {
+        var += (instance.get(j) - mean) * (instance.get(j) - mean);
+      }
+      var /= instances.length;
+      assertEquals(mean, means.get(j), 1E-9 * Math.abs(mean));
+      assertEquals(Math.sqrt(var), devs.get(j), 1E-9 * Math.sqrt(var));
+    }
+  }
+
+  public void testMerge() {
+    SparseVector[] instances = randomInstances(new Random(4321), 300);
+    FeatureStatistics expected = new FeatureStatistics();
+    FeatureStatistics[] parts = {new FeatureStatistics(), new FeatureStatistics(), new FeatureStatistics()};
+    for (int i = 0; i < instances.length; i++) {
+      expected.add(instances[i]);
+      parts[i < 50 ? 0 : i < 250 ? 1 : 2].add(instances[i]);
+    }
+    FeatureStatistics merged = new FeatureStatistics();
+    for (FeatureStatistics part : parts) {
+      merged.merge(part);
+    }
+    assertEquals(expected.getNumberOfInstances(), merged.getNumberOfInstances());
+    for (int j = 0; j < 30; j++) {
+      assertEquals(expected.getMeans().get(j), merged.getMeans().get(j), 1E-6);
+      assertEquals(expected.getDevs().get(j), merged.getDevs().get(j), 1E-6);
+    }
+  }
+
+}
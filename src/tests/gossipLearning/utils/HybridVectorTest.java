@@ -0,0 +1,70 @@
+package tests.gossipLearning.utils;
+
+import gossipLearning.utils.HybridVector;
+import gossipLearning.utils.SparseVector;
+
+import java.io.Serializable;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class HybridVectorTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = 4005622364734826512L;
+
+  public void testPromotion() {
+    HybridVector v = new HybridVector(0.5);
+    v.put(0, 1.0);
+    v.put(9, 2.0);
+    assertFalse(v.isDense());
+    v.add(new SparseVector(new double[]{0,1,1,1,0,0,0,0,0,0}), 2.0);
+    assertTrue(v.isDense());
+    assertEquals(10, v.size());
+    assertEquals(2.0, v.get(1));
+    assertEquals(0.0, v.get(5));
+    assertEquals(9, v.maxIndex());
+    assertEquals("{0=1.0, 1=2.0, 2=2.0, 3=2.0, 9=2.0}", v.toString());
+    assertEquals(new SparseVector(new double[]{1,2,2,2,0,0,0,0,0,2}), v);
+    assertEquals(new SparseVector(new double[]{1,2,2,2,0,0,0,0,0,2}), new SparseVector(v));
+
+    // removing most of the values demotes the vector
+    v.add(new SparseVector(new double[]{0,2,2,2,0,0,0,0,0,0}), -1.0);
+    assertFalse(v.isDense());
+    assertEquals(2, v.size());
+    assertEquals("{0=1.0, 9=2.0}", v.toString());
+  }
+
+  public void testRandomOperations() {
+    Random r = new Random(1234);
+    for (int t = 0; t < 100; t++) {
+      SparseVector expected = new SparseVector();
+      HybridVector v = new HybridVector(0.1 + 0.9 * r.nextDouble());
+      for (int i = 0; i < 50; i++) {
+        SparseVector x = new SparseVector();
+        int length = 1 + r.nextInt(100);
+        for (int j = 0; j < length; j++) {
+          if (r.nextDouble() < 0.3) {
+            x.put(j, r.nextInt(5) - 2);
+          }
+        }
+        double scale = r.nextDouble();
+        double alpha = r.nextInt(3) - 1;
+        assertEquals(expected.mul(x), v.mul(x), 1E-9);
+        assertEquals(x.mul(expected), x.mul(v), 1E-9);
+        assertEquals(v.mul(x), v.mul(x, v.toDenseArray(1000)));
+        expected.mul(scale);
+        v.mul(scale);
+        expected.add(x, alpha);
+        v.add(x, alpha);
+        int index = r.nextInt(120);
+        double value = r.nextInt(2);
+        expected.put(index, value);
+        v.put(index, value);
+        assertEquals(expected.norm(), v.norm(), 1E-9);
+        for (int j = 0; j < 120; j++) {
+          assertEquals(expected.get(j), v.get(j), 1E-9);
+        }
+      }
+    }
+  }
+
+}
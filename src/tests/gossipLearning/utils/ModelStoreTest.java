@@ -0,0 +1,67 @@
+package tests.gossipLearning.utils;
+
+import gossipLearning.interfaces.ModelStore;
+import gossipLearning.utils.HeapModelStore;
+import gossipLearning.utils.OffHeapModelStore;
+
+import java.io.File;
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+
+public class ModelStoreTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = -1902556348815737262L;
+
+  private static final int ROW_LENGTH = 7;
+
+  public void testHeap() {
+    ModelStore store = new HeapModelStore(ROW_LENGTH);
+    checkStore(store);
+    store.close();
+    assertEquals(0, store.capacity());
+  }
+
+  public void testDirect() {
+    OffHeapModelStore store = new OffHeapModelStore(ROW_LENGTH, null);
+    assertFalse(store.isMapped());
+    checkStore(store);
+  }
+
+  public void testMapped() {
+    OffHeapModelStore store = new OffHeapModelStore(ROW_LENGTH, new File(System.getProperty("java.io.tmpdir")));
+    assertTrue(store.isMapped());
+    checkStore(store);
+    // the mapped file is closed and deleted
+    store.close();
+    assertFalse(store.isMapped());
+    assertEquals(0, store.capacity());
+  }
+
+  private static void checkStore(ModelStore store) {
+    assertEquals(ROW_LENGTH, store.getRowLength());
+    int rows = 5000;
+    double[] values = new double[ROW_LENGTH + 1];
+    // the rows are written while the capacity grows
+    for (int row = 0; row < rows; row++) {
+      store.ensureCapacity(row + 1);
+      assertTrue(store.capacity() > row);
+      for (int i = 0; i < ROW_LENGTH; i++) {
+        values[i + 1] = row * ROW_LENGTH + i;
+      }
+      store.set(row, values, 1);
+    }
+    for (int row = rows - 1; row >= 0; row--) {
+      store.get(row, values, 0);
+      for (int i = 0; i < ROW_LENGTH; i++) {
+        assertEquals((double)(row * ROW_LENGTH + i), values[i]);
+      }
+    }
+    // the new rows contain zeros
+    store.ensureCapacity(store.capacity() + 1);
+    store.get(store.capacity() - 1, values, 0);
+    for (int i = 0; i < ROW_LENGTH; i++) {
+      assertEquals(0.0, values[i]);
+    }
+  }
+
+}
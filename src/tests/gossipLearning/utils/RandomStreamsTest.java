@@ -0,0 +1,63 @@
+package tests.gossipLearning.utils;
+
+import gossipLearning.utils.RandomStreams;
+
+import java.io.Serializable;
+
+import junit.framework.TestCase;
+import peersim.config.Configuration;
+import peersim.config.ParsedProperties;
+import peersim.core.CommonState;
+import peersim.util.ExtendedRandom;
+
+public class RandomStreamsTest extends TestCase implements Serializable {
+  private static final long serialVersionUID = 6201869624338924716L;
+  private static boolean isConfigured = false;
+
+  @Override
+  public void setUp() {
+    if (!isConfigured) {
+      try {
+        Configuration.setConfig(new ParsedProperties(new String[]{"res/config/no_failure_applying_more_learners_voting10.txt"}));
+      } catch (RuntimeException e) {
+        // the configuration has already been set by an other test
+      }
+      isConfigured = true;
+    }
+    CommonState.r.setSeed(1234567890);
+  }
+
+  public void testReproducible() {
+    RandomStreams a = new RandomStreams(5, 2);
+    RandomStreams b = new RandomStreams(5, 2);
+    // the streams do not depend on the order of the requests and the other purposes
+    double expected = a.get(RandomStreams.NEIGHBOR).nextDouble();
+    b.get(RandomStreams.DELAY).nextDouble();
+    assertEquals(expected, b.get(RandomStreams.NEIGHBOR).nextDouble());
+    assertSame(a.get(RandomStreams.SAMPLE), a.get(RandomStreams.SAMPLE));
+    // the streams of the purposes that are not defined here
+    assertEquals(a.get(RandomStreams.NUMBER_OF_PURPOSES + 2).nextLong(), b.get(RandomStreams.NUMBER_OF_PURPOSES + 2).nextLong());
+    // the streams do not depend on the draws of CommonState.r
+    CommonState.r.nextDouble();
+    assertEquals(new RandomStreams(5, 2).get(RandomStreams.NEIGHBOR).nextDouble(), expected);
+  }
+
+  public void testIndependent() {
+    long seed = RandomStreams.getSeed(5, 2, RandomStreams.NEIGHBOR);
+    assertTrue(seed != RandomStreams.getSeed(6, 2, RandomStreams.NEIGHBOR));
+    assertTrue(seed != RandomStreams.getSeed(5, 3, RandomStreams.NEIGHBOR));
+    assertTrue(seed != RandomStreams.getSeed(5, 2, RandomStreams.DELAY));
+    CommonState.r.setSeed(1);
+    assertTrue(seed != RandomStreams.getSeed(5, 2, RandomStreams.NEIGHBOR));
+  }
+
+  public void testCurrent() {
+    RandomStreams streams = new RandomStreams(1, 0);
+    ExtendedRandom global = RandomStreams.current(RandomStreams.MODEL);
+    assertNull(RandomStreams.setCurrent(streams));
+    assertSame(streams.get(RandomStreams.MODEL), RandomStreams.current(RandomStreams.MODEL));
+    assertSame(streams, RandomStreams.setCurrent(null));
+    assertSame(global, RandomStreams.current(RandomStreams.MODEL));
+  }
+
+}